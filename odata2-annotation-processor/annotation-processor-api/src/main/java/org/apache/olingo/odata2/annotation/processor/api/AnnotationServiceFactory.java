@@ -27,6 +27,10 @@ import org.apache.olingo.odata2.api.exception.ODataException;
  * AnnotationServiceFactory which provides an AnnotationService which handles java beans (classes)
  * annotated with annotation from <code>org.apache.olingo.olingo-odata2-api-annotation</code> module
  * (see package <code>org.apache.olingo.odata2.api.annotation.edm</code>).
+ * <p>A service for the EDM provider and value access generated at compile time by the module
+ * <code>olingo-odata2-annotation-processor-apt</code> is created with
+ * <code>AnnotationServiceFactoryImpl.createAnnotationService(AnnotationEdmProvider, ValueAccess)</code>
+ * of the core library, as the value access is defined there.</p>
  */
 public abstract class AnnotationServiceFactory {
 
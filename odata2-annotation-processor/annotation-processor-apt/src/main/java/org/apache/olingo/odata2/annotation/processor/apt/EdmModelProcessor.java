@@ -0,0 +1,490 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.apt;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+
+import org.apache.olingo.odata2.annotation.processor.core.datasource.AnnotationValueAccess;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.ValueAccess;
+import org.apache.olingo.odata2.annotation.processor.core.edm.AnnotationEdmProvider;
+import org.apache.olingo.odata2.annotation.processor.core.rt.AnnotationServiceFactoryImpl;
+import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
+
+/**
+ * <p>Annotation processor which generates two classes at compile time for the classes annotated with
+ * <code>EdmEntityType</code>, <code>EdmComplexType</code>, or <code>EdmEntitySet</code>:</p>
+ * <ul>
+ * <li><code>GeneratedEdmProvider</code>, an {@link AnnotationEdmProvider} for exactly these classes,
+ * so that the class path does not have to be scanned at runtime;</li>
+ * <li><code>GeneratedValueAccess</code>, a {@link ValueAccess} which reads and writes the properties
+ * of these classes without reflection.</li>
+ * </ul>
+ * <p>The classes are generated into the package of the annotated classes, or into the package given by the
+ * processor option <code>odata2.generatedPackage</code>.</p>
+ * <p>A property is accessed directly if its field is accessible from the generated class, otherwise through
+ * JavaBeans accessor methods with exactly the type of the field. All other properties, string values
+ * which have to be converted, and mapping values are handled by an {@link AnnotationValueAccess}.</p>
+ * <p>A service using both generated classes is created with
+ * {@link AnnotationServiceFactoryImpl#createAnnotationService(AnnotationEdmProvider, ValueAccess)}.</p>
+ */
+@SupportedAnnotationTypes({
+    "org.apache.olingo.odata2.api.annotation.edm.EdmEntityType",
+    "org.apache.olingo.odata2.api.annotation.edm.EdmComplexType",
+    "org.apache.olingo.odata2.api.annotation.edm.EdmEntitySet" })
+@SupportedOptions(EdmModelProcessor.GENERATED_PACKAGE_OPTION)
+public class EdmModelProcessor extends AbstractProcessor {
+
+  public static final String GENERATED_PACKAGE_OPTION = "odata2.generatedPackage";
+  public static final String EDM_PROVIDER_NAME = "GeneratedEdmProvider";
+  public static final String VALUE_ACCESS_NAME = "GeneratedValueAccess";
+
+  private static final String EDM_PROPERTY = "org.apache.olingo.odata2.api.edm.EdmProperty";
+  private static final String ODATA_EXCEPTION = "org.apache.olingo.odata2.api.exception.ODataException";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    final String generatedPackage = processingEnv.getOptions().get(GENERATED_PACKAGE_OPTION);
+    Map<String, Map<String, TypeElement>> package2Types = new TreeMap<String, Map<String, TypeElement>>();
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() == ElementKind.CLASS) {
+          final TypeElement type = (TypeElement) element;
+          final String packageName = generatedPackage == null ? getPackageName(type) : generatedPackage;
+          Map<String, TypeElement> types = package2Types.get(packageName);
+          if (types == null) {
+            types = new TreeMap<String, TypeElement>();
+            package2Types.put(packageName, types);
+          }
+          types.put(type.getQualifiedName().toString(), type);
+        }
+      }
+    }
+
+    for (Entry<String, Map<String, TypeElement>> entry : package2Types.entrySet()) {
+      final String packageName = entry.getKey();
+      final Collection<TypeElement> types = entry.getValue().values();
+      if (checkAccessible(packageName, types)) {
+        try {
+          writeEdmProvider(packageName, types);
+          writeValueAccess(packageName, types);
+        } catch (final IOException e) {
+          processingEnv.getMessager().printMessage(Kind.ERROR,
+              "Generation of EDM classes in package '" + packageName + "' failed: " + e.getMessage());
+        }
+      }
+    }
+
+    // Other processors may also be interested in the annotations.
+    return false;
+  }
+
+  private boolean checkAccessible(final String packageName, final Collection<TypeElement> types) {
+    boolean accessible = true;
+    for (TypeElement type : types) {
+      if (!isAccessible(type, packageName)) {
+        processingEnv.getMessager().printMessage(Kind.ERROR,
+            "Class is not accessible from the generated classes in package '" + packageName + "'.", type);
+        accessible = false;
+      }
+    }
+    return accessible;
+  }
+
+  private void writeEdmProvider(final String packageName, final Collection<TypeElement> types)
+      throws IOException {
+    PrintWriter out = createSourceFile(packageName, EDM_PROVIDER_NAME, types);
+    try {
+      out.println("/**");
+      out.println(" * {@link " + AnnotationEdmProvider.class.getName() + "} for the annotated classes"
+          + " found at compile time.");
+      out.println(" */");
+      out.println("public class " + EDM_PROVIDER_NAME + " extends " + AnnotationEdmProvider.class.getName() + " {");
+      out.println();
+      out.println("  /** The annotated classes of the model. */");
+      out.println("  public static final java.util.List<java.lang.Class<?>> ANNOTATED_CLASSES =");
+      out.println("      java.util.Collections.unmodifiableList(java.util.Arrays.<java.lang.Class<?>> asList(");
+      int index = 0;
+      for (TypeElement type : types) {
+        out.println("          " + type.getQualifiedName() + ".class" + (++index < types.size() ? "," : "));"));
+      }
+      out.println();
+      out.println("  public " + EDM_PROVIDER_NAME + "() throws " + ODATA_EXCEPTION + " {");
+      out.println("    super(ANNOTATED_CLASSES);");
+      out.println("  }");
+      out.println("}");
+    } finally {
+      out.close();
+    }
+  }
+
+  private void writeValueAccess(final String packageName, final Collection<TypeElement> types)
+      throws IOException {
+    Map<TypeElement, List<PropertyAccess>> type2Properties = new TreeMap<TypeElement, List<PropertyAccess>>(
+        new Comparator<TypeElement>() {
+          @Override
+          public int compare(final TypeElement first, final TypeElement second) {
+            return first.getQualifiedName().toString().compareTo(second.getQualifiedName().toString());
+          }
+        });
+    for (TypeElement type : types) {
+      if (!type.getModifiers().contains(Modifier.ABSTRACT)) {
+        type2Properties.put(type, getProperties(type, packageName));
+      }
+    }
+
+    PrintWriter out = createSourceFile(packageName, VALUE_ACCESS_NAME, types);
+    try {
+      out.println("/**");
+      out.println(" * {@link " + ValueAccess.class.getName() + "} for the annotated classes found at compile time.");
+      out.println(" */");
+      out.println("public class " + VALUE_ACCESS_NAME + " implements " + ValueAccess.class.getName() + " {");
+      out.println();
+      out.println("  private final " + ValueAccess.class.getName() + " fallback = new "
+          + AnnotationValueAccess.class.getName() + "();");
+
+      out.println();
+      out.println("  @Override");
+      out.println("  public <T> Object getPropertyValue(final T data, final " + EDM_PROPERTY + " property)");
+      out.println("      throws " + ODATA_EXCEPTION + " {");
+      out.println("    if (data != null) {");
+      out.println("      final String name = property.getName();");
+      String condition = "if";
+      for (Entry<TypeElement, List<PropertyAccess>> entry : type2Properties.entrySet()) {
+        List<String> statements = new ArrayList<String>();
+        for (PropertyAccess property : entry.getValue()) {
+          if (property.read != null) {
+            statements.add("if (" + property.nameCondition() + ") {");
+            statements.add("  return " + property.read + ";");
+            statements.add("}");
+          }
+        }
+        condition = writeTypeBranch(out, condition, entry.getKey(), statements, true);
+      }
+      if (!"if".equals(condition)) {
+        out.println("      }");
+      }
+      out.println("    }");
+      out.println("    return fallback.getPropertyValue(data, property);");
+      out.println("  }");
+
+      out.println();
+      out.println("  @Override");
+      out.println("  public <T, V> void setPropertyValue(final T data, final " + EDM_PROPERTY + " property,"
+          + " final V value)");
+      out.println("      throws " + ODATA_EXCEPTION + " {");
+      out.println("    if (data != null) {");
+      out.println("      final String name = property.getName();");
+      condition = "if";
+      for (Entry<TypeElement, List<PropertyAccess>> entry : type2Properties.entrySet()) {
+        List<String> statements = new ArrayList<String>();
+        for (PropertyAccess property : entry.getValue()) {
+          if (property.write != null) {
+            statements.add("if (" + property.nameCondition() + " && " + property.valueCondition() + ") {");
+            statements.add("  " + property.write + ";");
+            statements.add("  return;");
+            statements.add("}");
+          }
+        }
+        condition = writeTypeBranch(out, condition, entry.getKey(), statements, true);
+      }
+      if (!"if".equals(condition)) {
+        out.println("      }");
+      }
+      out.println("    }");
+      out.println("    fallback.setPropertyValue(data, property, value);");
+      out.println("  }");
+
+      out.println();
+      out.println("  @Override");
+      out.println("  public <T> Class<?> getPropertyType(final T data, final " + EDM_PROPERTY + " property)");
+      out.println("      throws " + ODATA_EXCEPTION + " {");
+      out.println("    if (data != null) {");
+      out.println("      final String name = property.getName();");
+      condition = "if";
+      for (Entry<TypeElement, List<PropertyAccess>> entry : type2Properties.entrySet()) {
+        List<String> statements = new ArrayList<String>();
+        for (PropertyAccess property : entry.getValue()) {
+          if (property.typeAccessible) {
+            statements.add("if (" + property.nameCondition() + ") {");
+            statements.add("  return " + property.typeName + ".class;");
+            statements.add("}");
+          }
+        }
+        condition = writeTypeBranch(out, condition, entry.getKey(), statements, false);
+      }
+      if (!"if".equals(condition)) {
+        out.println("      }");
+      }
+      out.println("    }");
+      out.println("    return fallback.getPropertyType(data, property);");
+      out.println("  }");
+
+      out.println();
+      out.println("  @Override");
+      out.println("  public <T> Object getMappingValue(final T data,"
+          + " final org.apache.olingo.odata2.api.edm.EdmMapping mapping)");
+      out.println("      throws " + ODATA_EXCEPTION + " {");
+      out.println("    return fallback.getMappingValue(data, mapping);");
+      out.println("  }");
+
+      out.println();
+      out.println("  @Override");
+      out.println("  public <T, V> void setMappingValue(final T data,"
+          + " final org.apache.olingo.odata2.api.edm.EdmMapping mapping, final V value)");
+      out.println("      throws " + ODATA_EXCEPTION + " {");
+      out.println("    fallback.setMappingValue(data, mapping, value);");
+      out.println("  }");
+      out.println("}");
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Writes the statements for the properties of a class, guarded by a check for the class of the data object.
+   * @return the keyword for the next class check
+   */
+  private String writeTypeBranch(final PrintWriter out, final String condition, final TypeElement type,
+      final List<String> statements, final boolean declareObject) {
+    if (statements.isEmpty()) {
+      return condition;
+    }
+    final String typeName = type.getQualifiedName().toString();
+    out.println("      " + ("if".equals(condition) ? "" : "} ") + condition
+        + " (data.getClass() == " + typeName + ".class) {");
+    if (declareObject) {
+      out.println("        final " + typeName + " object = (" + typeName + ") data;");
+    }
+    for (String statement : statements) {
+      out.println("        " + statement);
+    }
+    return "else if";
+  }
+
+  private PrintWriter createSourceFile(final String packageName, final String simpleName,
+      final Collection<TypeElement> types) throws IOException {
+    final String qualifiedName = packageName.length() == 0 ? simpleName : packageName + "." + simpleName;
+    PrintWriter out = new PrintWriter(processingEnv.getFiler()
+        .createSourceFile(qualifiedName, types.toArray(new Element[types.size()])).openWriter());
+    out.println("// Generated by " + getClass().getName() + " - do not edit.");
+    if (packageName.length() > 0) {
+      out.println("package " + packageName + ";");
+    }
+    out.println();
+    return out;
+  }
+
+  /**
+   * Collects the properties of a class, including inherited properties, in the same way
+   * the annotation helper finds the field for a property name at runtime.
+   */
+  private List<PropertyAccess> getProperties(final TypeElement type, final String packageName) {
+    final Types types = processingEnv.getTypeUtils();
+    final Elements elements = processingEnv.getElementUtils();
+    final List<ExecutableElement> methods = ElementFilter.methodsIn(elements.getAllMembers(type));
+    final TypeMirror stringType = elements.getTypeElement(String.class.getName()).asType();
+
+    List<PropertyAccess> properties = new ArrayList<PropertyAccess>();
+    Set<String> names = new HashSet<String>();
+    TypeElement current = type;
+    while (current != null && !current.getQualifiedName().contentEquals(Object.class.getName())) {
+      for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+        final EdmProperty annotation = field.getAnnotation(EdmProperty.class);
+        if (annotation == null) {
+          continue;
+        }
+        final String name = annotation.name().length() == 0 ? getCanonicalName(field) : annotation.name();
+        if (!names.add(name)) {
+          continue;
+        }
+
+        final TypeMirror fieldType = field.asType();
+        PropertyAccess property = new PropertyAccess(name);
+        property.typeAccessible = fieldType.getKind() != TypeKind.TYPEVAR && isAccessible(fieldType, packageName);
+        property.typeName = types.erasure(fieldType).toString();
+        final String declaringClass = current == type ? "object" : "((" + current.getQualifiedName() + ") object)";
+        final Set<Modifier> modifiers = field.getModifiers();
+        final boolean fieldAccessible = !modifiers.contains(Modifier.STATIC)
+            && isAccessible(current, packageName)
+            && (modifiers.contains(Modifier.PUBLIC)
+            || !modifiers.contains(Modifier.PRIVATE) && getPackageName(current).equals(packageName));
+
+        final String capitalizedName = Character.toUpperCase(field.getSimpleName().charAt(0))
+            + field.getSimpleName().toString().substring(1);
+        if (fieldAccessible) {
+          property.read = declaringClass + "." + field.getSimpleName();
+        } else {
+          final ExecutableElement getter = findAccessor(methods, fieldType,
+              (fieldType.getKind() == TypeKind.BOOLEAN ? "is" : "get") + capitalizedName, 0);
+          if (getter != null) {
+            property.read = "object." + getter.getSimpleName() + "()";
+          }
+        }
+
+        if (property.typeAccessible) {
+          final String castValue = "(" + getInstanceTypeName(fieldType) + ") value";
+          if (fieldAccessible && !modifiers.contains(Modifier.FINAL)) {
+            property.write = declaringClass + "." + field.getSimpleName() + " = " + castValue;
+          } else {
+            final ExecutableElement setter = findAccessor(methods, fieldType, "set" + capitalizedName, 1);
+            if (setter != null) {
+              property.write = "object." + setter.getSimpleName() + "(" + castValue + ")";
+            }
+          }
+          property.instanceTypeName = getInstanceTypeName(fieldType);
+          property.nullable = !fieldType.getKind().isPrimitive();
+          property.stringAssignable = !types.isSameType(types.erasure(fieldType), stringType)
+              && types.isAssignable(stringType, types.erasure(fieldType));
+        }
+
+        properties.add(property);
+      }
+
+      final TypeMirror superclass = current.getSuperclass();
+      current = superclass.getKind() == TypeKind.DECLARED ?
+          (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+    return properties;
+  }
+
+  private ExecutableElement findAccessor(final List<ExecutableElement> methods, final TypeMirror fieldType,
+      final String name, final int parameterCount) {
+    final Types types = processingEnv.getTypeUtils();
+    for (ExecutableElement method : methods) {
+      if (method.getSimpleName().contentEquals(name)
+          && method.getModifiers().contains(Modifier.PUBLIC)
+          && !method.getModifiers().contains(Modifier.STATIC)
+          && method.getParameters().size() == parameterCount
+          && types.isSameType(parameterCount == 0 ? method.getReturnType() : method.getParameters().get(0).asType(),
+              fieldType)) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  private String getInstanceTypeName(final TypeMirror type) {
+    final Types types = processingEnv.getTypeUtils();
+    return type.getKind().isPrimitive() ?
+        types.boxedClass((PrimitiveType) type).getQualifiedName().toString() :
+        types.erasure(type).toString();
+  }
+
+  private boolean isAccessible(final TypeMirror type, final String packageName) {
+    if (type.getKind().isPrimitive()) {
+      return true;
+    } else if (type.getKind() == TypeKind.ARRAY) {
+      return isAccessible(((ArrayType) type).getComponentType(), packageName);
+    } else if (type.getKind() == TypeKind.DECLARED) {
+      return isAccessible(((DeclaredType) type).asElement(), packageName);
+    }
+    return false;
+  }
+
+  private boolean isAccessible(final Element type, final String packageName) {
+    Element current = type;
+    while (current.getKind().isClass() || current.getKind().isInterface()) {
+      final Set<Modifier> modifiers = current.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE)
+          || !modifiers.contains(Modifier.PUBLIC) && !getPackageName(current).equals(packageName)) {
+        return false;
+      }
+      current = current.getEnclosingElement();
+    }
+    return true;
+  }
+
+  private String getPackageName(final Element element) {
+    return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+  }
+
+  private String getCanonicalName(final VariableElement field) {
+    final String name = field.getSimpleName().toString();
+    return name.substring(0, 1).toUpperCase(Locale.ENGLISH) + name.substring(1);
+  }
+
+  /** Generated code for the access to one property. */
+  private static class PropertyAccess {
+    final String name;
+    String typeName;
+    String instanceTypeName;
+    boolean typeAccessible;
+    boolean nullable;
+    boolean stringAssignable;
+    String read;
+    String write;
+
+    PropertyAccess(final String name) {
+      this.name = name;
+    }
+
+    String nameCondition() {
+      return "\"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\".equals(name)";
+    }
+
+    /**
+     * Values of other types, including strings which have to be converted into the field type,
+     * are left to the fallback.
+     */
+    String valueCondition() {
+      String condition = "value instanceof " + instanceTypeName;
+      if (stringAssignable) {
+        condition += " && !(value instanceof java.lang.String)";
+      }
+      return nullable ? "(value == null || " + condition + ")" : condition;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.apt;
+
+import java.util.Arrays;
+
+import org.apache.olingo.odata2.annotation.processor.apt.model.Building;
+import org.apache.olingo.odata2.annotation.processor.apt.model.GeneratedEdmProvider;
+import org.apache.olingo.odata2.annotation.processor.apt.model.GeneratedValueAccess;
+import org.apache.olingo.odata2.annotation.processor.apt.model.Location;
+import org.apache.olingo.odata2.annotation.processor.apt.model.Room;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.AnnotationValueAccess;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.ValueAccess;
+import org.apache.olingo.odata2.annotation.processor.core.edm.AnnotationEdmProvider;
+import org.apache.olingo.odata2.annotation.processor.core.rt.AnnotationServiceFactoryImpl;
+import org.apache.olingo.odata2.api.ODataService;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.FullQualifiedName;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Tests the classes generated for the test model during test compilation.
+ */
+public class EdmModelProcessorTest {
+
+  private final ValueAccess valueAccess = new GeneratedValueAccess();
+
+  @Test
+  public void edmProviderForAnnotatedClasses() throws Exception {
+    Assert.assertEquals(Arrays.<Class<?>> asList(Building.class, Location.class, Room.class),
+        GeneratedEdmProvider.ANNOTATED_CLASSES);
+
+    final AnnotationEdmProvider expected = new AnnotationEdmProvider(Building.class.getPackage().getName());
+    final GeneratedEdmProvider provider = new GeneratedEdmProvider();
+    Assert.assertEquals(expected.getSchemas().size(), provider.getSchemas().size());
+    Assert.assertNotNull(provider.getEntitySet("DefaultContainer", "Rooms"));
+    Assert.assertEquals(3, provider.getEntityType(new FullQualifiedName("RefScenario", "Room")).getProperties().size());
+  }
+
+  @Test
+  public void accessProperties() throws Exception {
+    Building building = new Building();
+    valueAccess.setPropertyValue(building, mockProperty("Id"), "1");
+    valueAccess.setPropertyValue(building, mockProperty("BuildingName"), "Main Building");
+    Assert.assertEquals("1", building.getId());
+    Assert.assertEquals("Main Building", valueAccess.getPropertyValue(building, mockProperty("BuildingName")));
+    Assert.assertEquals(String.class, valueAccess.getPropertyType(building, mockProperty("BuildingName")));
+    Assert.assertEquals(Location.class, valueAccess.getPropertyType(building, mockProperty("Location")));
+
+    Location location = new Location();
+    valueAccess.setPropertyValue(location, mockProperty("City"), "Walldorf");
+    building.setLocation(location);
+    Assert.assertSame(location, valueAccess.getPropertyValue(building, mockProperty("Location")));
+    Assert.assertEquals("Walldorf", valueAccess.getPropertyValue(location, mockProperty("City")));
+  }
+
+  @Test
+  public void accessLikeAnnotationValueAccess() throws Exception {
+    final ValueAccess annotationValueAccess = new AnnotationValueAccess();
+    Room room = new Room();
+    valueAccess.setPropertyValue(room, mockProperty("Version"), 3);
+    Assert.assertEquals(3, annotationValueAccess.getPropertyValue(room, mockProperty("Version")));
+
+    // the getter of the field with a different type is not used, so null is supported
+    Assert.assertNull(valueAccess.getPropertyValue(room, mockProperty("Seats")));
+    valueAccess.setPropertyValue(room, mockProperty("Seats"), 12);
+    Assert.assertEquals(12, valueAccess.getPropertyValue(room, mockProperty("Seats")));
+    Assert.assertEquals(Integer.class, valueAccess.getPropertyType(room, mockProperty("Seats")));
+    Assert.assertEquals(int.class, valueAccess.getPropertyType(room, mockProperty("Version")));
+
+    Assert.assertNull(valueAccess.getPropertyValue(null, mockProperty("Version")));
+  }
+
+  @Test
+  public void serviceForGeneratedClasses() throws Exception {
+    final ODataService service =
+        new AnnotationServiceFactoryImpl().createAnnotationService(new GeneratedEdmProvider(), valueAccess);
+    Assert.assertNotNull(service.getEntityDataModel().getDefaultEntityContainer().getEntitySet("Rooms"));
+  }
+
+  @Test(expected = ODataException.class)
+  public void notAnnotatedClass() throws Exception {
+    valueAccess.getPropertyValue("data", mockProperty("Version"));
+  }
+
+  private EdmProperty mockProperty(final String name) throws Exception {
+    EdmProperty property = Mockito.mock(EdmProperty.class);
+    Mockito.when(property.getName()).thenReturn(name);
+    return property;
+  }
+}
@@ -32,11 +32,15 @@ import java.util.Map.Entry;
 
 import org.apache.olingo.odata2.annotation.processor.core.datasource.DataSource;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.DataSource.BinaryData;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.EntitySetQuery;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.QueryResult;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.QueryableDataSource;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.ValueAccess;
 import org.apache.olingo.odata2.api.ODataCallback;
 import org.apache.olingo.odata2.api.batch.BatchHandler;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.batch.ConcurrentBatchHandler;
 import org.apache.olingo.odata2.api.commons.HttpContentType;
 import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
 import org.apache.olingo.odata2.api.commons.InlineCount;
@@ -133,29 +137,18 @@ public class ListsProcessor extends DataSourceProcessor {
   @Override
   public ODataResponse readEntitySet(final GetEntitySetUriInfo uriInfo, final String contentType)
       throws ODataException {
-    ArrayList<Object> data = new ArrayList<Object>();
-    try {
-      data.addAll((List<?>) retrieveData(
-          uriInfo.getStartEntitySet(),
-          uriInfo.getKeyPredicates(),
-          uriInfo.getFunctionImport(),
-          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-          uriInfo.getNavigationSegments()));
-    } catch (final ODataNotFoundException e) {
-      data.clear();
-    }
-
     final EdmEntitySet entitySet = uriInfo.getTargetEntitySet();
     final InlineCount inlineCountType = uriInfo.getInlineCount();
-    final Integer count = applySystemQueryOptions(
-        entitySet,
-        data,
-        uriInfo.getFilter(),
-        inlineCountType,
-        uriInfo.getOrderBy(),
-        uriInfo.getSkipToken(),
-        uriInfo.getSkip(),
-        uriInfo.getTop());
+    final QueryResult result = readEntitySetData(
+        uriInfo.getStartEntitySet(),
+        uriInfo.getKeyPredicates(),
+        uriInfo.getFunctionImport(),
+        uriInfo.getFunctionImportParameters(),
+        uriInfo.getNavigationSegments(),
+        createQuery(entitySet, uriInfo.getFilter(), inlineCountType, uriInfo.getOrderBy(),
+            uriInfo.getSkipToken(), uriInfo.getSkip(), uriInfo.getTop()));
+    final List<Object> data = new ArrayList<Object>(result.getData());
+    final Integer count = inlineCountType == InlineCount.ALLPAGES ? result.getCount() : null;
 
     ODataContext context = getContext();
     String nextLink = null;
@@ -170,7 +163,7 @@ public class ListsProcessor extends DataSourceProcessor {
           && uriInfo.getSkipToken() == null
           && uriInfo.getSkip() == null
           && uriInfo.getTop() == null) {
-        sortInDefaultOrder(entitySet, data);
+        Collections.sort(data, getDefaultOrderComparator(entitySet));
       }
 
       nextLink = context.getPathInfo().getServiceRoot().relativize(context.getPathInfo().getRequestUri()).toString();
@@ -178,9 +171,7 @@ public class ListsProcessor extends DataSourceProcessor {
       nextLink += (nextLink.contains("?") ? "&" : "?")
           + "$skiptoken=" + getSkipToken(entitySet, data.get(SERVER_PAGING_SIZE));
 
-      while (data.size() > SERVER_PAGING_SIZE) {
-        data.remove(SERVER_PAGING_SIZE);
-      }
+      data.subList(SERVER_PAGING_SIZE, data.size()).clear();
     }
 
     final EdmEntityType entityType = entitySet.getEntityType();
@@ -219,55 +210,32 @@ public class ListsProcessor extends DataSourceProcessor {
   @Override
   public ODataResponse countEntitySet(final GetEntitySetCountUriInfo uriInfo, final String contentType)
       throws ODataException {
-    ArrayList<Object> data = new ArrayList<Object>();
-    try {
-      data.addAll((List<?>) retrieveData(
-          uriInfo.getStartEntitySet(),
-          uriInfo.getKeyPredicates(),
-          uriInfo.getFunctionImport(),
-          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-          uriInfo.getNavigationSegments()));
-    } catch (final ODataNotFoundException e) {
-      data.clear();
-    }
+    final QueryResult result = readEntitySetData(
+        uriInfo.getStartEntitySet(),
+        uriInfo.getKeyPredicates(),
+        uriInfo.getFunctionImport(),
+        uriInfo.getFunctionImportParameters(),
+        uriInfo.getNavigationSegments(),
+        createQuery(uriInfo.getTargetEntitySet(), uriInfo.getFilter(), null, null,
+            null, uriInfo.getSkip(), uriInfo.getTop()));
 
-    applySystemQueryOptions(
-        uriInfo.getTargetEntitySet(),
-        data,
-        uriInfo.getFilter(),
-        null,
-        null,
-        null,
-        uriInfo.getSkip(),
-        uriInfo.getTop());
-
-    return ODataResponse.fromResponse(EntityProvider.writeText(String.valueOf(data.size()))).build();
+    return ODataResponse.fromResponse(EntityProvider.writeText(String.valueOf(result.getData().size()))).build();
   }
 
   @Override
   public ODataResponse readEntityLinks(final GetEntitySetLinksUriInfo uriInfo, final String contentType)
       throws ODataException {
-    ArrayList<Object> data = new ArrayList<Object>();
-    try {
-      data.addAll((List<?>) retrieveData(
-          uriInfo.getStartEntitySet(),
-          uriInfo.getKeyPredicates(),
-          uriInfo.getFunctionImport(),
-          mapFunctionParameters(uriInfo.getFunctionImportParameters()),
-          uriInfo.getNavigationSegments()));
-    } catch (final ODataNotFoundException e) {
-      data.clear();
-    }
-
-    final Integer count = applySystemQueryOptions(
-        uriInfo.getTargetEntitySet(),
-        data,
-        uriInfo.getFilter(),
-        uriInfo.getInlineCount(),
-        null, // uriInfo.getOrderBy(),
-        uriInfo.getSkipToken(),
-        uriInfo.getSkip(),
-        uriInfo.getTop());
+    final QueryResult result = readEntitySetData(
+        uriInfo.getStartEntitySet(),
+        uriInfo.getKeyPredicates(),
+        uriInfo.getFunctionImport(),
+        uriInfo.getFunctionImportParameters(),
+        uriInfo.getNavigationSegments(),
+        createQuery(uriInfo.getTargetEntitySet(), uriInfo.getFilter(), uriInfo.getInlineCount(),
+            null, // uriInfo.getOrderBy(),
+            uriInfo.getSkipToken(), uriInfo.getSkip(), uriInfo.getTop()));
+    final List<?> data = result.getData();
+    final Integer count = uriInfo.getInlineCount() == InlineCount.ALLPAGES ? result.getCount() : null;
 
     final EdmEntitySet entitySet = uriInfo.getTargetEntitySet();
 
@@ -1172,50 +1140,107 @@ public class ListsProcessor extends DataSourceProcessor {
     }
   }
 
-  private <T> Integer applySystemQueryOptions(final EdmEntitySet entitySet, final List<T> data,
-      final FilterExpression filter, final InlineCount inlineCount, final OrderByExpression orderBy,
-      final String skipToken, final Integer skip, final Integer top) throws ODataException {
+  private EntitySetQuery createQuery(final EdmEntitySet entitySet, final FilterExpression filter,
+      final InlineCount inlineCount, final OrderByExpression orderBy,
+      final String skipToken, final Integer skip, final Integer top) {
+    final boolean ordered = orderBy != null || skipToken != null || skip != null || top != null;
+    return new EntitySetQuery(filter, orderBy, skipToken, skip, top, inlineCount, new EntitySetQuery.Evaluator() {
+      @Override
+      public boolean matches(final Object data) throws ODataException {
+        return filter == null || appliesFilter(data, filter);
+      }
+
+      @Override
+      public Comparator<Object> getComparator() {
+        return orderBy == null ?
+            ordered ? getDefaultOrderComparator(entitySet) : null :
+            getOrderComparator(orderBy);
+      }
+
+      @Override
+      public String getSkipToken(final Object data) throws ODataException {
+        return ListsProcessor.this.getSkipToken(entitySet, data);
+      }
+    });
+  }
+
+  /**
+   * Reads the data of the target entity set with the system query options applied.
+   * Entity sets addressed directly are handed over to a {@link QueryableDataSource}, if available.
+   */
+  private QueryResult readEntitySetData(final EdmEntitySet startEntitySet, final List<KeyPredicate> keyPredicates,
+      final EdmFunctionImport functionImport, final Map<String, EdmLiteral> functionImportParameters,
+      final List<NavigationSegment> navigationSegments, final EntitySetQuery query) throws ODataException {
+    if (dataSource instanceof QueryableDataSource
+        && functionImport == null && keyPredicates.isEmpty() && navigationSegments.isEmpty()) {
+      ODataContext context = getContext();
+      final int timingHandle = context.startRuntimeMeasurement(getClass().getSimpleName(), "queryData");
+      try {
+        final QueryResult result = ((QueryableDataSource) dataSource).readData(startEntitySet, query);
+        if (result != null) {
+          return result;
+        }
+      } catch (final ODataNotFoundException e) {
+        return new QueryResult(Collections.emptyList(), 0);
+      } finally {
+        context.stopRuntimeMeasurement(timingHandle);
+      }
+    }
+
+    ArrayList<Object> data = new ArrayList<Object>();
+    try {
+      data.addAll((List<?>) retrieveData(
+          startEntitySet,
+          keyPredicates,
+          functionImport,
+          mapFunctionParameters(functionImportParameters),
+          navigationSegments));
+    } catch (final ODataNotFoundException e) {
+      data.clear();
+    }
+
+    final int count = applySystemQueryOptions(data, query);
+    return new QueryResult(data, count);
+  }
+
+  private <T> int applySystemQueryOptions(final List<T> data, final EntitySetQuery query) throws ODataException {
     ODataContext context = getContext();
     final int timingHandle = context.startRuntimeMeasurement(getClass().getSimpleName(), "applySystemQueryOptions");
 
-    if (filter != null) {
+    if (query.getFilter() != null) {
       // Remove all elements the filter does not apply for.
       // A for-each loop would not work with "remove", see Java documentation.
       for (Iterator<T> iterator = data.iterator(); iterator.hasNext();) {
-        if (!appliesFilter(iterator.next(), filter)) {
+        if (!query.matches(iterator.next())) {
           iterator.remove();
         }
       }
     }
 
-    final Integer count = inlineCount == InlineCount.ALLPAGES ? data.size() : null;
+    final int count = data.size();
 
-    if (orderBy != null) {
-      sort(data, orderBy);
-    } else if (skipToken != null || skip != null || top != null) {
-      sortInDefaultOrder(entitySet, data);
+    final Comparator<Object> comparator = query.getComparator();
+    if (comparator != null) {
+      Collections.sort(data, comparator);
     }
 
+    final String skipToken = query.getSkipToken();
     if (skipToken != null) {
-      while (!data.isEmpty() && !getSkipToken(entitySet, data.get(0)).equals(skipToken)) {
-        data.remove(0);
+      int index = 0;
+      while (index < data.size() && !query.getSkipToken(data.get(index)).equals(skipToken)) {
+        index++;
       }
+      data.subList(0, index).clear();
     }
 
+    final Integer skip = query.getSkip();
     if (skip != null) {
-      if (skip >= data.size()) {
-        data.clear();
-      } else {
-        for (int i = 0; i < skip; i++) {
-          data.remove(0);
-        }
-      }
+      data.subList(0, Math.min(skip, data.size())).clear();
     }
 
-    if (top != null) {
-      while (data.size() > top) {
-        data.remove(top.intValue());
-      }
+    final Integer top = query.getTop();
+    if (top != null && data.size() > top) {
+      data.subList(top, data.size()).clear();
     }
 
     context.stopRuntimeMeasurement(timingHandle);
@@ -1223,10 +1248,10 @@ public class ListsProcessor extends DataSourceProcessor {
     return count;
   }
 
-  private <T> void sort(final List<T> data, final OrderByExpression orderBy) {
-    Collections.sort(data, new Comparator<T>() {
+  private Comparator<Object> getOrderComparator(final OrderByExpression orderBy) {
+    return new Comparator<Object>() {
       @Override
-      public int compare(final T entity1, final T entity2) {
+      public int compare(final Object entity1, final Object entity2) {
         try {
           int result = 0;
           for (final OrderExpression expression : orderBy.getOrders()) {
@@ -1254,20 +1279,20 @@ public class ListsProcessor extends DataSourceProcessor {
           return 0;
         }
       }
-    });
+    };
   }
 
-  private <T> void sortInDefaultOrder(final EdmEntitySet entitySet, final List<T> data) {
-    Collections.sort(data, new Comparator<T>() {
+  private Comparator<Object> getDefaultOrderComparator(final EdmEntitySet entitySet) {
+    return new Comparator<Object>() {
       @Override
-      public int compare(final T entity1, final T entity2) {
+      public int compare(final Object entity1, final Object entity2) {
         try {
           return getSkipToken(entitySet, entity1).compareTo(getSkipToken(entitySet, entity2));
         } catch (final ODataException e) {
           return 0;
         }
       }
-    });
+    };
   }
 
   private <T> boolean appliesFilter(final T data, final FilterExpression filter) throws ODataException {
@@ -1647,12 +1672,18 @@ public class ListsProcessor extends DataSourceProcessor {
   public ODataResponse executeBatch(final BatchHandler handler, final String contentType, final InputStream content)
       throws ODataException {
     ODataResponse batchResponse;
-    List<BatchResponsePart> batchResponseParts = new ArrayList<BatchResponsePart>();
     PathInfo pathInfo = getContext().getPathInfo();
     EntityProviderBatchProperties batchProperties = EntityProviderBatchProperties.init().pathInfo(pathInfo).build();
     List<BatchRequestPart> batchParts = EntityProvider.parseBatchRequest(contentType, content, batchProperties);
-    for (BatchRequestPart batchPart : batchParts) {
-      batchResponseParts.add(handler.handleBatchPart(batchPart));
+    List<BatchResponsePart> batchResponseParts;
+    if (handler instanceof ConcurrentBatchHandler) {
+      // The processor does not keep state between the query operations, so they may run concurrently.
+      batchResponseParts = ((ConcurrentBatchHandler) handler).handleBatchParts(batchParts);
+    } else {
+      batchResponseParts = new ArrayList<BatchResponsePart>();
+      for (BatchRequestPart batchPart : batchParts) {
+        batchResponseParts.add(handler.handleBatchPart(batchPart));
+      }
     }
     batchResponse = EntityProvider.writeBatchResponse(batchResponseParts);
     return batchResponse;
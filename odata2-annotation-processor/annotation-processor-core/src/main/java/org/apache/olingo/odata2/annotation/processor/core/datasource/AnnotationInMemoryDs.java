@@ -16,11 +16,14 @@ package org.apache.olingo.odata2.annotation.processor.core.datasource;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 
 import org.apache.olingo.odata2.annotation.processor.core.datasource.DataStore.DataStoreException;
 import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationHelper;
@@ -34,13 +37,23 @@ import org.apache.olingo.odata2.api.annotation.edm.EdmNavigationProperty;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmFunctionImport;
+import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
 import org.apache.olingo.odata2.api.edm.EdmMultiplicity;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleType;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeException;
 import org.apache.olingo.odata2.api.exception.ODataApplicationException;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.exception.ODataNotFoundException;
 import org.apache.olingo.odata2.api.exception.ODataNotImplementedException;
+import org.apache.olingo.odata2.api.uri.expression.BinaryExpression;
+import org.apache.olingo.odata2.api.uri.expression.BinaryOperator;
+import org.apache.olingo.odata2.api.uri.expression.CommonExpression;
+import org.apache.olingo.odata2.api.uri.expression.ExpressionKind;
+import org.apache.olingo.odata2.api.uri.expression.LiteralExpression;
+import org.apache.olingo.odata2.api.uri.expression.PropertyExpression;
 
-public class AnnotationInMemoryDs implements DataSource {
+public class AnnotationInMemoryDs implements QueryableDataSource {
 
   private static final AnnotationHelper ANNOTATION_HELPER = new AnnotationHelper();
   private final Map<String, DataStore<Object>> dataStores = new HashMap<String, DataStore<Object>>();
@@ -108,6 +121,185 @@ public class AnnotationInMemoryDs implements DataSource {
     throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
   }
 
+  /**
+   * Applies the system query options in one pass over a snapshot of the data store.
+   * If the filter compares an indexed property with a literal, only the candidates from the index are checked.
+   * If only the first <code>$skip + $top</code> entities in the requested order are needed,
+   * they are kept in a bounded heap instead of sorting all entities satisfying the filter.
+   */
+  @Override
+  public QueryResult readData(final EdmEntitySet entitySet, final EntitySetQuery query) throws ODataException {
+    final DataStore<Object> store = getDataStore(entitySet);
+    final List<Object> candidates =
+        query.getFilter() == null ? null : readIndexedData(store, query.getFilter().getExpression());
+    final Object[] snapshot = candidates == null ? store.read().toArray() : candidates.toArray();
+    final Comparator<Object> comparator = query.getComparator();
+    final int skip = query.getSkip() == null ? 0 : query.getSkip();
+    final Integer top = query.getTop();
+
+    if (comparator == null || top == null || query.getSkipToken() != null) {
+      List<Object> data = new ArrayList<Object>();
+      for (final Object object : snapshot) {
+        if (query.matches(object)) {
+          data.add(object);
+        }
+      }
+      final int count = data.size();
+      if (comparator != null) {
+        Collections.sort(data, comparator);
+      }
+      int from = 0;
+      if (query.getSkipToken() != null) {
+        while (from < data.size() && !query.getSkipToken(data.get(from)).equals(query.getSkipToken())) {
+          from++;
+        }
+      }
+      from = (int) Math.min((long) from + skip, data.size());
+      final int to = top == null ? data.size() : (int) Math.min((long) from + top, data.size());
+      return new QueryResult(data.subList(from, to), count);
+    }
+
+    final int limit = (int) Math.min((long) skip + top, snapshot.length);
+    final Comparator<RankedObject> order = new RankedObjectComparator(comparator);
+    final PriorityQueue<RankedObject> heap =
+        new PriorityQueue<RankedObject>(Math.max(limit, 1), Collections.reverseOrder(order));
+    int count = 0;
+    for (final Object object : snapshot) {
+      if (query.matches(object)) {
+        final RankedObject candidate = new RankedObject(object, count++);
+        if (heap.size() < limit) {
+          heap.add(candidate);
+        } else if (limit > 0 && order.compare(candidate, heap.peek()) < 0) {
+          heap.poll();
+          heap.add(candidate);
+        }
+      }
+    }
+
+    Object[] data = new Object[heap.size()];
+    for (int index = data.length - 1; index >= 0; index--) {
+      data[index] = heap.poll().object;
+    }
+    return new QueryResult(Arrays.asList(data).subList(Math.min(skip, data.length), data.length), count);
+  }
+
+  /**
+   * Read the candidates for a filter expression from an index of the data store.
+   * Only comparisons of an indexed property with a literal are supported (also as part of an <code>and</code>);
+   * the candidates are a superset of the data objects the filter applies for.
+   * 
+   * @return the candidates or <code>null</code> if no index can be used
+   */
+  private List<Object> readIndexedData(final DataStore<Object> store, final CommonExpression expression)
+      throws EdmException {
+    if (expression.getKind() != ExpressionKind.BINARY) {
+      return null;
+    }
+    final BinaryExpression binaryExpression = (BinaryExpression) expression;
+    BinaryOperator operator = binaryExpression.getOperator();
+    CommonExpression propertyExpression = binaryExpression.getLeftOperand();
+    CommonExpression literalExpression = binaryExpression.getRightOperand();
+    if (operator == BinaryOperator.AND) {
+      final List<Object> data = readIndexedData(store, propertyExpression);
+      return data == null ? readIndexedData(store, literalExpression) : data;
+    } else if (propertyExpression.getKind() == ExpressionKind.LITERAL
+        && literalExpression.getKind() == ExpressionKind.PROPERTY) {
+      propertyExpression = binaryExpression.getRightOperand();
+      literalExpression = binaryExpression.getLeftOperand();
+      operator = swapOperands(operator);
+    }
+    if (propertyExpression.getKind() != ExpressionKind.PROPERTY
+        || literalExpression.getKind() != ExpressionKind.LITERAL
+        || !(((PropertyExpression) propertyExpression).getEdmProperty() instanceof EdmProperty)) {
+      return null;
+    }
+
+    final EdmProperty property = (EdmProperty) ((PropertyExpression) propertyExpression).getEdmProperty();
+    final Class<?> type = store.getIndexedType(property.getName());
+    if (type == null) {
+      return null;
+    }
+    final Object value = getIndexValue(property, (LiteralExpression) literalExpression, type);
+    if (value == null) {
+      return null;
+    }
+
+    switch (operator) {
+    case EQ:
+      return store.readIndexed(property.getName(), value, true, value, true);
+    case LT:
+      return store.readIndexed(property.getName(), null, false, value, false);
+    case LE:
+      return store.readIndexed(property.getName(), null, false, value, true);
+    case GT:
+      return store.readIndexed(property.getName(), value, false, null, false);
+    case GE:
+      return store.readIndexed(property.getName(), value, true, null, false);
+    default:
+      return null;
+    }
+  }
+
+  private static BinaryOperator swapOperands(final BinaryOperator operator) {
+    switch (operator) {
+    case LT:
+      return BinaryOperator.GT;
+    case LE:
+      return BinaryOperator.GE;
+    case GT:
+      return BinaryOperator.LT;
+    case GE:
+      return BinaryOperator.LE;
+    default:
+      return operator;
+    }
+  }
+
+  /**
+   * Convert the literal to the type of the indexed property, in the same way the literal is compared
+   * with the property values (i.e., through its default literal representation).
+   * 
+   * @return the converted value or <code>null</code> if the literal is <code>null</code> or cannot be converted
+   */
+  private Object getIndexValue(final EdmProperty property, final LiteralExpression literal, final Class<?> type)
+      throws EdmException {
+    try {
+      final EdmSimpleType literalType = (EdmSimpleType) literal.getEdmType();
+      final String value = literalType.valueToString(literalType.valueOfString(literal.getUriLiteral(),
+          EdmLiteralKind.URI, null, literalType.getDefaultType()),
+          EdmLiteralKind.DEFAULT, null);
+      return ((EdmSimpleType) property.getType()).valueOfString(value, EdmLiteralKind.DEFAULT,
+          property.getFacets(), type);
+    } catch (final EdmSimpleTypeException e) {
+      return null;
+    }
+  }
+
+  /** Data object together with its position, to keep the order of equal objects stable. */
+  private static class RankedObject {
+    private final Object object;
+    private final int position;
+
+    public RankedObject(final Object object, final int position) {
+      this.object = object;
+      this.position = position;
+    }
+  }
+
+  private static class RankedObjectComparator implements Comparator<RankedObject> {
+    private final Comparator<Object> comparator;
+
+    public RankedObjectComparator(final Comparator<Object> comparator) {
+      this.comparator = comparator;
+    }
+
+    @Override
+    public int compare(final RankedObject first, final RankedObject second) {
+      final int result = comparator.compare(first.object, second.object);
+      return result == 0 ? first.position - second.position : result;
+    }
+  }
+
   @Override
   public Object readData(final EdmEntitySet entitySet, final Map<String, Object> keys)
       throws ODataNotFoundException, EdmException, ODataApplicationException {
@@ -176,14 +368,16 @@ public class AnnotationInMemoryDs implements DataSource {
     }
 
     List<Object> resultData = new ArrayList<Object>();
-    for (Object targetInstance : targetStore.read()) {
-      if (navigationInstance instanceof Collection) {
-        for (Object object : (Collection<?>) navigationInstance) {
-          if (targetStore.isKeyEqualChecked(targetInstance, object)) {
-            resultData.add(targetInstance);
-          }
+    if (navigationInstance instanceof Collection) {
+      for (Object object : (Collection<?>) navigationInstance) {
+        final Object targetInstance = targetStore.readChecked(object);
+        if (targetInstance != null) {
+          resultData.add(targetInstance);
         }
-      } else if (targetStore.isKeyEqualChecked(targetInstance, navigationInstance)) {
+      }
+    } else {
+      final Object targetInstance = targetStore.readChecked(navigationInstance);
+      if (targetInstance != null) {
         resultData.add(targetInstance);
       }
     }
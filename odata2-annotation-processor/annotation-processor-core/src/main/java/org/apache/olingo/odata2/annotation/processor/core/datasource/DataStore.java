@@ -19,7 +19,10 @@
 package org.apache.olingo.odata2.annotation.processor.core.datasource;
 
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -27,34 +30,57 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationHelper;
 import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationRuntimeException;
-import org.apache.olingo.odata2.annotation.processor.core.util.ClassHelper;
 import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
+import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
 import org.apache.olingo.odata2.api.exception.ODataApplicationException;
 
 /**
- *
+ * <p>In-memory store for the instances of an annotated class, identified by their key values.</p>
+ * <p>Single instances are read from a {@link ConcurrentHashMap} without locking. All instances are read
+ * from a snapshot; only the first read after a modification takes the lock to create a new snapshot.
+ * Modifications are serialized so that the snapshot and the property indexes are consistent with the
+ * stored instances.</p>
  */
 public class DataStore<T> {
 
   private static final AnnotationHelper ANNOTATION_HELPER = new AnnotationHelper();
-  private final Map<KeyElement, T> dataStore;
+  private static final List<Class<?>> INDEXABLE_TYPES = Arrays.<Class<?>> asList(
+      String.class, Byte.class, Short.class, Integer.class, Long.class, BigInteger.class, BigDecimal.class);
+  private final ConcurrentMap<KeyElement, T> dataStore = new ConcurrentHashMap<KeyElement, T>();
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private volatile List<T> snapshot = Collections.emptyList();
   private final Class<T> dataTypeClass;
   private final KeyAccess keyAccess;
+  private final Map<String, PropertyIndex> indexes;
 
   private static class InMemoryDataStore {
-    private static final Map<Class<?>, DataStore<?>> c2ds = new HashMap<Class<?>, DataStore<?>>();
+    private static final ConcurrentMap<Class<?>, DataStore<?>> c2ds =
+        new ConcurrentHashMap<Class<?>, DataStore<?>>();
 
     @SuppressWarnings("unchecked")
-    static synchronized DataStore<?> getInstance(final Class<?> clz, final boolean createNewInstance)
+    static DataStore<?> getInstance(final Class<?> clz, final boolean createNewInstance)
         throws DataStoreException {
+      if (createNewInstance) {
+        final DataStore<?> ds = new DataStore<Object>((Class<Object>) clz);
+        c2ds.put(clz, ds);
+        return ds;
+      }
       DataStore<?> ds = c2ds.get(clz);
-      if (createNewInstance || ds == null) {
+      if (ds == null) {
         ds = new DataStore<Object>((Class<Object>) clz);
-        c2ds.put(clz, ds);
+        final DataStore<?> existing = c2ds.putIfAbsent(clz, ds);
+        if (existing != null) {
+          ds = existing;
+        }
       }
       return ds;
     }
@@ -71,14 +97,10 @@ public class DataStore<T> {
     return (DataStore<T>) InMemoryDataStore.getInstance(clazz, !keepExisting);
   }
 
-  private DataStore(final Map<KeyElement, T> wrapStore, final Class<T> clz) throws DataStoreException {
-    dataStore = Collections.synchronizedMap(wrapStore);
+  private DataStore(final Class<T> clz) throws DataStoreException {
     dataTypeClass = clz;
     keyAccess = new KeyAccess(clz);
-  }
-
-  private DataStore(final Class<T> clz) throws DataStoreException {
-    this(new HashMap<KeyElement, T>(), clz);
+    indexes = createIndexes(clz);
   }
 
   public Class<T> getDataTypeClass() {
@@ -104,8 +126,74 @@ public class DataStore<T> {
     return dataStore.get(objKeys);
   }
 
+  /**
+   * Read all stored instances.
+   * The result is an unmodifiable snapshot which is not affected by later modifications of the store.
+   * 
+   * @return all stored instances
+   */
   public Collection<T> read() {
-    return Collections.unmodifiableCollection(dataStore.values());
+    List<T> current = snapshot;
+    if (current == null) {
+      writeLock.lock();
+      try {
+        current = snapshot;
+        if (current == null) {
+          current = Collections.unmodifiableList(new ArrayList<T>(dataStore.values()));
+          snapshot = current;
+        }
+      } finally {
+        writeLock.unlock();
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Read the stored instance with the same key values as the given object.
+   * Before the read it is validated that the object instance is NOT null
+   * and that it is from the same class as this {@link DataStore} (see {@link #dataTypeClass}).
+   * 
+   * @param obj instance with the key values to read
+   * @return the stored instance or <code>null</code> if there is none
+   */
+  @SuppressWarnings("unchecked")
+  public T readChecked(final Object obj) throws DataStoreException {
+    if (obj == null) {
+      throw new DataStoreException("Tried to read with null value which is not allowed.");
+    } else if (obj.getClass() != dataTypeClass) {
+      throw new DataStoreException("Value is no instance from required class '" + dataTypeClass + "'.");
+    }
+    return read((T) obj);
+  }
+
+  /**
+   * Get the type of the values in the index on the given property.
+   * 
+   * @param propertyName name of the property as used in the EDM
+   * @return the (boxed) field type or <code>null</code> if the property is not indexed
+   * @see EdmProperty#indexed()
+   */
+  public Class<?> getIndexedType(final String propertyName) {
+    final PropertyIndex index = indexes.get(propertyName);
+    return index == null ? null : index.type;
+  }
+
+  /**
+   * Read all instances with a value of the indexed property in the given range.
+   * Instances with a <code>null</code> value of the property are never part of the result.
+   * 
+   * @param propertyName name of the property as used in the EDM
+   * @param from lower bound of the range or <code>null</code> if there is no lower bound
+   * @param fromInclusive whether the lower bound is part of the range
+   * @param to upper bound of the range or <code>null</code> if there is no upper bound
+   * @param toInclusive whether the upper bound is part of the range
+   * @return the instances in the order of the property values or <code>null</code> if the property is not indexed
+   */
+  public List<T> readIndexed(final String propertyName, final Object from, final boolean fromInclusive,
+      final Object to, final boolean toInclusive) {
+    final PropertyIndex index = indexes.get(propertyName);
+    return index == null ? null : index.read(from, fromInclusive, to, toInclusive);
   }
 
   public T create(final T object) throws DataStoreException {
@@ -118,30 +206,44 @@ public class DataStore<T> {
    * existing and generated keys would produce a duplicate entry, replace all keys.
    */
   private T create(final T object, final KeyElement keyElement) throws DataStoreException {
-    synchronized (dataStore) {
+    writeLock.lock();
+    try {
       final boolean replaceKeys = dataStore.containsKey(keyElement);
       if (keyElement.keyValuesMissing() || replaceKeys) {
         KeyElement newKey = createSetAndGetKeys(object, replaceKeys);
         return this.create(object, newKey);
       }
       dataStore.put(keyElement, object);
+      putToIndexes(keyElement, object);
+      snapshot = null;
+    } finally {
+      writeLock.unlock();
     }
     return object;
   }
 
   public T update(final T object) {
     KeyElement keyElement = getKeys(object);
-    synchronized (dataStore) {
-      dataStore.remove(keyElement);
+    writeLock.lock();
+    try {
       dataStore.put(keyElement, object);
+      putToIndexes(keyElement, object);
+      snapshot = null;
+    } finally {
+      writeLock.unlock();
     }
     return object;
   }
 
   public T delete(final T object) {
     KeyElement keyElement = getKeys(object);
-    synchronized (dataStore) {
+    writeLock.lock();
+    try {
+      removeFromIndexes(keyElement);
+      snapshot = null;
       return dataStore.remove(keyElement);
+    } finally {
+      writeLock.unlock();
     }
   }
 
@@ -154,10 +256,7 @@ public class DataStore<T> {
    * @return <code>true</code> if object instance have equal keys set.
    */
   public boolean isKeyEqual(final T first, final T second) {
-    KeyElement firstKeys = getKeys(first);
-    KeyElement secondKeys = getKeys(second);
-
-    return firstKeys.equals(secondKeys);
+    return keyAccess.isKeyEqual(first, second);
   }
 
   /**
@@ -186,19 +285,25 @@ public class DataStore<T> {
 
   private class KeyElement {
     private int cachedHashCode = 42;
-    private final List<Object> keyValues;
+    private final Object[] keyValues;
+    private int size = 0;
 
     public KeyElement(final int size) {
-      keyValues = new ArrayList<Object>(size);
+      keyValues = new Object[size];
     }
 
     private void addValue(final Object keyValue) {
-      keyValues.add(keyValue);
+      keyValues[size++] = keyValue;
       cachedHashCode = 89 * cachedHashCode + (keyValue != null ? keyValue.hashCode() : 0);
     }
 
     boolean keyValuesMissing() {
-      return keyValues.contains(null);
+      for (Object keyValue : keyValues) {
+        if (keyValue == null) {
+          return true;
+        }
+      }
+      return false;
     }
 
     @Override
@@ -216,33 +321,60 @@ public class DataStore<T> {
       }
       @SuppressWarnings("unchecked")
       final KeyElement other = (KeyElement) obj;
-      if (this.keyValues != other.keyValues && (this.keyValues == null || !this.keyValues.equals(other.keyValues))) {
-        return false;
-      }
-      return true;
+      return cachedHashCode == other.cachedHashCode && Arrays.equals(keyValues, other.keyValues);
     }
 
     @Override
     public String toString() {
-      return "KeyElement{" + "cachedHashCode=" + cachedHashCode + ", keyValues=" + keyValues + '}';
+      return "KeyElement{" + "cachedHashCode=" + cachedHashCode + ", keyValues=" + Arrays.toString(keyValues) + '}';
+    }
+  }
+
+  /** Reads a field made accessible by {@link AnnotationHelper} (all EDM-annotated fields are). */
+  private static Object getFieldValue(final Object instance, final Field field) {
+    try {
+      return field.get(instance);
+    } catch (IllegalAccessException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
+    }
+  }
+
+  /** Writes a field made accessible by {@link AnnotationHelper} (all EDM-annotated fields are). */
+  private static void setFieldValue(final Object instance, final Field field, final Object value) {
+    try {
+      field.set(instance, value);
+    } catch (IllegalAccessException e) { // should never happen
+      throw new AnnotationRuntimeException(e);
     }
   }
 
   private class KeyAccess {
-    final List<Field> keyFields;
+    final Field[] keyFields;
     final AtomicInteger idCounter = new AtomicInteger(1);
 
     KeyAccess(final Class<?> clazz) throws DataStoreException {
-      keyFields = ANNOTATION_HELPER.getAnnotatedFields(clazz, EdmKey.class);
-      if (keyFields.isEmpty()) {
+      final List<Field> fields = ANNOTATION_HELPER.getAnnotatedFields(clazz, EdmKey.class);
+      if (fields.isEmpty()) {
         throw new DataStoreException("No EdmKey annotated fields found for class " + clazz);
       }
+      keyFields = fields.toArray(new Field[fields.size()]);
+    }
+
+    boolean isKeyEqual(final T first, final T second) {
+      for (Field field : keyFields) {
+        final Object firstValue = getFieldValue(first, field);
+        final Object secondValue = getFieldValue(second, field);
+        if (firstValue == null ? secondValue != null : !firstValue.equals(secondValue)) {
+          return false;
+        }
+      }
+      return true;
     }
 
     KeyElement getKeyValues(final T object) {
-      KeyElement keyElement = new KeyElement(keyFields.size());
+      KeyElement keyElement = new KeyElement(keyFields.length);
       for (Field field : keyFields) {
-        Object keyValue = ClassHelper.getFieldValue(object, field);
+        Object keyValue = getFieldValue(object, field);
         keyElement.addValue(keyValue);
       }
 
@@ -250,12 +382,12 @@ public class DataStore<T> {
     }
 
     KeyElement createSetAndGetKeys(final T object, boolean replaceKeys) throws DataStoreException {
-      KeyElement keyElement = new KeyElement(keyFields.size());
+      KeyElement keyElement = new KeyElement(keyFields.length);
       for (Field field : keyFields) {
-        Object key = ClassHelper.getFieldValue(object, field);
+        Object key = getFieldValue(object, field);
         if (key == null || replaceKeys) {
           key = createKey(field);
-          ClassHelper.setFieldValue(object, field, key);
+          setFieldValue(object, field, key);
         }
         keyElement.addValue(key);
       }
@@ -281,6 +413,146 @@ public class DataStore<T> {
     }
   }
 
+  /**
+   * Sorted index on the values of an {@link EdmProperty#indexed()} field.
+   * The indexed value of each instance is remembered so that the index entry can be removed even if the
+   * field of the stored instance has been changed in the meantime.
+   * The index is modified only while holding the write lock of the store. It is read without locking;
+   * if it has been modified during the read, the read is repeated and finally done under the write lock,
+   * so that an instance moved to another value is neither missed nor found twice.
+   */
+  private class PropertyIndex {
+    private static final int OPTIMISTIC_READS = 3;
+    final Field field;
+    final Class<?> type;
+    final ConcurrentNavigableMap<Object, Map<KeyElement, T>> index =
+        new ConcurrentSkipListMap<Object, Map<KeyElement, T>>();
+    final Map<KeyElement, Object> indexedValues = new HashMap<KeyElement, Object>();
+    /** Number of modifications; odd while a modification is in progress. */
+    volatile int version = 0;
+
+    PropertyIndex(final Field field, final Class<?> type) {
+      this.field = field;
+      this.type = type;
+    }
+
+    /** Add the instance, or move it to the entry of its current value if it is already indexed. */
+    void put(final KeyElement keyElement, final T object) {
+      version++;
+      try {
+        final Object value = getFieldValue(object, field);
+        final Object oldValue =
+            value == null ? indexedValues.remove(keyElement) : indexedValues.put(keyElement, value);
+        if (oldValue != null) {
+          removeEntry(oldValue, keyElement);
+        }
+        if (value != null) {
+          Map<KeyElement, T> entries = index.get(value);
+          if (entries == null) {
+            entries = new ConcurrentHashMap<KeyElement, T>();
+            index.put(value, entries);
+          }
+          entries.put(keyElement, object);
+        }
+      } finally {
+        version++;
+      }
+    }
+
+    void remove(final KeyElement keyElement) {
+      version++;
+      try {
+        final Object value = indexedValues.remove(keyElement);
+        if (value != null) {
+          removeEntry(value, keyElement);
+        }
+      } finally {
+        version++;
+      }
+    }
+
+    private void removeEntry(final Object value, final KeyElement keyElement) {
+      final Map<KeyElement, T> entries = index.get(value);
+      entries.remove(keyElement);
+      if (entries.isEmpty()) {
+        index.remove(value);
+      }
+    }
+
+    List<T> read(final Object from, final boolean fromInclusive, final Object to, final boolean toInclusive) {
+      for (int i = 0; i < OPTIMISTIC_READS; i++) {
+        final int before = version;
+        if (before % 2 == 0) {
+          final List<T> result = readRange(from, fromInclusive, to, toInclusive);
+          if (version == before) {
+            return result;
+          }
+        }
+      }
+      writeLock.lock();
+      try {
+        return readRange(from, fromInclusive, to, toInclusive);
+      } finally {
+        writeLock.unlock();
+      }
+    }
+
+    private List<T> readRange(final Object from, final boolean fromInclusive, final Object to,
+        final boolean toInclusive) {
+      ConcurrentNavigableMap<Object, Map<KeyElement, T>> range = index;
+      if (from != null) {
+        range = range.tailMap(from, fromInclusive);
+      }
+      if (to != null) {
+        range = range.headMap(to, toInclusive);
+      }
+      List<T> result = new ArrayList<T>();
+      for (Map<KeyElement, T> entries : range.values()) {
+        result.addAll(entries.values());
+      }
+      return result;
+    }
+  }
+
+  private Map<String, PropertyIndex> createIndexes(final Class<T> clz) throws DataStoreException {
+    Map<String, PropertyIndex> result = new HashMap<String, PropertyIndex>();
+    for (Field field : ANNOTATION_HELPER.getAnnotatedFields(clz, EdmProperty.class)) {
+      if (field.getAnnotation(EdmProperty.class).indexed()) {
+        final Class<?> type = box(field.getType());
+        if (!INDEXABLE_TYPES.contains(type)) {
+          throw new DataStoreException("Index on field '" + field + "' of type '" + type + "' is not supported.");
+        }
+        result.put(ANNOTATION_HELPER.getPropertyName(field), new PropertyIndex(field, type));
+      }
+    }
+    return result;
+  }
+
+  private static Class<?> box(final Class<?> type) {
+    if (type == byte.class) {
+      return Byte.class;
+    } else if (type == short.class) {
+      return Short.class;
+    } else if (type == int.class) {
+      return Integer.class;
+    } else if (type == long.class) {
+      return Long.class;
+    }
+    return type;
+  }
+
+  private void putToIndexes(final KeyElement keyElement, final T object) {
+    for (PropertyIndex index : indexes.values()) {
+      index.put(keyElement, object);
+    }
+  }
+
+  private void removeFromIndexes(final KeyElement keyElement) {
+    for (PropertyIndex index : indexes.values()) {
+      index.remove(keyElement);
+    }
+  }
+
   private KeyElement getKeys(final T object) {
     return keyAccess.getKeyValues(object);
   }
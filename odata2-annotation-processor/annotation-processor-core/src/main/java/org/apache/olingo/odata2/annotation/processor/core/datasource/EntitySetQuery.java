@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import java.util.Comparator;
+
+import org.apache.olingo.odata2.api.commons.InlineCount;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.uri.expression.FilterExpression;
+import org.apache.olingo.odata2.api.uri.expression.OrderByExpression;
+
+/**
+ * <p>The system query options of a request for an entity set, as passed to a {@link QueryableDataSource}.</p>
+ * <p>Data sources translating the expressions into queries of their own use the getters of the options;
+ * data sources working on Java objects can use {@link #matches(Object)}, {@link #getComparator()}, and
+ * {@link #getSkipToken(Object)} which evaluate the options exactly like the processor does.</p>
+ */
+public class EntitySetQuery {
+
+  /**
+   * Evaluation of the system query options for data objects, provided by the processor.
+   */
+  public interface Evaluator {
+
+    /**
+     * @param data the data object
+     * @return <code>true</code> if the filter applies to the data object
+     */
+    boolean matches(Object data) throws ODataException;
+
+    /**
+     * @return the order of the result, or <code>null</code> if the order is not relevant
+     */
+    Comparator<Object> getComparator();
+
+    /**
+     * @param data the data object
+     * @return the skip token of the data object
+     */
+    String getSkipToken(Object data) throws ODataException;
+  }
+
+  private final FilterExpression filter;
+  private final OrderByExpression orderBy;
+  private final String skipToken;
+  private final Integer skip;
+  private final Integer top;
+  private final InlineCount inlineCount;
+  private final Evaluator evaluator;
+
+  public EntitySetQuery(final FilterExpression filter, final OrderByExpression orderBy, final String skipToken,
+      final Integer skip, final Integer top, final InlineCount inlineCount, final Evaluator evaluator) {
+    this.filter = filter;
+    this.orderBy = orderBy;
+    this.skipToken = skipToken;
+    this.skip = skip;
+    this.top = top;
+    this.inlineCount = inlineCount;
+    this.evaluator = evaluator;
+  }
+
+  /**
+   * @return the <code>$filter</code> expression or <code>null</code>
+   */
+  public FilterExpression getFilter() {
+    return filter;
+  }
+
+  /**
+   * @return the <code>$orderby</code> expression or <code>null</code>
+   */
+  public OrderByExpression getOrderBy() {
+    return orderBy;
+  }
+
+  /**
+   * @return the <code>$skiptoken</code> or <code>null</code>; the result starts with the entity having this token
+   */
+  public String getSkipToken() {
+    return skipToken;
+  }
+
+  /**
+   * @return the <code>$skip</code> value or <code>null</code>
+   */
+  public Integer getSkip() {
+    return skip;
+  }
+
+  /**
+   * @return the <code>$top</code> value or <code>null</code>
+   */
+  public Integer getTop() {
+    return top;
+  }
+
+  /**
+   * @return the <code>$inlinecount</code> option or <code>null</code>
+   */
+  public InlineCount getInlineCount() {
+    return inlineCount;
+  }
+
+  /**
+   * @param data the data object
+   * @return <code>true</code> if the data object satisfies the filter (always if there is no filter)
+   */
+  public boolean matches(final Object data) throws ODataException {
+    return evaluator.matches(data);
+  }
+
+  /**
+   * Gets the order of the result: the order of <code>$orderby</code>, otherwise the order of the keys
+   * if <code>$skiptoken</code>, <code>$skip</code>, or <code>$top</code> is given.
+   * @return the comparator or <code>null</code> if the order is not relevant
+   */
+  public Comparator<Object> getComparator() {
+    return evaluator.getComparator();
+  }
+
+  /**
+   * @param data the data object
+   * @return the skip token of the data object, for comparison with {@link #getSkipToken()}
+   */
+  public String getSkipToken(final Object data) throws ODataException {
+    return evaluator.getSkipToken(data);
+  }
+}
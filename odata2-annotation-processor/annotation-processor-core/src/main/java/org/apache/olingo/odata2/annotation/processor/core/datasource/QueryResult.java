@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import java.util.List;
+
+/**
+ * Result of {@link QueryableDataSource#readData(org.apache.olingo.odata2.api.edm.EdmEntitySet, EntitySetQuery)}.
+ */
+public class QueryResult {
+
+  private final List<?> data;
+  private final int count;
+
+  /**
+   * @param data the data list with all system query options applied
+   * @param count the number of all data objects satisfying the filter, regardless of skip token, skip, and top
+   */
+  public QueryResult(final List<?> data, final int count) {
+    this.data = data;
+    this.count = count;
+  }
+
+  public List<?> getData() {
+    return data;
+  }
+
+  public int getCount() {
+    return count;
+  }
+}
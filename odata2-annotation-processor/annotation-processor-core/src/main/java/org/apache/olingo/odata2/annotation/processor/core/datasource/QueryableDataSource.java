@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.annotation.processor.core.datasource;
+
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.exception.ODataException;
+
+/**
+ * <p>Extension of {@link DataSource} for data sources which apply the system query options
+ * <code>$filter</code>, <code>$orderby</code>, <code>$skiptoken</code>, <code>$skip</code>, <code>$top</code>,
+ * and <code>$inlinecount</code> themselves, instead of handing out the whole data list of an entity set.</p>
+ * <p>The processor uses this method for entity sets which are addressed directly, i.e., without key,
+ * navigation, or function import; in all other cases {@link DataSource#readData(EdmEntitySet)} is used
+ * and the system query options are applied by the processor.</p>
+ */
+public interface QueryableDataSource extends DataSource {
+
+  /**
+   * Retrieves the data list for the specified entity set with the system query options applied.
+   * @param entitySet the requested {@link EdmEntitySet}
+   * @param query the system query options of the request
+   * @return the requested data list together with the count of all entities matching the filter,
+   * or <code>null</code> if the data source does not support the query; the processor then reads the whole
+   * data list and applies the system query options itself
+   */
+  QueryResult readData(EdmEntitySet entitySet, EntitySetQuery query) throws ODataException;
+}
@@ -111,6 +111,13 @@ public class AnnotationEdmProvider extends EdmProvider {
     init();
   }
 
+  /**
+   * @return the annotated classes the EDM is built from
+   */
+  public List<Class<?>> getAnnotatedClasses() {
+    return Collections.unmodifiableList(annotatedClasses);
+  }
+
   private void init() throws ODataException {
     for (Class<?> aClass : annotatedClasses) {
       updateSchema(aClass);
@@ -24,6 +24,7 @@ import org.apache.olingo.odata2.annotation.processor.api.AnnotationServiceFactor
 import org.apache.olingo.odata2.annotation.processor.core.ListsProcessor;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.AnnotationInMemoryDs;
 import org.apache.olingo.odata2.annotation.processor.core.datasource.AnnotationValueAccess;
+import org.apache.olingo.odata2.annotation.processor.core.datasource.ValueAccess;
 import org.apache.olingo.odata2.annotation.processor.core.edm.AnnotationEdmProvider;
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.exception.ODataException;
@@ -61,4 +62,27 @@ public class AnnotationServiceFactoryImpl implements AnnotationServiceFactoryIns
     return RuntimeDelegate.createODataSingleProcessorService(edmProvider,
         new ListsProcessor(dataSource, valueAccess));
   }
+
+  /**
+   * Create an {@link ODataService} for the given EDM provider and value access, e.g., the
+   * <code>GeneratedEdmProvider</code> and <code>GeneratedValueAccess</code> generated at compile time
+   * by the annotation processor of the module <code>olingo-odata2-annotation-processor-apt</code>:
+   * <pre>
+   * new AnnotationServiceFactoryImpl().createAnnotationService(new GeneratedEdmProvider(),
+   *     new GeneratedValueAccess());
+   * </pre>
+   * The data of the annotated classes of the EDM provider is kept in an {@link AnnotationInMemoryDs}.
+   * 
+   * @param edmProvider EDM provider for the annotated classes
+   * @param valueAccess access to the property values of the annotated classes
+   * @return service an {@link ODataService} based on the given EDM provider and value access
+   * @throws ODataException if an error during initialization occurs
+   */
+  public ODataService createAnnotationService(final AnnotationEdmProvider edmProvider,
+      final ValueAccess valueAccess) throws ODataException {
+    AnnotationInMemoryDs dataSource = new AnnotationInMemoryDs(edmProvider.getAnnotatedClasses());
+
+    return RuntimeDelegate.createODataSingleProcessorService(edmProvider,
+        new ListsProcessor(dataSource, valueAccess));
+  }
 }
@@ -15,15 +15,22 @@
 package org.apache.olingo.odata2.annotation.processor.core.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.odata2.api.annotation.edm.EdmComplexType;
 import org.apache.olingo.odata2.api.annotation.edm.EdmEntitySet;
@@ -46,6 +53,19 @@ public class AnnotationHelper {
 
   public static final String DEFAULT_CONTAINER_NAME = "DefaultContainer";
 
+  private static final String EDM_ANNOTATION_PACKAGE = EdmProperty.class.getPackage().getName();
+  /**
+   * Class infos by class. The classes are referenced weakly and their infos softly, since the cached fields
+   * refer to their class; so the info of a class whose class loader is no longer used is released at the latest
+   * when memory gets low. Look-ups do not lock; only a miss locks to create the info and to drop the entries
+   * of collected classes.
+   */
+  private static final ConcurrentMap<ClassKey, SoftReference<ClassInfo>> CLASS_INFOS =
+      new ConcurrentHashMap<ClassKey, SoftReference<ClassInfo>>();
+  private static final ReferenceQueue<Class<?>> COLLECTED_CLASSES = new ReferenceQueue<Class<?>>();
+  /** marks target classes without navigation in {@link ClassInfo#navInfos} */
+  private static final Object NO_NAV_INFO = new Object();
+
   /**
    * Compare keys of both instances.
    * 
@@ -60,15 +80,19 @@ public class AnnotationHelper {
       return false;
     }
 
-    Map<String, Object> firstKeyFields = getValueForAnnotatedFields(firstInstance, EdmKey.class);
-    Map<String, Object> secondKeyFields = getValueForAnnotatedFields(secondInstance, EdmKey.class);
-    if (firstKeyFields.isEmpty() && secondKeyFields.isEmpty()) {
+    final Field[] keyFields = getClassInfo(firstInstance.getClass()).keyFields;
+    if (keyFields.length == 0) {
       throw new AnnotationRuntimeException("Both object instances does not have EdmKey fields defined ["
           + "firstClass=" + firstInstance.getClass().getName()
           + " secondClass=" + secondInstance.getClass().getName() + "].");
     }
 
-    return keyValuesMatch(firstKeyFields, secondKeyFields);
+    for (Field keyField : keyFields) {
+      if (!isEqual(getFieldValue(firstInstance, keyField), getFieldValue(secondInstance, keyField))) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -79,26 +103,19 @@ public class AnnotationHelper {
    * @return
    */
   public boolean keyMatch(final Object instance, final Map<String, Object> keyName2Value) {
-    Map<String, Object> instanceKeyFields = getValueForAnnotatedFields(instance, EdmKey.class);
-    return keyValuesMatch(instanceKeyFields, keyName2Value);
-  }
-
-  private boolean keyValuesMatch(final Map<String, Object> firstKeyValues, final Map<String, Object> secondKeyValues) {
-    if (firstKeyValues.size() != secondKeyValues.size()) {
+    final ClassInfo classInfo = getClassInfo(instance.getClass());
+    if (classInfo.keyNames.length != keyName2Value.size()) {
       return false;
-    } else if (firstKeyValues.isEmpty()) {
+    } else if (classInfo.keyNames.length == 0) {
       throw new AnnotationRuntimeException("No keys given for key value matching.");
-    } else {
-      Set<Map.Entry<String, Object>> entries = firstKeyValues.entrySet();
-      for (Map.Entry<String, Object> entry : entries) {
-        Object firstKey = entry.getValue();
-        Object secondKey = secondKeyValues.get(entry.getKey());
-        if (!isEqual(firstKey, secondKey)) {
-          return false;
-        }
+    }
+
+    for (int i = 0; i < classInfo.keyNames.length; i++) {
+      if (!isEqual(getFieldValue(instance, classInfo.keyFields[i]), keyName2Value.get(classInfo.keyNames[i]))) {
+        return false;
       }
-      return true;
     }
+    return true;
   }
 
   private boolean isEqual(final Object firstKey, final Object secondKey) {
@@ -450,6 +467,17 @@ public class AnnotationHelper {
 
 
   public AnnotatedNavInfo getCommonNavigationInfo(final Class<?> sourceClass, final Class<?> targetClass) {
+    final ClassInfo classInfo = getClassInfo(sourceClass);
+    final ConcurrentMap<Class<?>, Object> navInfos = classInfo.navInfos;
+    Object navInfo = navInfos.get(targetClass);
+    if (navInfo == null) {
+      navInfo = createCommonNavigationInfo(sourceClass, targetClass);
+      navInfos.putIfAbsent(targetClass, navInfo == null ? NO_NAV_INFO : navInfo);
+    }
+    return navInfo == NO_NAV_INFO ? null : (AnnotatedNavInfo) navInfo;
+  }
+
+  private AnnotatedNavInfo createCommonNavigationInfo(final Class<?> sourceClass, final Class<?> targetClass) {
     List<Field> sourceFields = getAnnotatedFields(sourceClass, EdmNavigationProperty.class);
     List<Field> targetFields = getAnnotatedFields(targetClass, EdmNavigationProperty.class);
 
@@ -502,7 +530,7 @@ public class AnnotationHelper {
       return null;
     }
 
-    Field field = getFieldForPropertyName(propertyName, clazz, true);
+    Field field = getFieldForPropertyName(propertyName, clazz);
     if (field == null) {
       throw new ODataAnnotationException("No field for property '" + propertyName
           + "' found at class '" + clazz + "'.");
@@ -524,7 +552,7 @@ public class AnnotationHelper {
       return null;
     }
 
-    Field field = getFieldForPropertyName(propertyName, instance.getClass(), true);
+    Field field = getFieldForPropertyName(propertyName, instance.getClass());
     if (field == null) {
       throw new ODataAnnotationException("No field for property '" + propertyName
           + "' found at class '" + instance.getClass() + "'.");
@@ -534,34 +562,15 @@ public class AnnotationHelper {
 
   public void setValueForProperty(final Object instance, final String propertyName, final Object propertyValue) {
     if (instance != null) {
-      Field field = getFieldForPropertyName(propertyName, instance.getClass(), true);
+      Field field = getFieldForPropertyName(propertyName, instance.getClass());
       if (field != null) {
         setFieldValue(instance, field, propertyValue);
       }
     }
   }
 
-  private Field getFieldForPropertyName(final String propertyName,
-      final Class<?> resultClass, final boolean inherited) {
-
-    Field[] fields = resultClass.getDeclaredFields();
-    for (Field field : fields) {
-      EdmProperty property = field.getAnnotation(EdmProperty.class);
-      if (property != null) {
-        if (property.name().isEmpty() && getCanonicalName(field).equals(propertyName)) {
-          return field;
-        } else if (property.name().equals(propertyName)) {
-          return field;
-        }
-      }
-    }
-
-    Class<?> superClass = resultClass.getSuperclass();
-    if (inherited && superClass != Object.class) {
-      return getFieldForPropertyName(propertyName, superClass, true);
-    }
-
-    return null;
+  private Field getFieldForPropertyName(final String propertyName, final Class<?> resultClass) {
+    return getClassInfo(resultClass).propertyFields.get(propertyName);
   }
 
   public Object getValueForField(final Object instance, final String fieldName,
@@ -569,56 +578,33 @@ public class AnnotationHelper {
     if (instance == null) {
       return null;
     }
-    return getValueForField(instance, fieldName, instance.getClass(), annotation, true);
+    return getValueForField(instance, fieldName, instance.getClass(), annotation);
   }
 
   public Object getValueForField(final Object instance, final Class<? extends Annotation> annotation) {
     if (instance == null) {
       return null;
     }
-    return getValueForField(instance, instance.getClass(), annotation, true);
-  }
-
-  private Object getValueForField(final Object instance, final Class<?> resultClass,
-      final Class<? extends Annotation> annotation, final boolean inherited) {
-    return getValueForField(instance, null, resultClass, annotation, inherited);
+    return getValueForField(instance, null, instance.getClass(), annotation);
   }
 
   public Map<String, Object> getValueForAnnotatedFields(final Object instance,
       final Class<? extends Annotation> annotation) {
-    return getValueForAnnotatedFields(instance, instance.getClass(), annotation, true);
-  }
-
-  private Map<String, Object> getValueForAnnotatedFields(final Object instance, final Class<?> resultClass,
-      final Class<? extends Annotation> annotation, final boolean inherited) {
     if (instance == null) {
       return null;
     }
 
-    Field[] fields = resultClass.getDeclaredFields();
     Map<String, Object> fieldName2Value = new HashMap<String, Object>();
-
-    for (Field field : fields) {
-      if (field.getAnnotation(annotation) != null) {
-        Object value = getFieldValue(instance, field);
-        final String name = extractPropertyName(field);
-        fieldName2Value.put(name, value);
-      }
+    for (Field field : getAnnotatedFieldArray(instance.getClass(), annotation)) {
+      fieldName2Value.put(extractPropertyName(field), getFieldValue(instance, field));
     }
-
-    Class<?> superClass = resultClass.getSuperclass();
-    if (inherited && superClass != Object.class) {
-      Map<String, Object> tmp = getValueForAnnotatedFields(instance, superClass, annotation, true);
-      fieldName2Value.putAll(tmp);
-    }
-
     return fieldName2Value;
   }
 
-  private String extractPropertyName(final Field field) {
+  private static String extractPropertyName(final Field field) {
     final EdmProperty property = field.getAnnotation(EdmProperty.class);
     if (property == null || property.name().isEmpty()) {
-      return getCanonicalName(field);
+      return firstCharToUpperCase(field.getName());
     } else {
       return property.name();
     }
@@ -658,73 +644,172 @@ public class AnnotationHelper {
     if (instance == null) {
       return null;
     }
-    return getAnnotatedFields(instance.getClass(), annotation, true);
-  }
-
-  public List<Field> getAnnotatedFields(final Class<?> fieldClass, final Class<? extends Annotation> annotation) {
-    return getAnnotatedFields(fieldClass, annotation, true);
+    return getAnnotatedFields(instance.getClass(), annotation);
   }
 
   /**
-   * 
+   * Gets the fields of the class and its superclasses annotated with the given annotation,
+   * fields of the class itself first. The fields are already made accessible.
    * @param resultClass
-   * @param annotation
-   * @param inherited
+   * @param annotation an annotation of the package <code>org.apache.olingo.odata2.api.annotation.edm</code>
    * @return
    */
-  private List<Field> getAnnotatedFields(final Class<?> resultClass,
-      final Class<? extends Annotation> annotation, final boolean inherited) {
+  public List<Field> getAnnotatedFields(final Class<?> resultClass, final Class<? extends Annotation> annotation) {
     if (resultClass == null) {
       return null;
     }
+    return new ArrayList<Field>(Arrays.asList(getAnnotatedFieldArray(resultClass, annotation)));
+  }
 
-    Field[] fields = resultClass.getDeclaredFields();
-    List<Field> annotatedFields = new ArrayList<Field>();
-
-    for (Field field : fields) {
-      if (field.getAnnotation(annotation) != null) {
-        annotatedFields.add(field);
+  private Field[] getAnnotatedFieldArray(final Class<?> resultClass, final Class<? extends Annotation> annotation) {
+    final ClassInfo classInfo = getClassInfo(resultClass);
+    Field[] annotatedFields = classInfo.annotatedFields.get(annotation);
+    if (annotatedFields == null) {
+      List<Field> fields = new ArrayList<Field>();
+      for (Field field : classInfo.fields) {
+        if (field.getAnnotation(annotation) != null) {
+          fields.add(field);
+        }
       }
+      annotatedFields = fields.toArray(new Field[fields.size()]);
+      classInfo.annotatedFields.putIfAbsent(annotation, annotatedFields);
     }
-
-    Class<?> superClass = resultClass.getSuperclass();
-    if (inherited && superClass != Object.class) {
-      List<Field> tmp = getAnnotatedFields(superClass, annotation, true);
-      annotatedFields.addAll(tmp);
-    }
-
     return annotatedFields;
   }
 
   private Object getValueForField(final Object instance, final String fieldName, final Class<?> resultClass,
-      final Class<? extends Annotation> annotation, final boolean inherited) {
+      final Class<? extends Annotation> annotation) {
     if (instance == null) {
       return null;
     }
 
-    Field[] fields = resultClass.getDeclaredFields();
-    for (Field field : fields) {
-      if (field.getAnnotation(annotation) != null
-          && (fieldName == null || field.getName().equals(fieldName))) {
+    for (Field field : getAnnotatedFieldArray(resultClass, annotation)) {
+      if (fieldName == null || field.getName().equals(fieldName)) {
         return getFieldValue(instance, field);
       }
     }
+    return null;
+  }
 
-    Class<?> superClass = resultClass.getSuperclass();
-    if (inherited && superClass != Object.class) {
-      return getValueForField(instance, fieldName, superClass, annotation, true);
+  private ClassInfo getClassInfo(final Class<?> clazz) {
+    SoftReference<ClassInfo> reference = CLASS_INFOS.get(new ClassKey(clazz, null));
+    ClassInfo classInfo = reference == null ? null : reference.get();
+    if (classInfo == null) {
+      synchronized (CLASS_INFOS) {
+        Reference<? extends Class<?>> collected;
+        while ((collected = COLLECTED_CLASSES.poll()) != null) {
+          CLASS_INFOS.remove(collected);
+        }
+        reference = CLASS_INFOS.get(new ClassKey(clazz, null));
+        classInfo = reference == null ? null : reference.get();
+        if (classInfo == null) {
+          classInfo = new ClassInfo(clazz);
+          CLASS_INFOS.put(new ClassKey(clazz, COLLECTED_CLASSES), new SoftReference<ClassInfo>(classInfo));
+        }
+      }
     }
+    return classInfo;
+  }
 
-    return null;
+  /**
+   * Weak reference to a class, usable as map key: two keys are equal if they refer to the same class
+   * (or are the same key, once the class has been collected).
+   */
+  private static final class ClassKey extends WeakReference<Class<?>> {
+    private final int hashCode;
+
+    ClassKey(final Class<?> clazz, final ReferenceQueue<Class<?>> queue) {
+      super(clazz, queue);
+      hashCode = System.identityHashCode(clazz);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof ClassKey)) {
+        return false;
+      }
+      final Class<?> clazz = get();
+      return clazz != null && clazz == ((ClassKey) obj).get();
+    }
+  }
+
+  private static boolean isEdmAnnotated(final Field field) {
+    for (Annotation annotation : field.getDeclaredAnnotations()) {
+      final Package annotationPackage = annotation.annotationType().getPackage();
+      if (annotationPackage != null && EDM_ANNOTATION_PACKAGE.equals(annotationPackage.getName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reflection data of a class and its superclasses, collected once per class.
+   * The EDM-annotated fields are made accessible on creation so that values can be read and written
+   * without toggling the accessible flag (which is not safe if done concurrently on the same field).
+   */
+  private static final class ClassInfo {
+    /** EDM-annotated fields of the class and its superclasses, fields of the class itself first */
+    final Field[] fields;
+    /** {@link EdmKey} annotated fields, in the same order as {@link #keyNames} */
+    final Field[] keyFields;
+    final String[] keyNames;
+    /** {@link EdmProperty} annotated fields by property name */
+    final Map<String, Field> propertyFields;
+    final ConcurrentMap<Class<? extends Annotation>, Field[]> annotatedFields =
+        new ConcurrentHashMap<Class<? extends Annotation>, Field[]>();
+    /**
+     * navigation information by target class, see {@link AnnotationHelper#getCommonNavigationInfo(Class, Class)};
+     * {@link AnnotationHelper#NO_NAV_INFO} for target classes without navigation
+     */
+    final ConcurrentMap<Class<?>, Object> navInfos = new ConcurrentHashMap<Class<?>, Object>();
+
+    ClassInfo(final Class<?> clazz) {
+      List<Field> allFields = new ArrayList<Field>();
+      for (Class<?> current = clazz; current != null && current != Object.class;
+          current = current.getSuperclass()) {
+        for (Field field : current.getDeclaredFields()) {
+          if (isEdmAnnotated(field)) {
+            field.setAccessible(true);
+            allFields.add(field);
+          }
+        }
+      }
+      fields = allFields.toArray(new Field[allFields.size()]);
+
+      List<Field> keys = new ArrayList<Field>();
+      Map<String, Field> properties = new HashMap<String, Field>();
+      for (Field field : fields) {
+        if (field.getAnnotation(EdmKey.class) != null) {
+          keys.add(field);
+        }
+        if (field.getAnnotation(EdmProperty.class) != null) {
+          final String name = extractPropertyName(field);
+          if (!properties.containsKey(name)) {
+            properties.put(name, field);
+          }
+        }
+      }
+      keyFields = keys.toArray(new Field[keys.size()]);
+      keyNames = new String[keyFields.length];
+      for (int i = 0; i < keyFields.length; i++) {
+        keyNames[i] = extractPropertyName(keyFields[i]);
+      }
+      propertyFields = Collections.unmodifiableMap(properties);
+    }
   }
 
   private Object getFieldValue(final Object instance, final Field field) {
     try {
-      boolean access = field.isAccessible();
-      field.setAccessible(true);
-      Object value = field.get(instance);
-      field.setAccessible(access);
-      return value;
+      return field.get(instance);
     } catch (IllegalArgumentException ex) { // should never happen
       throw new AnnotationRuntimeException(ex);
     } catch (IllegalAccessException ex) { // should never happen
@@ -740,10 +825,7 @@ public class AnnotationHelper {
           && value.getClass() == String.class) {
         usedValue = convert(field, (String) value);
       }
-      boolean access = field.isAccessible();
-      field.setAccessible(true);
       field.set(instance, usedValue);
-      field.setAccessible(access);
     } catch (IllegalArgumentException ex) { // should never happen
       throw new AnnotationRuntimeException(ex);
     } catch (IllegalAccessException ex) { // should never happen
@@ -797,7 +879,7 @@ public class AnnotationHelper {
     return firstCharToUpperCase(clazz.getSimpleName());
   }
 
-  private String firstCharToUpperCase(final String content) {
+  private static String firstCharToUpperCase(final String content) {
     if (content == null || content.isEmpty()) {
       return content;
     }
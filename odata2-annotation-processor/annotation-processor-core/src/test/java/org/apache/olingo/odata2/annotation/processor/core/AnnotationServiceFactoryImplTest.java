@@ -20,6 +20,8 @@ import java.util.Collection;
 
 import junit.framework.Assert;
 
+import org.apache.olingo.odata2.annotation.processor.core.datasource.AnnotationValueAccess;
+import org.apache.olingo.odata2.annotation.processor.core.edm.AnnotationEdmProvider;
 import org.apache.olingo.odata2.annotation.processor.core.model.Building;
 import org.apache.olingo.odata2.annotation.processor.core.model.Employee;
 import org.apache.olingo.odata2.annotation.processor.core.model.Manager;
@@ -61,6 +63,25 @@ public class AnnotationServiceFactoryImplTest {
     Assert.assertNotNull(service);
   }
 
+  @Test
+  public void createFromEdmProviderAndValueAccess() throws ODataException {
+    AnnotationServiceFactoryImpl factory = new AnnotationServiceFactoryImpl();
+    final Collection<Class<?>> annotatedClasses = new ArrayList<Class<?>>();
+    annotatedClasses.add(RefBase.class);
+    annotatedClasses.add(Building.class);
+    annotatedClasses.add(Employee.class);
+    annotatedClasses.add(Manager.class);
+    annotatedClasses.add(Photo.class);
+    annotatedClasses.add(Room.class);
+    annotatedClasses.add(Team.class);
+    annotatedClasses.add(String.class);
+    final AnnotationEdmProvider edmProvider = new AnnotationEdmProvider(annotatedClasses);
+    Assert.assertEquals(7, edmProvider.getAnnotatedClasses().size());
+    ODataService service = factory.createAnnotationService(edmProvider, new AnnotationValueAccess());
+
+    Assert.assertNotNull(service);
+  }
+
   @Test(expected = ODataException.class)
   public void createFromClasses() throws ODataException {
     AnnotationServiceFactoryImpl factory = new AnnotationServiceFactoryImpl();
@@ -17,8 +17,10 @@ package org.apache.olingo.odata2.annotation.processor.core.datasource;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -27,6 +29,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.olingo.odata2.annotation.processor.core.datasource.DataSource.BinaryData;
 import org.apache.olingo.odata2.annotation.processor.core.edm.AnnotationEdmProvider;
@@ -51,6 +54,9 @@ import org.apache.olingo.odata2.api.edm.FullQualifiedName;
 import org.apache.olingo.odata2.api.edm.provider.EntitySet;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.exception.ODataNotFoundException;
+import org.apache.olingo.odata2.api.uri.UriParser;
+import org.apache.olingo.odata2.api.uri.expression.FilterExpression;
+import org.apache.olingo.odata2.core.edm.provider.EdmImplProv;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -419,6 +425,193 @@ public class AnnotationsInMemoryDsTest {
     }
   }
 
+  @Test
+  public void readEntitiesWithQuery() throws Exception {
+    EdmEntitySet roomsEntitySet = createMockedEdmEntitySet("Rooms");
+    for (int i = 0; i < 20; i++) {
+      Room room = new Room(i, "Room " + i);
+      room.setSeats(i % 7);
+      datasource.createData(roomsEntitySet, room);
+    }
+
+    // rooms with an even number of seats, ordered by seats descending and then by id
+    final EntitySetQuery.Evaluator evaluator = new EntitySetQuery.Evaluator() {
+      @Override
+      public boolean matches(final Object data) {
+        return ((Room) data).getSeats() % 2 == 0;
+      }
+
+      @Override
+      public Comparator<Object> getComparator() {
+        return new Comparator<Object>() {
+          @Override
+          public int compare(final Object first, final Object second) {
+            final int result = ((Room) second).getSeats() - ((Room) first).getSeats();
+            return result == 0 ? getSkipToken(first).compareTo(getSkipToken(second)) : result;
+          }
+        };
+      }
+
+      @Override
+      public String getSkipToken(final Object data) {
+        return String.format("%02d", Integer.parseInt(((Room) data).getId()));
+      }
+    };
+
+    QueryResult result = datasource.readData(roomsEntitySet,
+        new EntitySetQuery(null, null, null, 1, 3, null, evaluator));
+    Assert.assertEquals(11, result.getCount());
+    Assert.assertEquals(Arrays.asList("13", "4", "11"), getIds(result.getData()));
+
+    result = datasource.readData(roomsEntitySet,
+        new EntitySetQuery(null, null, "09", 1, 2, null, evaluator));
+    Assert.assertEquals(11, result.getCount());
+    Assert.assertEquals(Arrays.asList("16", "0"), getIds(result.getData()));
+
+    result = datasource.readData(roomsEntitySet,
+        new EntitySetQuery(null, null, null, 20, 5, null, evaluator));
+    Assert.assertEquals(11, result.getCount());
+    Assert.assertTrue(result.getData().isEmpty());
+  }
+
+  @Test
+  public void readEntitiesWithIndexedFilter() throws Exception {
+    EdmEntitySet roomsEntitySet = new EdmImplProv(edmProvider).getEntityContainer(DEFAULT_CONTAINER)
+        .getEntitySet("Rooms");
+    for (int i = 0; i < 20; i++) {
+      Room room = new Room(i, "Room " + i);
+      room.setSeats(i % 7);
+      datasource.createData(roomsEntitySet, room);
+    }
+
+    final FilterExpression filter = UriParser.parseFilter(null, roomsEntitySet.getEntityType(),
+        "5 le Seats and Name ne 'Room 6'");
+    final List<Object> checked = new ArrayList<Object>();
+    final EntitySetQuery.Evaluator evaluator = new EntitySetQuery.Evaluator() {
+      @Override
+      public boolean matches(final Object data) {
+        checked.add(data);
+        return ((Room) data).getSeats() >= 5 && !"Room 6".equals(((Room) data).getName());
+      }
+
+      @Override
+      public Comparator<Object> getComparator() {
+        return null;
+      }
+
+      @Override
+      public String getSkipToken(final Object data) {
+        return ((Room) data).getId();
+      }
+    };
+
+    QueryResult result = datasource.readData(roomsEntitySet,
+        new EntitySetQuery(filter, null, null, null, null, null, evaluator));
+    Assert.assertEquals(4, result.getCount());
+    Assert.assertEquals(new HashSet<String>(Arrays.asList("5", "12", "13", "19")),
+        new HashSet<String>(getIds(result.getData())));
+    // only rooms with at least five seats have been read from the index
+    Assert.assertEquals(5, checked.size());
+  }
+
+  @Test
+  public void indexIsUpdated() throws Exception {
+    DataStore<Room> store = DataStore.createInMemory(Room.class);
+    Assert.assertEquals(Integer.class, store.getIndexedType("Seats"));
+    Assert.assertNull(store.getIndexedType("Name"));
+    Assert.assertNull(store.readIndexed("Name", null, false, null, false));
+
+    Room first = new Room(1, "Room 1");
+    first.setSeats(10);
+    store.create(first);
+    Room second = new Room(2, "Room 2");
+    second.setSeats(20);
+    store.create(second);
+    Assert.assertEquals(Arrays.asList(first), store.readIndexed("Seats", 10, true, 10, true));
+    Assert.assertEquals(Arrays.asList(second), store.readIndexed("Seats", 10, false, null, false));
+
+    // the stored instance is changed before the update
+    first.setSeats(30);
+    store.update(first);
+    Assert.assertTrue(store.readIndexed("Seats", null, false, 10, true).isEmpty());
+    Assert.assertEquals(Arrays.asList(second, first), store.readIndexed("Seats", 15, true, null, false));
+
+    // an update without change of the indexed value keeps the entry
+    store.update(second);
+    Assert.assertEquals(Arrays.asList(second), store.readIndexed("Seats", 20, true, 20, true));
+
+    store.delete(second);
+    Assert.assertEquals(Arrays.asList(first), store.readIndexed("Seats", null, false, null, false));
+  }
+
+  @Test
+  public void indexIsReadWhileUpdated() throws Exception {
+    final DataStore<Room> store = DataStore.createInMemory(Room.class);
+    final int rooms = 10;
+    for (int i = 0; i < rooms; i++) {
+      Room room = new Room(i, "Room " + i);
+      room.setSeats(i);
+      store.create(room);
+    }
+
+    final AtomicBoolean updating = new AtomicBoolean(true);
+    final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+    List<Thread> readers = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      readers.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          do {
+            final List<String> ids = getIds(store.readIndexed("Seats", null, false, null, false));
+            if (ids.size() != rooms || new HashSet<String>(ids).size() != rooms) {
+              failures.add(ids.toString());
+            }
+          } while (updating.get());
+        }
+      }));
+    }
+    for (Thread reader : readers) {
+      reader.start();
+    }
+
+    // every update moves the room to another index entry
+    for (int i = 0; i < 20000; i++) {
+      Room room = new Room(i % rooms, "Room " + i % rooms);
+      room.setSeats(i * 7 % 1000);
+      store.update(room);
+    }
+    updating.set(false);
+    for (Thread reader : readers) {
+      reader.join();
+    }
+    Assert.assertEquals(Collections.emptyList(), failures);
+  }
+
+  @Test
+  public void readIsSnapshot() throws Exception {
+    DataStore<Room> store = DataStore.createInMemory(Room.class);
+    Room first = new Room(1, "Room 1");
+    store.create(first);
+    final Collection<Room> before = store.read();
+    Assert.assertSame(before, store.read());
+
+    Room second = new Room(2, "Room 2");
+    store.create(second);
+    Assert.assertEquals(Arrays.asList(first), new ArrayList<Room>(before));
+    Assert.assertEquals(new HashSet<Room>(Arrays.asList(first, second)), new HashSet<Room>(store.read()));
+
+    store.delete(first);
+    Assert.assertEquals(Arrays.asList(second), new ArrayList<Room>(store.read()));
+  }
+
+  private List<String> getIds(final List<?> rooms) {
+    List<String> ids = new ArrayList<String>();
+    for (Object room : rooms) {
+      ids.add(((Room) room).getId());
+    }
+    return ids;
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void readRelatedEntities() throws Exception {
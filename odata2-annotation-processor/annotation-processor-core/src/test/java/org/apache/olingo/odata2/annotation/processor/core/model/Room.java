@@ -32,7 +32,7 @@ import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
 @EdmEntitySet(name = "Rooms")
 public class Room extends RefBase {
 
-  @EdmProperty
+  @EdmProperty(indexed = true)
   private Integer seats;
   @EdmProperty(facets = @EdmFacets(scale = 0, precision = 0))
   @EdmConcurrencyControl
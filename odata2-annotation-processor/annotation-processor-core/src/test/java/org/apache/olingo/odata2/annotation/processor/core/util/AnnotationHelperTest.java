@@ -22,7 +22,10 @@ import java.util.Map;
 
 import junit.framework.Assert;
 
+import org.apache.olingo.odata2.annotation.processor.core.model.Building;
 import org.apache.olingo.odata2.annotation.processor.core.model.Location;
+import org.apache.olingo.odata2.annotation.processor.core.model.Room;
+import org.apache.olingo.odata2.annotation.processor.core.util.AnnotationHelper.AnnotatedNavInfo;
 import org.apache.olingo.odata2.api.annotation.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.annotation.edm.EdmKey;
 import org.apache.olingo.odata2.api.annotation.edm.EdmNavigationProperty;
@@ -160,6 +163,28 @@ public class AnnotationHelperTest {
     Assert.assertFalse(result);
   }
 
+  @Test
+  public void keyMatchMapNegativeAdditionalKey() throws ODataException {
+    SimpleEntity firstInstance = new SimpleEntity(42l, "Another Name");
+    Map<String, Object> keyName2Value = new HashMap<String, Object>();
+    keyName2Value.put("Id", Long.valueOf(42));
+    keyName2Value.put("Name", "Another Name");
+
+    Assert.assertFalse(annotationHelper.keyMatch(firstInstance, keyName2Value));
+  }
+
+  @Test
+  public void getCommonNavigationInfoIsCached() throws Exception {
+    AnnotatedNavInfo navInfo = annotationHelper.getCommonNavigationInfo(Building.class, Room.class);
+    Assert.assertNotNull(navInfo);
+    Assert.assertEquals("rooms", navInfo.getFromField().getName());
+    Assert.assertEquals("building", navInfo.getToField().getName());
+    Assert.assertSame(navInfo, new AnnotationHelper().getCommonNavigationInfo(Building.class, Room.class));
+
+    Assert.assertNull(annotationHelper.getCommonNavigationInfo(Building.class, Location.class));
+    Assert.assertNull(annotationHelper.getCommonNavigationInfo(Building.class, Location.class));
+  }
+
   @Test
   public void extractEntityTypeNameViaNavigation() throws Exception {
     Field field = NavigationAnnotated.class.getDeclaredField("navigationPropertySimpleEntity");
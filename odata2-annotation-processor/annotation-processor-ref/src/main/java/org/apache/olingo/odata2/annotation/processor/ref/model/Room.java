@@ -33,7 +33,7 @@ import org.apache.olingo.odata2.api.annotation.edm.EdmProperty;
 @EdmEntitySet(name = "Rooms")
 public class Room extends RefBase {
 
-  @EdmProperty
+  @EdmProperty(indexed = true)
   private Integer seats;
   @EdmProperty
   private Integer version;
@@ -255,4 +255,228 @@ public interface ODataJPAContext {
    * @return <code>true</code> if the underlying entity manger is container manged.
    */
   boolean isContainerManaged();
+
+  /**
+   * The method sets the number of write requests of a change set after which the entity manager is flushed.
+   * With a size greater than zero, create, update, and delete requests inside a change set of a batch request
+   * do not flush the entity manager individually; pending changes are flushed every <code>size</code> write
+   * requests and when the change set is committed. If a deferred flush or the commit fails, the change set is
+   * rolled back and answered with a single error response.
+   * Writes on the same entity set can then be sent as one JDBC batch if the JDBC batching of the persistence
+   * provider is switched on (for example <code>hibernate.jdbc.batch_size</code> or
+   * <code>eclipselink.jdbc.batch-writing</code>), ideally with the same size. Requests are executed in their
+   * order in the change set; to group interleaved writes per entity set, let the provider order the statements
+   * of a flush (for example <code>hibernate.order_inserts</code> and <code>hibernate.order_updates</code>).
+   * (Default is <code>0</code>, i.e., every request is flushed on its own.)
+   *
+   * @param size number of write requests flushed together
+   */
+  void setChangeSetBatchSize(int size);
+
+  /**
+   * The method returns the number of write requests of a change set after which the entity manager is flushed.
+   *
+   * @return the batch size; <code>0</code> if every request is flushed on its own
+   */
+  int getChangeSetBatchSize();
+
+  /**
+   * The method sets whether the EDM derived from the persistence unit is cached across requests.
+   * If set, the schemas are built once per entity manager factory, persistence unit name, JPA EDM mapping model,
+   * class of the {@link org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmExtension}, and default naming,
+   * and are shared by all requests and threads; the mapping model is not loaded again either.
+   * The cache can therefore only be used if the extension builds the same model on every request.
+   * To build the model at deployment time, call
+   * <code>getSchemas()</code> on the EDM provider created for such a context once at start-up.
+   * (Default is <code>false</code>)
+   *
+   * @param caching <code>true</code> to share the EDM across requests
+   */
+  void setEdmModelCaching(boolean caching);
+
+  /**
+   * The method returns <code>true</code> if the EDM derived from the persistence unit is cached across requests.
+   *
+   * @return <code>true</code> if the EDM is cached
+   */
+  boolean isEdmModelCaching();
+
+  /**
+   * The method sets whether a read of an entity set with <code>$select</code> only queries the selected properties.
+   * If set, a request like <code>Products?$select=ID,Name</code> is answered with a JPQL projection on the selected
+   * properties, the key properties, and the properties used for the ETag instead of loading whole entities.
+   * The values are then read from the persistence provider directly and not through the getters of the entity;
+   * the projection is therefore only used if all these properties are simple properties without conversion
+   * (e.g., an <code>XmlJavaTypeAdapter</code> or character arrays) and the request has no <code>$expand</code>.
+   * (Default is <code>false</code>)
+   *
+   * @param selectProjection <code>true</code> to query only the selected properties
+   */
+  void setSelectProjection(boolean selectProjection);
+
+  /**
+   * The method returns <code>true</code> if a read of an entity set with <code>$select</code> only queries
+   * the selected properties.
+   *
+   * @return <code>true</code> if projections are used for <code>$select</code>
+   */
+  boolean isSelectProjection();
+
+  /**
+   * The method sets the chunk size for streaming the result of an entity set read.
+   * If it is greater than zero, the entities are read through a cursor while the response is written,
+   * are converted one at a time, and are detached from the persistence context in chunks of this size;
+   * the size is also passed to the persistence provider as JDBC fetch size hint. Memory consumption then does
+   * not depend on the number of entities in the response, e.g., for exports with a large <code>$top</code>.
+   * Streaming is only used for requests without server-side paging, <code>$expand</code>,
+   * <code>$inlinecount=allpages</code>, or delta tokens, and outside of batch requests.
+   * As the response is written after the request has been processed, the entity manager is closed
+   * only when the response has been sent.
+   * (Default is <code>0</code>, i.e., no streaming)
+   *
+   * @param chunkSize number of entities per chunk; <code>0</code> disables streaming
+   */
+  void setStreamingChunkSize(int chunkSize);
+
+  /**
+   * The method returns the chunk size for streaming the result of an entity set read.
+   *
+   * @return the chunk size or <code>0</code> if results are not streamed
+   */
+  int getStreamingChunkSize();
+
+  /**
+   * The method sets whether server-side paging seeks by the key instead of skipping the preceding pages.
+   * If set, the <code>$skiptoken</code> of the next link holds the key of the last entity of the page, e.g.,
+   * <code>$skiptoken=('A',7)</code>, and the next page is read with a condition like <code>ID &gt; 7</code>
+   * on the key properties the page is ordered by. Reading a page then costs the same no matter how deep it is,
+   * and pages stay consistent if entities are inserted or deleted in between.
+   * Keyset paging is only used for entity sets which are not read via navigation and for requests without
+   * <code>$orderby</code>, <code>$top</code>, and <code>$skip</code>; other requests use offset paging.
+   * (Default is <code>false</code>)
+   *
+   * @param keysetPaging <code>true</code> to page by key
+   */
+  void setKeysetPaging(boolean keysetPaging);
+
+  /**
+   * The method returns <code>true</code> if server-side paging seeks by the key.
+   *
+   * @return <code>true</code> if keyset paging is used
+   */
+  boolean isKeysetPaging();
+
+  /**
+   * The method sets whether read requests use read-only queries. Such queries do not flush the entity manager
+   * before they are executed (<code>FlushModeType.COMMIT</code>), see also {@link #setReadOnlyQueryHints(boolean)}.
+   * The setting can be overridden per entity type with the attribute <code>readOnly</code> of
+   * <code>JPAEntityType</code> in the JPA EDM mapping model. Read-only queries are not used within batch requests
+   * as a change set may modify entities read before.
+   * (Default is <code>false</code>)
+   *
+   * @param readOnlyQueries <code>true</code> to read entities with read-only queries
+   */
+  void setReadOnlyQueries(boolean readOnlyQueries);
+
+  /**
+   * The method returns <code>true</code> if read requests use read-only queries unless the JPA EDM mapping model
+   * says otherwise for an entity type.
+   *
+   * @return <code>true</code> if read-only queries are used
+   */
+  boolean isReadOnlyQueries();
+
+  /**
+   * The method sets whether read-only queries tell the persistence provider that the entities read will not be
+   * modified (<code>eclipselink.read-only</code> and <code>org.hibernate.readOnly</code>), so that it needs no
+   * snapshots of them for dirty checking. Entities read this way must not be changed by the application; with
+   * EclipseLink they are the instances of the shared cache.
+   * The hints are only set on queries that are read-only, see {@link #setReadOnlyQueries(boolean)}.
+   * (Default is <code>false</code>)
+   *
+   * @param readOnlyQueryHints <code>true</code> to set the read-only hints of the persistence providers
+   */
+  void setReadOnlyQueryHints(boolean readOnlyQueryHints);
+
+  /**
+   * The method returns <code>true</code> if read-only queries carry the read-only hints of the persistence
+   * providers.
+   *
+   * @return <code>true</code> if the read-only hints are set
+   */
+  boolean isReadOnlyQueryHints();
+
+  /**
+   * The method sets whether the queries of read requests take entities from and add them to the shared cache
+   * (<code>javax.persistence.cache.retrieveMode</code> and <code>javax.persistence.cache.storeMode</code>
+   * <code>USE</code>), regardless of the cache modes configured for the persistence unit.
+   * (Default is <code>false</code>)
+   *
+   * @param sharedCacheQueryHints <code>true</code> to read entities through the shared cache
+   */
+  void setSharedCacheQueryHints(boolean sharedCacheQueryHints);
+
+  /**
+   * The method returns <code>true</code> if the queries of read requests use the shared cache.
+   *
+   * @return <code>true</code> if the cache hints are set
+   */
+  boolean isSharedCacheQueryHints();
+
+  /**
+   * The method sets the JDBC fetch size passed to the queries of read requests
+   * (<code>eclipselink.jdbc.fetch-size</code> and <code>org.hibernate.fetchSize</code>). Streamed entity sets
+   * use the streaming chunk size instead, see {@link #setStreamingChunkSize(int)}.
+   * (Default is <code>0</code>, i.e., the fetch size of the JDBC driver is used)
+   *
+   * @param fetchSize number of rows fetched from the database at once
+   */
+  void setQueryFetchSize(int fetchSize);
+
+  /**
+   * The method returns the JDBC fetch size of the queries of read requests.
+   *
+   * @return fetch size; <code>0</code> if not set
+   */
+  int getQueryFetchSize();
+
+  /**
+   * The method sets whether the navigation properties of an <code>$expand</code> are loaded up front: for each
+   * expanded navigation property one additional query (<code>LEFT OUTER JOIN FETCH</code>) reads the related
+   * entities of all entities read, instead of the persistence provider loading them lazily entity by entity
+   * while the response is written. This pays off for large pages with lazily fetched relationships; for
+   * eagerly fetched or already cached relationships the additional queries are superfluous.
+   * (Default is <code>false</code>)
+   *
+   * @param preloadExpandedEntities <code>true</code> to load the expanded entities up front
+   */
+  void setPreloadExpandedEntities(boolean preloadExpandedEntities);
+
+  /**
+   * The method returns <code>true</code> if the navigation properties of an <code>$expand</code> are loaded
+   * up front.
+   *
+   * @return <code>true</code> if expanded entities are loaded up front
+   */
+  boolean isPreloadExpandedEntities();
+
+  /**
+   * The method sets whether the entity manager of a thread is reused by the following requests of the thread.
+   * The entity manager is then cleared instead of closed at the end of a request, so that no managed entities
+   * are carried over. It is closed nevertheless if a transaction is still active, and it is replaced if the
+   * context refers to another entity manager factory.
+   * Entity managers are never closed by the library if the context is container managed, see
+   * {@link #setContainerManaged(boolean)}.
+   * (Default is <code>false</code>)
+   *
+   * @param reuse <code>true</code> to clear and reuse entity managers
+   */
+  void setEntityManagerReuse(boolean reuse);
+
+  /**
+   * The method returns <code>true</code> if entity managers are cleared and reused after a request.
+   *
+   * @return <code>true</code> if entity managers are reused
+   */
+  boolean isEntityManagerReuse();
 }
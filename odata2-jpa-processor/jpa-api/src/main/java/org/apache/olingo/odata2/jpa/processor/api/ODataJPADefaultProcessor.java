@@ -21,12 +21,15 @@ package org.apache.olingo.odata2.jpa.processor.api;
 import org.apache.olingo.odata2.api.batch.BatchHandler;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.commons.HttpContentType;
 import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
 import org.apache.olingo.odata2.api.ep.EntityProvider;
 import org.apache.olingo.odata2.api.ep.EntityProviderBatchProperties;
 import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.processor.ODataErrorContext;
 import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
 import org.apache.olingo.odata2.api.uri.PathInfo;
 import org.apache.olingo.odata2.api.uri.info.DeleteUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntityCountUriInfo;
@@ -38,7 +41,10 @@ import org.apache.olingo.odata2.api.uri.info.GetEntityUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetFunctionImportUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PostUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -52,13 +58,22 @@ public abstract class ODataJPADefaultProcessor extends ODataJPAProcessor {
   public ODataResponse readEntitySet(final GetEntitySetUriInfo uriParserResultView, final String contentType)
       throws ODataException {
     ODataResponse oDataResponse = null;
+    boolean streamed = false;
     try {
       oDataJPAContext.setODataContext(getContext());
       List<Object> jpaEntities = jpaProcessor.process(uriParserResultView);
       oDataResponse =
           responseBuilder.build(uriParserResultView, jpaEntities, contentType);
+      if (oDataResponse.getEntity() instanceof ODataStreamingContent) {
+        // the entities are read while the response is sent, so the entity manager must stay open until then
+        oDataResponse = ODataResponse.fromResponse(oDataResponse)
+            .entity(new ClosingStreamingContent((ODataStreamingContent) oDataResponse.getEntity(), false)).build();
+        streamed = true;
+      }
     } finally {
-      close();
+      if (!streamed) {
+        close();
+      }
     }
     return oDataResponse;
   }
@@ -245,25 +260,42 @@ public abstract class ODataJPADefaultProcessor extends ODataJPAProcessor {
     }
   }
 
+  /**
+   * Handles the parts of the batch request one after the other with
+   * {@link BatchHandler#handleBatchPart(BatchRequestPart)}. Query operations are not executed concurrently,
+   * even if the service factory provides an {@link org.apache.olingo.odata2.api.ODataBatchExecutionCallback}:
+   * on the threads of the executor they would not use the entity manager and the transaction bound to the
+   * thread of the batch request, and the entities of a streamed entity set are read only while the batch
+   * response is sent.
+   */
   @Override
   public ODataResponse executeBatch(final BatchHandler handler, final String contentType, final InputStream content)
       throws ODataException {
+    boolean streamed = false;
     try {
       oDataJPAContext.setODataContext(getContext());
 
       ODataResponse batchResponse;
-      List<BatchResponsePart> batchResponseParts = new ArrayList<BatchResponsePart>();
       PathInfo pathInfo = getContext().getPathInfo();
       EntityProviderBatchProperties batchProperties = EntityProviderBatchProperties.init().pathInfo(pathInfo).build();
       List<BatchRequestPart> batchParts = EntityProvider.parseBatchRequest(contentType, content, batchProperties);
 
+      List<BatchResponsePart> batchResponseParts = new ArrayList<BatchResponsePart>();
       for (BatchRequestPart batchPart : batchParts) {
         batchResponseParts.add(handler.handleBatchPart(batchPart));
       }
-      batchResponse = EntityProvider.writeBatchResponse(batchResponseParts);
+      batchResponse = EntityProvider.writeBatchResponse(batchResponseParts, batchProperties);
+      if (batchResponse.getEntity() instanceof ODataStreamingContent) {
+        // the part bodies are read while the response is sent, so the entity manager must stay open until then
+        batchResponse = ODataResponse.fromResponse(batchResponse)
+            .entity(new ClosingStreamingContent((ODataStreamingContent) batchResponse.getEntity(), true)).build();
+        streamed = true;
+      }
       return batchResponse;
     } finally {
-      close(true);
+      if (!streamed) {
+        close(true);
+      }
     }
   }
 
@@ -271,6 +303,7 @@ public abstract class ODataJPADefaultProcessor extends ODataJPAProcessor {
   public BatchResponsePart executeChangeSet(final BatchHandler handler, final List<ODataRequest> requests)
       throws ODataException {
     List<ODataResponse> responses = new ArrayList<ODataResponse>();
+    final int batchSize = oDataJPAContext.getChangeSetBatchSize();
     try {
       oDataJPAContext.getODataJPATransaction().begin();
 
@@ -285,8 +318,20 @@ public abstract class ODataJPADefaultProcessor extends ODataJPAProcessor {
           return BatchResponsePart.responses(errorResponses).changeSet(false).build();
         }
         responses.add(response);
+        if (batchSize > 0 && responses.size() % batchSize == 0) {
+          // The requests have been executed without flushing; send their changes together.
+          try {
+            oDataJPAContext.getEntityManager().flush();
+          } catch (RuntimeException e) {
+            return rollback(request, e);
+          }
+        }
+      }
+      try {
+        oDataJPAContext.getODataJPATransaction().commit();
+      } catch (RuntimeException e) {
+        return rollback(requests.isEmpty() ? null : requests.get(requests.size() - 1), e);
       }
-      oDataJPAContext.getODataJPATransaction().commit();
 
       return BatchResponsePart.responses(responses).changeSet(true).build();
     } catch (Exception e) {
@@ -295,4 +340,71 @@ public abstract class ODataJPADefaultProcessor extends ODataJPAProcessor {
       close(true);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Rolls back a change set whose changes could not be written to the database and returns the error response
+   * of the change set. Changes are written when the entity manager is flushed or the transaction is committed,
+   * which may happen after the request that caused them has already succeeded.
+   */
+  private BatchResponsePart rollback(final ODataRequest request, final RuntimeException e) {
+    if (oDataJPAContext.getODataJPATransaction().isActive()) {
+      oDataJPAContext.getODataJPATransaction().rollback();
+    }
+    String contentType = HttpContentType.APPLICATION_XML;
+    if (request != null && request.getAcceptHeaders() != null) {
+      for (String acceptHeader : request.getAcceptHeaders()) {
+        if (acceptHeader.startsWith(HttpContentType.APPLICATION_JSON)) {
+          contentType = HttpContentType.APPLICATION_JSON;
+          break;
+        }
+      }
+    }
+    ODataErrorContext errorContext = new ODataErrorContext();
+    errorContext.setContentType(contentType);
+    errorContext.setHttpStatus(HttpStatusCodes.INTERNAL_SERVER_ERROR);
+    errorContext.setException(e);
+    errorContext.setMessage(e.getMessage());
+    ODataResponse response = ODataResponse.fromResponse(EntityProvider.writeErrorDocument(errorContext))
+        .contentHeader(contentType).build();
+    List<ODataResponse> errorResponses = new ArrayList<ODataResponse>(1);
+    errorResponses.add(response);
+    return BatchResponsePart.responses(errorResponses).changeSet(false).build();
+  }
+
+  /**
+   * Streaming content which closes the processor after it has been written or when the response is closed.
+   */
+  private class ClosingStreamingContent implements ODataStreamingContent, Closeable {
+    private final ODataStreamingContent content;
+    private final boolean forceClose;
+    private boolean closed;
+
+    private ClosingStreamingContent(final ODataStreamingContent content, final boolean forceClose) {
+      this.content = content;
+      this.forceClose = forceClose;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+      try {
+        content.write(output);
+      } finally {
+        close();
+      }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        try {
+          if (content instanceof Closeable) {
+            ((Closeable) content).close();
+          }
+        } finally {
+          ODataJPADefaultProcessor.this.close(forceClose);
+        }
+      }
+    }
+  }
+}
@@ -82,6 +82,8 @@ public abstract class ODataJPAProcessor extends ODataSingleProcessor {
    * <p/>
    * <b>ATTENTION:</b> If <code>isContainerManaged</code> is set to <code>true</code> at
    * the ODataJPAContext only the cleanup is run but the EntityManager is not closed.
+   * If <code>isEntityManagerReuse</code> is set to <code>true</code> the EntityManager is cleared
+   * instead of closed unless a transaction is still active.
    */
   public void close(boolean forceClose) {
     ODataJPATombstoneContext.cleanup();
@@ -89,12 +91,25 @@ public abstract class ODataJPAProcessor extends ODataSingleProcessor {
       EntityManager em = oDataJPAContext.getEntityManager();
       if (!oDataJPAContext.getODataContext().isInBatchMode() || forceClose) {
         if (em.isOpen()) {
-          em.close();
+          if (oDataJPAContext.isEntityManagerReuse() && !isTransactionActive(em)) {
+            em.clear();
+          } else {
+            em.close();
+          }
         }
       }
     }
   }
 
+  private static boolean isTransactionActive(final EntityManager em) {
+    try {
+      return em.getTransaction().isActive();
+    } catch (IllegalStateException e) {
+      // JTA entity manager; the transaction is not known here
+      return true;
+    }
+  }
+
   public void close() {
     close(false);
   }
@@ -21,6 +21,7 @@ package org.apache.olingo.odata2.jpa.processor.api;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class provides a thread safe container for accessing Tombstone objects
@@ -32,6 +33,8 @@ public final class ODataJPATombstoneContext {
   private static final ThreadLocal<Long> deltaTokenUTCTimeStamp = new ThreadLocal<Long>();
   private static final ThreadLocal<HashMap<String, List<Object>>> deltas =
       new ThreadLocal<HashMap<String, List<Object>>>();
+  private static final ThreadLocal<List<Map<String, Object>>> deletedEntries =
+      new ThreadLocal<List<Map<String, Object>>>();
 
   public static String getDeltaToken() {
     return deltaToken.get();
@@ -62,8 +65,22 @@ public final class ODataJPATombstoneContext {
     }
   }
 
+  /**
+   * @return the entities deleted since the delta token as reported by
+   * {@link ODataJPATombstoneEntityListener#getDeletedEntries}, or <code>null</code>; the list is only referenced
+   * here until the tombstone callback hands it to the feed producer
+   */
+  public static List<Map<String, Object>> getDeletedEntries() {
+    return deletedEntries.get();
+  }
+
+  public static void setDeletedEntries(final List<Map<String, Object>> entries) {
+    deletedEntries.set(entries);
+  }
+
   public static void cleanup() {
     deltas.remove();
+    deletedEntries.remove();
     deltaToken.remove();
     deltaTokenUTCTimeStamp.remove();
   }
@@ -18,7 +18,10 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.jpa.processor.api;
 
+import java.util.Calendar;
 import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
@@ -58,6 +61,56 @@ public abstract class ODataJPATombstoneEntityListener {
    */
   public abstract String generateDeltaToken(List<Object> deltas, Query query);
 
+  /**
+   * Override this method to read only the entities changed since the delta token from the database instead of
+   * loading all entities and collecting the delta with {@link #addToDelta(Object, String)}. The query is then
+   * restricted to entities whose attribute is greater than or equal to {@link #getDeltaValue(String)}, and the
+   * delta is paged in the database like any other entity set; the attribute should therefore be indexed.
+   * The method is only used if {@link #getQuery(GetEntitySetUriInfo, EntityManager)} returns <code>null</code>.
+   * @return the name of the JPA attribute holding the time (or version) of the last change of an entity,
+   * <code>null</code> by default
+   */
+  public String getDeltaAttribute() {
+    return null;
+  }
+
+  /**
+   * Override this method to convert the delta token into the lower bound of the attribute returned by
+   * {@link #getDeltaAttribute()}. By default the token is taken as UTC time stamp in milliseconds, like in
+   * {@link ODataJPATombstoneContext#getDeltaTokenUTCTimeStamp()}.
+   * @param deltaToken is the delta token of the OData request
+   * @return the lower bound or <code>null</code> to read all entities
+   */
+  public Object getDeltaValue(final String deltaToken) {
+    final long timestamp;
+    try {
+      timestamp = Long.parseLong(deltaToken);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    calendar.setTimeInMillis(timestamp);
+    return calendar;
+  }
+
+  /**
+   * Override this method to report the entities deleted since the delta token; they are written as deleted entries
+   * of the delta feed. The method is called for the first page of a delta request only.
+   * <p>The list is kept in {@link ODataJPATombstoneContext} until the feed is written, which happens before the
+   * request processing ends, and the feed producers iterate it exactly once without asking for its size. Instead of
+   * loading all deleted entities, the list may therefore read them while they are iterated, e.g., from a query
+   * result.</p>
+   * @param resultsView is a reference to OData request
+   * @param em is a reference to {@link javax.persistence.EntityManager}
+   * @return the values of the key properties, and optionally of the property mapped on SyndicationUpdated, of each
+   * deleted entity; <code>null</code> by default
+   * @see org.apache.olingo.odata2.api.ep.callback.TombstoneCallbackResult#setDeletedEntriesData(List)
+   */
+  public List<Map<String, Object>> getDeletedEntries(final GetEntitySetUriInfo resultsView, final EntityManager em)
+      throws ODataJPARuntimeException {
+    return null;
+  }
+
   /**
    * Implement this method to indicate whether the extended class can handle OData Tombstone feature as well
    * @return true by default
@@ -73,6 +73,8 @@ public class JPAEntityTypeMapType {
   protected String name;
   @XmlAttribute(name = "exclude")
   protected Boolean exclude;
+  @XmlAttribute(name = "readOnly")
+  protected Boolean readOnly;
 
   /**
    * Gets the value of the edmEntityType property.
@@ -210,4 +212,26 @@ public class JPAEntityTypeMapType {
     exclude = value;
   }
 
+  /**
+   * Gets the value of the readOnly property.
+   * 
+   * @return
+   * possible object is {@link Boolean }
+   * 
+   */
+  public Boolean isReadOnly() {
+    return readOnly;
+  }
+
+  /**
+   * Sets the value of the readOnly property.
+   * 
+   * @param value
+   * allowed object is {@link Boolean }
+   * 
+   */
+  public void setReadOnly(final Boolean value) {
+    readOnly = value;
+  }
+
 }
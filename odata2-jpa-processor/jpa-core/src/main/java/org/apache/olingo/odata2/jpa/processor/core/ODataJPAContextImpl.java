@@ -45,6 +45,17 @@ public class ODataJPAContextImpl implements ODataJPAContext {
   private boolean defaultNaming = true;
   private ODataJPATransaction transaction = null;
   private boolean containerManaged = false;
+  private int changeSetBatchSize = 0;
+  private boolean edmModelCaching = false;
+  private boolean selectProjection = false;
+  private int streamingChunkSize = 0;
+  private boolean keysetPaging = false;
+  private boolean readOnlyQueries = false;
+  private boolean readOnlyQueryHints = false;
+  private boolean sharedCacheQueryHints = false;
+  private int queryFetchSize = 0;
+  private boolean preloadExpandedEntities = false;
+  private boolean entityManagerReuse = false;
 
   @Override
   public String getPersistenceUnitName() {
@@ -123,6 +134,10 @@ public class ODataJPAContextImpl implements ODataJPAContext {
   @Override
   public EntityManager getEntityManager() {
     EntityManager em = emThreadLocal.get();
+    if (em != null && entityManagerReuse && emf != null && em.isOpen() && em.getEntityManagerFactory() != emf) {
+      // left by a request of another service
+      em.close();
+    }
     if (em == null || !em.isOpen()) {
         em = emf.createEntityManager();
         setEntityManager(em);
@@ -197,6 +212,116 @@ public class ODataJPAContextImpl implements ODataJPAContext {
     this.containerManaged = containerManaged;
   }
 
+  @Override
+  public void setChangeSetBatchSize(final int size) {
+    changeSetBatchSize = size;
+  }
+
+  @Override
+  public int getChangeSetBatchSize() {
+    return changeSetBatchSize;
+  }
+
+  @Override
+  public void setEdmModelCaching(final boolean caching) {
+    edmModelCaching = caching;
+  }
+
+  @Override
+  public boolean isEdmModelCaching() {
+    return edmModelCaching;
+  }
+
+  @Override
+  public void setSelectProjection(final boolean selectProjection) {
+    this.selectProjection = selectProjection;
+  }
+
+  @Override
+  public boolean isSelectProjection() {
+    return selectProjection;
+  }
+
+  @Override
+  public void setStreamingChunkSize(final int chunkSize) {
+    streamingChunkSize = chunkSize;
+  }
+
+  @Override
+  public int getStreamingChunkSize() {
+    return streamingChunkSize;
+  }
+
+  @Override
+  public void setKeysetPaging(final boolean keysetPaging) {
+    this.keysetPaging = keysetPaging;
+  }
+
+  @Override
+  public boolean isKeysetPaging() {
+    return keysetPaging;
+  }
+
+  @Override
+  public void setReadOnlyQueries(final boolean readOnlyQueries) {
+    this.readOnlyQueries = readOnlyQueries;
+  }
+
+  @Override
+  public boolean isReadOnlyQueries() {
+    return readOnlyQueries;
+  }
+
+  @Override
+  public void setReadOnlyQueryHints(final boolean readOnlyQueryHints) {
+    this.readOnlyQueryHints = readOnlyQueryHints;
+  }
+
+  @Override
+  public boolean isReadOnlyQueryHints() {
+    return readOnlyQueryHints;
+  }
+
+  @Override
+  public void setSharedCacheQueryHints(final boolean sharedCacheQueryHints) {
+    this.sharedCacheQueryHints = sharedCacheQueryHints;
+  }
+
+  @Override
+  public boolean isSharedCacheQueryHints() {
+    return sharedCacheQueryHints;
+  }
+
+  @Override
+  public void setQueryFetchSize(final int fetchSize) {
+    queryFetchSize = fetchSize;
+  }
+
+  @Override
+  public int getQueryFetchSize() {
+    return queryFetchSize;
+  }
+
+  @Override
+  public void setPreloadExpandedEntities(final boolean preloadExpandedEntities) {
+    this.preloadExpandedEntities = preloadExpandedEntities;
+  }
+
+  @Override
+  public boolean isPreloadExpandedEntities() {
+    return preloadExpandedEntities;
+  }
+
+  @Override
+  public void setEntityManagerReuse(final boolean reuse) {
+    entityManagerReuse = reuse;
+  }
+
+  @Override
+  public boolean isEntityManagerReuse() {
+    return entityManagerReuse;
+  }
+
   @Override
   public void setEntityManager(EntityManager em) {
     emThreadLocal.set(em);
@@ -19,8 +19,10 @@
 package org.apache.olingo.odata2.jpa.processor.core;
 
 import java.net.URI;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -62,6 +64,8 @@ import org.apache.olingo.odata2.api.uri.info.GetEntityUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetFunctionImportUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PostUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
+import org.apache.olingo.odata2.core.commons.Encoder;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 import org.apache.olingo.odata2.core.uri.UriInfoImpl;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAResponseBuilder;
@@ -69,6 +73,8 @@ import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
 import org.apache.olingo.odata2.jpa.processor.api.access.JPAPaging;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
 import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAEntityParser;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAPage;
+import org.apache.olingo.odata2.jpa.processor.core.access.data.JPAQueryResultList;
 import org.apache.olingo.odata2.jpa.processor.core.callback.JPAExpandCallBack;
 import org.apache.olingo.odata2.jpa.processor.core.callback.JPATombstoneCallBack;
 import org.apache.olingo.odata2.jpa.processor.core.callback.JPATombstoneCallBackFI;
@@ -96,7 +102,12 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       List<Map<String, Object>> edmEntityList = null;
       JPAEntityParser jpaResultParser = new JPAEntityParser();
       final List<SelectItem> selectedItems = resultsView.getSelect();
-      if (selectedItems != null && !selectedItems.isEmpty()) {
+      final boolean streamed = jpaEntities instanceof JPAQueryResultList;
+      if (streamed) {
+        edmEntityList = new EdmEntityList(jpaResultParser, jpaEntities,
+            selectedItems != null && !selectedItems.isEmpty() ?
+                buildSelectItemList(selectedItems, edmEntityType) : getEdmProperties(edmEntityType));
+      } else if (selectedItems != null && !selectedItems.isEmpty()) {
         edmEntityList =
             jpaResultParser.parse2EdmEntityList(jpaEntities, buildSelectItemList(selectedItems, edmEntityType));
       } else {
@@ -118,6 +129,9 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       EntityProviderWriteProperties feedProperties = null;
 
       feedProperties = getEntityProviderProperties(oDataJPAContext, resultsView, edmEntityList);
+      if (streamed) {
+        feedProperties = EntityProviderWriteProperties.fromProperties(feedProperties).streaming(true).build();
+      }
       odataResponse =
           EntityProvider.writeFeed(contentType, resultsView.getTargetEntitySet(), edmEntityList, feedProperties);
       odataResponse = ODataResponse.fromResponse(odataResponse).status(HttpStatusCodes.OK).build();
@@ -512,12 +526,12 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       entityFeedPropertiesBuilder =
           EntityProviderWriteProperties.serviceRoot(pathInfo.getServiceRoot());
       JPAPaging paging = odataJPAContext.getPaging();
-      if (odataJPAContext.getPageSize() > 0 && paging != null && paging.getNextPage() > 0) {
+      if (odataJPAContext.getPageSize() > 0 && getNextSkipToken(paging) != null) {
         String nextLink =
             serviceRoot.relativize(pathInfo.getRequestUri()).toString();
         nextLink = percentEncodeNextLink(nextLink);
         nextLink += (nextLink != null ? nextLink.contains("?") ? "&" : "?" : "?")
-            + "$skiptoken=" + odataJPAContext.getPaging().getNextPage();
+            + "$skiptoken=" + Encoder.encode(getNextSkipToken(paging));
         entityFeedPropertiesBuilder.nextLink(nextLink);
       }
       entityFeedPropertiesBuilder.inlineCount(count);
@@ -569,12 +583,12 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
       entityFeedPropertiesBuilder =
           EntityProviderWriteProperties.serviceRoot(pathInfo.getServiceRoot());
       JPAPaging paging = odataJPAContext.getPaging();
-      if (odataJPAContext.getPageSize() > 0 && paging != null && paging.getNextPage() > 0) {
+      if (odataJPAContext.getPageSize() > 0 && getNextSkipToken(paging) != null) {
         String nextLink =
             serviceRoot.relativize(pathInfo.getRequestUri()).toString();
         nextLink = percentEncodeNextLink(nextLink);
         nextLink += (nextLink != null ? nextLink.contains("?") ? "&" : "?" : "?")
-            + "$skiptoken=" + odataJPAContext.getPaging().getNextPage();
+            + "$skiptoken=" + Encoder.encode(getNextSkipToken(paging));
         entityFeedPropertiesBuilder.nextLink(nextLink);
       }
       entityFeedPropertiesBuilder.inlineCount(count);
@@ -755,4 +769,68 @@ public final class ODataJPAResponseBuilderDefault implements ODataJPAResponseBui
     return edmProperties;
   }
 
+  /*
+   * Keyset paging of the default JPAPage uses key values as skip token; other pages are offset pages
+   */
+  private static String getNextSkipToken(final JPAPaging paging) {
+    if (paging instanceof JPAPage) {
+      return ((JPAPage) paging).getNextSkipToken();
+    }
+    return paging != null && paging.getNextPage() > 0 ? String.valueOf(paging.getNextPage()) : null;
+  }
+
+  /*
+   * Converts the JPA entities of a streamed query result only while the feed is written
+   */
+  private static class EdmEntityList extends AbstractList<Map<String, Object>> {
+    private final JPAEntityParser parser;
+    private final List<Object> jpaEntities;
+    private final List<EdmProperty> properties;
+
+    private EdmEntityList(final JPAEntityParser parser, final List<Object> jpaEntities,
+        final List<EdmProperty> properties) {
+      this.parser = parser;
+      this.jpaEntities = jpaEntities;
+      this.properties = properties;
+    }
+
+    @Override
+    public Map<String, Object> get(final int index) {
+      return convert(jpaEntities.get(index));
+    }
+
+    @Override
+    public int size() {
+      return jpaEntities.size();
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> iterator() {
+      final Iterator<Object> iterator = jpaEntities.iterator();
+      return new Iterator<Map<String, Object>>() {
+        @Override
+        public boolean hasNext() {
+          return iterator.hasNext();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+          return convert(iterator.next());
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    private Map<String, Object> convert(final Object jpaEntity) {
+      try {
+        return parser.parse2EdmPropertyValueMap(jpaEntity, properties);
+      } catch (ODataJPARuntimeException e) {
+        throw new ODataRuntimeException(e.getMessage(), e);
+      }
+    }
+  }
 }
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+/**
+ * Process-wide cache of the accessor methods of JPA entity and embeddable classes.
+ * <p>Methods are looked up and made accessible only once per class, no matter how many
+ * {@link JPAEntityParser} instances are created. For getters the conversion of the returned value
+ * (XML adapters, character types, and LOBs) is determined once as well.</p>
+ * <p>The classes are referenced weakly. Their accessors are referenced softly, since the cached methods refer
+ * to their class; so the accessors of a class whose class loader is no longer used are released at the latest
+ * when memory gets low. {@link #clear()} releases them at once.</p>
+ * <p>Cached accessors are looked up without locking; only a miss takes a lock to add the accessors of a class
+ * and to drop the entries of collected classes.</p>
+ */
+public final class JPAAccessorCache {
+
+  private static final Object NO_METHOD = new Object();
+  private static final ConcurrentMap<ClassKey, SoftReference<ClassAccessors>> CACHE =
+      new ConcurrentHashMap<ClassKey, SoftReference<ClassAccessors>>();
+  private static final ReferenceQueue<Class<?>> COLLECTED_CLASSES = new ReferenceQueue<Class<?>>();
+
+  private JPAAccessorCache() {}
+
+  /**
+   * Gets a public method, like {@link Class#getMethod(String, Class...)}.
+   * @throws NoSuchMethodException if the method does not exist
+   */
+  static Method getMethod(final Class<?> type, final String name, final Class<?>... parameterTypes)
+      throws NoSuchMethodException {
+    return getMethod(type, false, name, parameterTypes);
+  }
+
+  /**
+   * Gets a method declared by the given class, like {@link Class#getDeclaredMethod(String, Class...)}.
+   * @throws NoSuchMethodException if the method does not exist
+   */
+  static Method getDeclaredMethod(final Class<?> type, final String name, final Class<?>... parameterTypes)
+      throws NoSuchMethodException {
+    return getMethod(type, true, name, parameterTypes);
+  }
+
+  /**
+   * Gets the getter for the given method.
+   * @param method a getter of a JPA entity or embeddable class
+   * @return the getter
+   */
+  static Getter getGetter(final Method method) {
+    final ConcurrentMap<Method, Getter> getters = getClassAccessors(method.getDeclaringClass()).getters;
+    Getter getter = getters.get(method);
+    if (getter == null) {
+      getter = new Getter(method);
+      final Getter cached = getters.putIfAbsent(method, getter);
+      if (cached != null) {
+        getter = cached;
+      }
+    }
+    return getter;
+  }
+
+  /**
+   * Removes all cached methods.
+   */
+  public static void clear() {
+    synchronized (CACHE) {
+      CACHE.clear();
+    }
+  }
+
+  private static Method getMethod(final Class<?> type, final boolean declared, final String name,
+      final Class<?>[] parameterTypes) throws NoSuchMethodException {
+    final ConcurrentMap<MethodKey, Object> methods = getClassAccessors(type).methods;
+    final MethodKey key = new MethodKey(name, declared, parameterTypes);
+    Object method = methods.get(key);
+    if (method == null) {
+      try {
+        final Method found = declared ?
+            type.getDeclaredMethod(name, key.parameterTypes) : type.getMethod(name, key.parameterTypes);
+        try {
+          found.setAccessible(true);
+        } catch (SecurityException e) {
+          // access checks are done on every call then
+        }
+        method = found;
+      } catch (NoSuchMethodException e) {
+        method = NO_METHOD;
+      }
+      methods.putIfAbsent(key, method);
+    }
+    if (method == NO_METHOD) {
+      throw new NoSuchMethodException(type.getName() + "." + name);
+    }
+    return (Method) method;
+  }
+
+  private static ClassAccessors getClassAccessors(final Class<?> type) {
+    SoftReference<ClassAccessors> reference = CACHE.get(new ClassKey(type, null));
+    ClassAccessors accessors = reference == null ? null : reference.get();
+    if (accessors == null) {
+      synchronized (CACHE) {
+        for (Reference<?> collected = COLLECTED_CLASSES.poll(); collected != null;
+            collected = COLLECTED_CLASSES.poll()) {
+          CACHE.remove(collected);
+        }
+        reference = CACHE.get(new ClassKey(type, null));
+        accessors = reference == null ? null : reference.get();
+        if (accessors == null) {
+          accessors = new ClassAccessors();
+          CACHE.put(new ClassKey(type, COLLECTED_CLASSES), new SoftReference<ClassAccessors>(accessors));
+        }
+      }
+    }
+    return accessors;
+  }
+
+  /**
+   * Weak reference to a class, equal to the references to the same class as long as it has not been collected.
+   */
+  private static final class ClassKey extends WeakReference<Class<?>> {
+    private final int hashCode;
+
+    private ClassKey(final Class<?> type, final ReferenceQueue<Class<?>> queue) {
+      super(type, queue);
+      hashCode = System.identityHashCode(type);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      final Class<?> type = get();
+      return type != null && obj instanceof ClassKey && ((ClassKey) obj).get() == type;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private static final class ClassAccessors {
+    private final ConcurrentMap<MethodKey, Object> methods = new ConcurrentHashMap<MethodKey, Object>();
+    private final ConcurrentMap<Method, Getter> getters = new ConcurrentHashMap<Method, Getter>();
+  }
+
+  private static final class MethodKey {
+    private final String name;
+    private final boolean declared;
+    private final Class<?>[] parameterTypes;
+    private final int hashCode;
+
+    private MethodKey(final String name, final boolean declared, final Class<?>[] parameterTypes) {
+      this.name = name;
+      this.declared = declared;
+      this.parameterTypes = parameterTypes == null ? new Class<?>[0] : parameterTypes;
+      hashCode = 31 * (31 * name.hashCode() + Arrays.hashCode(this.parameterTypes)) + (declared ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof MethodKey)) {
+        return false;
+      }
+      final MethodKey other = (MethodKey) obj;
+      return declared == other.declared && name.equals(other.name)
+          && Arrays.equals(parameterTypes, other.parameterTypes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private enum Conversion {
+    NONE, XML_ADAPTER, CHAR_ARRAY, CHARACTER_ARRAY, CHAR, CHARACTER, BLOB, CLOB
+  }
+
+  /**
+   * Getter of a JPA entity or embeddable class together with the conversion of its value.
+   */
+  static final class Getter {
+    private final Method method;
+    private final boolean virtualAccess;
+    @SuppressWarnings("rawtypes")
+    private final Class<? extends XmlAdapter> xmlAdapterType;
+    private final Conversion conversion;
+
+    private Getter(final Method method) {
+      this.method = method;
+      virtualAccess = method.getParameterTypes().length > 0;
+      final XmlJavaTypeAdapter xmlJavaTypeAdapter = method.getAnnotation(XmlJavaTypeAdapter.class);
+      xmlAdapterType = xmlJavaTypeAdapter == null ? null : xmlJavaTypeAdapter.value();
+      final Class<?> returnType = method.getReturnType();
+      if (xmlAdapterType != null) {
+        conversion = Conversion.XML_ADAPTER;
+      } else if (returnType.equals(char[].class)) {
+        conversion = Conversion.CHAR_ARRAY;
+      } else if (returnType.equals(Character[].class)) {
+        conversion = Conversion.CHARACTER_ARRAY;
+      } else if (returnType.equals(char.class)) {
+        conversion = Conversion.CHAR;
+      } else if (returnType.equals(Character.class)) {
+        conversion = Conversion.CHARACTER;
+      } else if (returnType.equals(Blob.class)) {
+        conversion = Conversion.BLOB;
+      } else if (returnType.equals(Clob.class)) {
+        conversion = Conversion.CLOB;
+      } else {
+        conversion = Conversion.NONE;
+      }
+    }
+
+    /**
+     * @return the type of the XML adapter the getter is annotated with, or <code>null</code>
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends XmlAdapter> getXmlAdapterType() {
+      return xmlAdapterType;
+    }
+
+    /**
+     * Reads the value from the entity and converts it into the value of the EDM property.
+     * @param entity the JPA entity or embeddable object
+     * @param propertyName the name passed to generic (virtual access) getters
+     * @return the converted value
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    Object getValue(final Object entity, final String propertyName) throws Exception {
+      switch (conversion) {
+      case XML_ADAPTER:
+        final XmlAdapter xmlAdapter = xmlAdapterType.newInstance();
+        return xmlAdapter.marshal(method.invoke(entity));
+      case CHAR_ARRAY:
+        final char[] chars = (char[]) method.invoke(entity);
+        return chars == null ? null : String.valueOf(chars);
+      case CHARACTER_ARRAY:
+        return JPAEntityParser.toString((Character[]) method.invoke(entity));
+      case CHAR:
+        final char c = (Character) method.invoke(entity);
+        return c == '\u0000' ? null : String.valueOf(c);
+      case CHARACTER:
+        final Character character = (Character) method.invoke(entity);
+        return character == null ? null : JPAEntityParser.toString(new Character[] { character });
+      case BLOB:
+        return JPAEntityParser.getBytes((Blob) method.invoke(entity));
+      case CLOB:
+        return JPAEntityParser.getString((Clob) method.invoke(entity));
+      default:
+        return virtualAccess ? method.invoke(entity, propertyName) : method.invoke(entity);
+      }
+    }
+  }
+}
@@ -34,7 +34,6 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.xml.bind.annotation.adapters.XmlAdapter;
-import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmEntityType;
@@ -512,10 +511,10 @@ public class JPAEntity {
           String setterName = method.getName();
       	  String getterName = setterName.replace("set", "get");
       	  try {
-            Method getMethod = entity.getClass().getDeclaredMethod(getterName);
-            if(getMethod.isAnnotationPresent(XmlJavaTypeAdapter.class)) {
-              XmlAdapter xmlAdapter = getMethod.getAnnotation(XmlJavaTypeAdapter.class)
-                  .value().newInstance();
+            Method getMethod = JPAAccessorCache.getDeclaredMethod(entity.getClass(), getterName);
+            Class<? extends XmlAdapter> xmlAdapterType = JPAAccessorCache.getGetter(getMethod).getXmlAdapterType();
+            if (xmlAdapterType != null) {
+              XmlAdapter xmlAdapter = xmlAdapterType.newInstance();
               method.invoke(entity, xmlAdapter.unmarshal(entityPropertyValue));
             }
           } catch (Exception e) {
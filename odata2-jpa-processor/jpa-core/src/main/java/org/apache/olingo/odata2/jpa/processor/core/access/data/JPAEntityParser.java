@@ -34,9 +34,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.bind.annotation.adapters.XmlAdapter;
-import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
-
 import org.apache.olingo.odata2.api.edm.EdmAssociationEnd;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmMapping;
@@ -100,6 +97,17 @@ public final class JPAEntityParser {
     Object propertyValue = null;
     String jpaEntityAccessKey = null;
 
+    if (jpaEntity instanceof JPAEntityRow) {
+      try {
+        for (EdmProperty property : selectPropertyList) {
+          edmEntity.put(property.getName(), ((JPAEntityRow) jpaEntity).getValue(property.getName()));
+        }
+      } catch (EdmException e) {
+        throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
+      }
+      return edmEntity;
+    }
+
     jpaEntityAccessKey = jpaEntity.getClass().getName();
     if (!jpaEntityAccessMap.containsKey(jpaEntityAccessKey)) {
       accessModifierMap =
@@ -188,13 +196,13 @@ public final class JPAEntityParser {
     			Method getterMethod = null;
     			JPAEdmMapping jpaEdmMapping = (JPAEdmMapping)navigationProperty.getMapping();
     			if(jpaEdmMapping != null && jpaEdmMapping.isVirtualAccess()) {
-    				getterMethod = jpaEntity.getClass().getMethod(ACCESS_MODIFIER_GET, String.class);
+    				getterMethod = JPAAccessorCache.getMethod(jpaEntity.getClass(), ACCESS_MODIFIER_GET,
+    						String.class);
     			}else{
-    				getterMethod = jpaEntity.getClass()
-    						.getMethod(methodName, (Class<?>[]) null);
+    				getterMethod = JPAAccessorCache.getMethod(jpaEntity.getClass(), methodName,
+    						(Class<?>[]) null);
     			}
 
-    			getterMethod.setAccessible(true);
     			result = getPropertyValue(getterMethod, jpaEntity,
     					navigationProperty.getMapping().getInternalName());
     			navigationMap.put(navigationProperty.getName(), result);
@@ -218,9 +226,9 @@ public final class JPAEntityParser {
     Method method = null;
 
     try {
-      method = jpaType.getMethod(methodNameGet, (Class<?>[]) null);
+      method = JPAAccessorCache.getMethod(jpaType, methodNameGet, (Class<?>[]) null);
       Class<?> parameterType = method.getReturnType();
-      method = jpaType.getMethod(methodName, new Class<?>[] { parameterType });
+      method = JPAAccessorCache.getMethod(jpaType, methodName, new Class<?>[] { parameterType });
     } catch (NoSuchMethodException e) {
       throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
     } catch (SecurityException e) {
@@ -237,50 +245,14 @@ public final class JPAEntityParser {
 
   public static Object getPropertyValue(final Method method, final Object entity, String propertyName) 
 		  throws ODataJPARuntimeException {
-    Object propertyValue = null;
     if (method == null) {
       return null;
     }
     try {
-      method.setAccessible(true);
-      Class<?> returnType = method.getReturnType();
-
-      if(method.isAnnotationPresent(XmlJavaTypeAdapter.class)) {
-        XmlAdapter xmlAdapter = method.getAnnotation(XmlJavaTypeAdapter.class).value().newInstance();
-        propertyValue = xmlAdapter.marshal(method.invoke(entity));
-      } else if (returnType.equals(char[].class)) {
-        char[] ch = (char[]) method.invoke(entity);
-        if (ch != null) {
-          propertyValue = (String) String.valueOf((char[]) method.invoke(entity));
-        }
-      } else if (returnType.equals(Character[].class)) {
-        propertyValue = (String) toString((Character[]) method.invoke(entity));
-      } else if (returnType.equals(char.class)) {
-        char c = (Character) method.invoke(entity);
-        if (c != '\u0000') {
-          propertyValue = (String) String.valueOf(c);
-        }
-      } else if (returnType.equals(Character.class)) {
-        Character c = (Character) method.invoke(entity);
-        if (c != null) {
-          propertyValue = toString(new Character[] { c });
-        }
-      } else if (returnType.equals(Blob.class)) {
-        propertyValue = getBytes((Blob) method.invoke(entity));
-      } else if (returnType.equals(Clob.class)) {
-        propertyValue = getString((Clob) method.invoke(entity));
-      } else {
-    	  if(method.getParameterTypes().length>0) {
-    		  propertyValue = method.invoke(entity,propertyName);
-    	  } else {
-    		  propertyValue = method.invoke(entity);
-    	  }
-      }
+      return JPAAccessorCache.getGetter(method).getValue(entity, propertyName);
     } catch (Exception e) {
       throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e);
     }
-
-    return propertyValue;
   }
 
   public static String getString(final Clob clob) throws ODataJPARuntimeException {
@@ -415,12 +387,11 @@ public final class JPAEntityParser {
         }
         if (isVirtualAccess) {
 
-        	method = propertyValue.getClass().getMethod(ACCESS_MODIFIER_GET, String.class);
+        	method = JPAAccessorCache.getMethod(propertyValue.getClass(), ACCESS_MODIFIER_GET, String.class);
         	namePart = namePart.replaceFirst(ACCESS_MODIFIER_GET, "");
         } else {
-        	method = propertyValue.getClass().getMethod(namePart, (Class<?>[]) null);
+        	method = JPAAccessorCache.getMethod(propertyValue.getClass(), namePart, (Class<?>[]) null);
         }
-        method.setAccessible(true);
         propertyValue = getPropertyValue(method, propertyValue,namePart);
       }
     } catch (NoSuchMethodException e) {
@@ -524,7 +495,7 @@ public final class JPAEntityParser {
       Class<?>[] params = null;
       if (navPropMapping != null && navPropMapping.isVirtualAccess()) {
   
-    	  return jpaEntityType.getMethod(ACCESS_MODIFIER_SET, String.class, Object.class);
+    	  return JPAAccessorCache.getMethod(jpaEntityType, ACCESS_MODIFIER_SET, String.class, Object.class);
       } else {
 	      name = getAccessModifierName(navigationProperty.getName(), (EdmMapping) navPropMapping, accessModifier);
 	
@@ -542,7 +513,7 @@ public final class JPAEntityParser {
 	          break;
 	        }
 	      }
-	      return jpaEntityType.getMethod(name, params);
+	      return JPAAccessorCache.getMethod(jpaEntityType, name, params);
       }
 
     } catch (NoSuchMethodException e) {
@@ -587,19 +558,21 @@ public final class JPAEntityParser {
         	  if (accessModifier.equals(ACCESS_MODIFIER_SET)) {
         		  JPAEdmMapping jpaEdmMapping = (JPAEdmMapping) property.getMapping();
         		  if(jpaEdmMapping != null && jpaEdmMapping.isVirtualAccess()) {
-        			  accessModifierMap.put(propertyName, jpaEntityType.getMethod(ACCESS_MODIFIER_SET,
+        			  accessModifierMap.put(propertyName,
+        					  JPAAccessorCache.getMethod(jpaEntityType, ACCESS_MODIFIER_SET,
         					  new Class<?>[] { String.class,Object.class }));
         		  }else {
-        			  accessModifierMap.put(propertyName, jpaEntityType.getMethod(methodName,
+        			  accessModifierMap.put(propertyName,
+        					  JPAAccessorCache.getMethod(jpaEntityType, methodName,
         					  new Class<?>[] { jpaEdmMapping != null ? 
         					      jpaEdmMapping.getJPAType() : null }));
         		  }
         	  } else {
         		  JPAEdmMapping jpaEdmMapping = (JPAEdmMapping) property.getMapping();
         		  if(jpaEdmMapping != null && jpaEdmMapping.isVirtualAccess()) {
-        			  method = jpaEntityType.getMethod(ACCESS_MODIFIER_GET, String.class);
+        			  method = JPAAccessorCache.getMethod(jpaEntityType, ACCESS_MODIFIER_GET, String.class);
         		  }else{
-        			  method = jpaEntityType.getMethod(methodName, (Class<?>[]) null);
+        			  method = JPAAccessorCache.getMethod(jpaEntityType, methodName, (Class<?>[]) null);
         		  }
         	  }
           }
@@ -612,7 +585,7 @@ public final class JPAEntityParser {
                 && accessModifier.equals(ACCESS_MODIFIER_GET)) {
               String nameWithIs = getAccessModifierName(property.getName(),
                   property.getMapping(), ACCESS_MODIFIER_IS);
-              method = jpaEntityType.getMethod(nameWithIs, (Class<?>[]) null);
+              method = JPAAccessorCache.getMethod(jpaEntityType, nameWithIs, (Class<?>[]) null);
             } else {
               throw ODataJPARuntimeException.throwException(ODataJPARuntimeException.INNER_EXCEPTION, e1);
             }
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+
+/**
+ * Result of a query which selects only some properties of an entity (projection for <code>$select</code>).
+ * A row is not a managed entity; it just holds the values keyed by the names of the EDM properties.
+ */
+public class JPAEntityRow {
+
+  private final Map<String, Object> values;
+
+  public JPAEntityRow(final Map<String, Object> values) {
+    this.values = values;
+  }
+
+  /**
+   * Creates a row from a result of a projection query.
+   * @param result the array of the column values, or the value itself if only one column has been selected
+   * @param properties the EDM properties in the order of the columns
+   * @return the row
+   * @throws EdmException
+   */
+  public static JPAEntityRow create(final Object result, final List<EdmProperty> properties) throws EdmException {
+    final Object[] columns = result instanceof Object[] ? (Object[]) result : new Object[] { result };
+    Map<String, Object> values = new HashMap<String, Object>();
+    for (int i = 0; i < properties.size(); i++) {
+      values.put(properties.get(i).getName(), columns[i]);
+    }
+    return new JPAEntityRow(values);
+  }
+
+  public Object getValue(final String propertyName) {
+    return values.get(propertyName);
+  }
+}
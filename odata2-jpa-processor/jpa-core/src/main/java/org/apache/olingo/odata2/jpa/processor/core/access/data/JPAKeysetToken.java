@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
+import org.apache.olingo.odata2.api.edm.EdmMapping;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleType;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeException;
+import org.apache.olingo.odata2.api.edm.EdmTypeKind;
+import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
+import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
+
+/**
+ * <code>$skiptoken</code> of keyset paging.
+ * <p>The token holds the URI literals of the key values of the last entity of a page in the order of the
+ * key properties, enclosed in parentheses like a key predicate without property names, e.g.,
+ * <code>('A',7)</code>. Numeric tokens of offset paging are therefore never taken for keys.</p>
+ */
+final class JPAKeysetToken {
+
+  private static final char START = '(';
+  private static final char END = ')';
+  private static final char SEPARATOR = ',';
+  private static final char QUOTE = '\'';
+
+  private static final List<Class<?>> SUPPORTED_TYPES = Arrays.<Class<?>> asList(String.class, Boolean.class,
+      Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigDecimal.class,
+      BigInteger.class, UUID.class, Date.class, Calendar.class, Timestamp.class, Time.class);
+
+  private static final Map<Class<?>, Class<?>> WRAPPER_TYPES = new HashMap<Class<?>, Class<?>>();
+  static {
+    WRAPPER_TYPES.put(boolean.class, Boolean.class);
+    WRAPPER_TYPES.put(byte.class, Byte.class);
+    WRAPPER_TYPES.put(short.class, Short.class);
+    WRAPPER_TYPES.put(int.class, Integer.class);
+    WRAPPER_TYPES.put(long.class, Long.class);
+    WRAPPER_TYPES.put(float.class, Float.class);
+    WRAPPER_TYPES.put(double.class, Double.class);
+  }
+
+  private JPAKeysetToken() {}
+
+  /**
+   * @return <code>true</code> if the skip token has been created by keyset paging
+   */
+  static boolean isKeysetToken(final String skipToken) {
+    return skipToken != null && skipToken.length() > 1
+        && skipToken.charAt(0) == START && skipToken.charAt(skipToken.length() - 1) == END;
+  }
+
+  /**
+   * Checks whether the values of the key properties can be written to and read from a token.
+   * @param keyProperties the key properties of the entity type
+   */
+  static boolean isSupported(final List<EdmProperty> keyProperties) throws EdmException {
+    for (EdmProperty keyProperty : keyProperties) {
+      if (keyProperty.getType().getKind() != EdmTypeKind.SIMPLE
+          || !SUPPORTED_TYPES.contains(getJavaType(keyProperty))) {
+        return false;
+      }
+    }
+    return !keyProperties.isEmpty();
+  }
+
+  /**
+   * Creates the token of the page which follows the given entity.
+   * @param entity the last JPA entity (or {@link JPAEntityRow}) of a page
+   * @param keyProperties the key properties of the entity type
+   * @return the token
+   */
+  static String create(final Object entity, final List<EdmProperty> keyProperties)
+      throws ODataJPARuntimeException, EdmException {
+    final Map<String, Object> keyValues = new JPAEntityParser().parse2EdmPropertyValueMap(entity, keyProperties);
+    StringBuilder token = new StringBuilder().append(START);
+    for (EdmProperty keyProperty : keyProperties) {
+      if (token.length() > 1) {
+        token.append(SEPARATOR);
+      }
+      token.append(((EdmSimpleType) keyProperty.getType()).valueToString(keyValues.get(keyProperty.getName()),
+          EdmLiteralKind.URI, keyProperty.getFacets()));
+    }
+    return token.append(END).toString();
+  }
+
+  /**
+   * Reads the key values from a token.
+   * @param skipToken the token created by {@link #create(Object, List)}
+   * @param keyProperties the key properties of the entity type
+   * @return the key values as types of the JPA attributes, in the order of the key properties
+   * @throws EdmException if the token does not match the key properties
+   */
+  static List<Object> parse(final String skipToken, final List<EdmProperty> keyProperties) throws EdmException {
+    final List<String> literals = split(skipToken.substring(1, skipToken.length() - 1));
+    if (literals.size() != keyProperties.size()) {
+      throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(skipToken));
+    }
+    List<Object> values = new ArrayList<Object>(literals.size());
+    for (int i = 0; i < literals.size(); i++) {
+      final EdmProperty keyProperty = keyProperties.get(i);
+      values.add(((EdmSimpleType) keyProperty.getType()).valueOfString(literals.get(i), EdmLiteralKind.URI,
+          keyProperty.getFacets(), getJavaType(keyProperty)));
+    }
+    return values;
+  }
+
+  /*
+   * Splits at separators outside of string literals; quotes within literals are doubled
+   * and just switch twice
+   */
+  private static List<String> split(final String literals) {
+    List<String> result = new ArrayList<String>();
+    boolean inLiteral = false;
+    int start = 0;
+    for (int i = 0; i < literals.length(); i++) {
+      final char c = literals.charAt(i);
+      if (c == QUOTE) {
+        inLiteral = !inLiteral;
+      } else if (c == SEPARATOR && !inLiteral) {
+        result.add(literals.substring(start, i));
+        start = i + 1;
+      }
+    }
+    result.add(literals.substring(start));
+    return result;
+  }
+
+  private static Class<?> getJavaType(final EdmProperty property) throws EdmException {
+    final EdmMapping mapping = property.getMapping();
+    Class<?> type = mapping instanceof JPAEdmMapping ? ((JPAEdmMapping) mapping).getJPAType() : null;
+    if (type == null) {
+      return ((EdmSimpleType) property.getType()).getDefaultType();
+    }
+    return WRAPPER_TYPES.containsKey(type) ? WRAPPER_TYPES.get(type) : type;
+  }
+}
@@ -31,6 +31,7 @@ public class JPAPage implements JPAPaging {
   private int startPage;
   private int nextPage;
   private List<Object> pagedEntries;
+  private String nextSkipToken;
 
   protected JPAPage(final int startPage, final int nextPage, final List<Object> pagedEntities, final int pageSize) {
     this.pageSize = pageSize;
@@ -39,6 +40,17 @@ public class JPAPage implements JPAPaging {
     pagedEntries = pagedEntities;
   }
 
+  /**
+   * Creates a page of keyset paging.
+   * @param pagedEntities the entities of the page
+   * @param pageSize the page size
+   * @param nextSkipToken the key of the last entity as <code>$skiptoken</code>, or <code>null</code> for the last page
+   */
+  protected JPAPage(final List<Object> pagedEntities, final int pageSize, final String nextSkipToken) {
+    this(0, 0, pagedEntities, pageSize);
+    this.nextSkipToken = nextSkipToken;
+  }
+
   @Override
   public int getPageSize() {
     return pageSize;
@@ -59,6 +71,16 @@ public class JPAPage implements JPAPaging {
     return startPage;
   }
 
+  /**
+   * @return the <code>$skiptoken</code> of the next page, or <code>null</code> if this is the last page
+   */
+  public String getNextSkipToken() {
+    if (nextSkipToken != null) {
+      return nextSkipToken;
+    }
+    return nextPage > 0 ? String.valueOf(nextPage) : null;
+  }
+
   public static class JPAPageBuilder {
 
     private int pageSize;
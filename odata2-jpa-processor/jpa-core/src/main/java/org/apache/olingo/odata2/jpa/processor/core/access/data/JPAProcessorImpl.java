@@ -22,6 +22,7 @@ import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -35,6 +36,7 @@ import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.edm.EdmMapping;
 import org.apache.olingo.odata2.api.edm.EdmMultiplicity;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
 import org.apache.olingo.odata2.api.ep.entry.ODataEntry;
 import org.apache.olingo.odata2.api.exception.ODataBadRequestException;
 import org.apache.olingo.odata2.api.uri.UriInfo;
@@ -144,30 +146,45 @@ public class JPAProcessorImpl implements JPAProcessor {
 
     try {
       JPAEdmMapping mapping = (JPAEdmMapping) uriParserResultView.getTargetEntitySet().getEntityType().getMapping();
-      JPAQueryBuilder queryBuilder = new JPAQueryBuilder(oDataJPAContext);
-      JPAQueryInfo queryInfo = queryBuilder.build(uriParserResultView);
-      Query query = queryInfo.getQuery();
-      ODataJPATombstoneEntityListener listener =
-          queryBuilder.getODataJPATombstoneEntityListener((UriInfo) uriParserResultView);
       Map<String, String> customQueryOptions = uriParserResultView.getCustomQueryOptions();
       String deltaToken = null;
       if (customQueryOptions != null) {
         deltaToken = uriParserResultView.getCustomQueryOptions().get(DELTATOKEN);
       }
+      // the delta token bounds the query built by the query builder or by the listener
       if (deltaToken != null) {
         ODataJPATombstoneContext.setDeltaToken(deltaToken);
       }
+      JPAQueryBuilder queryBuilder = new JPAQueryBuilder(oDataJPAContext);
+      JPAQueryInfo queryInfo = queryBuilder.build(uriParserResultView);
+      Query query = queryInfo.getQuery();
+      ODataJPATombstoneEntityListener listener =
+          queryBuilder.getODataJPATombstoneEntityListener((UriInfo) uriParserResultView);
       if (listener != null && (!queryInfo.isTombstoneQuery() && listener.isTombstoneSupported())) {
         query.getResultList();
         List<Object> deltaResult =
             (List<Object>) ODataJPATombstoneContext.getDeltaResult(((EdmMapping) mapping).getInternalName());
         result = handlePaging(deltaResult, uriParserResultView);
+      } else if (queryInfo.isKeysetPaging()) {
+        result = handleKeysetPaging(query, uriParserResultView, queryInfo.getProjection());
+      } else if (listener == null && isStreamed(uriParserResultView)) {
+        result = streamResult(query, uriParserResultView, queryInfo.getProjection());
       } else {
         result = handlePaging(query, uriParserResultView);
+        if (queryInfo.getProjection() != null) {
+          result = toEntityRows(result, queryInfo.getProjection());
+        }
       }
       if (listener != null && listener.isTombstoneSupported()) {
+        if (deltaToken != null && uriParserResultView.getSkipToken() == null) {
+          ODataJPATombstoneContext.setDeletedEntries(listener.getDeletedEntries(uriParserResultView, em));
+        }
         ODataJPATombstoneContext.setDeltaToken(listener.generateDeltaToken((List<Object>) result, query));
       }
+      if (oDataJPAContext.isPreloadExpandedEntities()) {
+        queryBuilder.loadExpandedEntities(result, uriParserResultView.getTargetEntitySet(),
+            uriParserResultView.getExpand());
+      }
       if(InlineCount.ALLPAGES.equals(uriParserResultView.getInlineCount())){
         queryBuilder.getCount(uriParserResultView);
       }
@@ -188,7 +205,13 @@ public class JPAProcessorImpl implements JPAProcessor {
   @Override
   public <T> Object process(GetEntityUriInfo uriParserResultView)
       throws ODataJPAModelException, ODataJPARuntimeException {
-    return readEntity(new JPAQueryBuilder(oDataJPAContext).build(uriParserResultView));
+    JPAQueryBuilder queryBuilder = new JPAQueryBuilder(oDataJPAContext);
+    Object selectedObject = readEntity(queryBuilder.build(uriParserResultView));
+    if (selectedObject != null && oDataJPAContext.isPreloadExpandedEntities()) {
+      queryBuilder.loadExpandedEntities(Collections.singletonList(selectedObject),
+          uriParserResultView.getTargetEntitySet(), uriParserResultView.getExpand());
+    }
+    return selectedObject;
   }
 
   /* Process $count for Get Entity Set Request */
@@ -261,7 +284,7 @@ public class JPAProcessorImpl implements JPAProcessor {
       try{
         boolean isLocalTransaction = setTransaction();
         em.remove(selectedObject);
-        em.flush(); 
+        flush(isLocalTransaction);
         if (isLocalTransaction) {
           oDataJPAContext.getODataJPATransaction().commit();
         }
@@ -389,7 +412,7 @@ public class JPAProcessorImpl implements JPAProcessor {
       } else {
         return null;
       }
-      em.flush();
+      flush(isLocalTransaction);
       if (isLocalTransaction) {
         oDataJPAContext.getODataJPATransaction().commit();
       }
@@ -442,6 +465,48 @@ public class JPAProcessorImpl implements JPAProcessor {
     return page.getPagedEntities();
   }
 
+  private static List<Object> toEntityRows(final List<Object> results, final List<EdmProperty> projection)
+      throws EdmException {
+    if (results == null) {
+      return null;
+    }
+    List<Object> rows = new ArrayList<Object>(results.size());
+    for (Object result : results) {
+      rows.add(JPAEntityRow.create(result, projection));
+    }
+    return rows;
+  }
+
+  /*
+   * Results are streamed if configured and if neither server-side paging nor $expand or $inlinecount
+   * need the complete list of entities
+   */
+  private boolean isStreamed(final GetEntitySetUriInfo uriParserResultView) {
+    if (oDataJPAContext.getStreamingChunkSize() <= 0 || oDataJPAContext.getPageSize() > 0) {
+      return false;
+    }
+    if (oDataJPAContext.getODataContext() != null && oDataJPAContext.getODataContext().isInBatchMode()) {
+      return false;
+    }
+    return (uriParserResultView.getExpand() == null || uriParserResultView.getExpand().isEmpty())
+        && !InlineCount.ALLPAGES.equals(uriParserResultView.getInlineCount());
+  }
+
+  private List<Object> streamResult(final Query query, final GetEntitySetUriInfo uriParserResultView,
+      final List<EdmProperty> projection) {
+    final int chunkSize = oDataJPAContext.getStreamingChunkSize();
+    if (uriParserResultView.getSkip() != null && uriParserResultView.getSkip() > 0) {
+      query.setFirstResult(uriParserResultView.getSkip());
+    }
+    if (uriParserResultView.getTop() != null) {
+      query.setMaxResults(uriParserResultView.getTop());
+    }
+    // fetch size hints of EclipseLink and Hibernate; unknown hints are ignored by persistence providers
+    query.setHint(JPAQueryBuilder.ECLIPSELINK_FETCH_SIZE, chunkSize);
+    query.setHint(JPAQueryBuilder.HIBERNATE_FETCH_SIZE, chunkSize);
+    return new JPAQueryResultList(query, em, chunkSize, projection);
+  }
+
   private List<Object> handlePaging(final Query query, final GetEntitySetUriInfo uriParserResultView) {
 
     JPAPageBuilder pageBuilder = new JPAPageBuilder();
@@ -465,6 +530,36 @@ public class JPAProcessorImpl implements JPAProcessor {
 
   }
 
+  /*
+   * The query already seeks to the key of the skip token; the next skip token is the key of the last entity
+   */
+  private List<Object> handleKeysetPaging(final Query query, final GetEntitySetUriInfo uriParserResultView,
+      final List<EdmProperty> projection) throws ODataJPARuntimeException, EdmException {
+    final int pageSize = oDataJPAContext.getPageSize();
+    query.setMaxResults(pageSize);
+    List<Object> result = query.getResultList();
+    if (projection != null) {
+      result = toEntityRows(result, projection);
+    }
+    String nextSkipToken = null;
+    if (result.size() >= pageSize) {
+      nextSkipToken = JPAKeysetToken.create(result.get(result.size() - 1),
+          uriParserResultView.getTargetEntitySet().getEntityType().getKeyProperties());
+    }
+    oDataJPAContext.setPaging(new JPAPage(result, pageSize, nextSkipToken));
+    return result;
+  }
+
+  /**
+   * Flushes the entity manager unless the request belongs to a change set with batched flushing;
+   * the change set then flushes its requests together.
+   */
+  private void flush(final boolean isLocalTransaction) {
+    if (isLocalTransaction || oDataJPAContext.getChangeSetBatchSize() <= 0) {
+      em.flush();
+    }
+  }
+
   private boolean setTransaction() {
     ODataJPATransaction transaction = oDataJPAContext.getODataJPATransaction();
     if (!transaction.isActive()) {
@@ -18,10 +18,20 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.jpa.processor.core.access.data;
 
+import java.lang.reflect.Method;
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -29,13 +39,26 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
 import javax.persistence.Query;
 import javax.persistence.TemporalType;
 import javax.persistence.metamodel.Attribute;
 import javax.persistence.metamodel.EntityType;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
+import org.apache.olingo.odata2.api.edm.EdmConcurrencyMode;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmMapping;
+import org.apache.olingo.odata2.api.edm.EdmNavigationProperty;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmTypeKind;
+import org.apache.olingo.odata2.api.uri.NavigationPropertySegment;
+import org.apache.olingo.odata2.api.uri.SelectItem;
 import org.apache.olingo.odata2.api.uri.UriInfo;
 import org.apache.olingo.odata2.api.uri.info.DeleteUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntityCountUriInfo;
@@ -46,6 +69,7 @@ import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
 import org.apache.olingo.odata2.core.uri.UriInfoImpl;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAQueryExtensionEntityListener;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneEntityListener;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPAModelException;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
@@ -58,6 +82,8 @@ import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLSelectSingleContextVi
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatement;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
 import org.apache.olingo.odata2.jpa.processor.core.ODataExpressionParser;
+import org.apache.olingo.odata2.jpa.processor.core.jpql.JPQLSelectContext;
+import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
 
 public class JPAQueryBuilder {
 
@@ -70,12 +96,32 @@ public class JPAQueryBuilder {
     Delete
   }
 
+  private static final int MAX_EXPAND_ENTITIES = 500;
+  private static final String EXPAND_ALIAS = "E1";
+  private static final String EXPAND_PARAMETER = "keys";
+  private static final String FETCH = "FETCH";
+  private static final String IN = "IN";
+
+  static final String ECLIPSELINK_FETCH_SIZE = "eclipselink.jdbc.fetch-size";
+  static final String HIBERNATE_FETCH_SIZE = "org.hibernate.fetchSize";
+  private static final String ECLIPSELINK_READ_ONLY = "eclipselink.read-only";
+  private static final String HIBERNATE_READ_ONLY = "org.hibernate.readOnly";
+  private static final String CACHE_RETRIEVE_MODE = "javax.persistence.cache.retrieveMode";
+  private static final String CACHE_STORE_MODE = "javax.persistence.cache.storeMode";
+
+  private static final List<Class<?>> CONVERTED_TYPES = Arrays.<Class<?>> asList(char[].class, Character[].class,
+      char.class, Character.class, Blob.class, Clob.class);
+
   private EntityManager em = null;
   private int pageSize = 0;
+  private ODataJPAContext odataJPAContext;
+  private final Map<Class<?>, ODataJPATombstoneEntityListener> listeners =
+      new HashMap<Class<?>, ODataJPATombstoneEntityListener>();
 
   public JPAQueryBuilder(ODataJPAContext odataJPAContext) {
     this.em = odataJPAContext.getEntityManager();
     this.pageSize = odataJPAContext.getPageSize();
+    this.odataJPAContext = odataJPAContext;
   }
 
   public JPAQueryInfo build(GetEntitySetUriInfo uriInfo) throws ODataJPARuntimeException {
@@ -89,10 +135,12 @@ public class JPAQueryBuilder {
         query = getParameterizedQueryForListeners(jpqlContext, query);
       }
       if (query == null) {
-        query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntitySet);
+        query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntitySet,
+            listener == null ? getProjection((UriInfo) uriInfo) : null, listener, queryInfo);
       } else {
         queryInfo.setTombstoneQuery(true);
       }
+      setReadHints(query, (UriInfo) uriInfo);
     } catch (Exception e) {
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
@@ -104,6 +152,74 @@ public class JPAQueryBuilder {
     return queryInfo;
   }
 
+  /**
+   * Determines the properties to be queried instead of whole entities for a $select.
+   * @return the selected, key, and ETag properties, or <code>null</code> if whole entities have to be read
+   */
+  private List<EdmProperty> getProjection(final UriInfo uriInfo) throws EdmException {
+    if (!odataJPAContext.isSelectProjection()) {
+      return null;
+    }
+    final List<SelectItem> select = uriInfo.getSelect();
+    if (select == null || select.isEmpty()
+        || uriInfo.getExpand() != null && !uriInfo.getExpand().isEmpty()
+        || uriInfo.getNavigationSegments() != null && !uriInfo.getNavigationSegments().isEmpty()) {
+      return null;
+    }
+    final EdmEntityType entityType = uriInfo.getTargetEntitySet().getEntityType();
+    if (entityType.hasStream() || !(entityType.getMapping() instanceof JPAEdmMapping)) {
+      return null;
+    }
+    final Map<String, EdmProperty> properties = new LinkedHashMap<String, EdmProperty>();
+    for (SelectItem selectItem : select) {
+      if (selectItem.isStar() || !selectItem.getNavigationPropertySegments().isEmpty()) {
+        return null;
+      }
+      properties.put(selectItem.getProperty().getName(), selectItem.getProperty());
+    }
+    for (EdmProperty keyProperty : entityType.getKeyProperties()) {
+      properties.put(keyProperty.getName(), keyProperty);
+    }
+    for (String propertyName : entityType.getPropertyNames()) {
+      final EdmProperty property = (EdmProperty) entityType.getProperty(propertyName);
+      if (property.getFacets() != null
+          && property.getFacets().getConcurrencyMode() == EdmConcurrencyMode.Fixed) {
+        properties.put(propertyName, property);
+      }
+    }
+    final Class<?> entityClass = ((JPAEdmMapping) entityType.getMapping()).getJPAType();
+    for (EdmProperty property : properties.values()) {
+      if (!isProjectable(entityClass, property)) {
+        return null;
+      }
+    }
+    return new ArrayList<EdmProperty>(properties.values());
+  }
+
+  /**
+   * A property can be projected if its value is returned by the getter of the entity without conversion.
+   */
+  private static boolean isProjectable(final Class<?> entityClass, final EdmProperty property) throws EdmException {
+    if (property.getType().getKind() != EdmTypeKind.SIMPLE || !(property.getMapping() instanceof JPAEdmMapping)) {
+      return false;
+    }
+    final JPAEdmMapping mapping = (JPAEdmMapping) property.getMapping();
+    final String internalName = property.getMapping().getInternalName();
+    if (mapping.isVirtualAccess() || internalName == null || internalName.indexOf('.') >= 0
+        || mapping.getJPAType() == null || CONVERTED_TYPES.contains(mapping.getJPAType())) {
+      return false;
+    }
+    if (entityClass != null) {
+      for (Method method : entityClass.getMethods()) {
+        if (method.getParameterTypes().length == 0 && method.isAnnotationPresent(XmlJavaTypeAdapter.class)
+            && method.getName().equalsIgnoreCase(JPAEntityParser.ACCESS_MODIFIER_GET + internalName)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
 
   public void getCount(GetEntitySetUriInfo uriInfo) throws ODataJPARuntimeException {
     JPAQueryInfo queryInfo = new JPAQueryInfo();
@@ -128,6 +244,7 @@ public class JPAQueryBuilder {
       } else {
         queryInfo.setTombstoneQuery(true);
       }
+      setReadHints(query, (UriInfo) uriInfo);
     } catch (Exception e) {
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
@@ -160,6 +277,7 @@ public class JPAQueryBuilder {
       if (query == null) {
         query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntity);
       }
+      setReadHints(query, (UriInfo) uriInfo);
     } catch (Exception e) {
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
@@ -182,6 +300,7 @@ public class JPAQueryBuilder {
       if (query == null) {
         query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntitySetCount);
       }
+      setReadHints(query, (UriInfo) uriInfo);
     } catch (Exception e) {
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
@@ -204,6 +323,7 @@ public class JPAQueryBuilder {
       if (query == null) {
         query = buildQuery((UriInfo) uriInfo, UriInfoType.GetEntityCount);
       }
+      setReadHints(query, (UriInfo) uriInfo);
     } catch (Exception e) {
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
@@ -261,9 +381,32 @@ public class JPAQueryBuilder {
   private Query buildQuery(UriInfo uriParserResultView, UriInfoType type)
       throws EdmException,
       ODataJPAModelException, ODataJPARuntimeException {
+    return buildQuery(uriParserResultView, type, null, null, null);
+  }
+
+  private Query buildQuery(UriInfo uriParserResultView, UriInfoType type, List<EdmProperty> projection,
+      ODataJPATombstoneEntityListener listener, JPAQueryInfo queryInfo)
+      throws EdmException, ODataJPAModelException, ODataJPARuntimeException {
 
     JPQLContextType contextType = determineJPQLContextType(uriParserResultView, type);
     JPQLContext jpqlContext = buildJPQLContext(contextType, uriParserResultView);
+    if (projection != null && contextType == JPQLContextType.SELECT && jpqlContext instanceof JPQLSelectContext) {
+      List<String> attributeNames = new ArrayList<String>();
+      for (EdmProperty property : projection) {
+        attributeNames.add(property.getMapping().getInternalName());
+      }
+      ((JPQLSelectContext) jpqlContext).setProjection(attributeNames);
+      queryInfo.setProjection(projection);
+    }
+    if (type == UriInfoType.GetEntitySet && contextType == JPQLContextType.SELECT
+        && jpqlContext instanceof JPQLSelectContext && isKeysetPaging(uriParserResultView)) {
+      addKeysetCondition((JPQLSelectContext) jpqlContext, uriParserResultView);
+      queryInfo.setKeysetPaging(true);
+    }
+    if (listener != null && listener.getDeltaAttribute() != null && jpqlContext instanceof JPQLSelectContext) {
+      addDeltaCondition((JPQLSelectContext) jpqlContext, listener);
+      queryInfo.setTombstoneQuery(true);
+    }
     JPQLStatement jpqlStatement = JPQLStatement.createBuilder(jpqlContext).build();
     
     Query query = em.createQuery(normalizeMembers(em, jpqlStatement.toString()));
@@ -271,6 +414,118 @@ public class JPAQueryBuilder {
     return query;
   }
 
+  /**
+   * Read-only queries are used if configured for the target entity type in the mapping model, otherwise
+   * if configured in the context; never in batch mode where a change set may modify the entities read.
+   */
+  private boolean isReadOnly(final EdmEntityType entityType) throws EdmException {
+    final EdmMapping mapping = entityType.getMapping();
+    final Boolean readOnly =
+        mapping instanceof JPAEdmMappingImpl ? ((JPAEdmMappingImpl) mapping).isReadOnly() : null;
+    if (readOnly == null ? !odataJPAContext.isReadOnlyQueries() : !readOnly.booleanValue()) {
+      return false;
+    }
+    return odataJPAContext.getODataContext() == null || !odataJPAContext.getODataContext().isInBatchMode();
+  }
+
+  private void setReadHints(final Query query, final UriInfo uriInfo) throws EdmException {
+    if (query != null) {
+      setReadHints(query, isReadOnly(uriInfo.getTargetEntitySet().getEntityType()));
+    }
+  }
+
+  /*
+   * Besides the standard cache hints, hints of EclipseLink and Hibernate are set; unknown hints are ignored by
+   * persistence providers
+   */
+  private void setReadHints(final Query query, final boolean readOnly) {
+    if (readOnly) {
+      query.setFlushMode(FlushModeType.COMMIT);
+      if (odataJPAContext.isReadOnlyQueryHints()) {
+        query.setHint(ECLIPSELINK_READ_ONLY, Boolean.TRUE.toString());
+        query.setHint(HIBERNATE_READ_ONLY, Boolean.TRUE);
+      }
+    }
+    if (odataJPAContext.isSharedCacheQueryHints()) {
+      query.setHint(CACHE_RETRIEVE_MODE, CacheRetrieveMode.USE);
+      query.setHint(CACHE_STORE_MODE, CacheStoreMode.USE);
+    }
+    final int fetchSize = odataJPAContext.getQueryFetchSize();
+    if (fetchSize > 0) {
+      query.setHint(ECLIPSELINK_FETCH_SIZE, fetchSize);
+      query.setHint(HIBERNATE_FETCH_SIZE, fetchSize);
+    }
+  }
+
+  /**
+   * Keyset paging is used for pages ordered by the key properties only, i.e., without $orderby,
+   * $top, and $skip; a numeric skip token of offset paging is still served by offset paging.
+   */
+  private boolean isKeysetPaging(final UriInfo uriInfo) throws EdmException {
+    if (pageSize <= 0 || !odataJPAContext.isKeysetPaging()
+        || uriInfo.getOrderBy() != null || uriInfo.getTop() != null || uriInfo.getSkip() != null) {
+      return false;
+    }
+    final String skipToken = uriInfo.getSkipToken();
+    return (skipToken == null || JPAKeysetToken.isKeysetToken(skipToken))
+        && JPAKeysetToken.isSupported(uriInfo.getTargetEntitySet().getEntityType().getKeyProperties());
+  }
+
+  /*
+   * Seeks to the entities following the key of the skip token; for the keys k1, k2 the condition is
+   * (E1.k1 > ?1 OR E1.k1 = ?1 AND E1.k2 > ?2) which matches the order by the key properties
+   */
+  private void addKeysetCondition(final JPQLSelectContext jpqlContext, final UriInfo uriInfo)
+      throws EdmException {
+    final String skipToken = uriInfo.getSkipToken();
+    if (skipToken == null) {
+      return;
+    }
+    final List<EdmProperty> keyProperties = uriInfo.getTargetEntitySet().getEntityType().getKeyProperties();
+    final List<Object> keyValues = JPAKeysetToken.parse(skipToken, keyProperties);
+    final int index = jpqlContext.getNextParameterIndex();
+    Map<Integer, Object> positionalParameters = new HashMap<Integer, Object>();
+    StringBuilder condition = new StringBuilder();
+    StringBuilder equalKeys = new StringBuilder();
+    for (int i = 0; i < keyProperties.size(); i++) {
+      final EdmMapping mapping = keyProperties.get(i).getMapping();
+      final String attribute = jpqlContext.getJPAEntityAlias() + JPQLStatement.DELIMITER.PERIOD
+          + (mapping != null && mapping.getInternalName() != null ?
+              mapping.getInternalName() : keyProperties.get(i).getName());
+      final String parameter = "?" + (index + i);
+      positionalParameters.put(index + i, keyValues.get(i));
+      if (i > 0) {
+        condition.append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.Operator.OR)
+            .append(JPQLStatement.DELIMITER.SPACE);
+      }
+      condition.append(equalKeys).append(attribute).append(JPQLStatement.DELIMITER.SPACE)
+          .append(JPQLStatement.Operator.GT).append(JPQLStatement.DELIMITER.SPACE).append(parameter);
+      equalKeys.append(attribute).append(JPQLStatement.DELIMITER.SPACE).append(JPQLStatement.Operator.EQ)
+          .append(JPQLStatement.DELIMITER.SPACE).append(parameter).append(JPQLStatement.DELIMITER.SPACE)
+          .append(JPQLStatement.Operator.AND).append(JPQLStatement.DELIMITER.SPACE);
+    }
+    jpqlContext.addWhereCondition(JPQLStatement.DELIMITER.PARENTHESIS_LEFT + condition.toString()
+        + JPQLStatement.DELIMITER.PARENTHESIS_RIGHT, positionalParameters);
+  }
+
+  /*
+   * Restricts the query to the entities changed since the delta token so that the delta is read and paged
+   * in the database instead of being collected from all entities
+   */
+  private void addDeltaCondition(final JPQLSelectContext jpqlContext, final ODataJPATombstoneEntityListener listener) {
+    final String deltaToken = ODataJPATombstoneContext.getDeltaToken();
+    final Object deltaValue = deltaToken == null ? null : listener.getDeltaValue(deltaToken);
+    if (deltaValue == null) {
+      return;
+    }
+    final int index = jpqlContext.getNextParameterIndex();
+    Map<Integer, Object> positionalParameters = new HashMap<Integer, Object>();
+    positionalParameters.put(index, deltaValue);
+    jpqlContext.addWhereCondition(jpqlContext.getJPAEntityAlias() + JPQLStatement.DELIMITER.PERIOD
+        + listener.getDeltaAttribute() + JPQLStatement.DELIMITER.SPACE + JPQLStatement.Operator.GE
+        + JPQLStatement.DELIMITER.SPACE + "?" + index, positionalParameters);
+  }
+
   /**
    * @param contextType
    * @param jpqlContext
@@ -290,12 +545,15 @@ public class JPAQueryBuilder {
       parameterizedMap = ((JPQLSelectSingleContextView) jpqlContext).getParameterizedQueryMap();
     }
     if (parameterizedMap != null && parameterizedMap.size() > 0) {
+      final String statement = jpqlStatement.toString();
       for (Entry<String, Map<Integer, Object>> parameterEntry : parameterizedMap.entrySet()) {
-        if (jpqlStatement.toString().contains(parameterEntry.getKey())) {
+        if (statement.contains(parameterEntry.getKey())) {
           Map<Integer, Object> positionalParameters = parameterEntry.getValue();
           for (Entry<Integer, Object> param : positionalParameters.entrySet()) {
-            if (param.getValue() instanceof Calendar || param.getValue() instanceof Timestamp) {
+            if (param.getValue() instanceof Calendar) {
               query.setParameter(param.getKey(), (Calendar) param.getValue(), TemporalType.TIMESTAMP);
+            } else if (param.getValue() instanceof Timestamp) {
+              query.setParameter(param.getKey(), (Date) param.getValue(), TemporalType.TIMESTAMP);
             } else if (param.getValue() instanceof Time) {
               query.setParameter(param.getKey(), (Time) param.getValue(), TemporalType.TIME);
             } else {
@@ -329,8 +587,10 @@ public class JPAQueryBuilder {
         if (jpqlStatement.contains(parameterEntry.getKey())) {
           Map<Integer, Object> positionalParameters = parameterEntry.getValue();
           for (Entry<Integer, Object> param : positionalParameters.entrySet()) {
-            if (param.getValue() instanceof Calendar || param.getValue() instanceof Timestamp) {
+            if (param.getValue() instanceof Calendar) {
               query.setParameter(param.getKey(), (Calendar) param.getValue(), TemporalType.TIMESTAMP);
+            } else if (param.getValue() instanceof Timestamp) {
+              query.setParameter(param.getKey(), (Date) param.getValue(), TemporalType.TIMESTAMP);
             } else if (param.getValue() instanceof Time) {
               query.setParameter(param.getKey(), (Time) param.getValue(), TemporalType.TIME);
             } else {
@@ -353,11 +613,22 @@ public class JPAQueryBuilder {
     return queryListener;
   }
 
+  /**
+   * Gets the listener of the target entity type; it is instantiated once per query builder,
+   * i.e., once per request.
+   */
   public ODataJPATombstoneEntityListener getODataJPATombstoneEntityListener(UriInfo uriParserResultView)
       throws InstantiationException, IllegalAccessException, EdmException {
     JPAEdmMapping mapping = (JPAEdmMapping) uriParserResultView.getTargetEntitySet().getEntityType().getMapping();
     if (null != mapping && mapping.getODataJPATombstoneEntityListener() != null) {
-      return  (ODataJPATombstoneEntityListener) mapping.getODataJPATombstoneEntityListener().newInstance();
+      final Class<? extends ODataJPATombstoneEntityListener> listenerClass =
+          mapping.getODataJPATombstoneEntityListener();
+      ODataJPATombstoneEntityListener listener = listeners.get(listenerClass);
+      if (listener == null) {
+        listener = listenerClass.newInstance();
+        listeners.put(listenerClass, listener);
+      }
+      return listener;
     }
     return null;
   }
@@ -401,8 +672,40 @@ public class JPAQueryBuilder {
   private static final Pattern VALUE_NORM_PATTERN = Pattern.compile("(?:^|\\s|\\()'(([^']*)')");
   private static final Pattern JOIN_ALIAS_PATTERN = Pattern.compile(".*\\sJOIN\\s(\\S*\\s\\S*).*");
 
-  private static String normalizeMembers(EntityManager em, String jpqlQuery) {  
-    
+  private static final int MAX_NORMALIZED_STATEMENTS = 1000;
+  /*
+   * Statements are built with positional parameters for the literals of the URI, so the same kind of request
+   * always results in the same statement; its normalization is done once and the provider gets the same
+   * string each time, which it can find in its own cache of parsed queries.
+   */
+  private static final Map<String, String> NORMALIZED_STATEMENTS = Collections.synchronizedMap(
+      new LinkedHashMap<String, String>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Entry<String, String> eldest) {
+          return size() > MAX_NORMALIZED_STATEMENTS;
+        }
+      });
+
+  private static String normalizeMembers(EntityManager em, String jpqlQuery) {
+    String normalizedJpqlQuery = NORMALIZED_STATEMENTS.get(jpqlQuery);
+    if (normalizedJpqlQuery == null) {
+      normalizedJpqlQuery = joinMembers(jpqlQuery);
+      NORMALIZED_STATEMENTS.put(jpqlQuery, normalizedJpqlQuery);
+    }
+    // the metamodel is not part of the cached statement
+    if (normalizedJpqlQuery.equals(jpqlQuery) || containsEmbeddedAttributes(em, jpqlQuery)) {
+      return jpqlQuery;
+    }
+    return normalizedJpqlQuery;
+  }
+
+  /*
+   * Replaces the path expressions x.y.z by joins; the statement is returned unchanged if there are none
+   */
+  private static String joinMembers(String jpqlQuery) {
+
     //check if clause values are string with x.y.z format
     //starting with quotes;
     String query = checkConditionValues(jpqlQuery);
@@ -416,10 +719,6 @@ public class JPAQueryBuilder {
       return jpqlQuery;
     }
 
-    if (containsEmbeddedAttributes(em, jpqlQuery)) {
-      return jpqlQuery;
-    }
-    
     String normalizedJpqlQuery = jpqlQuery;
     Map<String, String> joinAliases = new HashMap<String, String>();
 
@@ -510,6 +809,153 @@ public class JPAQueryBuilder {
     return query.toString();
   }
 
+  /**
+   * Loads the navigation properties of an $expand for all given entities up front: for each navigation
+   * property of each expand level one query fetches the related entities of all entities of the level
+   * (in chunks of {@value #MAX_EXPAND_ENTITIES} entities). The serialization of the inlined entries then
+   * only reads entities from the persistence context instead of lazily loading them entity by entity.
+   * The entities of a level are selected by their key, so levels of entity types with a composite key
+   * are not loaded up front.
+   *
+   * Called only if enabled, see {@link ODataJPAContext#setPreloadExpandedEntities(boolean)}.
+   *
+   * @param entities the managed entities read for the target entity set
+   * @param entitySet the target entity set
+   * @param expand the navigation paths of the $expand system query option
+   * @throws ODataJPARuntimeException
+   */
+  public void loadExpandedEntities(final List<?> entities, final EdmEntitySet entitySet,
+      final List<ArrayList<NavigationPropertySegment>> expand) throws ODataJPARuntimeException {
+    if (expand == null || expand.isEmpty() || entities == null || entities.isEmpty()) {
+      return;
+    }
+    try {
+      final ExpandNode root = new ExpandNode(null);
+      for (List<NavigationPropertySegment> path : expand) {
+        ExpandNode node = root;
+        for (NavigationPropertySegment segment : path) {
+          node = node.getChild(segment);
+        }
+      }
+      loadExpandedEntities(entities, entitySet.getEntityType(), root);
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(
+          ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
+    } catch (RuntimeException e) {
+      throw ODataJPARuntimeException.throwException(
+          ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
+    }
+  }
+
+  private void loadExpandedEntities(final List<?> entities, final EdmEntityType entityType,
+      final ExpandNode node) throws EdmException, ODataJPARuntimeException {
+    final String entityName = getInternalName(entityType.getMapping(), entityType.getName());
+    final List<EdmProperty> keyProperties = entityType.getKeyProperties();
+    final EdmProperty keyProperty = keyProperties.size() == 1
+        && keyProperties.get(0).getType().getKind() == EdmTypeKind.SIMPLE ? keyProperties.get(0) : null;
+    final List<Object> keys = keyProperty == null ? null : getKeys(entities, keyProperty);
+    for (ExpandNode child : node.children.values()) {
+      final EdmNavigationProperty navigationProperty = child.segment.getNavigationProperty();
+      if (keys != null) {
+        loadRelatedEntities(entityName, entityType, navigationProperty,
+            getInternalName(keyProperty.getMapping(), keyProperty.getName()), keys);
+      }
+      if (!child.children.isEmpty()) {
+        final List<Object> relatedEntities = getRelatedEntities(entities, navigationProperty);
+        if (!relatedEntities.isEmpty()) {
+          loadExpandedEntities(relatedEntities, child.segment.getTargetEntitySet().getEntityType(), child);
+        }
+      }
+    }
+  }
+
+  private void loadRelatedEntities(final String entityName, final EdmEntityType entityType,
+      final EdmNavigationProperty navigationProperty, final String keyName, final List<Object> keys)
+      throws EdmException {
+    final String jpql = JPQLStatement.KEYWORD.SELECT + JPQLStatement.DELIMITER.SPACE + EXPAND_ALIAS
+        + JPQLStatement.DELIMITER.SPACE + JPQLStatement.KEYWORD.FROM + JPQLStatement.DELIMITER.SPACE
+        + entityName + JPQLStatement.DELIMITER.SPACE + EXPAND_ALIAS + JPQLStatement.DELIMITER.SPACE
+        + JPQLStatement.KEYWORD.LEFT_OUTER_JOIN + JPQLStatement.DELIMITER.SPACE + FETCH
+        + JPQLStatement.DELIMITER.SPACE + EXPAND_ALIAS + JPQLStatement.DELIMITER.PERIOD
+        + getInternalName(navigationProperty.getMapping(), navigationProperty.getName())
+        + JPQLStatement.DELIMITER.SPACE + JPQLStatement.KEYWORD.WHERE + JPQLStatement.DELIMITER.SPACE
+        + EXPAND_ALIAS + JPQLStatement.DELIMITER.PERIOD + keyName + JPQLStatement.DELIMITER.SPACE + IN
+        + JPQLStatement.DELIMITER.SPACE + JPQLStatement.DELIMITER.COLON + EXPAND_PARAMETER;
+    // the related entities are read the same way as the entities they are joined to
+    final boolean readOnly = isReadOnly(entityType);
+    for (int from = 0; from < keys.size(); from += MAX_EXPAND_ENTITIES) {
+      Query query = em.createQuery(jpql)
+          .setParameter(EXPAND_PARAMETER, keys.subList(from, Math.min(from + MAX_EXPAND_ENTITIES, keys.size())));
+      setReadHints(query, readOnly);
+      query.getResultList();
+    }
+  }
+
+  private static List<Object> getKeys(final List<?> entities, final EdmProperty keyProperty)
+      throws EdmException, ODataJPARuntimeException {
+    final JPAEntityParser parser = new JPAEntityParser();
+    final List<EdmProperty> keyProperties = Collections.singletonList(keyProperty);
+    final String keyName = keyProperty.getName();
+    final List<Object> keys = new ArrayList<Object>(entities.size());
+    for (Object entity : entities) {
+      keys.add(parser.parse2EdmPropertyValueMap(entity, keyProperties).get(keyName));
+    }
+    return keys;
+  }
+
+  private static List<Object> getRelatedEntities(final List<?> entities,
+      final EdmNavigationProperty navigationProperty) throws EdmException, ODataJPARuntimeException {
+    final JPAEntityParser parser = new JPAEntityParser();
+    final List<EdmNavigationProperty> navigationProperties = Collections.singletonList(navigationProperty);
+    final List<Object> relatedEntities = new ArrayList<Object>();
+    final Map<Object, Object> added = new IdentityHashMap<Object, Object>();
+    for (Object entity : entities) {
+      final Object value = parser.parse2EdmNavigationValueMap(entity, navigationProperties)
+          .get(navigationProperty.getName());
+      if (value instanceof Collection) {
+        for (Object relatedEntity : (Collection<?>) value) {
+          addRelatedEntity(relatedEntities, added, relatedEntity);
+        }
+      } else {
+        addRelatedEntity(relatedEntities, added, value);
+      }
+    }
+    return relatedEntities;
+  }
+
+  private static void addRelatedEntity(final List<Object> relatedEntities, final Map<Object, Object> added,
+      final Object relatedEntity) {
+    if (relatedEntity != null && added.put(relatedEntity, relatedEntity) == null) {
+      relatedEntities.add(relatedEntity);
+    }
+  }
+
+  private static String getInternalName(final EdmMapping mapping, final String name) {
+    return mapping != null && mapping.getInternalName() != null ? mapping.getInternalName() : name;
+  }
+
+  /**
+   * Node of the tree of navigation properties built from the paths of an $expand.
+   */
+  private static final class ExpandNode {
+    private final NavigationPropertySegment segment;
+    private final Map<String, ExpandNode> children = new LinkedHashMap<String, ExpandNode>();
+
+    private ExpandNode(final NavigationPropertySegment segment) {
+      this.segment = segment;
+    }
+
+    private ExpandNode getChild(final NavigationPropertySegment childSegment) throws EdmException {
+      final String name = childSegment.getNavigationProperty().getName();
+      ExpandNode child = children.get(name);
+      if (child == null) {
+        child = new ExpandNode(childSegment);
+        children.put(name, child);
+      }
+      return child;
+    }
+  }
+
   /**
    * Verify via {@link EntityManager} if one of the attributes of the selected entity
    * contains a embedded attribute.
@@ -551,6 +997,8 @@ public class JPAQueryBuilder {
   final class JPAQueryInfo {
     private Query query = null;
     private boolean isTombstoneQuery = false;
+    private List<EdmProperty> projection = null;
+    private boolean isKeysetPaging = false;
 
     public Query getQuery() {
       return query;
@@ -567,5 +1015,28 @@ public class JPAQueryBuilder {
     public void setTombstoneQuery(boolean isTombstoneQuery) {
       this.isTombstoneQuery = isTombstoneQuery;
     }
+
+    /**
+     * @return the properties selected by the query in the order of the result columns,
+     * or <code>null</code> if the query returns entities
+     */
+    public List<EdmProperty> getProjection() {
+      return projection;
+    }
+
+    public void setProjection(List<EdmProperty> projection) {
+      this.projection = projection;
+    }
+
+    /**
+     * @return <code>true</code> if the query reads a page of keyset paging
+     */
+    public boolean isKeysetPaging() {
+      return isKeysetPaging;
+    }
+
+    public void setKeysetPaging(boolean isKeysetPaging) {
+      this.isKeysetPaging = isKeysetPaging;
+    }
   }
 }
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
+
+/**
+ * Result of an entity set query which is read from the database while it is iterated.
+ * <p>The results are fetched through a cursor (<code>Query.getResultStream()</code>), and the entities
+ * handed out are detached from the persistence context in chunks so that the persistence context
+ * does not grow with the size of the result. The list can therefore be iterated only once;
+ * {@link #size()} and {@link #get(int)} read the complete result into memory unless the iteration
+ * has already started.</p>
+ * <p><code>getResultStream()</code> has been added in JPA 2.2; it is looked up reflectively, and with an older
+ * JPA version the result is read with {@link Query#getResultList()} (the entities are still detached in
+ * chunks).</p>
+ */
+public class JPAQueryResultList extends AbstractList<Object> {
+
+  private static final Method GET_RESULT_STREAM;
+
+  static {
+    Method getResultStream;
+    try {
+      getResultStream = Query.class.getMethod("getResultStream");
+    } catch (NoSuchMethodException e) {
+      getResultStream = null;
+    }
+    GET_RESULT_STREAM = getResultStream;
+  }
+
+  private final Query query;
+  private final Method getResultStream;
+  private final EntityManager em;
+  private final int chunkSize;
+  private final List<EdmProperty> projection;
+  private List<Object> results;
+  private boolean iterated;
+
+  /**
+   * @param query the query; <code>$top</code> and <code>$skip</code> must already be applied
+   * @param em the entity manager the query has been created with
+   * @param chunkSize number of entities after which the handed out entities are detached
+   * @param projection the properties selected by a projection query or <code>null</code> if the query
+   * selects entities
+   */
+  public JPAQueryResultList(final Query query, final EntityManager em, final int chunkSize,
+      final List<EdmProperty> projection) {
+    this(query, em, chunkSize, projection, GET_RESULT_STREAM);
+  }
+
+  /**
+   * @param getResultStream the method of the query opening the cursor; its return type must have the methods
+   * <code>iterator()</code> and <code>close()</code>. <code>null</code> to read the result with
+   * {@link Query#getResultList()}.
+   */
+  JPAQueryResultList(final Query query, final EntityManager em, final int chunkSize,
+      final List<EdmProperty> projection, final Method getResultStream) {
+    this.query = query;
+    this.getResultStream = getResultStream;
+    this.em = em;
+    this.chunkSize = chunkSize;
+    this.projection = projection;
+  }
+
+  @Override
+  public Iterator<Object> iterator() {
+    if (results != null) {
+      return results.iterator();
+    }
+    if (iterated) {
+      throw new IllegalStateException("The query result has already been iterated.");
+    }
+    iterated = true;
+    if (getResultStream == null) {
+      return new ResultIterator(query.getResultList().iterator(), null, null);
+    }
+    final Class<?> streamType = getResultStream.getReturnType();
+    final Method iterator;
+    final Method close;
+    try {
+      iterator = JPAAccessorCache.getMethod(streamType, "iterator");
+      close = JPAAccessorCache.getMethod(streamType, "close");
+    } catch (NoSuchMethodException e) {
+      throw new ODataRuntimeException(e.getMessage(), e);
+    }
+    final Object stream = invoke(getResultStream, query);
+    return new ResultIterator((Iterator<?>) invoke(iterator, stream), stream, close);
+  }
+
+  private static Object invoke(final Method method, final Object target) {
+    try {
+      return method.invoke(target);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new ODataRuntimeException(e.getCause().getMessage(), e.getCause());
+    } catch (IllegalAccessException e) {
+      throw new ODataRuntimeException(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public Object get(final int index) {
+    return getResults().get(index);
+  }
+
+  @Override
+  public int size() {
+    return getResults().size();
+  }
+
+  private List<Object> getResults() {
+    if (results == null) {
+      if (iterated) {
+        throw new IllegalStateException("The query result has already been iterated.");
+      }
+      results = new ArrayList<Object>();
+      for (Object result : query.getResultList()) {
+        results.add(convert(result));
+      }
+    }
+    return results;
+  }
+
+  private Object convert(final Object result) {
+    if (projection == null) {
+      return result;
+    }
+    try {
+      return JPAEntityRow.create(result, projection);
+    } catch (EdmException e) {
+      throw new ODataRuntimeException(e.getMessage(), e);
+    }
+  }
+
+  private class ResultIterator implements Iterator<Object> {
+    private final Iterator<?> cursor;
+    private Object stream;
+    private final Method close;
+    private final List<Object> handedOut = new ArrayList<Object>();
+
+    private ResultIterator(final Iterator<?> cursor, final Object stream, final Method close) {
+      this.cursor = cursor;
+      this.stream = stream;
+      this.close = close;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (cursor.hasNext()) {
+        return true;
+      }
+      detach();
+      if (stream != null) {
+        // releases the cursor of the persistence provider
+        final Object closing = stream;
+        stream = null;
+        invoke(close, closing);
+      }
+      return false;
+    }
+
+    @Override
+    public Object next() {
+      if (!cursor.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      // the entities of the previous chunk have been processed by now
+      if (handedOut.size() >= chunkSize) {
+        detach();
+      }
+      final Object result = cursor.next();
+      if (projection == null) {
+        handedOut.add(result);
+      }
+      return convert(result);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private void detach() {
+      for (Object entity : handedOut) {
+        em.detach(entity);
+      }
+      handedOut.clear();
+    }
+  }
+}
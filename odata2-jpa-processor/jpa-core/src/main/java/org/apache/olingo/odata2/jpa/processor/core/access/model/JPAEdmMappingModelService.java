@@ -44,6 +44,9 @@ public class JPAEdmMappingModelService implements JPAEdmMappingModelAccess {
   private InputStream mappingModelStream = null;
   private String mappingModelName;
 
+  /** JAXB contexts are thread-safe and expensive to create, so one is shared by all instances. */
+  private static volatile JAXBContext jaxbContext;
+
   public JPAEdmMappingModelService(final ODataJPAContext ctx) {
     JPAEdmExtension ext = null;
     mappingModelName = ctx.getJPAEdmMappingModel();
@@ -61,11 +64,8 @@ public class JPAEdmMappingModelService implements JPAEdmMappingModelAccess {
   public void loadMappingModel() {
     InputStream is = null;
     if (mappingModelExists) {
-      JAXBContext context;
       try {
-        context = JAXBContext.newInstance(JPAEdmMappingModel.class);
-
-        Unmarshaller unmarshaller = context.createUnmarshaller();
+        Unmarshaller unmarshaller = getJAXBContext().createUnmarshaller();
         is = loadMappingModelInputStream();
         if (is == null) {
           mappingModelExists = false;
@@ -214,6 +214,13 @@ public class JPAEdmMappingModelService implements JPAEdmMappingModelAccess {
     return null;
   }
 
+  private static JAXBContext getJAXBContext() throws JAXBException {
+    if (jaxbContext == null) {
+      jaxbContext = JAXBContext.newInstance(JPAEdmMappingModel.class);
+    }
+    return jaxbContext;
+  }
+
   protected InputStream loadMappingModelInputStream() {
     if (mappingModelStream != null) {
       return mappingModelStream;
@@ -232,6 +239,18 @@ public class JPAEdmMappingModelService implements JPAEdmMappingModelAccess {
     return false;
   }
 
+  /**
+   * The method returns whether the entities of the JPA Entity Type are read with read-only queries;
+   * <code>null</code> if the mapping model does not say so and the setting of the OData JPA context applies.
+   */
+  public Boolean checkReadOnlyOfJPAEntityType(final String jpaEntityTypeName) {
+    JPAEntityTypeMapType type = searchJPAEntityTypeMapType(jpaEntityTypeName);
+    if (type != null) {
+      return type.isReadOnly();
+    }
+    return null;
+  }
+
   @Override
   public boolean checkExclusionOfJPAAttributeType(final String jpaEntityTypeName, final String jpaAttributeName) {
     JPAEntityTypeMapType type = searchJPAEntityTypeMapType(jpaEntityTypeName);
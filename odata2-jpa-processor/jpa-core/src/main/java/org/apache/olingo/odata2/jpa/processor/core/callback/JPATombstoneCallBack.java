@@ -22,6 +22,7 @@ import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.ep.callback.TombstoneCallback;
 import org.apache.olingo.odata2.api.ep.callback.TombstoneCallbackResult;
 import org.apache.olingo.odata2.api.uri.info.GetEntitySetUriInfo;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
 
 public class JPATombstoneCallBack implements TombstoneCallback {
 
@@ -42,6 +43,7 @@ public class JPATombstoneCallBack implements TombstoneCallback {
     TombstoneCallbackResult jpaTombstoneCallBackResult = new TombstoneCallbackResult();
 
     jpaTombstoneCallBackResult.setDeltaLink(buildToken());
+    jpaTombstoneCallBackResult.setDeletedEntriesData(ODataJPATombstoneContext.getDeletedEntries());
     return jpaTombstoneCallBackResult;
   }
 
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.edm;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.apache.olingo.odata2.api.edm.provider.Schema;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmExtension;
+
+/**
+ * Cache of the EDM schemas derived from a persistence unit.
+ * <p>The schemas are shared by all requests (and threads) which use the same entity manager factory,
+ * persistence unit name, JPA EDM mapping model, class of {@link JPAEdmExtension}, and default naming.
+ * Entries are held as long as the entity manager factory is reachable; {@link #remove(EntityManagerFactory)}
+ * drops them explicitly, e.g., when the persistence unit is redeployed.</p>
+ * <p>The cached schemas must not be modified.</p>
+ */
+public final class JPAEdmModelCache {
+
+  private static final Map<EntityManagerFactory, Map<Key, List<Schema>>> CACHE =
+      new WeakHashMap<EntityManagerFactory, Map<Key, List<Schema>>>();
+
+  private JPAEdmModelCache() {}
+
+  /**
+   * Creates the key under which the schemas of the context are cached.
+   * @param context the OData JPA context
+   * @return the key or <code>null</code> if no entity manager factory is known for the context
+   */
+  static Key createKey(final ODataJPAContext context) {
+    EntityManagerFactory emf = context.getEntityManagerFactory();
+    if (emf == null) {
+      EntityManager em = context.getEntityManager();
+      emf = em == null ? null : em.getEntityManagerFactory();
+    }
+    if (emf == null) {
+      return null;
+    }
+    final JPAEdmExtension extension = context.getJPAEdmExtension();
+    return new Key(emf, context.getPersistenceUnitName(), context.getJPAEdmMappingModel(),
+        extension == null ? null : extension.getClass(), context.getDefaultNaming());
+  }
+
+  static List<Schema> get(final Key key) {
+    synchronized (CACHE) {
+      final Map<Key, List<Schema>> schemas = CACHE.get(key.getEntityManagerFactory());
+      return schemas == null ? null : schemas.get(key);
+    }
+  }
+
+  /**
+   * Adds schemas to the cache unless another thread has been faster.
+   * @return the schemas in the cache
+   */
+  static List<Schema> put(final Key key, final List<Schema> schemas) {
+    synchronized (CACHE) {
+      Map<Key, List<Schema>> emfSchemas = CACHE.get(key.getEntityManagerFactory());
+      if (emfSchemas == null) {
+        emfSchemas = new HashMap<Key, List<Schema>>();
+        CACHE.put(key.getEntityManagerFactory(), emfSchemas);
+      }
+      List<Schema> cached = emfSchemas.get(key);
+      if (cached == null) {
+        cached = Collections.unmodifiableList(schemas);
+        emfSchemas.put(key, cached);
+      }
+      return cached;
+    }
+  }
+
+  /**
+   * Removes all schemas derived from the given entity manager factory.
+   * @param emf the entity manager factory
+   */
+  public static void remove(final EntityManagerFactory emf) {
+    synchronized (CACHE) {
+      CACHE.remove(emf);
+    }
+  }
+
+  /**
+   * Removes all schemas.
+   */
+  public static void clear() {
+    synchronized (CACHE) {
+      CACHE.clear();
+    }
+  }
+
+  /**
+   * Key of the schemas of one entity manager factory; it references the factory only weakly
+   * so that the cache does not keep the factory alive.
+   */
+  static final class Key {
+    private final WeakReference<EntityManagerFactory> emf;
+    private final String persistenceUnitName;
+    private final String mappingModelName;
+    private final Class<?> extensionClass;
+    private final boolean defaultNaming;
+
+    private Key(final EntityManagerFactory emf, final String persistenceUnitName, final String mappingModelName,
+        final Class<?> extensionClass, final boolean defaultNaming) {
+      this.emf = new WeakReference<EntityManagerFactory>(emf);
+      this.persistenceUnitName = persistenceUnitName;
+      this.mappingModelName = mappingModelName;
+      this.extensionClass = extensionClass;
+      this.defaultNaming = defaultNaming;
+    }
+
+    private EntityManagerFactory getEntityManagerFactory() {
+      return emf.get();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return equal(persistenceUnitName, other.persistenceUnitName)
+          && equal(mappingModelName, other.mappingModelName)
+          && extensionClass == other.extensionClass
+          && defaultNaming == other.defaultNaming;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = persistenceUnitName == null ? 0 : persistenceUnitName.hashCode();
+      result = 31 * result + (mappingModelName == null ? 0 : mappingModelName.hashCode());
+      result = 31 * result + (extensionClass == null ? 0 : extensionClass.hashCode());
+      return 31 * result + (defaultNaming ? 1 : 0);
+    }
+
+    private static boolean equal(final String value1, final String value2) {
+      return value1 == null ? value2 == null : value1.equals(value2);
+    }
+  }
+}
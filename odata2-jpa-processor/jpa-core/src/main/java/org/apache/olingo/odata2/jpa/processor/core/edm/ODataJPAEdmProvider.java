@@ -46,6 +46,7 @@ public class ODataJPAEdmProvider extends EdmProvider {
 
   private ODataJPAContext oDataJPAContext;
   private JPAEdmModelView jpaEdmModel;
+  private JPAEdmModelCache.Key cacheKey;
 
   private List<Schema> schemas;
   private HashMap<String, EntityType> entityTypes;
@@ -71,7 +72,16 @@ public class ODataJPAEdmProvider extends EdmProvider {
     complexTypes = new LinkedHashMap<String, ComplexType>();
     associations = new LinkedHashMap<String, Association>();
     functionImports = new LinkedHashMap<String, FunctionImport>();
-    jpaEdmModel = ODataJPAFactory.createFactory().getJPAAccessFactory().getJPAEdmModelView(oDataJPAContext);
+    if (oDataJPAContext.isEdmModelCaching()) {
+      cacheKey = JPAEdmModelCache.createKey(oDataJPAContext);
+      if (cacheKey != null) {
+        schemas = JPAEdmModelCache.get(cacheKey);
+      }
+    }
+    // the model view (and the mapping model) is only needed if the schemas are not cached yet
+    if (schemas == null) {
+      jpaEdmModel = ODataJPAFactory.createFactory().getJPAAccessFactory().getJPAEdmModelView(oDataJPAContext);
+    }
   }
 
   public ODataJPAContext getODataJPAContext() {
@@ -284,8 +294,11 @@ public class ODataJPAEdmProvider extends EdmProvider {
       jpaEdmModel.getBuilder().build();
       schemas = new ArrayList<Schema>();
       schemas.add(jpaEdmModel.getEdmSchemaView().getEdmSchema());
+      if (cacheKey != null) {
+        schemas = JPAEdmModelCache.put(cacheKey, schemas);
+      }
     }
-    if (jpaEdmModel == null) {
+    if (schemas == null) {
 
       throw ODataJPAModelException.throwException(ODataJPAModelException.BUILDER_NULL, null);
     }
@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.jpa.processor.core.jpql;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
@@ -33,6 +34,7 @@ import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeExcep
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContext;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLContextType;
 import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLSelectContextView;
+import org.apache.olingo.odata2.jpa.processor.api.jpql.JPQLStatement;
 import org.apache.olingo.odata2.jpa.processor.core.ODataExpressionParser;
 
 public class JPQLSelectContext extends JPQLContext implements JPQLSelectContextView {
@@ -75,6 +77,55 @@ public class JPQLSelectContext extends JPQLContext implements JPQLSelectContextV
     return selectExpression;
   }
 
+  /**
+   * Replaces the selected entity by a projection on some of its attributes; the query then returns
+   * the values of the attributes instead of entities.
+   * @param attributeNames names of the JPA attributes in the order of the result columns
+   */
+  public void setProjection(final List<String> attributeNames) {
+    StringBuilder projection = new StringBuilder();
+    for (String attributeName : attributeNames) {
+      if (projection.length() > 0) {
+        projection.append(JPQLStatement.DELIMITER.COMMA).append(JPQLStatement.DELIMITER.SPACE);
+      }
+      projection.append(getJPAEntityAlias()).append(JPQLStatement.DELIMITER.PERIOD).append(attributeName);
+    }
+    setSelectExpression(projection.toString());
+  }
+
+  /**
+   * Adds a condition to the where clause; it is combined with the condition of the filter, if any.
+   * @param condition the JPQL condition
+   * @param positionalParameters the values of the positional parameters of the condition
+   */
+  public void addWhereCondition(final String condition, final Map<Integer, Object> positionalParameters) {
+    if (whereCondition == null) {
+      setWhereExpression(condition);
+    } else {
+      setWhereExpression(JPQLStatement.DELIMITER.PARENTHESIS_LEFT + whereCondition
+          + JPQLStatement.DELIMITER.PARENTHESIS_RIGHT + JPQLStatement.DELIMITER.SPACE
+          + JPQLStatement.Operator.AND + JPQLStatement.DELIMITER.SPACE + condition);
+    }
+    Map<String, Map<Integer, Object>> parameterizedExpressionMap = new HashMap<String, Map<Integer, Object>>();
+    parameterizedExpressionMap.put(condition, positionalParameters);
+    setParameterizedQueryMap(parameterizedExpressionMap);
+  }
+
+  /**
+   * @return the next unused index of a positional parameter
+   */
+  public int getNextParameterIndex() {
+    int index = 1;
+    if (parameterizedQueryMap != null) {
+      for (Map<Integer, Object> positionalParameters : parameterizedQueryMap.values()) {
+        for (Integer parameterIndex : positionalParameters.keySet()) {
+          index = Math.max(index, parameterIndex + 1);
+        }
+      }
+    }
+    return index;
+  }
+
   @Override
   public String getOrderByCollection() {
     return orderByCollection;
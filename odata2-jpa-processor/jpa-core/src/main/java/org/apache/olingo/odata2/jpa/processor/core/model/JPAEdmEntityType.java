@@ -40,6 +40,7 @@ import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmNavigationPropertyView;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmPropertyView;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmSchemaView;
+import org.apache.olingo.odata2.jpa.processor.core.access.model.JPAEdmMappingModelService;
 import org.apache.olingo.odata2.jpa.processor.core.access.model.JPAEdmNameBuilder;
 
 public class JPAEdmEntityType extends JPAEdmBaseViewImpl implements JPAEdmEntityTypeView {
@@ -113,6 +114,12 @@ public class JPAEdmEntityType extends JPAEdmBaseViewImpl implements JPAEdmEntity
 
         JPAEdmNameBuilder.build(JPAEdmEntityType.this);
         JPAEdmMapping jpaEdmMapping = (JPAEdmMapping) currentEdmEntityType.getMapping();
+        JPAEdmMappingModelAccess mappingModelAccess = getJPAEdmMappingModelAccess();
+        if (mappingModelAccess instanceof JPAEdmMappingModelService && jpaEdmMapping instanceof JPAEdmMappingImpl
+            && mappingModelAccess.isMappingModelExists()) {
+          ((JPAEdmMappingImpl) jpaEdmMapping).setReadOnly(((JPAEdmMappingModelService) mappingModelAccess)
+              .checkReadOnlyOfJPAEntityType(jpaEntityType.getName()));
+        }
         EntityListeners entityListners = currentJPAEntityType.getJavaType().getAnnotation(EntityListeners.class);
         if (entityListners != null) {
           for (Class<EntityListeners> entityListner : entityListners.value()) {
@@ -28,6 +28,7 @@ public class JPAEdmMappingImpl extends Mapping implements JPAEdmMapping {
   private Class<?> type = null;
   private Class<? extends ODataJPATombstoneEntityListener> entityListener = null;
   private boolean isVirtualAccess;
+  private Boolean readOnly;
 
   @Override
   public void setJPAColumnName(final String name) {
@@ -71,4 +72,16 @@ public class JPAEdmMappingImpl extends Mapping implements JPAEdmMapping {
   public void setVirtualAccess(boolean virtualAccess) {
 	  this.isVirtualAccess=virtualAccess;
   }
+
+  /**
+   * Sets whether the entities of the entity type are read with read-only queries; <code>null</code> if the
+   * setting of the OData JPA context applies.
+   */
+  public void setReadOnly(final Boolean readOnly) {
+    this.readOnly = readOnly;
+  }
+
+  public Boolean isReadOnly() {
+    return readOnly;
+  }
 }
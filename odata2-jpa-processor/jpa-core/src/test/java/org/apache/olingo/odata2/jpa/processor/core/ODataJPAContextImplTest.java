@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.jpa.processor.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -96,4 +97,29 @@ public class ODataJPAContextImplTest {
 
   }
 
+  @Test
+  public void testReusedEntityManagerOfOtherFactory() {
+    EntityManagerFactory otherEmf = EasyMock.createMock(EntityManagerFactory.class);
+    EntityManager otherEm = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(otherEm.isOpen()).andReturn(true).andReturn(false);
+    EasyMock.expect(otherEm.getEntityManagerFactory()).andReturn(otherEmf);
+    otherEm.close();
+    EasyMock.replay(otherEmf, otherEm);
+
+    EntityManager newEm = EasyMock.createMock(EntityManager.class);
+    EntityManagerFactory newEmf = EasyMock.createMock(EntityManagerFactory.class);
+    EasyMock.expect(newEmf.createEntityManager()).andReturn(newEm);
+    EasyMock.replay(newEm, newEmf);
+
+    odataJPAContext.setEntityManagerFactory(newEmf);
+    odataJPAContext.setEntityManagerReuse(true);
+    odataJPAContext.setEntityManager(otherEm);
+    try {
+      assertSame(newEm, odataJPAContext.getEntityManager());
+      EasyMock.verify(otherEm, newEmf);
+    } finally {
+      odataJPAContext.setEntityManager(null);
+    }
+  }
+
 }
@@ -18,15 +18,20 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.jpa.processor.core;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -35,11 +40,17 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
 import javax.persistence.Query;
+import javax.persistence.RollbackException;
 import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.Metamodel;
 
+import org.apache.olingo.odata2.api.batch.BatchHandler;
+import org.apache.olingo.odata2.api.batch.BatchRequestPart;
+import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.commons.HttpContentType;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
 import org.apache.olingo.odata2.api.commons.InlineCount;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
 import org.apache.olingo.odata2.api.edm.EdmConcurrencyMode;
 import org.apache.olingo.odata2.api.edm.EdmEntityContainer;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
@@ -53,22 +64,28 @@ import org.apache.olingo.odata2.api.edm.EdmTypeKind;
 import org.apache.olingo.odata2.api.edm.EdmTyped;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
 import org.apache.olingo.odata2.api.uri.KeyPredicate;
 import org.apache.olingo.odata2.api.uri.NavigationSegment;
 import org.apache.olingo.odata2.api.uri.PathInfo;
+import org.apache.olingo.odata2.api.uri.PathSegment;
 import org.apache.olingo.odata2.api.uri.UriInfo;
 import org.apache.olingo.odata2.api.uri.expression.FilterExpression;
 import org.apache.olingo.odata2.api.uri.expression.OrderByExpression;
 import org.apache.olingo.odata2.api.uri.info.DeleteUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntityCountUriInfo;
+import org.apache.olingo.odata2.api.uri.info.GetEntitySetUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntitySetCountUriInfo;
 import org.apache.olingo.odata2.api.uri.info.GetEntityUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PostUriInfo;
 import org.apache.olingo.odata2.api.uri.info.PutMergePatchUriInfo;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPADefaultProcessor;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAResponseBuilder;
 import org.apache.olingo.odata2.jpa.processor.api.ODataJPATransaction;
+import org.apache.olingo.odata2.jpa.processor.api.access.JPAProcessor;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPAModelException;
 import org.apache.olingo.odata2.jpa.processor.api.exception.ODataJPARuntimeException;
 import org.apache.olingo.odata2.jpa.processor.api.model.JPAEdmMapping;
@@ -79,6 +96,7 @@ import org.apache.olingo.odata2.jpa.processor.core.mock.data.SalesOrderHeader;
 import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
 import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmTestModelView;
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -177,6 +195,109 @@ public class ODataJPADefaultProcessorTest extends JPAEdmTestModelView {
     }
   }
 
+  @Test
+  public void batchClosesEntityManagerAfterResponseIsWritten() throws Exception {
+    final boolean[] closed = new boolean[1];
+    ODataJPADefaultProcessor processor = new ODataJPADefaultProcessor(getClosingODataJPAContext(closed)) {};
+    processor.setContext(getLocalODataContext());
+
+    BatchHandler handler = EasyMock.createMock(BatchHandler.class);
+    EasyMock.expect(handler.handleBatchPart(EasyMock.anyObject(BatchRequestPart.class))).andReturn(
+        BatchResponsePart.responses(Collections.singletonList(
+            ODataResponse.entity("content").status(HttpStatusCodes.OK).build())).changeSet(false).build());
+    EasyMock.replay(handler);
+    final String batch = "--batch_1\r\nContent-Type: application/http\r\nContent-Transfer-Encoding: binary\r\n\r\n"
+        + "GET SalesOrders HTTP/1.1\r\n\r\n\r\n--batch_1--";
+    final ODataResponse response = processor.executeBatch(handler, "multipart/mixed; boundary=batch_1",
+        new ByteArrayInputStream(batch.getBytes("ISO-8859-1")));
+    // The response is sent only after the processor has returned.
+    assertFalse(closed[0]);
+    ((ODataStreamingContent) response.getEntity()).write(new ByteArrayOutputStream());
+    assertTrue(closed[0]);
+  }
+
+  @Test
+  public void streamedEntitySetClosesEntityManagerWhenResponseIsClosed() throws Exception {
+    final boolean[] closed = new boolean[1];
+    final List<Object> entities = new ArrayList<Object>();
+    final GetEntitySetUriInfo uriInfo = EasyMock.createMock(GetEntitySetUriInfo.class);
+    final JPAProcessor streamingJPAProcessor = EasyMock.createMock(JPAProcessor.class);
+    EasyMock.expect(streamingJPAProcessor.process(uriInfo)).andReturn(entities);
+    EasyMock.replay(streamingJPAProcessor);
+    final ODataJPAResponseBuilder streamingResponseBuilder = EasyMock.createMock(ODataJPAResponseBuilder.class);
+    EasyMock.expect(streamingResponseBuilder.build(uriInfo, entities, HttpContentType.APPLICATION_XML)).andReturn(
+        ODataResponse.entity(new ODataStreamingContent() {
+          @Override
+          public void write(final OutputStream output) {}
+        }).status(HttpStatusCodes.OK).build());
+    EasyMock.replay(streamingResponseBuilder);
+    ODataJPADefaultProcessor processor = new ODataJPADefaultProcessor(getClosingODataJPAContext(closed)) {
+      {
+        jpaProcessor = streamingJPAProcessor;
+        responseBuilder = streamingResponseBuilder;
+      }
+    };
+    processor.setContext(getLocalODataContext());
+
+    final ODataResponse response = processor.readEntitySet(uriInfo, HttpContentType.APPLICATION_XML);
+    assertFalse(closed[0]);
+    // e.g., the response of a HEAD request, which is never written
+    response.close();
+    assertTrue(closed[0]);
+  }
+
+  private ODataJPAContext getClosingODataJPAContext(final boolean[] closed) {
+    EntityManager em = EasyMock.createNiceMock(EntityManager.class);
+    EasyMock.expect(em.isOpen()).andStubReturn(true);
+    em.close();
+    EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+      @Override
+      public Object answer() {
+        closed[0] = true;
+        return null;
+      }
+    });
+    EasyMock.replay(em);
+    ODataJPAContext odataJPAContext = EasyMock.createNiceMock(ODataJPAContext.class);
+    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(em);
+    EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(getLocalODataContext());
+    EasyMock.replay(odataJPAContext);
+    return odataJPAContext;
+  }
+
+  @Test
+  public void changeSetIsRolledBackWhenCommitFails() throws Exception {
+    ODataJPATransaction transaction = EasyMock.createMock(ODataJPATransaction.class);
+    transaction.begin();
+    transaction.commit();
+    EasyMock.expectLastCall().andThrow(new RollbackException("constraint violated"));
+    EasyMock.expect(transaction.isActive()).andReturn(true);
+    transaction.rollback();
+    EasyMock.replay(transaction);
+    EntityManager em = EasyMock.createNiceMock(EntityManager.class);
+    EasyMock.replay(em);
+    ODataJPAContext odataJPAContext = EasyMock.createNiceMock(ODataJPAContext.class);
+    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(em);
+    EasyMock.expect(odataJPAContext.getODataJPATransaction()).andStubReturn(transaction);
+    EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(getLocalODataContext());
+    EasyMock.replay(odataJPAContext);
+    ODataJPADefaultProcessor processor = new ODataJPADefaultProcessor(odataJPAContext) {};
+    processor.setContext(getLocalODataContext());
+
+    final ODataRequest request = ODataRequest.method(ODataHttpMethod.POST)
+        .acceptHeaders(Collections.singletonList(HttpContentType.APPLICATION_JSON)).build();
+    BatchHandler handler = EasyMock.createMock(BatchHandler.class);
+    EasyMock.expect(handler.handleRequest(request)).andReturn(ODataResponse.status(HttpStatusCodes.CREATED).build());
+    EasyMock.replay(handler);
+
+    final BatchResponsePart part = processor.executeChangeSet(handler, Collections.singletonList(request));
+    assertFalse(part.isChangeSet());
+    assertEquals(1, part.getResponses().size());
+    assertEquals(HttpStatusCodes.INTERNAL_SERVER_ERROR, part.getResponses().get(0).getStatus());
+    assertEquals(HttpContentType.APPLICATION_JSON, part.getResponses().get(0).getContentHeader());
+    EasyMock.verify(transaction);
+  }
+
   private PutMergePatchUriInfo getPutUriInfo() {
     return (PutMergePatchUriInfo) getDeletetUriInfo();
   }
@@ -327,6 +448,12 @@ public class ODataJPADefaultProcessorTest extends JPAEdmTestModelView {
   private ODataJPAContext getLocalmockODataJPAContext() {
     ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
     EasyMock.expect(odataJPAContext.getPageSize()).andReturn(0).anyTimes();
+    EasyMock.expect(odataJPAContext.isReadOnlyQueries()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueryHints()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isSharedCacheQueryHints()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.getQueryFetchSize()).andStubReturn(0);
+    EasyMock.expect(odataJPAContext.isPreloadExpandedEntities()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isEntityManagerReuse()).andStubReturn(false);
     EasyMock.expect(odataJPAContext.getPersistenceUnitName()).andStubReturn("salesorderprocessing");
     EasyMock.expect(odataJPAContext.getEntityManagerFactory()).andStubReturn(mockEntityManagerFactory());
     EasyMock.expect(odataJPAContext.getODataJPATransaction()).andStubReturn(getLocalJpaTransaction());
@@ -545,6 +672,7 @@ public class ODataJPADefaultProcessorTest extends JPAEdmTestModelView {
     }
     EasyMock.expect(mockedEdmMapping.getODataJPATombstoneEntityListener()).andReturn(null);
     EasyMock.<Class<?>> expect(mockedEdmMapping.getJPAType()).andReturn(SalesOrderHeader.class);
+    EasyMock.expect(mockedEdmMapping.isReadOnly()).andStubReturn(null);
     EasyMock.replay(mockedEdmMapping);
     return mockedEdmMapping;
   }
@@ -572,6 +700,7 @@ public class ODataJPADefaultProcessorTest extends JPAEdmTestModelView {
   private PathInfo getLocalPathInfo() {
     PathInfo pathInfo = EasyMock.createMock(PathInfo.class);
     EasyMock.expect(pathInfo.getServiceRoot()).andStubReturn(getLocalURI());
+    EasyMock.expect(pathInfo.getPrecedingSegments()).andStubReturn(Collections.<PathSegment> emptyList());
     EasyMock.replay(pathInfo);
     return pathInfo;
   }
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+public class JPAAccessorCacheTest {
+
+  @Test
+  public void methodsAreLookedUpOnce() throws Exception {
+    final Method method = JPAAccessorCache.getMethod(Sample.class, "getName");
+    assertSame(method, JPAAccessorCache.getMethod(Sample.class, "getName", (Class<?>[]) null));
+    assertTrue(method.isAccessible());
+    assertSame(JPAAccessorCache.getGetter(method), JPAAccessorCache.getGetter(method));
+
+    final Method setter = JPAAccessorCache.getMethod(Sample.class, "setName", String.class);
+    assertEquals("setName", setter.getName());
+    assertEquals(setter, JPAAccessorCache.getDeclaredMethod(Sample.class, "setName", String.class));
+  }
+
+  @Test
+  public void missingMethodIsReportedEachTime() {
+    for (int i = 0; i < 2; i++) {
+      try {
+        JPAAccessorCache.getMethod(Sample.class, "getMissing");
+        fail("Expected NoSuchMethodException");
+      } catch (NoSuchMethodException e) {
+        assertTrue(e.getMessage().endsWith("Sample.getMissing"));
+      }
+    }
+  }
+
+  @Test
+  public void getterConvertsValue() throws Exception {
+    final Sample sample = new Sample();
+    final JPAAccessorCache.Getter getter = JPAAccessorCache.getGetter(
+        JPAAccessorCache.getMethod(Sample.class, "getCode"));
+    assertNull(getter.getXmlAdapterType());
+    assertNull(getter.getValue(sample, "code"));
+    sample.code = new char[] { 'A', 'B' };
+    assertEquals("AB", getter.getValue(sample, "code"));
+  }
+
+  public static class Sample {
+    private String name;
+    private char[] code;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(final String name) {
+      this.name = name;
+    }
+
+    public char[] getCode() {
+      return code;
+    }
+  }
+}
@@ -59,6 +59,28 @@ public class JPAEntityParserTest {
     }
   }
 
+  @Test
+  public void testparse2EdmPropertyValueMapFromRow() throws Exception {
+    EdmProperty idProperty = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(idProperty.getName()).andStubReturn("identifier");
+    EdmProperty valueProperty = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(valueProperty.getName()).andStubReturn("Value");
+    EasyMock.replay(idProperty, valueProperty);
+    List<EdmProperty> projection = new ArrayList<EdmProperty>();
+    projection.add(idProperty);
+    projection.add(valueProperty);
+
+    List<Object> rows = new ArrayList<Object>();
+    rows.add(JPAEntityRow.create(new Object[] { "abc", 10 }, projection));
+    rows.add(JPAEntityRow.create("def", projection.subList(0, 1)));
+    List<Map<String, Object>> edmEntities = new JPAEntityParser().parse2EdmEntityList(rows, projection);
+
+    assertEquals("abc", edmEntities.get(0).get("identifier"));
+    assertEquals(10, edmEntities.get(0).get("Value"));
+    assertEquals("def", edmEntities.get(1).get("identifier"));
+    assertNull(edmEntities.get(1).get("Value"));
+  }
+
   @Test
   public void testparse2EdmPropertyValueMap() {
     JPAEntityParser resultParser = new JPAEntityParser();
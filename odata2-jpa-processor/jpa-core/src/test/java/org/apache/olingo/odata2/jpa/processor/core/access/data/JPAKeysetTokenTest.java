@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeException;
+import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
+import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class JPAKeysetTokenTest {
+
+  @Test
+  public void keysetTokenIsNotNumeric() {
+    assertTrue(JPAKeysetToken.isKeysetToken("(7)"));
+    assertTrue(JPAKeysetToken.isKeysetToken("('A',7L)"));
+    assertFalse(JPAKeysetToken.isKeysetToken("10"));
+    assertFalse(JPAKeysetToken.isKeysetToken(null));
+  }
+
+  @Test
+  public void tokenContainsKeyOfEntity() throws Exception {
+    final List<EdmProperty> keyProperties = Arrays.asList(
+        mockKeyProperty("Name", EdmSimpleTypeKind.String, String.class),
+        mockKeyProperty("Id", EdmSimpleTypeKind.Int64, long.class));
+    assertTrue(JPAKeysetToken.isSupported(keyProperties));
+
+    Map<String, Object> values = new HashMap<String, Object>();
+    values.put("Name", "O'Neil, Ltd.");
+    values.put("Id", 7L);
+    final String token = JPAKeysetToken.create(new JPAEntityRow(values), keyProperties);
+    assertEquals("('O''Neil, Ltd.',7L)", token);
+    assertTrue(JPAKeysetToken.isKeysetToken(token));
+
+    assertEquals(Arrays.<Object> asList("O'Neil, Ltd.", 7L), JPAKeysetToken.parse(token, keyProperties));
+  }
+
+  @Test
+  public void tokenMustMatchKey() throws Exception {
+    final List<EdmProperty> keyProperties = Arrays.asList(
+        mockKeyProperty("Id", EdmSimpleTypeKind.Int32, int.class));
+    assertEquals(Arrays.<Object> asList(3), JPAKeysetToken.parse("(3)", keyProperties));
+    try {
+      JPAKeysetToken.parse("(3,4)", keyProperties);
+      fail("Expected EdmSimpleTypeException");
+    } catch (EdmSimpleTypeException e) {
+      assertEquals(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.getKey(), e.getMessageReference().getKey());
+    }
+  }
+
+  private EdmProperty mockKeyProperty(final String name, final EdmSimpleTypeKind type, final Class<?> jpaType)
+      throws EdmException {
+    JPAEdmMappingImpl mapping = new JPAEdmMappingImpl();
+    mapping.setJPAType(jpaType);
+    EdmProperty property = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(property.getName()).andStubReturn(name);
+    EasyMock.expect(property.getType()).andStubReturn(type.getEdmSimpleTypeInstance());
+    EasyMock.expect(property.getMapping()).andStubReturn(mapping);
+    EasyMock.expect(property.getFacets()).andStubReturn(null);
+    EasyMock.replay(property);
+    return property;
+  }
+}
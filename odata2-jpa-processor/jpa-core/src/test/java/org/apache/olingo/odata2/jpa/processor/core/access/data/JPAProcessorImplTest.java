@@ -206,6 +206,29 @@ public class JPAProcessorImplTest {
     }
   }
 
+  @Test
+  public void testProcessDeleteUriInfoInChangeSetIsNotFlushed() throws Exception {
+    ODataJPATransaction tx = EasyMock.createMock(ODataJPATransaction.class);
+    EasyMock.expect(tx.isActive()).andStubReturn(true);
+    EasyMock.replay(tx);
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.createQuery("SELECT E1 FROM SalesOrderHeaders E1")).andStubReturn(getQuery());
+    em.remove(new Address());
+    EasyMock.replay(em);
+    ODataJPAContext context = EasyMock.createMock(ODataJPAContext.class);
+    EasyMock.expect(context.getPersistenceUnitName()).andStubReturn("salesorderprocessing");
+    EasyMock.expect(context.getEntityManagerFactory()).andStubReturn(mockEntityManagerFactory());
+    EasyMock.expect(context.getODataJPATransaction()).andStubReturn(tx);
+    EasyMock.expect(context.getODataContext()).andStubReturn(getLocalODataContext());
+    EasyMock.expect(context.getEntityManager()).andStubReturn(em);
+    EasyMock.expect(context.getPageSize()).andStubReturn(10);
+    EasyMock.expect(context.getChangeSetBatchSize()).andStubReturn(10);
+    EasyMock.replay(context);
+
+    Assert.assertEquals(new Address(), new JPAProcessorImpl(context).process(getDeletetUriInfo(), "application/xml"));
+    EasyMock.verify(em);
+  }
+
   // ---------------------------- Common Code Start ---------------- TODO - common in ODataJPADefaultProcessorTest as
   // well
 
@@ -213,6 +236,7 @@ public class JPAProcessorImplTest {
     UriInfo objUriInfo = EasyMock.createMock(UriInfo.class);
     EasyMock.expect(objUriInfo.getStartEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getTargetEntitySet()).andStubReturn(getLocalEdmEntitySet());
+    EasyMock.expect(objUriInfo.getExpand()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getSelect()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getOrderBy()).andStubReturn(getOrderByExpression());
     EasyMock.expect(objUriInfo.getTop()).andStubReturn(getTop());
@@ -252,6 +276,7 @@ public class JPAProcessorImplTest {
     UriInfo objUriInfo = EasyMock.createMock(UriInfo.class);
     EasyMock.expect(objUriInfo.getStartEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getTargetEntitySet()).andStubReturn(getLocalEdmEntitySet());
+    EasyMock.expect(objUriInfo.getExpand()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getSelect()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getOrderBy()).andStubReturn(getOrderByExpression());
     EasyMock.expect(objUriInfo.getTop()).andStubReturn(getTop());
@@ -271,6 +296,7 @@ public class JPAProcessorImplTest {
     UriInfo objUriInfo = EasyMock.createMock(UriInfo.class);
     EasyMock.expect(objUriInfo.getStartEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getTargetEntitySet()).andStubReturn(getLocalEdmEntitySet());
+    EasyMock.expect(objUriInfo.getExpand()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getSelect()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getOrderBy()).andStubReturn(getOrderByExpression());
     EasyMock.expect(objUriInfo.getTop()).andStubReturn(getTop());
@@ -290,6 +316,7 @@ public class JPAProcessorImplTest {
     UriInfoImpl objUriInfo = EasyMock.createMock(UriInfoImpl.class);
     EasyMock.expect(objUriInfo.getStartEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getTargetEntitySet()).andStubReturn(getLocalEdmEntitySet());
+    EasyMock.expect(objUriInfo.getExpand()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getSelect()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getOrderBy()).andStubReturn(getOrderByExpression());
     EasyMock.expect(objUriInfo.getTop()).andStubReturn(2);
@@ -322,6 +349,7 @@ public class JPAProcessorImplTest {
     EasyMock.expect(objUriInfo.getStartEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getNavigationSegments()).andStubReturn(new ArrayList<NavigationSegment>());
     EasyMock.expect(objUriInfo.getTargetEntitySet()).andStubReturn(getLocalEdmEntitySet());
+    EasyMock.expect(objUriInfo.getExpand()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getSelect()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getOrderBy()).andStubReturn(getOrderByExpression());
     EasyMock.expect(objUriInfo.getTop()).andStubReturn(getTop());
@@ -427,6 +455,15 @@ public class JPAProcessorImplTest {
     EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(getLocalODataContext());
     EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(getLocalEntityManager());
     EasyMock.expect(odataJPAContext.getPageSize()).andReturn(10).anyTimes();
+    EasyMock.expect(odataJPAContext.isSelectProjection()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.getStreamingChunkSize()).andStubReturn(0);
+    EasyMock.expect(odataJPAContext.isKeysetPaging()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueries()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueryHints()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isSharedCacheQueryHints()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.getQueryFetchSize()).andStubReturn(0);
+    EasyMock.expect(odataJPAContext.isPreloadExpandedEntities()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isEntityManagerReuse()).andStubReturn(false);
     odataJPAContext.setPaging(EasyMock.isA(JPAPaging.class));
     EasyMock.expectLastCall();
     EasyMock.replay(odataJPAContext);
@@ -788,11 +825,12 @@ public class JPAProcessorImplTest {
     EasyMock.expect(edmEntityType.getKeyProperties()).andStubReturn(new ArrayList<EdmProperty>());
     EasyMock.expect(objUriInfo.getStartEntitySet()).andStubReturn(edmEntitySet);
     EasyMock.expect(objUriInfo.getTargetEntitySet()).andStubReturn(edmEntitySet);
+    EasyMock.expect(objUriInfo.getExpand()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getSelect()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getOrderBy()).andStubReturn(getOrderByExpression());
     EasyMock.expect(objUriInfo.getTop()).andStubReturn(1);
     EasyMock.expect(objUriInfo.getSkip()).andStubReturn(1);
-    EasyMock.expect(objUriInfo.getSkipToken()).andReturn("5");
+    EasyMock.expect(objUriInfo.getSkipToken()).andStubReturn("5");
     EasyMock.expect(objUriInfo.getFilter()).andStubReturn(getFilter());
     EasyMock.expect(objUriInfo.getFunctionImport()).andStubReturn(null);
     Map<String, String> delta = new HashMap<String, String>();
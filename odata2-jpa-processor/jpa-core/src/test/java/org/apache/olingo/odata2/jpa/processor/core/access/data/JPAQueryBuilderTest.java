@@ -20,18 +20,28 @@ package org.apache.olingo.odata2.jpa.processor.core.access.data;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
 import javax.persistence.Query;
+import javax.persistence.TemporalType;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
 
 import org.apache.olingo.odata2.api.commons.InlineCount;
 import org.apache.olingo.odata2.api.edm.EdmAssociation;
@@ -44,9 +54,11 @@ import org.apache.olingo.odata2.api.edm.EdmNavigationProperty;
 import org.apache.olingo.odata2.api.edm.EdmProperty;
 import org.apache.olingo.odata2.api.edm.EdmSimpleType;
 import org.apache.olingo.odata2.api.edm.EdmSimpleTypeKind;
+import org.apache.olingo.odata2.api.edm.EdmTypeKind;
 import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.uri.KeyPredicate;
+import org.apache.olingo.odata2.api.uri.NavigationPropertySegment;
 import org.apache.olingo.odata2.api.uri.NavigationSegment;
 import org.apache.olingo.odata2.api.uri.UriInfo;
 import org.apache.olingo.odata2.api.uri.expression.BinaryExpression;
@@ -78,6 +90,8 @@ import org.apache.olingo.odata2.jpa.processor.core.common.ODataJPATestConstants;
 import org.apache.olingo.odata2.jpa.processor.core.mock.ODataContextMock;
 import org.apache.olingo.odata2.jpa.processor.core.mock.ODataJPAContextMock;
 import org.apache.olingo.odata2.jpa.processor.core.model.JPAEdmMappingImpl;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
 import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
@@ -876,7 +890,7 @@ public class JPAQueryBuilderTest {
     EasyMock.expect(uriInfo.getSkip()).andStubReturn(null); 
     OrderByExpression orderbyExpression = mockOrderByExpressions(uriInfo);
     EasyMock.replay(edmEntityType, edmEntitySet, uriInfo,  
-        navEntitySet, orderbyExpression);
+        navEntitySet, navEntityType, orderbyExpression);
     return uriInfo;
 
   }
@@ -1153,6 +1167,257 @@ public class JPAQueryBuilderTest {
     mockedEdmMapping.setInternalName("'C1.Customer.Name'");
     return mockedEdmMapping;
   }
+
+  @Test
+  public void loadExpandedEntitiesWithOneQueryPerLevel() throws Exception {
+    final ExpandItem sharedItem = new ExpandItem(12);
+    final ExpandOrder order1 = new ExpandOrder(1, Arrays.asList(new ExpandItem(11), sharedItem));
+    final ExpandOrder order2 = new ExpandOrder(2, Arrays.asList(sharedItem));
+
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    Query itemsQuery = mockExpandQuery(Arrays.<Object> asList(1, 2));
+    Query productQuery = mockExpandQuery(Arrays.<Object> asList(11, 12));
+    EasyMock.expect(em.createQuery(
+        "SELECT E1 FROM ExpandOrder E1 LEFT OUTER JOIN FETCH E1.items WHERE E1.id IN :keys"))
+        .andReturn(itemsQuery);
+    EasyMock.expect(em.createQuery(
+        "SELECT E1 FROM ExpandItem E1 LEFT OUTER JOIN FETCH E1.product WHERE E1.id IN :keys"))
+        .andReturn(productQuery);
+    EasyMock.replay(em);
+    ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
+    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(em);
+    EasyMock.expect(odataJPAContext.getPageSize()).andStubReturn(0);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueries()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueryHints()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isSharedCacheQueryHints()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.getQueryFetchSize()).andStubReturn(0);
+    EasyMock.expect(odataJPAContext.isPreloadExpandedEntities()).andStubReturn(false);
+    EasyMock.replay(odataJPAContext);
+
+    EdmEntitySet itemSet = mockExpandEntitySet("ExpandItem");
+    NavigationPropertySegment items = mockNavigationPropertySegment("Items", "items", itemSet);
+    NavigationPropertySegment product = mockNavigationPropertySegment("Product", "product",
+        mockExpandEntitySet("ExpandProduct"));
+    List<ArrayList<NavigationPropertySegment>> expand = new ArrayList<ArrayList<NavigationPropertySegment>>();
+    expand.add(new ArrayList<NavigationPropertySegment>(Arrays.asList(items)));
+    expand.add(new ArrayList<NavigationPropertySegment>(Arrays.asList(items, product)));
+
+    new JPAQueryBuilder(odataJPAContext).loadExpandedEntities(Arrays.asList(order1, order2),
+        mockExpandEntitySet("ExpandOrder"), expand);
+    EasyMock.verify(em, itemsQuery, productQuery);
+  }
+
+  @Test
+  public void buildQueryGetEntityReadOnly() throws Exception {
+    JPAEdmMappingImpl mapping = (JPAEdmMappingImpl) mockMapping();
+    mapping.setReadOnly(Boolean.TRUE);
+    Query query = EasyMock.createNiceMock(Query.class);
+    EasyMock.expect(query.setFlushMode(FlushModeType.COMMIT)).andReturn(query);
+    EasyMock.expect(query.setHint("eclipselink.read-only", "true")).andReturn(query);
+    EasyMock.expect(query.setHint("org.hibernate.readOnly", Boolean.TRUE)).andReturn(query);
+    EasyMock.expect(query.setHint("javax.persistence.cache.retrieveMode", CacheRetrieveMode.USE)).andReturn(query);
+    EasyMock.expect(query.setHint("javax.persistence.cache.storeMode", CacheStoreMode.USE)).andReturn(query);
+    EasyMock.expect(query.setHint("eclipselink.jdbc.fetch-size", 100)).andReturn(query);
+    EasyMock.expect(query.setHint("org.hibernate.fetchSize", 100)).andReturn(query);
+    EasyMock.replay(query);
+
+    new JPAQueryBuilder(mockReadOnlyContext(query, false, true)).build((GetEntityUriInfo) mockURIInfo(mapping));
+    EasyMock.verify(query);
+  }
+
+  @Test
+  public void buildQueryGetEntityHintsWithoutReadOnly() throws Exception {
+    Query query = EasyMock.createMock(Query.class);
+    EasyMock.expect(query.setParameter(EasyMock.anyInt(), EasyMock.anyObject())).andStubReturn(query);
+    EasyMock.expect(query.setHint("javax.persistence.cache.retrieveMode", CacheRetrieveMode.USE)).andReturn(query);
+    EasyMock.expect(query.setHint("javax.persistence.cache.storeMode", CacheStoreMode.USE)).andReturn(query);
+    EasyMock.expect(query.setHint("eclipselink.jdbc.fetch-size", 100)).andReturn(query);
+    EasyMock.expect(query.setHint("org.hibernate.fetchSize", 100)).andReturn(query);
+    EasyMock.replay(query);
+
+    EdmMapping mapping = (EdmMapping) mockMapping();
+    new JPAQueryBuilder(mockReadOnlyContext(query, false, true)).build((GetEntityUriInfo) mockURIInfo(mapping));
+    EasyMock.verify(query);
+  }
+
+  @Test
+  public void buildQueryGetEntityReadOnlyNotInBatch() throws Exception {
+    JPAEdmMappingImpl mapping = (JPAEdmMappingImpl) mockMapping();
+    mapping.setReadOnly(Boolean.TRUE);
+    Query query = EasyMock.createMock(Query.class);
+    EasyMock.expect(query.setParameter(EasyMock.anyInt(), EasyMock.anyObject())).andStubReturn(query);
+    EasyMock.replay(query);
+
+    new JPAQueryBuilder(mockReadOnlyContext(query, true, false)).build((GetEntityUriInfo) mockURIInfo(mapping));
+    EasyMock.verify(query);
+  }
+
+  @Test
+  public void buildQueryNormalizedOnce() throws Exception {
+    Query query = EasyMock.createNiceMock(Query.class);
+    EasyMock.replay(query);
+    Capture<String> statements = new Capture<String>(CaptureType.ALL);
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.createQuery(EasyMock.capture(statements))).andStubReturn(query);
+    ODataJPAContext odataJPAContext = mockContext(em, false, false);
+
+    EdmMapping mapping = (EdmMapping) mockNormalizedMapping();
+    new JPAQueryBuilder(odataJPAContext).build((GetEntityUriInfo) mockURIInfo(mapping));
+    new JPAQueryBuilder(odataJPAContext).build((GetEntityUriInfo) mockURIInfo(mapping));
+    assertEquals(2, statements.getValues().size());
+    assertEquals(statements.getValues().get(0), statements.getValues().get(1));
+    assertTrue(statements.getValues().get(0).contains(" JOIN C1.Customer R1 "));
+  }
+
+  @Test
+  public void buildQueryWithTimestampKeysetToken() throws Exception {
+    final Timestamp lastKey = Timestamp.valueOf("2020-01-01 10:00:00");
+    Query query = EasyMock.createNiceMock(Query.class);
+    EasyMock.expect(query.setParameter(EasyMock.anyInt(), EasyMock.eq((Date) lastKey),
+        EasyMock.eq(TemporalType.TIMESTAMP))).andReturn(query);
+    EasyMock.replay(query);
+    Capture<String> statement = new Capture<String>();
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.createQuery(EasyMock.capture(statement))).andStubReturn(query);
+    Metamodel metamodel = EasyMock.createMock(Metamodel.class);
+    EasyMock.expect(metamodel.getEntities()).andStubReturn(new HashSet<EntityType<?>>());
+    EasyMock.expect(em.getMetamodel()).andStubReturn(metamodel);
+    ODataJPAContext odataJPAContext = EasyMock.createNiceMock(ODataJPAContext.class);
+    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(em);
+    EasyMock.expect(odataJPAContext.getPageSize()).andStubReturn(10);
+    EasyMock.expect(odataJPAContext.isKeysetPaging()).andStubReturn(true);
+    EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(new ODataContextMock().mock());
+    EasyMock.replay(em, metamodel, odataJPAContext);
+
+    JPAEdmMappingImpl keyMapping = new JPAEdmMappingImpl();
+    keyMapping.setInternalName("creationDate");
+    keyMapping.setJPAType(Timestamp.class);
+    EdmProperty keyProperty = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(keyProperty.getName()).andStubReturn("CreationDate");
+    EasyMock.expect(keyProperty.getType()).andStubReturn(EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance());
+    EasyMock.expect(keyProperty.getMapping()).andStubReturn(keyMapping);
+    EasyMock.expect(keyProperty.getFacets()).andStubReturn(null);
+    JPAEdmMappingImpl mapping = new JPAEdmMappingImpl();
+    mapping.setInternalName("SalesOrderHeader");
+    EdmEntityType entityType = EasyMock.createMock(EdmEntityType.class);
+    EasyMock.expect(entityType.getName()).andStubReturn("SalesOrder");
+    EasyMock.expect(entityType.getMapping()).andStubReturn(mapping);
+    EasyMock.expect(entityType.getKeyProperties()).andStubReturn(Arrays.asList(keyProperty));
+    EdmEntitySet entitySet = EasyMock.createMock(EdmEntitySet.class);
+    EasyMock.expect(entitySet.getEntityType()).andStubReturn(entityType);
+    UriInfo uriInfo = EasyMock.createNiceMock(UriInfo.class);
+    EasyMock.expect(uriInfo.getTargetEntitySet()).andStubReturn(entitySet);
+    EasyMock.expect(uriInfo.getStartEntitySet()).andStubReturn(entitySet);
+    EasyMock.expect(uriInfo.getSkipToken()).andStubReturn("(datetime'2020-01-01T10:00:00')");
+    EasyMock.replay(keyProperty, entityType, entitySet, uriInfo);
+
+    final JPAQueryInfo queryInfo = new JPAQueryBuilder(odataJPAContext).build((GetEntitySetUriInfo) uriInfo);
+    assertTrue(queryInfo.isKeysetPaging());
+    assertTrue(statement.getValue().contains(".creationDate > ?"));
+    EasyMock.verify(query);
+  }
+
+  private ODataJPAContext mockReadOnlyContext(final Query query, final boolean batchMode, final boolean hints) {
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.createQuery(EasyMock.anyObject(String.class))).andStubReturn(query);
+    return mockContext(em, batchMode, hints);
+  }
+
+  private ODataJPAContext mockContext(final EntityManager em, final boolean batchMode, final boolean hints) {
+    Metamodel metamodel = EasyMock.createMock(Metamodel.class);
+    EasyMock.expect(metamodel.getEntities()).andStubReturn(new HashSet<EntityType<?>>());
+    EasyMock.expect(em.getMetamodel()).andStubReturn(metamodel);
+    ODataContext context = EasyMock.createMock(ODataContext.class);
+    EasyMock.expect(context.isInBatchMode()).andStubReturn(batchMode);
+    ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
+    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(em);
+    EasyMock.expect(odataJPAContext.getPageSize()).andStubReturn(0);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueries()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueryHints()).andStubReturn(hints);
+    EasyMock.expect(odataJPAContext.isSharedCacheQueryHints()).andStubReturn(hints);
+    EasyMock.expect(odataJPAContext.getQueryFetchSize()).andStubReturn(hints ? 100 : 0);
+    EasyMock.expect(odataJPAContext.isPreloadExpandedEntities()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(context);
+    EasyMock.replay(em, metamodel, context, odataJPAContext);
+    return odataJPAContext;
+  }
+
+  private Query mockExpandQuery(final List<Object> keys) {
+    Query query = EasyMock.createMock(Query.class);
+    EasyMock.expect(query.setParameter(EasyMock.eq("keys"), EasyMock.eq(keys))).andReturn(query);
+    EasyMock.expect(query.getResultList()).andReturn(new ArrayList<Object>());
+    EasyMock.replay(query);
+    return query;
+  }
+
+  private EdmEntitySet mockExpandEntitySet(final String name) throws EdmException {
+    JPAEdmMappingImpl mapping = new JPAEdmMappingImpl();
+    mapping.setInternalName(name);
+    JPAEdmMappingImpl keyMapping = new JPAEdmMappingImpl();
+    keyMapping.setInternalName("id");
+    EdmSimpleType keyType = EasyMock.createMock(EdmSimpleType.class);
+    EasyMock.expect(keyType.getKind()).andStubReturn(EdmTypeKind.SIMPLE);
+    EdmProperty keyProperty = EasyMock.createMock(EdmProperty.class);
+    EasyMock.expect(keyProperty.getName()).andStubReturn("ID");
+    EasyMock.expect(keyProperty.getMapping()).andStubReturn(keyMapping);
+    EasyMock.expect(keyProperty.getType()).andStubReturn(keyType);
+    EdmEntityType entityType = EasyMock.createMock(EdmEntityType.class);
+    EasyMock.expect(entityType.getName()).andStubReturn(name);
+    EasyMock.expect(entityType.getMapping()).andStubReturn(mapping);
+    EasyMock.expect(entityType.getKeyProperties()).andStubReturn(Arrays.asList(keyProperty));
+    EdmEntitySet entitySet = EasyMock.createMock(EdmEntitySet.class);
+    EasyMock.expect(entitySet.getEntityType()).andStubReturn(entityType);
+    EasyMock.replay(keyType, keyProperty, entityType, entitySet);
+    return entitySet;
+  }
+
+  private NavigationPropertySegment mockNavigationPropertySegment(final String name, final String internalName,
+      final EdmEntitySet targetEntitySet) throws EdmException {
+    JPAEdmMappingImpl mapping = new JPAEdmMappingImpl();
+    mapping.setInternalName(internalName);
+    EdmNavigationProperty navigationProperty = EasyMock.createMock(EdmNavigationProperty.class);
+    EasyMock.expect(navigationProperty.getName()).andStubReturn(name);
+    EasyMock.expect(navigationProperty.getMapping()).andStubReturn(mapping);
+    NavigationPropertySegment segment = EasyMock.createMock(NavigationPropertySegment.class);
+    EasyMock.expect(segment.getNavigationProperty()).andStubReturn(navigationProperty);
+    EasyMock.expect(segment.getTargetEntitySet()).andStubReturn(targetEntitySet);
+    EasyMock.replay(navigationProperty, segment);
+    return segment;
+  }
+
+  public static final class ExpandOrder {
+    private final Integer id;
+    private final List<ExpandItem> items;
+
+    public ExpandOrder(final Integer id, final List<ExpandItem> items) {
+      this.id = id;
+      this.items = items;
+    }
+
+    public Integer getId() {
+      return id;
+    }
+
+    public List<ExpandItem> getItems() {
+      return items;
+    }
+  }
+
+  public static final class ExpandItem {
+    private final Integer id;
+
+    public ExpandItem(final Integer id) {
+      this.id = id;
+    }
+
+    public Integer getId() {
+      return id;
+    }
+
+    public Object getProduct() {
+      return null;
+    }
+  }
   
   public static final class JPAQueryExtensionMock extends ODataJPAQueryExtensionEntityListener {
     Query query = EasyMock.createMock(Query.class);
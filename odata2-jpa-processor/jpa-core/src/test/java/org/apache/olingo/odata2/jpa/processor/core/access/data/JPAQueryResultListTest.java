@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.access.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class JPAQueryResultListTest {
+
+  @Test
+  public void cursorEntitiesAreDetachedInChunks() throws Exception {
+    Cursor cursor = new Cursor(Arrays.<Object> asList("A", "B", "C"));
+    CursorQuery query = EasyMock.createMock(CursorQuery.class);
+    EasyMock.expect(query.openCursor()).andReturn(cursor);
+    EntityManager em = EasyMock.createStrictMock(EntityManager.class);
+    EasyMock.replay(query, em);
+
+    JPAQueryResultList result =
+        new JPAQueryResultList(query, em, 2, null, CursorQuery.class.getMethod("openCursor"));
+    Iterator<Object> iterator = result.iterator();
+    assertEquals("A", iterator.next());
+    assertEquals("B", iterator.next());
+    EasyMock.verify(em);
+
+    EasyMock.reset(em);
+    em.detach("A");
+    em.detach("B");
+    em.detach("C");
+    EasyMock.replay(em);
+    assertEquals("C", iterator.next());
+    assertFalse(cursor.closed);
+    assertFalse(iterator.hasNext());
+    assertTrue(cursor.closed);
+    EasyMock.verify(query, em);
+
+    try {
+      result.iterator();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // a cursor can be read only once
+    }
+  }
+
+  @Test
+  public void resultListEntitiesAreDetachedInChunks() {
+    Query query = EasyMock.createMock(Query.class);
+    EasyMock.expect(query.getResultList()).andReturn(Arrays.asList("A", "B", "C"));
+    EntityManager em = EasyMock.createStrictMock(EntityManager.class);
+    em.detach("A");
+    em.detach("B");
+    em.detach("C");
+    EasyMock.replay(query, em);
+
+    JPAQueryResultList result = new JPAQueryResultList(query, em, 2, null, null);
+    Iterator<Object> iterator = result.iterator();
+    assertEquals("A", iterator.next());
+    assertEquals("B", iterator.next());
+    assertEquals("C", iterator.next());
+    assertFalse(iterator.hasNext());
+    EasyMock.verify(query, em);
+
+    try {
+      result.iterator();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // the result is read only once
+    }
+  }
+
+  @Test
+  public void sizeReadsCompleteResult() {
+    Query query = EasyMock.createMock(Query.class);
+    EasyMock.expect(query.getResultList()).andReturn(Arrays.asList("A", "B"));
+    EasyMock.replay(query);
+
+    JPAQueryResultList result = new JPAQueryResultList(query, null, 10, null);
+    assertEquals(2, result.size());
+    assertEquals("B", result.get(1));
+    assertEquals("A", result.iterator().next());
+    EasyMock.verify(query);
+  }
+
+  /** Query of a persistence provider with a cursor, like <code>getResultStream()</code> of JPA 2.2. */
+  public abstract static class CursorQuery implements Query {
+    public abstract Cursor openCursor();
+  }
+
+  public static class Cursor {
+    private final Iterator<Object> iterator;
+    private boolean closed;
+
+    public Cursor(final List<Object> results) {
+      iterator = results.iterator();
+    }
+
+    public Iterator<Object> iterator() {
+      return iterator;
+    }
+
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -182,6 +182,12 @@ public class JPAEdmMappingModelServiceTest extends JPAEdmMappingModelService {
     assertTrue(!objJPAEdmMappingModelServiceTest.checkExclusionOfJPAEntityType(ENTITY_TYPE_NAME_JPA));
   }
 
+  @Test
+  public void testCheckReadOnlyOfJPAEntityType() {
+    assertNull(objJPAEdmMappingModelServiceTest.checkReadOnlyOfJPAEntityType(ENTITY_TYPE_NAME_JPA));
+    assertEquals(Boolean.TRUE, objJPAEdmMappingModelServiceTest.checkReadOnlyOfJPAEntityType("SalesOrderItem"));
+  }
+
   @Test
   public void testCheckExclusionOfJPAAttributeType() {
     assertTrue(!objJPAEdmMappingModelServiceTest.checkExclusionOfJPAAttributeType(ENTITY_TYPE_NAME_JPA,
@@ -19,12 +19,19 @@
 package org.apache.olingo.odata2.jpa.processor.core.callback;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
 import org.apache.olingo.odata2.api.edm.EdmException;
 import org.apache.olingo.odata2.api.ep.callback.TombstoneCallbackResult;
 import org.apache.olingo.odata2.api.uri.info.GetEntitySetUriInfo;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
 import org.easymock.EasyMock;
 import org.junit.Test;
 
@@ -57,4 +64,19 @@ public class JPATombstoneCallBackTest {
     TombstoneCallbackResult result = tombStoneCallBack.getTombstoneCallbackResult();
     assertEquals("?!deltatoken=", result.getDeltaLink());
   }
+
+  @Test
+  public void TestDeletedEntries() {
+    JPATombstoneCallBack tombStoneCallBack = new JPATombstoneCallBack(null, null, "1");
+    assertNull(tombStoneCallBack.getTombstoneCallbackResult().getDeletedEntriesData());
+
+    final List<Map<String, Object>> deletedEntries =
+        Collections.singletonList(Collections.<String, Object> singletonMap("SoId", 2L));
+    ODataJPATombstoneContext.setDeletedEntries(deletedEntries);
+    try {
+      assertSame(deletedEntries, tombStoneCallBack.getTombstoneCallbackResult().getDeletedEntriesData());
+    } finally {
+      ODataJPATombstoneContext.cleanup();
+    }
+  }
 }
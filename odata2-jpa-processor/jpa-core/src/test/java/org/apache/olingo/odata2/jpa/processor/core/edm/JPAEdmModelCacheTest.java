@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.core.edm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.apache.olingo.odata2.api.edm.FullQualifiedName;
+import org.apache.olingo.odata2.api.edm.provider.Schema;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.core.mock.model.EdmSchemaMock;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Test;
+
+public class JPAEdmModelCacheTest {
+
+  @After
+  public void clearCache() {
+    JPAEdmModelCache.clear();
+  }
+
+  @Test
+  public void cachedSchemasAreSharedByProviders() throws Exception {
+    final EntityManagerFactory emf = EasyMock.createMock(EntityManagerFactory.class);
+    final List<Schema> schemas = new ArrayList<Schema>();
+    schemas.add(EdmSchemaMock.createMockEdmSchema());
+    JPAEdmModelCache.put(JPAEdmModelCache.createKey(mockContext(emf, "salesorderprocessing")), schemas);
+
+    // the model view is not created: the strict entity manager factory mock would fail otherwise
+    final ODataJPAEdmProvider provider1 = new ODataJPAEdmProvider(mockContext(emf, "salesorderprocessing"));
+    final ODataJPAEdmProvider provider2 = new ODataJPAEdmProvider(mockContext(emf, "salesorderprocessing"));
+    assertEquals(schemas, provider1.getSchemas());
+    assertSame(provider1.getSchemas(), provider2.getSchemas());
+    assertEquals("SalesOrderHeader", provider1.getEntityType(
+        new FullQualifiedName("salesorderprocessing", "SalesOrderHeader")).getName());
+  }
+
+  @Test
+  public void keyDependsOnEntityManagerFactoryAndPersistenceUnit() {
+    final EntityManagerFactory emf = EasyMock.createMock(EntityManagerFactory.class);
+    final List<Schema> schemas = new ArrayList<Schema>();
+    JPAEdmModelCache.put(JPAEdmModelCache.createKey(mockContext(emf, "salesorderprocessing")), schemas);
+
+    assertNull(JPAEdmModelCache.get(JPAEdmModelCache.createKey(
+        mockContext(EasyMock.createMock(EntityManagerFactory.class), "salesorderprocessing"))));
+    assertNull(JPAEdmModelCache.get(JPAEdmModelCache.createKey(mockContext(emf, "other"))));
+    assertNotNull(JPAEdmModelCache.get(JPAEdmModelCache.createKey(mockContext(emf, "salesorderprocessing"))));
+
+    JPAEdmModelCache.remove(emf);
+    assertNull(JPAEdmModelCache.get(JPAEdmModelCache.createKey(mockContext(emf, "salesorderprocessing"))));
+  }
+
+  private static ODataJPAContext mockContext(final EntityManagerFactory emf, final String pUnitName) {
+    ODataJPAContext context = EasyMock.createMock(ODataJPAContext.class);
+    EasyMock.expect(context.isEdmModelCaching()).andStubReturn(true);
+    EasyMock.expect(context.getEntityManagerFactory()).andStubReturn(emf);
+    EasyMock.expect(context.getPersistenceUnitName()).andStubReturn(pUnitName);
+    EasyMock.expect(context.getJPAEdmMappingModel()).andStubReturn(null);
+    EasyMock.expect(context.getJPAEdmExtension()).andStubReturn(null);
+    EasyMock.expect(context.getDefaultNaming()).andStubReturn(true);
+    EasyMock.replay(context);
+    return context;
+  }
+}
@@ -24,6 +24,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
@@ -279,6 +280,19 @@ public class JPQLSelectContextImplTest {
     // fail("Not yet implemented");
   }
 
+  @Test
+  public void testAddWhereCondition() {
+    buildSelectContext(false, false, true, true, true);
+    assertEquals(1, selectContext.getNextParameterIndex());
+    selectContext.addWhereCondition("E1.Field1 >= ?1", Collections.<Integer, Object> singletonMap(1, 5L));
+    assertEquals("E1.Field1 >= ?1", selectContext.getWhereExpression());
+    assertEquals(2, selectContext.getNextParameterIndex());
+    selectContext.addWhereCondition("E1.Field2 > ?2", Collections.<Integer, Object> singletonMap(2, "A"));
+    assertEquals("(E1.Field1 >= ?1) AND E1.Field2 > ?2", selectContext.getWhereExpression());
+    assertEquals(3, selectContext.getNextParameterIndex());
+    assertEquals(2, selectContext.getParameterizedQueryMap().size());
+  }
+
   @Test
   public void testGetJPAEntityName() {
     buildSelectContext(false, false, true, true, true);
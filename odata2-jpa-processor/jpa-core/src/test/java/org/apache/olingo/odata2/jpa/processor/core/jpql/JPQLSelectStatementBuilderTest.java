@@ -24,6 +24,7 @@ package org.apache.olingo.odata2.jpa.processor.core.jpql;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
@@ -128,4 +129,17 @@ public class JPQLSelectStatementBuilderTest {
         .toString());
   }
 
+  @Test
+  public void testBuildQueryWithProjection() throws EdmException, ODataJPARuntimeException {
+    OrderByExpression orderByExpression = EasyMock.createMock(OrderByExpression.class);
+    JPQLSelectContext jpqlSelectContextImpl = createSelectContext(orderByExpression, null);
+    jpqlSelectContextImpl.setProjection(Arrays.asList("soId", "buyerName"));
+    jpqlSelectContextImpl.setWhereExpression("E1.soID >= 1234");
+
+    jpqlSelectStatementBuilder = new JPQLSelectStatementBuilder(jpqlSelectContextImpl);
+
+    assertEquals("SELECT E1.soId, E1.buyerName FROM SalesOrderHeader E1 WHERE E1.soID >= 1234",
+        jpqlSelectStatementBuilder.build().toString());
+  }
+
 }
@@ -51,6 +51,16 @@ public abstract class ODataJPAContextMock {
     EasyMock.expect(odataJPAContext.getJPAEdmMappingModel()).andReturn(MAPPING_MODEL);
     EasyMock.expect(odataJPAContext.getJPAEdmExtension()).andReturn(null);
     EasyMock.expect(odataJPAContext.getDefaultNaming()).andReturn(true);
+    EasyMock.expect(odataJPAContext.isEdmModelCaching()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isSelectProjection()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.getStreamingChunkSize()).andStubReturn(0);
+    EasyMock.expect(odataJPAContext.isKeysetPaging()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueries()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueryHints()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isSharedCacheQueryHints()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.getQueryFetchSize()).andStubReturn(0);
+    EasyMock.expect(odataJPAContext.isPreloadExpandedEntities()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isEntityManagerReuse()).andStubReturn(false);
 
     EasyMock.replay(odataJPAContext);
     return odataJPAContext;
@@ -64,6 +74,16 @@ public abstract class ODataJPAContextMock {
     EasyMock.expect(odataJPAContext.getJPAEdmMappingModel()).andReturn(MAPPING_MODEL);
     EasyMock.expect(odataJPAContext.getJPAEdmExtension()).andReturn(null);
     EasyMock.expect(odataJPAContext.getDefaultNaming()).andReturn(true);
+    EasyMock.expect(odataJPAContext.isEdmModelCaching()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isSelectProjection()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.getStreamingChunkSize()).andStubReturn(0);
+    EasyMock.expect(odataJPAContext.isKeysetPaging()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueries()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isReadOnlyQueryHints()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isSharedCacheQueryHints()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.getQueryFetchSize()).andStubReturn(0);
+    EasyMock.expect(odataJPAContext.isPreloadExpandedEntities()).andStubReturn(false);
+    EasyMock.expect(odataJPAContext.isEntityManagerReuse()).andStubReturn(false);
     EasyMock.expect(odataJPAContext.getODataContext()).andReturn(context).anyTimes();
     EasyMock.expect(odataJPAContext.getPageSize()).andReturn(0);
 
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.jpa.processor.ref.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.rt.RuntimeDelegate;
+import org.apache.olingo.odata2.api.uri.PathSegment;
+import org.apache.olingo.odata2.api.uri.UriParser;
+import org.apache.olingo.odata2.api.uri.info.GetEntitySetUriInfo;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPAContext;
+import org.apache.olingo.odata2.jpa.processor.api.ODataJPATombstoneContext;
+import org.apache.olingo.odata2.jpa.processor.api.factory.ODataJPAFactory;
+import org.apache.olingo.odata2.jpa.processor.ref.model.SalesOrderHeader;
+import org.apache.olingo.odata2.jpa.processor.ref.model.SalesOrderItem;
+import org.apache.olingo.odata2.jpa.processor.ref.util.DataGenerator;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Reads the sales orders of the reference persistence unit with their items expanded and counts the queries
+ * loading items while the items are accessed afterwards, like the serialization of the inlined entries does.
+ */
+public class ExpandPreloadTest {
+  private static final String PUNIT_NAME = "salesorderprocessing";
+
+  private static EntityManagerFactory emf;
+  private static int itemQueries;
+
+  @BeforeClass
+  public static void createData() {
+    emf = Persistence.createEntityManagerFactory(PUNIT_NAME,
+        Collections.singletonMap("eclipselink.logging.level", "WARNING"));
+    JpaHelper.getServerSession(emf).getEventManager().addListener(new SessionEventAdapter() {
+      @Override
+      public void postExecuteQuery(final SessionEvent event) {
+        if (event.getQuery().isReadAllQuery() && event.getQuery().getReferenceClass() == SalesOrderItem.class) {
+          itemQueries++;
+        }
+      }
+    });
+    EntityManager em = emf.createEntityManager();
+    new DataGenerator(em).generate();
+    em.close();
+  }
+
+  @AfterClass
+  public static void deleteData() {
+    EntityManager em = emf.createEntityManager();
+    new DataGenerator(em).clean();
+    em.close();
+    emf.close();
+  }
+
+  @Test
+  public void expandedItemsAreLoadedLazily() throws Exception {
+    List<SalesOrderHeader> salesOrders = readSalesOrdersWithItems(false);
+    assertFalse(salesOrders.isEmpty());
+    assertEquals(salesOrders.size(), countItemQueriesOnItemAccess(salesOrders));
+  }
+
+  @Test
+  public void expandedItemsArePreloaded() throws Exception {
+    List<SalesOrderHeader> salesOrders = readSalesOrdersWithItems(true);
+    assertFalse(salesOrders.isEmpty());
+    assertEquals(0, countItemQueriesOnItemAccess(salesOrders));
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<SalesOrderHeader> readSalesOrdersWithItems(final boolean preload) throws Exception {
+    ODataJPAFactory factory = ODataJPAFactory.createFactory();
+    ODataJPAContext context = factory.getODataJPAAccessFactory().createODataJPAContext();
+    context.setEntityManagerFactory(emf);
+    context.setPersistenceUnitName(PUNIT_NAME);
+    context.setPreloadExpandedEntities(preload);
+    // a new entity manager and an empty shared cache, so that no entities of the other test are used
+    context.getEntityManager().close();
+    emf.getCache().evictAll();
+
+    Edm edm = RuntimeDelegate.createEdm(factory.getODataJPAAccessFactory().createJPAEdmProvider(context));
+    List<PathSegment> pathSegments =
+        Collections.singletonList(UriParser.createPathSegment("SalesOrderHeaders", null));
+    GetEntitySetUriInfo uriInfo = (GetEntitySetUriInfo) UriParser.parse(edm, pathSegments,
+        Collections.singletonMap("$expand", "SalesOrderItemDetails"));
+    try {
+      List<?> result = factory.getJPAAccessFactory().getJPAProcessor(context).process(uriInfo);
+      return (List<SalesOrderHeader>) result;
+    } finally {
+      // like the OData JPA processor does at the end of a request
+      ODataJPATombstoneContext.cleanup();
+    }
+  }
+
+  private static int countItemQueriesOnItemAccess(final List<SalesOrderHeader> salesOrders) {
+    final int before = itemQueries;
+    for (SalesOrderHeader salesOrder : salesOrders) {
+      salesOrder.getSalesOrderItem().size();
+    }
+    return itemQueries - before;
+  }
+}
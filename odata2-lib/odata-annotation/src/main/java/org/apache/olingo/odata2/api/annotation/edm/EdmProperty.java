@@ -61,4 +61,14 @@ public @interface EdmProperty {
    * @return facets for the Property as used in the EDM
    */
   EdmFacets facets() default @EdmFacets;
+
+  /**
+   * Define whether a data source keeping the data in memory should maintain a sorted index
+   * on the Property, which is used for <code>eq</code>, <code>lt</code>, <code>le</code>, <code>gt</code>,
+   * and <code>ge</code> comparisons with literals in filters.
+   * The index is not part of the EDM.
+   * 
+   * @return <code>true</code> if the Property should be indexed
+   */
+  boolean indexed() default false;
 }
\ No newline at end of file
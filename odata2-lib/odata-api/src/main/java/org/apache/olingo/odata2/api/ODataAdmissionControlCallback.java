@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api;
+
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+
+/**
+ * Admission control for incoming requests.
+ * <p>If the service factory provides an implementation of this callback, every request is admitted
+ * by {@link #admit(ODataContext, UriInfo, ODataHttpMethod)} before it is dispatched to the processor;
+ * the returned {@link Admission} is released after the processor has returned its response or,
+ * if the response entity is an {@link org.apache.olingo.odata2.api.processor.ODataStreamingContent},
+ * after the content has been written or the response has been closed.
+ * Responses served from the response cache or shared with an identical request in flight are not admitted.</p>
+ * <p>Requests inside a batch request are admitted as well; {@link ODataContext#isInBatchMode()}
+ * tells them apart from the batch request itself.</p>
+ * <p>A request which cannot be admitted should be rejected with an
+ * {@link org.apache.olingo.odata2.api.exception.ODataServiceUnavailableException}; its retry-after value
+ * is sent as Retry-After header of the error response.</p>
+ * <p>As the service factory may be created per request the implementation has to be shared
+ * across requests, e.g., by holding it in a static field.</p>
+ */
+public interface ODataAdmissionControlCallback extends ODataCallback {
+
+  /**
+   * Admits a request, possibly after waiting for running requests to complete.
+   * @param context generic context information
+   * @param uriInfo structured parts of the request URI
+   * @param method the HTTP method of the request
+   * @return the admission which has to be released after the request has been processed
+   * @throws ODataException if the request is rejected
+   */
+  Admission admit(ODataContext context, UriInfo uriInfo, ODataHttpMethod method) throws ODataException;
+
+  /**
+   * The admission of a request.
+   */
+  interface Admission {
+    /**
+     * Releases the resources held by the request.
+     */
+    void release();
+  }
+}
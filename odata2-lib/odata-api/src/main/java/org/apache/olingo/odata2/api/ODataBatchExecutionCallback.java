@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Concurrent execution of query operations inside a batch request.
+ * <p>If the service factory provides an implementation of this callback and the batch processor hands the
+ * parts of a batch request to {@link org.apache.olingo.odata2.api.batch.ConcurrentBatchHandler},
+ * consecutive query operations (GET requests outside of change sets) of the batch request
+ * are executed concurrently by the returned executor,
+ * each with its own service created by the service factory and its own context. Change sets are ordering barriers:
+ * a query operation never runs concurrently with a change set, and the responses are always returned in the order
+ * of the requests.</p>
+ * <p>The service factory may be created for each request, so the executor should be shared by the application
+ * and not be created on each call. The processors used for query operations must not rely on state
+ * shared between the operations of a batch request.</p>
+ */
+public interface ODataBatchExecutionCallback extends ODataCallback {
+
+  /**
+   * Gets the executor for the query operations of a batch request.
+   * @return the executor or <code>null</code> if the query operations should be executed sequentially
+   */
+  ExecutorService getExecutorService();
+}
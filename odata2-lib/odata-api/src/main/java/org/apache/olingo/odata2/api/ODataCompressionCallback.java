@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api;
+
+/**
+ * Compression of response bodies.
+ * <p>If the service factory provides an implementation of this callback, response bodies are compressed
+ * with <code>gzip</code> or <code>deflate</code> as negotiated with the Accept-Encoding request header.
+ * The body is compressed while it is written to the client; it is not buffered.</p>
+ * <p>Only content types with a non-negative minimum size are compressed, so media resources
+ * in already compressed formats (e.g., images) should not be configured.</p>
+ */
+public interface ODataCompressionCallback extends ODataCallback {
+
+  /**
+   * Gets the minimum size of a response body with the given content type to be compressed.
+   * @param contentType the content type of the response body (including parameters like the charset)
+   * @return the minimum size in bytes or a negative value if bodies of this content type must not be compressed
+   */
+  int getMinimumSize(String contentType);
+}
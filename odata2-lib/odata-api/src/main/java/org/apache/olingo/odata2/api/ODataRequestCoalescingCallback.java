@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api;
+
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+
+/**
+ * Coalescing of concurrent identical read requests.
+ * <p>If the service factory provides an implementation of this callback, concurrent GET requests
+ * accepted by {@link #isCoalescable(ODataContext, UriInfo)} with the same normalized request URI,
+ * the same negotiated content type and the same identity are processed only once;
+ * the requests arriving while the first one is in flight wait for it and share its serialized response.</p>
+ */
+public interface ODataRequestCoalescingCallback extends ODataCallback {
+
+  /**
+   * Decides whether the given read request may share its response with concurrent identical requests.
+   * @param context generic context information
+   * @param uriInfo structured parts of the request URI
+   * @return <code>true</code> if the request may be coalesced
+   */
+  boolean isCoalescable(ODataContext context, UriInfo uriInfo);
+
+  /**
+   * Gets the identity of the requester, e.g., the name of the authenticated user.
+   * Only requests with the same identity share a response.
+   * @param context generic context information
+   * @return the identity or <code>null</code> if the response does not depend on the requester
+   */
+  String getIdentity(ODataContext context);
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api;
+
+import java.util.Set;
+
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+
+/**
+ * Cache for serialized responses of read requests.
+ * <p>If the service factory provides an implementation of this callback, the responses of GET requests
+ * accepted by {@link #isCacheable(ODataContext, UriInfo)} are buffered and stored under a key built from
+ * the normalized request URI and the negotiated content type.
+ * Modifying requests (including the requests of a batch change set and changes of links)
+ * invalidate all stored responses which depend on an affected entity set.</p>
+ * <p>As the service factory may be created per request the implementation has to be shared
+ * across requests, e.g., by holding it in a static field.</p>
+ */
+public interface ODataResponseCacheCallback extends ODataCallback {
+
+  /**
+   * Decides whether the response of the given read request may be served from the cache.
+   * @param context generic context information
+   * @param uriInfo structured parts of the request URI
+   * @return <code>true</code> if the response may be cached
+   */
+  boolean isCacheable(ODataContext context, UriInfo uriInfo);
+
+  /**
+   * Gets a stored response.
+   * @param key the cache key
+   * @return the stored response with a <code>byte[]</code> entity or <code>null</code> if not available
+   */
+  ODataResponse get(String key);
+
+  /**
+   * Stores a response.
+   * The response must not be stored if one of the given entity sets has been invalidated
+   * after the given start time of the request which produced the response.
+   * @param key the cache key
+   * @param entitySetNames qualified names of the entity sets the response depends on
+   * @param response the response with a <code>byte[]</code> entity
+   * @param requestStartTime start time of the request in nanoseconds as returned by {@link System#nanoTime()}
+   */
+  void put(String key, Set<String> entitySetNames, ODataResponse response, long requestStartTime);
+
+  /**
+   * Removes all stored responses which depend on one of the given entity sets.
+   * @param entitySetNames qualified names of the modified entity sets
+   */
+  void invalidate(Set<String> entitySetNames);
+}
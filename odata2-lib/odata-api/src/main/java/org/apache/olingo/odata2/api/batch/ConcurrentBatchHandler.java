@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api.batch;
+
+import java.util.List;
+
+import org.apache.olingo.odata2.api.exception.ODataException;
+
+/**
+ * Batch handler which can execute query operations of a batch request concurrently.
+ * <p>The batch handler passed to a batch processor by the library implements this interface.
+ * A processor opts in to concurrent execution by handing all parts of a batch request to
+ * {@link #handleBatchParts(List)} instead of calling {@link #handleBatchPart(BatchRequestPart)} for each part.
+ * It should do so only if its query operations do not depend on state bound to the thread
+ * which executes the batch request, e.g., a thread-bound entity manager or transaction:
+ * concurrent query operations run on the threads of the executor, each with its own service
+ * created by the service factory.</p>
+ */
+public interface ConcurrentBatchHandler extends BatchHandler {
+
+  /**
+   * <p>Handles all {@link BatchRequestPart}s of a batch request and provides the corresponding
+   * {@link BatchResponsePart}s in the same order.</p>
+   * <p>Consecutive query operations are executed concurrently if the service factory provides an
+   * {@link org.apache.olingo.odata2.api.ODataBatchExecutionCallback}; otherwise the parts are handled
+   * one after the other with {@link #handleBatchPart(BatchRequestPart)}.</p>
+   * @param batchRequestParts the incoming MIME parts
+   * @return the corresponding results
+   * @throws ODataException
+   */
+  List<BatchResponsePart> handleBatchParts(List<BatchRequestPart> batchRequestParts) throws ODataException;
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api.client.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.olingo.odata2.api.batch.BatchException;
+
+/**
+ * A BatchResponseReader
+ * <p>BatchResponseReader reads the single responses of a Batch Response body one after another, so that a
+ * large Batch Response is never held in memory as a whole. The body of a single response is buffered
+ * (in a temporary file if it is large) and released as soon as the reader proceeds to the next part
+ * of the Batch Response, so it has to be consumed before.</p>
+ * <p>A ChangeSet is one part of the Batch Response and is therefore read as a whole: the bodies of all its
+ * single responses are buffered until the reader proceeds past the ChangeSet.</p>
+ */
+public interface BatchResponseReader extends Closeable {
+
+  /**
+   * Reads the next single response. The responses of a ChangeSet are returned one after another.
+   * @return the next single response or <code>null</code> if the end of the Batch Response has been reached
+   * @throws BatchException if the Batch Response is not valid
+   * @throws IOException if the Batch Response could not be read
+   */
+  public StreamingBatchSingleResponse next() throws BatchException, IOException;
+
+  /**
+   * Releases all buffered bodies and closes the underlying stream.
+   * @throws IOException if the underlying stream could not be closed
+   */
+  @Override
+  public void close() throws IOException;
+}
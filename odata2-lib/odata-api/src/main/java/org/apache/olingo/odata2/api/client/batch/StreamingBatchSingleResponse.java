@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api.client.batch;
+
+import java.io.InputStream;
+
+/**
+ * A StreamingBatchSingleResponse
+ * <p>StreamingBatchSingleResponse is a {@link BatchSingleResponse} whose body is also available as stream,
+ * as returned by a {@link BatchResponseReader}.</p>
+ */
+public interface StreamingBatchSingleResponse extends BatchSingleResponse {
+
+  /**
+   * <p>If the response has been read by a {@link BatchResponseReader} and its body is large, the stream
+   * can be retrieved only once; it is valid until the reader proceeds to the next part of the batch response.</p>
+   * @return the body part of a response message as stream, unchanged (as received)
+   */
+  public InputStream getBodyAsStream();
+}
@@ -18,7 +18,10 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.api.ep;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +29,7 @@ import org.apache.olingo.odata2.api.batch.BatchException;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.client.batch.BatchPart;
+import org.apache.olingo.odata2.api.client.batch.BatchResponseReader;
 import org.apache.olingo.odata2.api.client.batch.BatchSingleResponse;
 import org.apache.olingo.odata2.api.edm.Edm;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
@@ -434,6 +438,20 @@ public final class EntityProvider {
      */
     ODataResponse writeBatchResponse(List<BatchResponsePart> batchResponseParts) throws BatchException;
 
+    /**
+     * Write responses of Batch Response Parts in Batch Response as {@link ODataResponse}
+     * with an entity which streams the multipart message when the response is sent.
+     * Part bodies of unknown length are buffered one at a time according to the body-buffer size
+     * of the given properties.
+     * 
+     * @param batchResponseParts a list of {@link BatchResponsePart}
+     * @param properties batch properties
+     * @return Batch Response as {@link ODataResponse} without Content-Length
+     * @throws BatchException
+     */
+    ODataResponse writeBatchResponse(List<BatchResponsePart> batchResponseParts,
+        EntityProviderBatchProperties properties) throws BatchException;
+
     /**
      * Create Batch Request body as InputStream.
      * 
@@ -443,6 +461,18 @@ public final class EntityProvider {
      */
     InputStream writeBatchRequest(List<BatchPart> batchParts, String boundary);
 
+    /**
+     * Write Batch Request body into the given output stream, requesting the parts one after another
+     * from the given iterator.
+     * 
+     * @param batchParts BatchPartRequests {@link BatchPart}
+     * @param boundary
+     * @param output the output stream; it is flushed but not closed
+     * @throws IOException if the output stream could not be written
+     */
+    void writeBatchRequest(Iterator<BatchPart> batchParts, String boundary, OutputStream output)
+        throws IOException;
+
     /**
      * Parse Batch Response body (as {@link InputStream}) and provide a list of single responses as
      * {@link BatchSingleResponse}
@@ -454,6 +484,19 @@ public final class EntityProvider {
      */
     List<BatchSingleResponse> parseBatchResponse(String contentType, InputStream content) throws BatchException;
 
+    /**
+     * Create a reader for the single responses of a Batch Response body (as {@link InputStream})
+     * which reads one part of the Batch Response after another.
+     * 
+     * @param contentType format of content in the given input stream (incl. boundary parameter)
+     * @param content response body
+     * @param properties batch properties (the body-buffer size is used for the bodies of the single responses)
+     * @return {@link BatchResponseReader}
+     * @throws BatchException
+     */
+    BatchResponseReader readBatchResponse(String contentType, InputStream content,
+        EntityProviderBatchProperties properties) throws BatchException;
+
     /**
      * Read (de-serialize) data from error document as {@link InputStream} and provide according
      * {@link ODataErrorContext}.
@@ -932,6 +975,27 @@ public final class EntityProvider {
     return createEntityProvider().writeBatchResponse(batchResponseParts);
   }
 
+  /**
+   * Write responses of Batch Response Parts in Batch Response as {@link ODataResponse}
+   * with an entity which streams the multipart message when the response is sent.
+   * In contrast to {@link #writeBatchResponse(List)} the whole message is never held in memory;
+   * part bodies of unknown length (input streams and streaming content) are buffered one at a time,
+   * in memory up to the body-buffer size of the given properties and in a temporary file beyond that.
+   * The response has no Content-Length header.
+   * <p>Only the serialization is streamed: the parts have been handled before this method is called,
+   * so the response starts only after the last part has been handled. The part responses are closed
+   * when they have been written or when the returned response is closed.</p>
+   * 
+   * @param batchResponseParts a list of {@link BatchResponsePart}
+   * @param properties batch properties
+   * @return Batch Response as {@link ODataResponse}
+   * @throws BatchException
+   */
+  public static ODataResponse writeBatchResponse(final List<BatchResponsePart> batchResponseParts,
+      final EntityProviderBatchProperties properties) throws BatchException {
+    return createEntityProvider().writeBatchResponse(batchResponseParts, properties);
+  }
+
   /**
    * Create Batch Request body as InputStream.
    * 
@@ -943,6 +1007,21 @@ public final class EntityProvider {
     return createEntityProvider().writeBatchRequest(batchParts, boundary);
   }
 
+  /**
+   * Write Batch Request body into the given output stream, requesting the parts one after another
+   * from the given iterator. In contrast to {@link #writeBatchRequest(List, String)} the body is never
+   * held in memory as a whole; the parts can be created lazily by the iterator.
+   * 
+   * @param batchParts BatchPartRequests {@link BatchPart}
+   * @param boundary
+   * @param output the output stream; it is flushed but not closed
+   * @throws IOException if the output stream could not be written
+   */
+  public static void writeBatchRequest(final Iterator<BatchPart> batchParts, final String boundary,
+      final OutputStream output) throws IOException {
+    createEntityProvider().writeBatchRequest(batchParts, boundary, output);
+  }
+
   /**
    * Parse Batch Response body (as {@link InputStream}) and provide a list of single responses as
    * {@link BatchSingleResponse}
@@ -957,4 +1036,21 @@ public final class EntityProvider {
     return createEntityProvider().parseBatchResponse(contentType, content);
   }
 
+  /**
+   * Create a reader for the single responses of a Batch Response body (as {@link InputStream}).
+   * In contrast to {@link #parseBatchResponse(InputStream, String)} the parts of the Batch Response are
+   * read one after another; the body of a single response is available as stream until the reader
+   * proceeds to the next part. A ChangeSet is read as a whole, including the bodies of all its responses.
+   * 
+   * @param content response body
+   * @param contentType format of content in the given input stream (inclusive boundary parameter)
+   * @param properties batch properties (the body-buffer size is used for the bodies of the single responses)
+   * @return {@link BatchResponseReader}, to be closed after use
+   * @throws BatchException
+   */
+  public static BatchResponseReader readBatchResponse(final InputStream content, final String contentType,
+      final EntityProviderBatchProperties properties) throws BatchException {
+    return createEntityProvider().readBatchResponse(contentType, content, properties);
+  }
+
 }
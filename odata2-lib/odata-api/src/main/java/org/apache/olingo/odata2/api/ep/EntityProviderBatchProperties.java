@@ -26,6 +26,9 @@ import org.apache.olingo.odata2.api.uri.PathInfo;
  * 
  */
 public class EntityProviderBatchProperties {
+  /** Default for the maximum number of bytes of a single request body kept in memory (1 MiB). */
+  public static final int DEFAULT_BODY_BUFFER_SIZE = 1024 * 1024;
+
   /**
    * PathInfo contains service root and preceding segments which should be used for URI parsing of a single request
    */
@@ -36,6 +39,13 @@ public class EntityProviderBatchProperties {
    */
   private boolean isStrict = true;
 
+  /**
+   * Maximum number of bytes of the body of a single request (or, when streaming the batch response,
+   * of a single response of unknown length) which is kept in memory; larger bodies are buffered
+   * in temporary files.
+   */
+  private int bodyBufferSize = DEFAULT_BODY_BUFFER_SIZE;
+
   public static EntityProviderBatchPropertiesBuilder init() {
     return new EntityProviderBatchPropertiesBuilder();
   }
@@ -48,6 +58,10 @@ public class EntityProviderBatchProperties {
     return isStrict;
   }
 
+  public int getBodyBufferSize() {
+    return bodyBufferSize;
+  }
+
   public static class EntityProviderBatchPropertiesBuilder {
     private final EntityProviderBatchProperties properties = new EntityProviderBatchProperties();
 
@@ -55,6 +69,7 @@ public class EntityProviderBatchProperties {
 
     public EntityProviderBatchPropertiesBuilder(final EntityProviderBatchProperties propertiesFrom) {
       properties.pathInfo = propertiesFrom.pathInfo;
+      properties.bodyBufferSize = propertiesFrom.bodyBufferSize;
     }
 
     public EntityProviderBatchPropertiesBuilder pathInfo(final PathInfo pathInfo) {
@@ -67,6 +82,18 @@ public class EntityProviderBatchProperties {
       return this;
     }
 
+    /**
+     * Sets the maximum number of bytes of the body of a single request which is kept in memory
+     * while parsing the batch request (and of a single response body of unknown length while streaming
+     * the batch response); larger bodies are buffered in temporary files.
+     * @param bodyBufferSize number of bytes
+     * @return this builder
+     */
+    public EntityProviderBatchPropertiesBuilder bodyBufferSize(final int bodyBufferSize) {
+      properties.bodyBufferSize = bodyBufferSize;
+      return this;
+    }
+
     public EntityProviderBatchProperties build() {
       return properties;
     }
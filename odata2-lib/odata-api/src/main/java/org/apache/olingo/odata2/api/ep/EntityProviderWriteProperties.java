@@ -51,6 +51,7 @@ public class EntityProviderWriteProperties {
   private boolean includeMetadataInContentOnly = false;
   private boolean isDataBasedPropertySerialization = false;
   private boolean omitInlineForNullData = false;
+  private boolean streaming = false;
 
   private EntityProviderWriteProperties() {}
   
@@ -165,6 +166,15 @@ public class EntityProviderWriteProperties {
     return includeMetadataInContentOnly;
   }
 
+  /**
+   * Returns whether a feed is serialized while the response is sent.
+   * @return <code>true</code> if the feed is written as streaming content
+   * @see ODataEntityProviderPropertiesBuilder#streaming(boolean)
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+
   public static class ODataEntityProviderPropertiesBuilder {
     private final EntityProviderWriteProperties properties = new EntityProviderWriteProperties();
 
@@ -305,6 +315,19 @@ public class EntityProviderWriteProperties {
       return this;
     }
 
+    /**
+     * If set to true a feed is not serialized when it is written but while the response is sent:
+     * the entity of the resulting response is an {@link org.apache.olingo.odata2.api.processor.ODataStreamingContent}.
+     * The data list is iterated only once then, so it can read its entries lazily and the
+     * serialized feed is never held in memory. Errors during serialization cannot change the response status anymore.
+     * @param streaming whether the feed is written as streaming content
+     * @return the builder
+     */
+    public ODataEntityProviderPropertiesBuilder streaming(final boolean streaming) {
+      properties.streaming = streaming;
+      return this;
+    }
+
     public ODataEntityProviderPropertiesBuilder fromProperties(final EntityProviderWriteProperties properties) {
       this.properties.inlineCountType = properties.getInlineCountType();
       this.properties.inlineCount = properties.getInlineCount();
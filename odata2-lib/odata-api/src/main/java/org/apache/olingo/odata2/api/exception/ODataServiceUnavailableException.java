@@ -30,22 +30,46 @@ public class ODataServiceUnavailableException extends ODataHttpException {
 
   public static final MessageReference COMMON =
       createMessageReference(ODataServiceUnavailableException.class, "COMMON");
+  public static final MessageReference OVERLOADED =
+      createMessageReference(ODataServiceUnavailableException.class, "OVERLOADED");
+
+  private final int retryAfter;
 
   public ODataServiceUnavailableException(final MessageReference context) {
+    this(context, 0);
+  }
+
+  /**
+   * @param context the message reference
+   * @param retryAfter number of seconds after which the client may retry the request,
+   * sent as value of the Retry-After response header
+   */
+  public ODataServiceUnavailableException(final MessageReference context, final int retryAfter) {
     super(context, HttpStatusCodes.SERVICE_UNAVAILABLE);
+    this.retryAfter = retryAfter;
   }
 
   public ODataServiceUnavailableException(final MessageReference context, final Throwable cause) {
     super(context, cause, HttpStatusCodes.SERVICE_UNAVAILABLE);
+    retryAfter = 0;
   }
 
   public ODataServiceUnavailableException(final MessageReference context, final String errorCode) {
     super(context, HttpStatusCodes.SERVICE_UNAVAILABLE, errorCode);
+    retryAfter = 0;
   }
 
   public ODataServiceUnavailableException(final MessageReference context, final Throwable cause,
       final String errorCode) {
     super(context, cause, HttpStatusCodes.SERVICE_UNAVAILABLE, errorCode);
+    retryAfter = 0;
+  }
+
+  /**
+   * @return number of seconds after which the client may retry the request or 0 if not known
+   */
+  public int getRetryAfter() {
+    return retryAfter;
   }
 
 }
@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.api.processor;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
@@ -56,12 +57,14 @@ public abstract class ODataResponse {
   public abstract HttpStatusCodes getStatus();
 
   /**
-   * @return a response entity which becomes the body part of a response message
+   * @return a response entity which becomes the body part of a response message;
+   * supported are {@link InputStream}, <code>byte[]</code>, {@link String}, and {@link ODataStreamingContent}
    */
   public abstract Object getEntity();
 
   /**
-   * @return a response entity as inputStream which becomes the body part of a response message
+   * @return a response entity as inputStream which becomes the body part of a response message;
+   * {@link ODataStreamingContent} is written into a buffer first
    * @throws ODataException throws ODataException in case of entity is not a stream (internal ClassCastException)
    */
   public InputStream getEntityAsStream() throws ODataException {
@@ -72,6 +75,14 @@ public abstract class ODataResponse {
       return new ByteArrayInputStream((byte[]) obj);
     } else if(obj instanceof String) {
       return getInputStream((String) obj);
+    } else if(obj instanceof ODataStreamingContent) {
+      try {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ((ODataStreamingContent) obj).write(output);
+        return new ByteArrayInputStream(output.toByteArray());
+      } catch (IOException e) {
+        throw new ODataException("Unexpected exception while writing streaming content into a buffer.", e);
+      }
     }
     throw new ODataException("Entity is not an instance of an InputStream (entity class: " +
         (obj == null ? "NULL": obj.getClass()) + ")");
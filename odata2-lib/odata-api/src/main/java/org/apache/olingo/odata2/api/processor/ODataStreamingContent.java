@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.api.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Response entity which is written directly to the output stream of the HTTP response.
+ * <p>A processor can set an implementation as entity of an {@link ODataResponse}
+ * to serialize large results with constant memory instead of buffering them before the response is sent.
+ * As the length of the content is not known in advance, the response is sent with chunked transfer encoding
+ * unless the processor sets the Content-Length header.</p>
+ * <p>If the implementation also implements {@link java.io.Closeable}, it is closed by
+ * {@link ODataResponse#close()}. The response is closed even if the content is never written,
+ * e.g., for a HEAD request or when the request fails after the processor has returned,
+ * so resources held by the content should be released in {@link java.io.Closeable#close()}.</p>
+ */
+public interface ODataStreamingContent {
+
+  /**
+   * Writes the content. The output stream must not be closed by the implementation.
+   * @param output the output stream of the response
+   * @throws IOException if the content could not be written
+   */
+  void write(OutputStream output) throws IOException;
+}
@@ -18,12 +18,18 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.apache.olingo.odata2.api.ODataAdmissionControlCallback;
+import org.apache.olingo.odata2.api.ODataCallback;
 import org.apache.olingo.odata2.api.ODataDebugResponseWrapperCallback;
+import org.apache.olingo.odata2.api.ODataRequestCoalescingCallback;
+import org.apache.olingo.odata2.api.ODataResponseCacheCallback;
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.ODataServiceVersion;
@@ -47,6 +53,7 @@ import org.apache.olingo.odata2.api.processor.ODataProcessor;
 import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.api.processor.ODataResponse.ODataResponseBuilder;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
 import org.apache.olingo.odata2.api.processor.part.EntityLinkProcessor;
 import org.apache.olingo.odata2.api.processor.part.EntityLinksProcessor;
 import org.apache.olingo.odata2.api.processor.part.EntityMediaProcessor;
@@ -58,6 +65,9 @@ import org.apache.olingo.odata2.api.processor.part.FunctionImportValueProcessor;
 import org.apache.olingo.odata2.api.uri.PathSegment;
 import org.apache.olingo.odata2.api.uri.UriInfo;
 import org.apache.olingo.odata2.api.uri.UriParser;
+import org.apache.olingo.odata2.core.admission.ReleasingStreamingContent;
+import org.apache.olingo.odata2.core.cache.RequestCoalescer;
+import org.apache.olingo.odata2.core.cache.ResponseCacheHelper;
 import org.apache.olingo.odata2.core.commons.ContentType;
 import org.apache.olingo.odata2.core.commons.ContentType.ODataFormat;
 import org.apache.olingo.odata2.core.debug.ODataDebugResponseWrapper;
@@ -94,6 +104,7 @@ public class ODataRequestHandler {
     UriInfoImpl uriInfo = null;
     Exception exception = null;
     ODataResponse odataResponse;
+    ODataResponse dispatchedResponse = null;
     final int timingHandle = context.startRuntimeMeasurement("ODataRequestHandler", "handle");
     try {
       UriParser uriParser = new UriParserImpl(service.getEntityDataModel());
@@ -127,10 +138,9 @@ public class ODataRequestHandler {
           context.getRequestHeader(HttpHeaders.IF_UNMODIFIED_SINCE));
 
       timingHandle2 = context.startRuntimeMeasurement("Dispatcher", "dispatch");
-      odataResponse =
-          dispatcher.dispatch(method, uriInfo, request.getBody(), request.getContentType(), acceptContentType
-              .toContentTypeString());
+      odataResponse = dispatch(dispatcher, method, uriInfo, request, acceptContentType.toContentTypeString());
       context.stopRuntimeMeasurement(timingHandle2);
+      dispatchedResponse = odataResponse;
 
       ODataResponseBuilder extendedResponse = ODataResponse.fromResponse(odataResponse);
       final UriType uriType = uriInfo.getUriType();
@@ -150,6 +160,9 @@ public class ODataRequestHandler {
       odataResponse = extendedResponse.build();
     } catch (final Exception e) {
       exception = e;
+      if (dispatchedResponse != null) {
+        close(dispatchedResponse);
+      }
       odataResponse = new ODataExceptionWrapper(context, request.getQueryParameters(), request.getAcceptHeaders())
           .wrapInExceptionResponse(e);
     }
@@ -169,6 +182,113 @@ public class ODataRequestHandler {
     }
   }
 
+  private ODataResponse dispatch(final Dispatcher dispatcher, final ODataHttpMethod method,
+      final UriInfoImpl uriInfo, final ODataRequest request, final String contentType) throws ODataException {
+    final ODataResponseCacheCallback cache = getCallback(ODataResponseCacheCallback.class);
+    if (method != ODataHttpMethod.GET) {
+      final ODataResponse response = dispatchAdmitted(dispatcher, method, uriInfo, request, contentType);
+      if (cache != null) {
+        invalidate(cache, uriInfo, response);
+      }
+      return response;
+    }
+
+    final ODataRequestCoalescingCallback coalescing = getCallback(ODataRequestCoalescingCallback.class);
+    final boolean cacheable = cache != null && !context.isInDebugMode() && cache.isCacheable(context, uriInfo);
+    final boolean coalescable = coalescing != null && !context.isInDebugMode()
+        && coalescing.isCoalescable(context, uriInfo);
+    if (!cacheable && !coalescable) {
+      return dispatchAdmitted(dispatcher, method, uriInfo, request, contentType);
+    }
+
+    final String key = ResponseCacheHelper.createKey(context.getPathInfo(), request.getAllQueryParameters(),
+        contentType);
+    ODataResponse sharedResponse = cacheable ? cache.get(key) : null;
+    if (sharedResponse == null) {
+      final RequestCoalescer.Execution execution = new RequestCoalescer.Execution() {
+        @Override
+        public ODataResponse execute() throws ODataException {
+          final long requestStartTime = System.nanoTime();
+          final ODataResponse response = dispatchAdmitted(dispatcher, method, uriInfo, request, contentType);
+          if (!ResponseCacheHelper.isStorable(response)) {
+            return response;
+          }
+          final ODataResponse buffered = ResponseCacheHelper.buffer(response);
+          if (cacheable) {
+            cache.put(key, ResponseCacheHelper.getDependentEntitySets(uriInfo), buffered, requestStartTime);
+          }
+          return buffered;
+        }
+      };
+      sharedResponse = coalescable ?
+          RequestCoalescer.execute(key, coalescing.getIdentity(context), execution) :
+          execution.execute();
+      if (!(sharedResponse.getEntity() instanceof byte[])) {
+        return sharedResponse;
+      }
+    }
+    return ResponseCacheHelper.createResponse(sharedResponse, context.getRequestHeader(HttpHeaders.IF_NONE_MATCH));
+  }
+
+  /**
+   * Dispatches the request after it has been admitted by the admission control, if there is one.
+   * The admission is held until the response content has been written or the response has been closed
+   * if the content is streamed; otherwise it is released when the processor has returned.
+   */
+  private ODataResponse dispatchAdmitted(final Dispatcher dispatcher, final ODataHttpMethod method,
+      final UriInfoImpl uriInfo, final ODataRequest request, final String contentType) throws ODataException {
+    final ODataAdmissionControlCallback admissionControl = getCallback(ODataAdmissionControlCallback.class);
+    if (admissionControl == null) {
+      return dispatcher.dispatch(method, uriInfo, request.getBody(), request.getContentType(), contentType);
+    }
+    final ODataAdmissionControlCallback.Admission admission = admissionControl.admit(context, uriInfo, method);
+    boolean released = true;
+    try {
+      final ODataResponse response =
+          dispatcher.dispatch(method, uriInfo, request.getBody(), request.getContentType(), contentType);
+      if (response.getEntity() instanceof ODataStreamingContent) {
+        released = false;
+        return ODataResponse.fromResponse(response)
+            .entity(new ReleasingStreamingContent((ODataStreamingContent) response.getEntity(), admission))
+            .build();
+      }
+      return response;
+    } finally {
+      if (released) {
+        admission.release();
+      }
+    }
+  }
+
+  private static void close(final ODataResponse response) {
+    try {
+      response.close();
+    } catch (final IOException e) {
+      // The response is replaced by the error response anyway.
+    }
+  }
+
+  private void invalidate(final ODataResponseCacheCallback cache, final UriInfoImpl uriInfo,
+      final ODataResponse response) throws ODataException {
+    if (uriInfo.getUriType() == UriType.URI9) {
+      // The requests of the batch have invalidated their entity sets already, but the
+      // changes might have been committed only at the end of their change sets.
+      final Set<String> modified = ResponseCacheHelper.getModifiedEntitySets(context);
+      if (!modified.isEmpty()) {
+        cache.invalidate(modified);
+      }
+    } else if (response.getStatus() == null
+        || response.getStatus().getStatusCode() < HttpStatusCodes.BAD_REQUEST.getStatusCode()) {
+      final Set<String> modified = ResponseCacheHelper.getModifiedEntitySets(uriInfo);
+      cache.invalidate(modified);
+      ResponseCacheHelper.registerModifiedEntitySets(context, modified);
+    }
+  }
+
+  private <T extends ODataCallback> T getCallback(final Class<T> callbackInterface) {
+    return serviceFactory == null ? null : serviceFactory.getCallback(callbackInterface);
+  }
+
   private HttpStatusCodes getStatusCode(final ODataResponse odataResponse, final ODataHttpMethod method,
       final UriType uriType) {
     if (odataResponse.getStatus() == null) {
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.admission;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of concurrently processed requests of one kind.
+ * <p>Requests exceeding the limit wait in a bounded queue; requests which do not fit into the queue
+ * or which could not be admitted within the maximum wait time are rejected.</p>
+ */
+public class Bulkhead {
+
+  private final String name;
+  private final int maxConcurrent;
+  private final int maxQueued;
+  private final Semaphore permits;
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicLong rejected = new AtomicLong();
+
+  /**
+   * @param name the name of the bulkhead
+   * @param maxConcurrent maximum number of concurrently processed requests
+   * @param maxQueued maximum number of requests waiting for admission
+   */
+  public Bulkhead(final String name, final int maxConcurrent, final int maxQueued) {
+    this.name = name;
+    this.maxConcurrent = maxConcurrent;
+    this.maxQueued = maxQueued;
+    permits = new Semaphore(maxConcurrent, true);
+  }
+
+  /**
+   * Acquires a permit, waiting in the queue if necessary.
+   * @param maxWaitTime maximum time in milliseconds to wait for a permit
+   * @return <code>true</code> if a permit has been acquired, <code>false</code> if the request has been rejected
+   */
+  public boolean acquire(final long maxWaitTime) {
+    try {
+      // A timed attempt respects the fairness of the semaphore and so the order of the queue.
+      if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+        return true;
+      }
+      if (queued.incrementAndGet() <= maxQueued) {
+        try {
+          if (permits.tryAcquire(maxWaitTime, TimeUnit.MILLISECONDS)) {
+            return true;
+          }
+        } finally {
+          queued.decrementAndGet();
+        }
+      } else {
+        queued.decrementAndGet();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    rejected.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * Releases a permit acquired before.
+   */
+  public void release() {
+    permits.release();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getMaxConcurrent() {
+    return maxConcurrent;
+  }
+
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  /**
+   * @return the number of requests currently processed
+   */
+  public int getActiveCount() {
+    return maxConcurrent - permits.availablePermits();
+  }
+
+  /**
+   * @return the number of requests currently waiting for admission
+   */
+  public int getQueueDepth() {
+    return queued.get();
+  }
+
+  /**
+   * @return the number of rejected requests since the creation of the bulkhead
+   */
+  public long getRejectedCount() {
+    return rejected.get();
+  }
+}
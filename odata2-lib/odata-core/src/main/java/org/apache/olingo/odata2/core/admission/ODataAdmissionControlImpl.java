@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.admission;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.olingo.odata2.api.ODataAdmissionControlCallback;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmFunctionImport;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.exception.ODataServiceUnavailableException;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+import org.apache.olingo.odata2.core.uri.UriInfoImpl;
+import org.apache.olingo.odata2.core.uri.UriType;
+
+/**
+ * Admission control with bulkheads per request class and per entity set or function import.
+ * <p>A request has to pass the bulkhead of its request class ({@link #READ}, {@link #WRITE}, or {@link #BATCH})
+ * and the bulkhead of its target entity set or function import, if limits have been set for them.
+ * Entity sets and function imports are identified by their name qualified with the name of their
+ * entity container, e.g., <code>Container1.Employees</code>.</p>
+ * <p>Requests inside a batch request pass only the bulkhead of their entity set or function import;
+ * their request class is covered by the {@link #BATCH} bulkhead of the batch request.</p>
+ */
+public class ODataAdmissionControlImpl implements ODataAdmissionControlCallback {
+
+  public static final String READ = "read";
+  public static final String WRITE = "write";
+  public static final String BATCH = "batch";
+
+  private static final Admission NO_LIMIT = new Admission() {
+    @Override
+    public void release() {}
+  };
+
+  private final long maxWaitTime;
+  private final int retryAfter;
+  private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<String, Bulkhead>();
+
+  /**
+   * @param maxWaitTime maximum time in milliseconds a request waits for admission
+   * @param retryAfter number of seconds sent to rejected clients as value of the Retry-After header
+   */
+  public ODataAdmissionControlImpl(final long maxWaitTime, final int retryAfter) {
+    this.maxWaitTime = maxWaitTime;
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Sets the limits for a request class or for an entity set or function import.
+   * @param name the request class or the qualified name of the entity set or function import
+   * @param maxConcurrent maximum number of concurrently processed requests
+   * @param maxQueued maximum number of requests waiting for admission
+   */
+  public void setLimit(final String name, final int maxConcurrent, final int maxQueued) {
+    bulkheads.put(name, new Bulkhead(name, maxConcurrent, maxQueued));
+  }
+
+  /**
+   * Gets the bulkhead with its metrics for a request class or for an entity set or function import.
+   * @param name the request class or the qualified name of the entity set or function import
+   * @return the bulkhead or <code>null</code> if no limits have been set
+   */
+  public Bulkhead getBulkhead(final String name) {
+    return bulkheads.get(name);
+  }
+
+  /**
+   * @return all bulkheads with their metrics by name
+   */
+  public Map<String, Bulkhead> getBulkheads() {
+    return Collections.unmodifiableMap(bulkheads);
+  }
+
+  @Override
+  public Admission admit(final ODataContext context, final UriInfo uriInfo, final ODataHttpMethod method)
+      throws ODataException {
+    final Bulkhead requestClass = context.isInBatchMode() ? null : bulkheads.get(getRequestClass(uriInfo, method));
+    final String resourceName = getResourceName(uriInfo);
+    final Bulkhead resource = resourceName == null ? null : bulkheads.get(resourceName);
+
+    acquire(requestClass);
+    try {
+      acquire(resource);
+    } catch (final ODataException e) {
+      release(requestClass);
+      throw e;
+    }
+    return requestClass == null && resource == null ? NO_LIMIT : new Admission() {
+      @Override
+      public void release() {
+        ODataAdmissionControlImpl.release(resource);
+        ODataAdmissionControlImpl.release(requestClass);
+      }
+    };
+  }
+
+  private void acquire(final Bulkhead bulkhead) throws ODataServiceUnavailableException {
+    if (bulkhead != null && !bulkhead.acquire(maxWaitTime)) {
+      throw new ODataServiceUnavailableException(
+          ODataServiceUnavailableException.OVERLOADED.addContent(bulkhead.getName()), retryAfter);
+    }
+  }
+
+  private static void release(final Bulkhead bulkhead) {
+    if (bulkhead != null) {
+      bulkhead.release();
+    }
+  }
+
+  private static String getRequestClass(final UriInfo uriInfo, final ODataHttpMethod method) {
+    if (uriInfo instanceof UriInfoImpl && ((UriInfoImpl) uriInfo).getUriType() == UriType.URI9) {
+      return BATCH;
+    }
+    return method == ODataHttpMethod.GET ? READ : WRITE;
+  }
+
+  private static String getResourceName(final UriInfo uriInfo) throws ODataException {
+    final EdmFunctionImport functionImport = uriInfo.getFunctionImport();
+    if (functionImport != null) {
+      return functionImport.getEntityContainer().getName() + "." + functionImport.getName();
+    }
+    final EdmEntitySet entitySet = uriInfo.getTargetEntitySet();
+    return entitySet == null ? null : entitySet.getEntityContainer().getName() + "." + entitySet.getName();
+  }
+}
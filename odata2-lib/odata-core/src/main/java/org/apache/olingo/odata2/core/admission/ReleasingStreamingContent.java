@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.admission;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.olingo.odata2.api.ODataAdmissionControlCallback.Admission;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
+
+/**
+ * Streaming content which holds the admission of its request until it has been written or closed.
+ */
+public class ReleasingStreamingContent implements ODataStreamingContent, Closeable {
+
+  private final ODataStreamingContent content;
+  private final Admission admission;
+  private final AtomicBoolean released = new AtomicBoolean();
+
+  public ReleasingStreamingContent(final ODataStreamingContent content, final Admission admission) {
+    this.content = content;
+    this.admission = admission;
+  }
+
+  @Override
+  public void write(final OutputStream output) throws IOException {
+    try {
+      content.write(output);
+    } finally {
+      release();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (content instanceof Closeable) {
+        ((Closeable) content).close();
+      }
+    } finally {
+      release();
+    }
+  }
+
+  private void release() {
+    if (released.compareAndSet(false, true)) {
+      admission.release();
+    }
+  }
+}
@@ -18,22 +18,29 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.batch;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.apache.olingo.odata2.api.ODataBatchExecutionCallback;
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
-import org.apache.olingo.odata2.api.batch.BatchHandler;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.batch.ConcurrentBatchHandler;
 import org.apache.olingo.odata2.api.commons.HttpHeaders;
 import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
 import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.exception.ODataInternalServerErrorException;
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
@@ -43,7 +50,7 @@ import org.apache.olingo.odata2.core.ODataPathSegmentImpl;
 import org.apache.olingo.odata2.core.ODataRequestHandler;
 import org.apache.olingo.odata2.core.PathInfoImpl;
 
-public class BatchHandlerImpl implements BatchHandler {
+public class BatchHandlerImpl implements ConcurrentBatchHandler {
   private static final int BAD_REQUEST = 400;
   private ODataServiceFactory factory;
   private ODataService service;
@@ -53,37 +60,151 @@ public class BatchHandlerImpl implements BatchHandler {
   public BatchHandlerImpl(final ODataServiceFactory factory, final ODataService service) {
     this.factory = factory;
     this.service = service;
-    contentIdMap = new HashMap<String, String>();
+    contentIdMap = new ConcurrentHashMap<String, String>();
   }
 
+  /**
+   * Handles a batch part. The bodies of its requests are closed afterwards, so that their buffers,
+   * e.g., temporary files, are released even if the processor has not read them.
+   */
   @Override
   public BatchResponsePart handleBatchPart(final BatchRequestPart batchPart) throws ODataException {
-    if (batchPart.isChangeSet()) {
-      List<ODataRequest> changeSetRequests = batchPart.getRequests();
-      return service.getBatchProcessor().executeChangeSet(this, changeSetRequests);
-    } else {
-      if (batchPart.getRequests().size() != 1) {
-        throw new ODataException("Query Operation should contain one request");
+    try {
+      if (batchPart.isChangeSet()) {
+        List<ODataRequest> changeSetRequests = batchPart.getRequests();
+        return service.getBatchProcessor().executeChangeSet(this, changeSetRequests);
+      } else {
+        if (batchPart.getRequests().size() != 1) {
+          throw new ODataException("Query Operation should contain one request");
+        }
+        return handleQueryOperation(batchPart.getRequests().get(0), service);
+      }
+    } finally {
+      closeBodies(batchPart);
+    }
+  }
+
+  @Override
+  public List<BatchResponsePart> handleBatchParts(final List<BatchRequestPart> batchParts) throws ODataException {
+    final ODataBatchExecutionCallback callback = factory == null ?
+        null : factory.getCallback(ODataBatchExecutionCallback.class);
+    final ExecutorService executor = callback == null ? null : callback.getExecutorService();
+    List<BatchResponsePart> responseParts = new ArrayList<BatchResponsePart>(batchParts.size());
+    int index = 0;
+    try {
+      while (index < batchParts.size()) {
+        int end = index;
+        while (executor != null && end < batchParts.size() && isConcurrentQuery(batchParts.get(end))) {
+          end++;
+        }
+        if (end - index > 1) {
+          responseParts.addAll(handleConcurrently(executor, batchParts.subList(index, end)));
+          index = end;
+        } else {
+          responseParts.add(handleBatchPart(batchParts.get(index)));
+          index++;
+        }
       }
-      ODataRequest request = batchPart.getRequests().get(0);
-      String mimeHeaderContentId =
-          request.getRequestHeaderValue(BatchHelper.MIME_HEADER_CONTENT_ID.toLowerCase(Locale.ENGLISH));
-      String requestHeaderContentId =
-          request.getRequestHeaderValue(BatchHelper.REQUEST_HEADER_CONTENT_ID.toLowerCase(Locale.ENGLISH));
-
-      List<PathSegment> odataSegments = request.getPathInfo().getODataSegments();
-      if (!odataSegments.isEmpty() && odataSegments.get(0).getPath().matches("\\$.*")) {
-        request = modifyRequest(request, odataSegments);
+    } finally {
+      // parts which have not been handled because of an error
+      for (int i = index; i < batchParts.size(); i++) {
+        closeBodies(batchParts.get(i));
+      }
+    }
+    return responseParts;
+  }
+
+  private static void closeBodies(final BatchRequestPart batchPart) {
+    for (final ODataRequest request : batchPart.getRequests()) {
+      if (request.getBody() != null) {
+        try {
+          request.getBody().close();
+        } catch (final IOException e) {
+          // the body is not needed anymore
+        }
       }
-      ODataRequestHandler handler = createHandler(request);
-      ODataResponse response = setContentIdHeader(request, handler.handle(request), 
-          mimeHeaderContentId, requestHeaderContentId);
-      List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
-      responses.add(response);
-      return BatchResponsePart.responses(responses).changeSet(false).build();
     }
   }
 
+  private boolean isConcurrentQuery(final BatchRequestPart batchPart) {
+    return !batchPart.isChangeSet()
+        && batchPart.getRequests().size() == 1
+        && batchPart.getRequests().get(0).getMethod() == ODataHttpMethod.GET;
+  }
+
+  /**
+   * Handles query operations concurrently, each with its own service and context.
+   * The responses are returned in the order of the requests.
+   */
+  private List<BatchResponsePart> handleConcurrently(final ExecutorService executor,
+      final List<BatchRequestPart> queryParts) throws ODataException {
+    final ODataContext parentContext = service.getProcessor().getContext();
+    List<Future<BatchResponsePart>> futures = new ArrayList<Future<BatchResponsePart>>(queryParts.size());
+    try {
+      for (final BatchRequestPart queryPart : queryParts) {
+        futures.add(executor.submit(new Callable<BatchResponsePart>() {
+          @Override
+          public BatchResponsePart call() throws ODataException {
+            return handleQueryOperation(queryPart.getRequests().get(0), createService(queryPart, parentContext));
+          }
+        }));
+      }
+      List<BatchResponsePart> responseParts = new ArrayList<BatchResponsePart>(queryParts.size());
+      for (final Future<BatchResponsePart> future : futures) {
+        responseParts.add(future.get());
+      }
+      return responseParts;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataException(e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof ODataException) {
+        throw (ODataException) e.getCause();
+      } else if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new ODataException(e.getCause());
+    } finally {
+      for (final Future<BatchResponsePart> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private ODataService createService(final BatchRequestPart queryPart, final ODataContext parentContext)
+      throws ODataException {
+    ODataContextImpl context = new ODataContextImpl(queryPart.getRequests().get(0), factory);
+    context.setBatchParentContext(parentContext);
+    setRequestHeaders(context, parentContext);
+    final ODataService partService = factory.createService(context);
+    if (partService == null) {
+      throw new ODataInternalServerErrorException(ODataInternalServerErrorException.NOSERVICE);
+    }
+    // the context of the request itself is created by the request handler, see createHandler
+    partService.getProcessor().setContext(parentContext);
+    return partService;
+  }
+
+  private BatchResponsePart handleQueryOperation(final ODataRequest queryRequest, final ODataService queryService)
+      throws ODataException {
+    ODataRequest request = queryRequest;
+    String mimeHeaderContentId =
+        request.getRequestHeaderValue(BatchHelper.MIME_HEADER_CONTENT_ID.toLowerCase(Locale.ENGLISH));
+    String requestHeaderContentId =
+        request.getRequestHeaderValue(BatchHelper.REQUEST_HEADER_CONTENT_ID.toLowerCase(Locale.ENGLISH));
+
+    List<PathSegment> odataSegments = request.getPathInfo().getODataSegments();
+    if (!odataSegments.isEmpty() && odataSegments.get(0).getPath().matches("\\$.*")) {
+      request = modifyRequest(request, odataSegments);
+    }
+    ODataRequestHandler handler = createHandler(request, queryService);
+    ODataResponse response = setContentIdHeader(request, handler.handle(request),
+        mimeHeaderContentId, requestHeaderContentId);
+    List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
+    responses.add(response);
+    return BatchResponsePart.responses(responses).changeSet(false).build();
+  }
+
   @Override
   public ODataResponse handleRequest(final ODataRequest suppliedRequest) throws ODataException {
     ODataRequest request;
@@ -98,7 +219,7 @@ public class BatchHandlerImpl implements BatchHandler {
     } else {
       request = suppliedRequest;
     }
-    ODataRequestHandler handler = createHandler(request);
+    ODataRequestHandler handler = createHandler(request, service);
     ODataResponse response = handler.handle(request);
     if (response.getStatus().getStatusCode() < BAD_REQUEST) {
       response = setContentIdHeader(request, response, mimeHeaderContentId, requestHeaderContentId);
@@ -189,18 +310,23 @@ public class BatchHandlerImpl implements BatchHandler {
     return baseUri;
   }
 
-  private ODataRequestHandler createHandler(final ODataRequest request) throws ODataException {
+  private ODataRequestHandler createHandler(final ODataRequest request, final ODataService requestService)
+      throws ODataException {
     ODataContextImpl context = new ODataContextImpl(request, factory);
-    ODataContext parentContext = service.getProcessor().getContext();
+    ODataContext parentContext = requestService.getProcessor().getContext();
     context.setBatchParentContext(parentContext);
-    context.setService(service);
+    context.setService(requestService);
+    setRequestHeaders(context, parentContext);
+    requestService.getProcessor().setContext(context);
+    return new ODataRequestHandler(factory, requestService, context);
+  }
+
+  private void setRequestHeaders(final ODataContextImpl context, final ODataContext parentContext) {
     if (parentContext != null && parentContext.getParameter(BATCH_ODATA_REQUEST_HEADERS) != null) {
       context.setParameter(BATCH_ODATA_REQUEST_HEADERS, parentContext.getParameter(BATCH_ODATA_REQUEST_HEADERS));
     } else if (parentContext != null && parentContext.getRequestHeaders() != null) {
       context.setParameter(BATCH_ODATA_REQUEST_HEADERS, parentContext.getRequestHeaders());
     }
-    service.getProcessor().setContext(context);
-    return new ODataRequestHandler(factory, service, context);
   }
 
 }
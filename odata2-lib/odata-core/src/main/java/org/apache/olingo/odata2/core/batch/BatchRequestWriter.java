@@ -19,9 +19,14 @@
 package org.apache.olingo.odata2.core.batch;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import org.apache.olingo.odata2.api.client.batch.BatchChangeSet;
 import org.apache.olingo.odata2.api.client.batch.BatchChangeSetPart;
@@ -29,11 +34,12 @@ import org.apache.olingo.odata2.api.client.batch.BatchPart;
 import org.apache.olingo.odata2.api.client.batch.BatchQueryPart;
 import org.apache.olingo.odata2.api.commons.HttpContentType;
 import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 public class BatchRequestWriter {
-  private static final String REG_EX_BOUNDARY =
+  private static final Pattern REG_EX_BOUNDARY = Pattern.compile(
       "([a-zA-Z0-9_\\-\\.'\\+]{1,70})|\"([a-zA-Z0-9_\\-\\.'\\+\\s\\" +
-          "(\\),/:=\\?]{1,69}[a-zA-Z0-9_\\-\\.'\\+\\(\\),/:=\\?])\""; // See RFC 2046
+          "(\\),/:=\\?]{1,69}[a-zA-Z0-9_\\-\\.'\\+\\(\\),/:=\\?])\""); // See RFC 2046
 
   private static final String COLON = ":";
   private static final String SP = " ";
@@ -41,16 +47,39 @@ public class BatchRequestWriter {
   public static final String BOUNDARY_PREAMBLE = "changeset";
   public static final String HTTP_1_1 = "HTTP/1.1";
   private String batchBoundary;
-  private BatchHelper.BodyBuilder writer = new BatchHelper.BodyBuilder();
+  private OutputStream writer;
 
   public InputStream writeBatchRequest(final List<BatchPart> batchParts, final String boundary) {
-    if (boundary.matches(REG_EX_BOUNDARY)) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      writeBatchRequest(batchParts.iterator(), boundary, output);
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+    return new ByteArrayInputStream(output.toByteArray());
+  }
+
+  /**
+   * Writes the batch request into the given output stream.
+   * The parts are requested from the iterator only when they are written,
+   * so the complete batch request never has to be held in memory.
+   * The request is written in many small pieces, so the output stream should be buffered.
+   * @param batchParts the parts of the batch request
+   * @param boundary the boundary of the batch request
+   * @param output the output stream; it is flushed but not closed
+   * @throws IOException if the output stream could not be written
+   */
+  public void writeBatchRequest(final Iterator<BatchPart> batchParts, final String boundary,
+      final OutputStream output) throws IOException {
+    if (REG_EX_BOUNDARY.matcher(boundary).matches()) {
       batchBoundary = boundary;
     } else {
       throw new IllegalArgumentException();
     }
-    for (BatchPart batchPart : batchParts) {
-      writer.append("--").append(boundary).append(CRLF);
+    writer = output;
+    while (batchParts.hasNext()) {
+      final BatchPart batchPart = batchParts.next();
+      append("--").append(boundary).append(CRLF);
       if (batchPart instanceof BatchChangeSet) {
         appendChangeSet((BatchChangeSet) batchPart);
       } else if (batchPart instanceof BatchQueryPart) {
@@ -59,76 +88,83 @@ public class BatchRequestWriter {
       }
       
     }
-    writer.append("--").append(boundary).append("--");
-    InputStream batchRequestBody;
-    batchRequestBody = new ByteArrayInputStream(writer.getContent());
-    return batchRequestBody;
+    append("--").append(boundary).append("--");
+    writer.flush();
   }
 
-
-  private void appendChangeSet(final BatchChangeSet batchChangeSet) {
+  private void appendChangeSet(final BatchChangeSet batchChangeSet) throws IOException {
     String boundary = BatchHelper.generateBoundary(BOUNDARY_PREAMBLE);
-    while (boundary.equals(batchBoundary) || !boundary.matches(REG_EX_BOUNDARY)) {
+    while (boundary.equals(batchBoundary) || !REG_EX_BOUNDARY.matcher(boundary).matches()) {
       boundary = BatchHelper.generateBoundary(BOUNDARY_PREAMBLE);
     }
-    writer.append(HttpHeaders.CONTENT_TYPE).append(COLON).append(SP).append(
+    append(HttpHeaders.CONTENT_TYPE).append(COLON).append(SP).append(
         HttpContentType.MULTIPART_MIXED + "; boundary=" + boundary).append(CRLF);
     for (BatchChangeSetPart request : batchChangeSet.getChangeSetParts()) {
-      writer.append(CRLF).append("--").append(boundary).append(CRLF);
+      append(CRLF).append("--").append(boundary).append(CRLF);
       appendRequestBodyPart(request);
     }
-    writer.append(CRLF).append("--").append(boundary).append("--").append(CRLF);
+    append(CRLF).append("--").append(boundary).append("--").append(CRLF);
   }
 
-  private void appendRequestBodyPart(final BatchQueryPart request) {
+  private void appendRequestBodyPart(final BatchQueryPart request) throws IOException {
     appendRequestBodyPart(request.getMethod(), request.getUri(), request.getHeaders(),
         new BatchHelper.Body(), request.getContentId());
   }
 
-  private void appendRequestBodyPart(final BatchChangeSetPart request) {
+  private void appendRequestBodyPart(final BatchChangeSetPart request) throws IOException {
     appendRequestBodyPart(request.getMethod(), request.getUri(), request.getHeaders(),
         new BatchHelper.Body(request), request.getContentId());
   }
 
   private void appendRequestBodyPart(final String method, final String uri, final Map<String, String> headers,
-                                     final BatchHelper.Body body, final String contentId) {
+                                     final BatchHelper.Body body, final String contentId) throws IOException {
 
     boolean isContentLengthPresent = false;
-    writer.append(HttpHeaders.CONTENT_TYPE).append(COLON).append(SP).append(HttpContentType.APPLICATION_HTTP)
+    append(HttpHeaders.CONTENT_TYPE).append(COLON).append(SP).append(HttpContentType.APPLICATION_HTTP)
         .append(CRLF);
-    writer.append(BatchHelper.HTTP_CONTENT_TRANSFER_ENCODING).append(COLON).append(SP)
+    append(BatchHelper.HTTP_CONTENT_TRANSFER_ENCODING).append(COLON).append(SP)
         .append(BatchHelper.BINARY_ENCODING).append(CRLF);
     if (contentId != null) {
-      writer.append(BatchHelper.HTTP_CONTENT_ID).append(COLON).append(SP).append(contentId).append(CRLF);
+      append(BatchHelper.HTTP_CONTENT_ID).append(COLON).append(SP).append(contentId).append(CRLF);
     }
     String contentLength = getHeaderValue(headers, HttpHeaders.CONTENT_LENGTH);
     if (contentLength != null && !contentLength.isEmpty()) {
       isContentLengthPresent = true;
     }
-    writer.append(CRLF);
-    writer.append(method).append(SP).append(uri).append(SP).append(HTTP_1_1);
-    writer.append(CRLF);
+    append(CRLF);
+    append(method).append(SP).append(uri).append(SP).append(HTTP_1_1);
+    append(CRLF);
 
     if (!isContentLengthPresent && !body.isEmpty()) {
-      writer.append(HttpHeaders.CONTENT_LENGTH).append(COLON).append(SP).append(body.getLength()).append(CRLF);
+      append(HttpHeaders.CONTENT_LENGTH).append(COLON).append(SP).append(String.valueOf(body.getLength()))
+          .append(CRLF);
     }
     appendHeader(headers);
-    writer.append(CRLF);
+    append(CRLF);
 
     if (!body.isEmpty()) {
-      writer.append(body);
+      writer.write(body.getContent());
     } else {
-      writer.append(CRLF);
+      append(CRLF);
     }
   }
 
-  private void appendHeader(final Map<String, String> headers) {
+  private void appendHeader(final Map<String, String> headers) throws IOException {
     for (Map.Entry<String, String> headerMap : headers.entrySet()) {
       String name = headerMap.getKey();
-      writer.append(name).append(COLON).append(SP).append(headerMap.getValue()).append(CRLF);
+      append(name).append(COLON).append(SP).append(headerMap.getValue()).append(CRLF);
     }
   }
 
+  /**
+   * Writes the string in the current default charset (see <code>BatchHelper.DEFAULT_CHARSET</code>),
+   * in the same way as the {@link BatchHelper.BodyBuilder}.
+   */
+  private BatchRequestWriter append(final String string) throws IOException {
+    writer.write(string.getBytes(BatchHelper.DEFAULT_CHARSET));
+    return this;
+  }
+
   private String getHeaderValue(final Map<String, String> headers, final String headerName) {
     for (Map.Entry<String, String> header : headers.entrySet()) {
       if (headerName.equalsIgnoreCase(header.getKey())) {
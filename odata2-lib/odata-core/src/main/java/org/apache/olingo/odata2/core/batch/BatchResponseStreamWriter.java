@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.commons.HttpContentType;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.ep.EntityProviderBatchProperties;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
+import org.apache.olingo.odata2.core.batch.v2.BatchBodyBuffer;
+import org.apache.olingo.odata2.core.commons.ContentType;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
+
+/**
+ * Writes a batch response as {@link ODataStreamingContent}.
+ * <p>In contrast to the {@link BatchResponseWriter} the multipart message is not built in memory;
+ * boundaries, headers, and part bodies are written directly to the output stream of the response,
+ * which is sent without Content-Length (i.e., with chunked transfer encoding).
+ * Part bodies given as <code>byte[]</code> or <code>String</code> are copied as they are.
+ * Only the part bodies whose length is not known in advance (input streams and streaming content)
+ * are buffered, one at a time, in memory up to the body-buffer size of the batch properties
+ * and in a temporary file beyond that.</p>
+ * <p>The parts have already been handled when the response is created, so only their serialization is
+ * streamed; the first part is sent only after the last one has been handled. Each part response is closed
+ * after it has been written; responses which are not written, e.g., because the client has gone away,
+ * are closed when the batch response is closed.</p>
+ * <p>Headers are written in ISO-8859-1, string bodies in the charset of the Content-Type of the part
+ * (UTF-8 if it has none), and all other bodies unchanged.</p>
+ */
+public class BatchResponseStreamWriter {
+  private static final Charset HEADER_CHARSET = Charset.forName(BatchHelper.ISO_ENCODING);
+  private static final Charset STRING_BODY_CHARSET = Charset.forName(BatchHelper.UTF8_ENCODING);
+  private static final String COLON = ":";
+  private static final String SP = " ";
+  private static final String CRLF = "\r\n";
+  private static final int COPY_BUFFER_SIZE = 8192;
+
+  private final int bodyBufferSize;
+
+  /**
+   * Creates a writer with the default body-buffer size.
+   */
+  public BatchResponseStreamWriter() {
+    this(EntityProviderBatchProperties.DEFAULT_BODY_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a writer.
+   * @param bodyBufferSize maximum number of bytes of a part body of unknown length which is kept in memory
+   */
+  public BatchResponseStreamWriter(final int bodyBufferSize) {
+    this.bodyBufferSize = bodyBufferSize;
+  }
+
+  public ODataResponse writeResponse(final List<BatchResponsePart> batchResponseParts) {
+    final String boundary = BatchHelper.generateBoundary("batch");
+    return ODataResponse.entity(new BatchContent(batchResponseParts, boundary)).status(HttpStatusCodes.ACCEPTED)
+        .header(HttpHeaders.CONTENT_TYPE, HttpContentType.MULTIPART_MIXED + "; boundary=" + boundary)
+        .build();
+  }
+
+  private void writeParts(final OutputStream output, final List<BatchResponsePart> batchResponseParts,
+      final String boundary) throws IOException {
+    for (BatchResponsePart batchResponsePart : batchResponseParts) {
+      write(output, "--" + boundary + CRLF);
+      if (batchResponsePart.isChangeSet()) {
+        writeChangeSet(output, batchResponsePart);
+      } else {
+        writeResponsePart(output, batchResponsePart.getResponses().get(0));
+      }
+    }
+    write(output, "--" + boundary + "--");
+  }
+
+  private void writeChangeSet(final OutputStream output, final BatchResponsePart batchResponsePart)
+      throws IOException {
+    final String boundary = BatchHelper.generateBoundary("changeset");
+    write(output, HttpHeaders.CONTENT_TYPE + COLON + SP + "multipart/mixed; boundary=" + boundary + CRLF + CRLF);
+    for (ODataResponse response : batchResponsePart.getResponses()) {
+      write(output, "--" + boundary + CRLF);
+      writeResponsePart(output, response);
+    }
+    write(output, "--" + boundary + "--" + CRLF);
+  }
+
+  private void writeResponsePart(final OutputStream output, final ODataResponse response) throws IOException {
+    StringBuilder head = new StringBuilder();
+    head.append(HttpHeaders.CONTENT_TYPE).append(COLON).append(SP).append(HttpContentType.APPLICATION_HTTP)
+        .append(CRLF);
+    head.append(BatchHelper.HTTP_CONTENT_TRANSFER_ENCODING).append(COLON).append(SP)
+        .append(BatchHelper.BINARY_ENCODING).append(CRLF);
+    if (response.getHeader(BatchHelper.MIME_HEADER_CONTENT_ID) != null) {
+      head.append(BatchHelper.HTTP_CONTENT_ID).append(COLON).append(SP)
+          .append(response.getHeader(BatchHelper.MIME_HEADER_CONTENT_ID)).append(CRLF);
+    }
+    head.append(CRLF);
+    head.append("HTTP/1.1").append(SP).append(response.getStatus().getStatusCode()).append(SP)
+        .append(response.getStatus().getInfo()).append(CRLF);
+    appendHeaders(head, response);
+
+    if (HttpStatusCodes.NO_CONTENT.equals(response.getStatus())) {
+      // No header if status code equals to 204 (No content)
+      head.append(CRLF);
+      write(output, head.toString());
+    } else {
+      final Object entity = response.getEntity();
+      if (entity == null || entity instanceof byte[] || entity instanceof String) {
+        final byte[] body = entity == null ? BatchHelper.Body.EMPTY_BYTES
+            : entity instanceof String ? ((String) entity).getBytes(getCharset(response)) : (byte[]) entity;
+        writeHead(output, head, body.length);
+        output.write(body);
+      } else {
+        final BatchBodyBuffer buffer = bufferBody(entity);
+        try {
+          writeHead(output, head, buffer.getSize());
+          copy(buffer.getInputStream(-1), output);
+        } finally {
+          buffer.dispose();
+        }
+      }
+    }
+    write(output, CRLF);
+    response.close();
+  }
+
+  private static Charset getCharset(final ODataResponse response) {
+    final String contentHeader = response.getContentHeader();
+    final ContentType contentType = contentHeader == null ? null : ContentType.parse(contentHeader);
+    final String charset = contentType == null ? null
+        : contentType.getParameters().get(ContentType.PARAMETER_CHARSET);
+    return charset != null && Charset.isSupported(charset) ? Charset.forName(charset) : STRING_BODY_CHARSET;
+  }
+
+  private void writeHead(final OutputStream output, final StringBuilder head, final long length)
+      throws IOException {
+    head.append(HttpHeaders.CONTENT_LENGTH).append(COLON).append(SP).append(length).append(CRLF).append(CRLF);
+    write(output, head.toString());
+  }
+
+  private void appendHeaders(final StringBuilder head, final ODataResponse response) {
+    for (String name : response.getHeaderNames()) {
+      if (!BatchHelper.MIME_HEADER_CONTENT_ID.equalsIgnoreCase(name)
+          && !BatchHelper.REQUEST_HEADER_CONTENT_ID.equalsIgnoreCase(name)) {
+        head.append(name).append(COLON).append(SP).append(response.getHeader(name)).append(CRLF);
+      } else if (BatchHelper.REQUEST_HEADER_CONTENT_ID.equalsIgnoreCase(name)) {
+        head.append(BatchHelper.HTTP_CONTENT_ID).append(COLON).append(SP)
+            .append(response.getHeader(name)).append(CRLF);
+      }
+    }
+  }
+
+  private BatchBodyBuffer bufferBody(final Object entity) throws IOException {
+    final BatchBodyBuffer buffer = new BatchBodyBuffer(bodyBufferSize);
+    try {
+      final OutputStream bufferOutput = new BodyBufferOutputStream(buffer);
+      if (entity instanceof InputStream) {
+        copy((InputStream) entity, bufferOutput);
+      } else if (entity instanceof ODataStreamingContent) {
+        ((ODataStreamingContent) entity).write(bufferOutput);
+      } else {
+        throw new ODataRuntimeException("Error on reading response content for entity type:" + entity.getClass());
+      }
+      return buffer;
+    } catch (final IOException e) {
+      buffer.dispose();
+      throw e;
+    } catch (final RuntimeException e) {
+      buffer.dispose();
+      throw e;
+    }
+  }
+
+  private static void copy(final InputStream input, final OutputStream output) throws IOException {
+    try {
+      byte[] bytes = new byte[COPY_BUFFER_SIZE];
+      int count;
+      while ((count = input.read(bytes)) >= 0) {
+        output.write(bytes, 0, count);
+      }
+    } finally {
+      input.close();
+    }
+  }
+
+  private static void write(final OutputStream output, final String value) throws IOException {
+    output.write(value.getBytes(HEADER_CHARSET));
+  }
+
+  /**
+   * Content of the batch response; it closes the part responses.
+   */
+  private class BatchContent implements ODataStreamingContent, Closeable {
+    private final List<BatchResponsePart> batchResponseParts;
+    private final String boundary;
+
+    private BatchContent(final List<BatchResponsePart> batchResponseParts, final String boundary) {
+      this.batchResponseParts = batchResponseParts;
+      this.boundary = boundary;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+      try {
+        writeParts(output, batchResponseParts, boundary);
+      } finally {
+        close();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      IOException exception = null;
+      for (final BatchResponsePart batchResponsePart : batchResponseParts) {
+        for (final ODataResponse response : batchResponsePart.getResponses()) {
+          try {
+            response.close();
+          } catch (final IOException e) {
+            exception = exception == null ? e : exception;
+          }
+        }
+      }
+      if (exception != null) {
+        throw exception;
+      }
+    }
+  }
+
+  /**
+   * Output stream writing into a {@link BatchBodyBuffer}.
+   */
+  private static class BodyBufferOutputStream extends OutputStream {
+    private final BatchBodyBuffer buffer;
+
+    private BodyBufferOutputStream(final BatchBodyBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      buffer.write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+      buffer.write(bytes, offset, length);
+    }
+  }
+}
@@ -18,17 +18,23 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.batch;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.olingo.odata2.api.client.batch.BatchSingleResponse;
+import org.apache.olingo.odata2.api.client.batch.StreamingBatchSingleResponse;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
-public class BatchSingleResponseImpl implements BatchSingleResponse {
+public class BatchSingleResponseImpl implements StreamingBatchSingleResponse {
 
   private String statusCode;
   private String statusInfo;
   private String body;
+  private InputStream bodyStream;
   private Map<String, String> headers = new HashMap<String, String>();
   private String contentId;
 
@@ -44,9 +50,38 @@ public class BatchSingleResponseImpl implements BatchSingleResponse {
 
   @Override
   public String getBody() {
+    if (body == null && bodyStream != null) {
+      body = readBody();
+    }
     return body;
   }
 
+  @Override
+  public InputStream getBodyAsStream() {
+    if (bodyStream != null) {
+      final InputStream stream = bodyStream;
+      bodyStream = null;
+      return stream;
+    }
+    return body == null ? null : new ByteArrayInputStream(body.getBytes(BatchHelper.extractCharset(headers)));
+  }
+
+  private String readBody() {
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int count;
+      while ((count = bodyStream.read(buffer)) >= 0) {
+        output.write(buffer, 0, count);
+      }
+      bodyStream.close();
+      bodyStream = null;
+      return new String(output.toByteArray(), BatchHelper.extractCharset(headers));
+    } catch (final IOException e) {
+      throw new ODataRuntimeException("Error on reading response content", e);
+    }
+  }
+
   @Override
   public Map<String, String> getHeaders() {
     return headers;
@@ -79,6 +114,15 @@ public class BatchSingleResponseImpl implements BatchSingleResponse {
     this.body = body;
   }
 
+  /**
+   * Sets the body as stream on the unchanged bytes of the response body;
+   * it is converted into a string (according to the charset of the content type) only on request.
+   * @param bodyStream the body
+   */
+  public void setBodyStream(final InputStream bodyStream) {
+    this.bodyStream = bodyStream;
+  }
+
   public void setHeaders(final Map<String, String> headers) {
     this.headers = headers;
   }
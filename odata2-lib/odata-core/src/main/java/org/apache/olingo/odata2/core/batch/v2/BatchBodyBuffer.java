@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.batch.v2;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Buffer for the body of a single request (or response) inside a batch message.
+ * <p>The content is kept in memory up to a threshold; larger bodies are written to a temporary file
+ * which is deleted when the stream returned by {@link #getInputStream(int)} is closed or has been read
+ * completely (or when the buffer is disposed).</p>
+ */
+public class BatchBodyBuffer {
+
+  private static final int INITIAL_SIZE = 256;
+  private static final String TEMP_FILE_PREFIX = "odata-batch";
+
+  private final int memoryThreshold;
+  private byte[] memory = new byte[0];
+  private File file;
+  private OutputStream fileOutput;
+  private InputStream fileInput;
+  private long size;
+  private int lineCount;
+  private boolean hasContent;
+
+  /**
+   * @param memoryThreshold maximum number of bytes kept in memory
+   */
+  public BatchBodyBuffer(final int memoryThreshold) {
+    this.memoryThreshold = memoryThreshold;
+  }
+
+  /**
+   * Marks the start of a new line of the body.
+   */
+  void startLine() {
+    lineCount++;
+  }
+
+  /**
+   * Appends bytes to the buffer.
+   * @param bytes the bytes
+   * @param offset start offset in <code>bytes</code>
+   * @param length number of bytes to append
+   * @throws IOException if the temporary file could not be written
+   */
+  public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+    for (int i = offset; i < offset + length && !hasContent; i++) {
+      // same notion of white space as String.trim()
+      hasContent = (bytes[i] & 0xFF) > ' ';
+    }
+    if (file == null && size + length > memoryThreshold) {
+      spill();
+    }
+    if (file == null) {
+      if (size + length > memory.length) {
+        memory = Arrays.copyOf(memory, (int) Math.min(memoryThreshold,
+            Math.max(size + length, Math.max(INITIAL_SIZE, 2L * memory.length))));
+      }
+      System.arraycopy(bytes, offset, memory, (int) size, length);
+    } else {
+      fileOutput.write(bytes, offset, length);
+    }
+    size += length;
+  }
+
+  private void spill() throws IOException {
+    file = File.createTempFile(TEMP_FILE_PREFIX, null);
+    fileOutput = new BufferedOutputStream(new FileOutputStream(file));
+    fileOutput.write(memory, 0, (int) size);
+    memory = null;
+  }
+
+  /**
+   * @return the number of bytes in the buffer
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * @return <code>true</code> if the buffer has been written to a temporary file
+   */
+  public boolean isSpilled() {
+    return file != null;
+  }
+
+  /**
+   * Checks whether the body is empty, i.e., consists of at most one line containing only white space.
+   * @return <code>true</code> if the body is empty
+   */
+  public boolean isBlank() {
+    return lineCount == 0 || lineCount == 1 && !hasContent;
+  }
+
+  /**
+   * Gets the content of the buffer. Only one stream can be retrieved if the content has been
+   * written to a temporary file.
+   * @param length if it is not negative the content is trimmed to this number of bytes
+   * @return the content as input stream
+   * @throws IOException if the temporary file could not be accessed
+   */
+  public InputStream getInputStream(final int length) throws IOException {
+    final long available = length < 0 ? size : Math.min(length, size);
+    if (file == null) {
+      return new ByteArrayInputStream(memory, 0, (int) available);
+    }
+    fileOutput.close();
+    fileInput = new TemporaryFileInputStream(file, available);
+    return fileInput;
+  }
+
+  /**
+   * Releases the resources of the buffer. The temporary file, if any, is deleted
+   * and a stream still open on it is closed.
+   */
+  public void dispose() {
+    if (file != null) {
+      try {
+        fileOutput.close();
+        if (fileInput != null) {
+          fileInput.close();
+        }
+      } catch (final IOException e) {
+        // ignored because the file is deleted anyway
+      }
+      file.delete();
+    }
+    memory = null;
+  }
+
+  /**
+   * Stream on the first bytes of a temporary file; the file is deleted after use.
+   */
+  private static class TemporaryFileInputStream extends FilterInputStream {
+    private final File file;
+    private long remaining;
+    private boolean closed;
+
+    private TemporaryFileInputStream(final File file, final long length) throws IOException {
+      super(new FileInputStream(file));
+      this.file = file;
+      remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        close();
+        return -1;
+      }
+      final int value = super.read();
+      remaining--;
+      return value;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+      if (remaining <= 0) {
+        close();
+        return -1;
+      }
+      final int count = super.read(bytes, offset, (int) Math.min(length, remaining));
+      if (count > 0) {
+        remaining -= count;
+      }
+      return count;
+    }
+
+    @Override
+    public long skip(final long count) throws IOException {
+      final long skipped = super.skip(Math.min(count, remaining));
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return closed ? 0 : (int) Math.min(super.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        try {
+          super.close();
+        } finally {
+          file.delete();
+        }
+      }
+    }
+  }
+}
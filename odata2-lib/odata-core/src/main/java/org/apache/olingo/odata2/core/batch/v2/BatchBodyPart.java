@@ -42,6 +42,18 @@ public class BatchBodyPart implements BatchPart {
     remainingMessage.addAll(bodyPartMessage);
   }
 
+  /**
+   * Creates an already parsed body part.
+   */
+  BatchBodyPart(final Header headers, final boolean isChangeSet, final List<BatchQueryOperation> requests,
+      final String boundary, final boolean isStrict) {
+    this.boundary = boundary;
+    this.isStrict = isStrict;
+    this.headers = headers;
+    this.isChangeSet = isChangeSet;
+    this.requests = requests;
+  }
+
   public BatchBodyPart parse() throws BatchException {
     headers = BatchParserCommon.consumeHeaders(remainingMessage);
     BatchParserCommon.consumeBlankLine(remainingMessage, isStrict);
@@ -51,7 +63,7 @@ public class BatchBodyPart implements BatchPart {
     return this;
   }
 
-  private boolean isChangeSet(final Header headers) throws BatchException {
+  static boolean isChangeSet(final Header headers) throws BatchException {
     final List<String> contentTypes = headers.getHeaders(HttpHeaders.CONTENT_TYPE);
     boolean isChgSet = false;
 
@@ -68,7 +80,7 @@ public class BatchBodyPart implements BatchPart {
     return isChgSet;
   }
 
-  private boolean isContentTypeMultiPartMixed(final String contentType) {
+  private static boolean isContentTypeMultiPartMixed(final String contentType) {
     return BatchParserCommon.PATTERN_MULTIPART_MIXED.matcher(contentType).matches();
   }
 
@@ -95,12 +107,17 @@ public class BatchBodyPart implements BatchPart {
   private List<List<Line>> splitChangeSet(final List<Line> remainingMessage)
       throws BatchException {
 
+    final String changeSetBoundary = getChangeSetBoundary(headers, boundary);
+    return BatchParserCommon.splitMessageByBoundary(remainingMessage, changeSetBoundary);
+  }
+
+  static String getChangeSetBoundary(final Header headers, final String boundary) throws BatchException {
     final HeaderField contentTypeField = headers.getHeaderField(HttpHeaders.CONTENT_TYPE);
     final String changeSetBoundary =
         BatchParserCommon.getBoundary(contentTypeField.getValueNotNull(), contentTypeField.getLineNumber());
-    validateChangeSetBoundary(changeSetBoundary, headers);
+    validateChangeSetBoundary(changeSetBoundary, boundary, headers);
 
-    return BatchParserCommon.splitMessageByBoundary(remainingMessage, changeSetBoundary);
+    return changeSetBoundary;
   }
 
   private List<BatchQueryOperation> consumeQueryOperation(final List<Line> remainingMessage)
@@ -111,7 +128,8 @@ public class BatchBodyPart implements BatchPart {
     return requestList;
   }
 
-  private void validateChangeSetBoundary(final String changeSetBoundary, final Header header) throws BatchException {
+  private static void validateChangeSetBoundary(final String changeSetBoundary, final String boundary,
+      final Header header) throws BatchException {
     if (changeSetBoundary.equals(boundary)) {
       throw new BatchException(BatchException.INVALID_BOUNDARY.addContent(header.getHeaderField(
           HttpHeaders.CONTENT_TYPE).getLineNumber()));
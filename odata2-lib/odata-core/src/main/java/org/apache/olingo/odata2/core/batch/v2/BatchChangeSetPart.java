@@ -29,6 +29,15 @@ public class BatchChangeSetPart extends BatchQueryOperation {
     super(message, isStrict);
   }
 
+  /**
+   * Creates an already parsed change-set part.
+   */
+  BatchChangeSetPart(final Header headers, final BatchQueryOperation request, final boolean isStrict) {
+    super(null, isStrict);
+    this.headers = headers;
+    this.request = request;
+  }
+
   @Override
   public BatchChangeSetPart parse() throws BatchException {
     headers = BatchParserCommon.consumeHeaders(message);
@@ -48,6 +57,11 @@ public class BatchChangeSetPart extends BatchQueryOperation {
     return request.getBody();
   }
 
+  @Override
+  public BatchBodyBuffer getBodyBuffer() {
+    return request.getBodyBuffer();
+  }
+
   @Override
   public Line getHttpStatusLine() {
     return request.getHttpStatusLine();
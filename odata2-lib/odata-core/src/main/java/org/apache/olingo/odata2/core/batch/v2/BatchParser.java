@@ -26,6 +26,7 @@ import java.util.List;
 import org.apache.olingo.odata2.api.batch.BatchException;
 import org.apache.olingo.odata2.api.batch.BatchParserResult;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
+import org.apache.olingo.odata2.api.client.batch.BatchResponseReader;
 import org.apache.olingo.odata2.api.client.batch.BatchSingleResponse;
 import org.apache.olingo.odata2.api.ep.EntityProviderBatchProperties;
 import org.apache.olingo.odata2.api.uri.PathInfo;
@@ -36,6 +37,7 @@ public class BatchParser {
   private final PathInfo batchRequestPathInfo;
   private final String contentTypeMime;
   private final boolean isStrict;
+  private final int bodyBufferSize;
 
   public BatchParser(final String contentType, final boolean isStrict) {
     this(contentType, null, isStrict);
@@ -44,6 +46,8 @@ public class BatchParser {
   public BatchParser(final String contentType, final EntityProviderBatchProperties properties, final boolean isStrict) {
     contentTypeMime = contentType;
     batchRequestPathInfo = (properties != null) ? properties.getPathInfo() : null;
+    bodyBufferSize = (properties != null) ?
+        properties.getBodyBufferSize() : EntityProviderBatchProperties.DEFAULT_BODY_BUFFER_SIZE;
     this.isStrict = isStrict;
   }
 
@@ -52,9 +56,55 @@ public class BatchParser {
     return (List<BatchSingleResponse>) parse(in, new BatchResponseTransformator());
   }
 
-  @SuppressWarnings("unchecked")
+  /**
+   * Creates a reader for the single responses of a batch response which reads one body part at a time.
+   * @param in the body of the batch response
+   * @return the reader; it has to be closed after use
+   * @throws BatchException if the content type has no valid boundary
+   */
+  public BatchResponseReader readBatchResponse(final InputStream in) throws BatchException {
+    return new BatchResponseReaderImpl(in, BatchParserCommon.getBoundary(contentTypeMime, 1), isStrict,
+        bodyBufferSize);
+  }
+
+  /**
+   * Parses the body of a batch request.
+   * The body parts are read one at a time by a {@link BatchRequestReader}; the bodies of the single requests
+   * are passed on as streams on buffers which are written to temporary files if they get too large.
+   * @param in the body of the batch request
+   * @return the parsed parts of the batch request
+   * @throws BatchException if the batch request is not valid
+   */
   public List<BatchRequestPart> parseBatchRequest(final InputStream in) throws BatchException {
-    return (List<BatchRequestPart>) parse(in, new BatchRequestTransformator());
+    final List<BatchRequestPart> resultList = new LinkedList<BatchRequestPart>();
+    BatchRequestReader reader = null;
+    boolean isComplete = false;
+    try {
+      final String baseUri = getBaseUri();
+      final BatchTransformator transformator = new BatchRequestTransformator();
+      reader = new BatchRequestReader(in, BatchParserCommon.getBoundary(contentTypeMime, 1), isStrict,
+          bodyBufferSize);
+      BatchBodyPart bodyPart;
+      while ((bodyPart = reader.next()) != null) {
+        for (final BatchParserResult result : transformator.transform(bodyPart, batchRequestPathInfo, baseUri)) {
+          resultList.add((BatchRequestPart) result);
+        }
+      }
+      isComplete = true;
+    } catch (IOException e) {
+      throw new ODataRuntimeException(e);
+    } finally {
+      if (!isComplete && reader != null) {
+        reader.dispose();
+      }
+      try {
+        in.close();
+      } catch (IOException e) {
+        throw new ODataRuntimeException(e);
+      }
+    }
+
+    return resultList;
   }
 
   private List<? extends BatchParserResult> parse(final InputStream in, final BatchTransformator transformator)
@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.core.batch.v2;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -38,6 +39,7 @@ import org.apache.olingo.odata2.core.batch.AcceptParser;
 import org.apache.olingo.odata2.core.batch.BatchHelper;
 import org.apache.olingo.odata2.core.commons.ContentType;
 import org.apache.olingo.odata2.core.commons.Decoder;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 public class BatchParserCommon {
 
@@ -122,6 +124,28 @@ public class BatchParserCommon {
     return new ByteArrayInputStream(message.getBytes(charset));
   }
 
+  /**
+   * Get the buffered body of a request as InputStream.
+   * The body is passed on unchanged (as it has been received), so the charset set in ContentType
+   * is only used to determine the default charset (see <code>BatchHelper.DEFAULT_CHARSET</code>)
+   * in the same way as for bodies in form of List of Line items.
+   *
+   * @param contentType content type value
+   * @param body the buffered body
+   * @param contentLength if it is a positive value the content is trimmed to according number of bytes.
+   *                      Otherwise the whole content is written into the InputStream.
+   * @return the body as InputStream in according length
+   */
+  public static InputStream convertToInputStream(final String contentType, final BatchBodyBuffer body,
+      final int contentLength) {
+    BatchHelper.extractCharset(ContentType.parse(contentType));
+    try {
+      return body.getInputStream(contentLength);
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+
   static List<List<Line>> splitMessageByBoundary(final List<Line> message, final String boundary)
       throws BatchException {
     final List<List<Line>> messageParts = new LinkedList<List<Line>>();
@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.batch.v2;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.olingo.odata2.api.batch.BatchException;
@@ -30,12 +31,25 @@ public class BatchQueryOperation implements BatchPart {
   protected List<Line> body;
   protected int bodySize;
   protected List<Line> message;
+  protected BatchBodyBuffer bodyBuffer;
 
   public BatchQueryOperation(final List<Line> message, final boolean isStrict) {
     this.isStrict = isStrict;
     this.message = message;
   }
 
+  /**
+   * Creates an already parsed operation whose body has been read into a buffer.
+   */
+  BatchQueryOperation(final Line httpStatusLine, final Header headers, final BatchBodyBuffer bodyBuffer,
+      final boolean isStrict) {
+    this.isStrict = isStrict;
+    this.httpStatusLine = httpStatusLine;
+    this.headers = headers;
+    this.bodyBuffer = bodyBuffer;
+    body = Collections.emptyList();
+  }
+
   public BatchQueryOperation parse() throws BatchException {
     httpStatusLine = consumeHttpStatusLine(message);
     headers = BatchParserCommon.consumeHeaders(message);
@@ -65,6 +79,14 @@ public class BatchQueryOperation implements BatchPart {
     return body;
   }
 
+  /**
+   * @return the buffered body if the operation has been read by the {@link BatchRequestReader},
+   * otherwise <code>null</code> (the body is then available as list of lines)
+   */
+  public BatchBodyBuffer getBodyBuffer() {
+    return bodyBuffer;
+  }
+
   public int getBodySize() {
     return bodySize;
   }
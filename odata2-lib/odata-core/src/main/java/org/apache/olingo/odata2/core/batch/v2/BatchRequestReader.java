@@ -0,0 +1,406 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.batch.v2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.olingo.odata2.api.batch.BatchException;
+
+/**
+ * Reads the body parts of a batch request one at a time, working directly on the bytes of the request.
+ * Batch responses have the same structure and are read in the same way (see {@link BatchResponseReaderImpl}).
+ * <p>Only request lines, headers, and blank lines are decoded (as ISO-8859-1, like in the {@link BatchLineReader});
+ * the bodies of the single requests are copied into {@link BatchBodyBuffer}s while scanning for boundary
+ * delimiter lines, so the complete batch request is never held as list of lines in memory.</p>
+ * <p>The syntax is checked in the same way as by the line-based {@link BatchBodyPart}: the line break
+ * in front of a boundary delimiter line belongs to the delimiter, preamble and epilogue are ignored, and
+ * the blank lines after the headers are only required in strict mode.</p>
+ */
+public class BatchRequestReader {
+
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final byte[] CRLF = { CR, LF };
+  private static final int EOF = -1;
+  private static final int BUFFER_SIZE = 8192;
+  private static final Charset CHARSET_ISO_8859_1 = Charset.forName("ISO-8859-1");
+  private static final String DOUBLE_DASH = "--";
+
+  private final InputStream in;
+  private final String boundary;
+  private final boolean isStrict;
+  private final int bodyBufferSize;
+  private final List<byte[]> delimiters = new ArrayList<byte[]>();
+  private final List<BatchBodyBuffer> bodies = new ArrayList<BatchBodyBuffer>();
+
+  private byte[] buffer = new byte[BUFFER_SIZE];
+  private int offset = 0;
+  private int limit = 0;
+  private boolean isEndOfStream = false;
+  private int lineStart = -1;
+  private int lineNumber = 0;
+  private boolean isStarted = false;
+  private boolean isFinished = false;
+
+  private int boundaryLevel;
+  private boolean isCloseDelimiter;
+  private int boundaryLength;
+
+  /**
+   * @param in the body of the batch request
+   * @param boundary the boundary of the batch request
+   * @param isStrict whether to use strict batch parsing
+   * @param bodyBufferSize maximum number of bytes of a single request body kept in memory
+   */
+  public BatchRequestReader(final InputStream in, final String boundary, final boolean isStrict,
+      final int bodyBufferSize) {
+    this.in = in;
+    this.boundary = boundary;
+    this.isStrict = isStrict;
+    this.bodyBufferSize = bodyBufferSize;
+    delimiters.add((DOUBLE_DASH + boundary).getBytes(CHARSET_ISO_8859_1));
+  }
+
+  /**
+   * Reads the next body part, i.e., a single query operation or a change set.
+   * @return the body part or <code>null</code> if the close delimiter of the batch request has been reached
+   * @throws BatchException if the body part is not valid
+   * @throws IOException if the batch request could not be read
+   */
+  public BatchBodyPart next() throws BatchException, IOException {
+    if (isFinished) {
+      return null;
+    }
+    if (isStarted) {
+      if (!consumeDelimiter(0, 1)) {
+        isFinished = true;
+        return null;
+      }
+    } else {
+      isStarted = true;
+      skipPreamble(0, peek(0) == EOF ? 0 : 1);
+    }
+    return readBodyPart();
+  }
+
+  /**
+   * Releases the bodies read so far; to be called if the batch request is not processed
+   * (or, for batch responses, if the bodies are no longer needed).
+   */
+  public void dispose() {
+    for (final BatchBodyBuffer body : bodies) {
+      body.dispose();
+    }
+    bodies.clear();
+  }
+
+  private BatchBodyPart readBodyPart() throws BatchException, IOException {
+    final Header headers = consumeHeaders();
+    consumeBlankLine();
+    final boolean isChangeSet = BatchBodyPart.isChangeSet(headers);
+    List<BatchQueryOperation> requests;
+    if (isChangeSet) {
+      requests = readChangeSet(headers);
+    } else {
+      requests = new LinkedList<BatchQueryOperation>();
+      requests.add(readQueryOperation());
+    }
+    return new BatchBodyPart(headers, isChangeSet, requests, boundary, isStrict);
+  }
+
+  private List<BatchQueryOperation> readChangeSet(final Header headers) throws BatchException, IOException {
+    final String changeSetBoundary = BatchBodyPart.getChangeSetBoundary(headers, boundary);
+    delimiters.add((DOUBLE_DASH + changeSetBoundary).getBytes(CHARSET_ISO_8859_1));
+    final int firstLineNumber = peek(0) == EOF || atBoundary() && boundaryLevel == 0 ? 0 : lineNumber + 1;
+
+    final List<BatchQueryOperation> requests = new LinkedList<BatchQueryOperation>();
+    skipPreamble(1, firstLineNumber);
+    do {
+      final Header changeRequestHeaders = consumeHeaders();
+      consumeBlankLine();
+      requests.add(new BatchChangeSetPart(changeRequestHeaders, readQueryOperation(), isStrict));
+    } while (consumeDelimiter(1, firstLineNumber));
+
+    delimiters.remove(1);
+    // epilogue
+    copyLines(null);
+    return requests;
+  }
+
+  private BatchQueryOperation readQueryOperation() throws BatchException, IOException {
+    final Line httpStatusLine = readLine();
+    if (httpStatusLine == null || "".equals(httpStatusLine.toString().trim())) {
+      final int line = httpStatusLine == null ? 0 : httpStatusLine.getLineNumber();
+      throw new BatchException(BatchException.MISSING_METHOD.addContent(line));
+    }
+    final Header headers = consumeHeaders();
+    consumeBlankLine();
+
+    final BatchBodyBuffer body = new BatchBodyBuffer(bodyBufferSize);
+    bodies.add(body);
+    copyLines(body);
+    return new BatchQueryOperation(httpStatusLine, headers, body, isStrict);
+  }
+
+  private Header consumeHeaders() throws BatchException, IOException {
+    final List<Line> lines = new ArrayList<Line>();
+    Line line;
+    while ((line = readLine()) != null) {
+      lines.add(line);
+      if (!BatchParserCommon.PATTERN_HEADER_LINE.matcher(line.toString()).matches()) {
+        break;
+      }
+    }
+    final Header headers = BatchParserCommon.consumeHeaders(lines);
+    if (!lines.isEmpty()) {
+      unreadLine();
+    }
+    return headers;
+  }
+
+  private void consumeBlankLine() throws BatchException, IOException {
+    final Line line = readLine();
+    final List<Line> lines = new ArrayList<Line>();
+    if (line != null) {
+      lines.add(line);
+    }
+    BatchParserCommon.consumeBlankLine(lines, isStrict);
+    if (!lines.isEmpty()) {
+      unreadLine();
+    }
+  }
+
+  private void skipPreamble(final int level, final int firstLineNumber) throws BatchException, IOException {
+    copyLines(null);
+    if (peek(0) == EOF || boundaryLevel < level) {
+      throw new BatchException(BatchException.MISSING_BOUNDARY_DELIMITER.addContent(firstLineNumber));
+    }
+    if (!consumeDelimiter(level, firstLineNumber)) {
+      final String currentBoundary = new String(delimiters.get(level), CHARSET_ISO_8859_1).substring(2);
+      throw new BatchException(BatchException.NO_MATCH_WITH_BOUNDARY_STRING
+          .addContent(currentBoundary).addContent(firstLineNumber));
+    }
+  }
+
+  /**
+   * Consumes the delimiter line at the current position.
+   * @return <code>true</code> for a boundary delimiter, <code>false</code> for a close delimiter
+   */
+  private boolean consumeDelimiter(final int level, final int firstLineNumber) throws BatchException, IOException {
+    if (peek(0) == EOF || !atBoundary() || boundaryLevel < level) {
+      throw new BatchException(BatchException.MISSING_CLOSE_DELIMITER.addContent(firstLineNumber));
+    }
+    offset += boundaryLength;
+    lineNumber++;
+    lineStart = -1;
+    return !isCloseDelimiter;
+  }
+
+  private boolean hasMoreLines() throws IOException {
+    return peek(0) != EOF && !atBoundary();
+  }
+
+  /**
+   * Reads a line of the current body part; the line break in front of a delimiter line is removed.
+   * @return the line or <code>null</code> if the end of the body part has been reached
+   */
+  private Line readLine() throws IOException {
+    if (!hasMoreLines()) {
+      return null;
+    }
+    lineStart = offset;
+    final int length = getLineLength();
+    String content = new String(buffer, offset, length, CHARSET_ISO_8859_1);
+    offset += length;
+    lineNumber++;
+    if (content.endsWith(BatchLineReader.CRLF) && atBoundary()) {
+      content = content.substring(0, content.length() - 2);
+    }
+    return new Line(content, lineNumber);
+  }
+
+  private void unreadLine() {
+    offset = lineStart;
+    lineStart = -1;
+    lineNumber--;
+  }
+
+  private int getLineLength() throws IOException {
+    int length = 0;
+    int current;
+    while ((current = peek(length)) != EOF) {
+      length++;
+      if (current == LF) {
+        break;
+      } else if (current == CR) {
+        if (peek(length) == LF) {
+          length++;
+        }
+        break;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Copies all lines up to the next delimiter line (or the end of the stream) into the target buffer
+   * without decoding them; the lines are skipped if no target is given.
+   */
+  private void copyLines(final BatchBodyBuffer target) throws IOException {
+    boolean isCrLfPending = false;
+    while (hasMoreLines()) {
+      if (isCrLfPending) {
+        write(target, CRLF, 0, 2);
+        isCrLfPending = false;
+      }
+      lineNumber++;
+      lineStart = -1;
+      if (target != null) {
+        target.startLine();
+      }
+      boolean isLineEnd = false;
+      while (!isLineEnd && ensure(1)) {
+        int end = offset;
+        while (end < limit && buffer[end] != CR && buffer[end] != LF) {
+          end++;
+        }
+        if (end == limit) {
+          write(target, buffer, offset, end - offset);
+          offset = end;
+        } else if (buffer[end] == LF) {
+          write(target, buffer, offset, end + 1 - offset);
+          offset = end + 1;
+          isLineEnd = true;
+        } else {
+          write(target, buffer, offset, end - offset);
+          offset = end + 1;
+          isLineEnd = true;
+          if (peek(0) == LF) {
+            offset++;
+            isCrLfPending = true;
+          } else {
+            write(target, CRLF, 0, 1);
+          }
+        }
+      }
+    }
+  }
+
+  private static void write(final BatchBodyBuffer target, final byte[] bytes, final int offset, final int length)
+      throws IOException {
+    if (target != null && length > 0) {
+      target.write(bytes, offset, length);
+    }
+  }
+
+  /**
+   * Checks whether the line at the current position is a delimiter line of the batch request
+   * or of the current change set.
+   */
+  private boolean atBoundary() throws IOException {
+    for (int level = 0; level < delimiters.size(); level++) {
+      int length = matchDelimiter(delimiters.get(level), true);
+      final boolean isClose = length > 0;
+      if (!isClose) {
+        length = matchDelimiter(delimiters.get(level), false);
+      }
+      if (length > 0) {
+        boundaryLevel = level;
+        isCloseDelimiter = isClose;
+        boundaryLength = length;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Matches "--boundary[--]" followed by optional white space up to the end of the line.
+   * @return the length of the line including the line break or <code>-1</code>
+   */
+  private int matchDelimiter(final byte[] delimiter, final boolean isClose) throws IOException {
+    int index = 0;
+    for (; index < delimiter.length; index++) {
+      if (peek(index) != delimiter[index]) {
+        return -1;
+      }
+    }
+    if (isClose) {
+      if (peek(index) != '-' || peek(index + 1) != '-') {
+        return -1;
+      }
+      index += 2;
+    }
+    while (true) {
+      final int current = peek(index);
+      if (current == EOF) {
+        return index;
+      }
+      index++;
+      if (current == LF) {
+        return index;
+      } else if (current == CR) {
+        return peek(index) == LF ? index + 1 : index;
+      } else if (current != ' ' && current != '\t' && current != 0x0B && current != '\f') {
+        return -1;
+      }
+    }
+  }
+
+  private int peek(final int index) throws IOException {
+    return ensure(index + 1) ? buffer[offset + index] & 0xFF : EOF;
+  }
+
+  /**
+   * Makes sure that the given number of bytes after the current position is in the buffer.
+   * The bytes of the current line are kept so that it can be unread.
+   */
+  private boolean ensure(final int count) throws IOException {
+    while (limit - offset < count) {
+      if (isEndOfStream) {
+        return false;
+      }
+      final int keep = lineStart >= 0 ? lineStart : offset;
+      if (keep > 0) {
+        System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+        limit -= keep;
+        offset -= keep;
+        if (lineStart >= 0) {
+          lineStart -= keep;
+        }
+      }
+      if (limit == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+      final int read = in.read(buffer, limit, buffer.length - limit);
+      if (read < 0) {
+        isEndOfStream = true;
+      } else {
+        limit += read;
+      }
+    }
+    return true;
+  }
+}
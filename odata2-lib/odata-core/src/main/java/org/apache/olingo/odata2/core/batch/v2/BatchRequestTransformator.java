@@ -116,6 +116,9 @@ public class BatchRequestTransformator implements BatchTransformator {
   }
 
   private boolean isUnvalidGetRequestBody(final BatchQueryOperation operation) {
+    if (operation.getBodyBuffer() != null) {
+      return !operation.getBodyBuffer().isBlank();
+    }
     return (operation.getBody().size() > 1)
         || (operation.getBody().size() == 1 && !"".equals(operation.getBody().get(0).toString().trim()));
   }
@@ -128,6 +131,9 @@ public class BatchRequestTransformator implements BatchTransformator {
     } else {
       int contentLength = BatchTransformatorCommon.getContentLength(headers);
       String contentType = headers.getHeader(HttpHeaders.CONTENT_TYPE);
+      if (operation.getBodyBuffer() != null) {
+        return BatchParserCommon.convertToInputStream(contentType, operation.getBodyBuffer(), contentLength);
+      }
       return BatchParserCommon.convertToInputStream(contentType, operation, contentLength);
     }
   }
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.batch.v2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+
+import org.apache.olingo.odata2.api.batch.BatchException;
+import org.apache.olingo.odata2.api.batch.BatchParserResult;
+import org.apache.olingo.odata2.api.client.batch.BatchResponseReader;
+import org.apache.olingo.odata2.api.client.batch.StreamingBatchSingleResponse;
+
+/**
+ * Reads the single responses of a batch response one body part at a time with a {@link BatchRequestReader}.
+ * <p>The bodies of the current body part are kept in {@link BatchBodyBuffer}s; they are released
+ * when the next body part is read. A change set is a single body part, so all its bodies are buffered together.</p>
+ */
+public class BatchResponseReaderImpl implements BatchResponseReader {
+
+  private final InputStream in;
+  private final BatchRequestReader reader;
+  private final BatchTransformator transformator = new BatchResponseTransformator();
+  private final LinkedList<StreamingBatchSingleResponse> pending =
+      new LinkedList<StreamingBatchSingleResponse>();
+
+  /**
+   * @param in the body of the batch response
+   * @param boundary the boundary of the batch response
+   * @param isStrict whether to use strict batch parsing
+   * @param bodyBufferSize maximum number of bytes of a single response body kept in memory
+   */
+  public BatchResponseReaderImpl(final InputStream in, final String boundary, final boolean isStrict,
+      final int bodyBufferSize) {
+    this.in = in;
+    reader = new BatchRequestReader(in, boundary, isStrict, bodyBufferSize);
+  }
+
+  @Override
+  public StreamingBatchSingleResponse next() throws BatchException, IOException {
+    if (pending.isEmpty()) {
+      reader.dispose();
+      final BatchBodyPart bodyPart = reader.next();
+      if (bodyPart == null) {
+        return null;
+      }
+      for (final BatchParserResult result : transformator.transform(bodyPart, null, "")) {
+        pending.add((StreamingBatchSingleResponse) result);
+      }
+    }
+    return pending.poll();
+  }
+
+  @Override
+  public void close() throws IOException {
+    pending.clear();
+    reader.dispose();
+    in.close();
+  }
+}
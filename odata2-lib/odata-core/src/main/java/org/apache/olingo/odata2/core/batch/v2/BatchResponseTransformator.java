@@ -18,6 +18,8 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.batch.v2;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,6 +30,7 @@ import org.apache.olingo.odata2.api.uri.PathInfo;
 import org.apache.olingo.odata2.core.batch.BatchHelper;
 import org.apache.olingo.odata2.core.batch.BatchSingleResponseImpl;
 import org.apache.olingo.odata2.core.batch.v2.BatchTransformatorCommon.HttpResponsetStatusLine;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 public class BatchResponseTransformator implements BatchTransformator {
 
@@ -83,11 +86,24 @@ public class BatchResponseTransformator implements BatchTransformator {
     response.setHeaders(operation.getHeaders().toSingleMap());
     response.setStatusCode(statusLine.getStatusCode());
     response.setStatusInfo(statusLine.getStatusInfo());
-    response.setBody(getBody(operation));
+    if (operation.getBodyBuffer() == null) {
+      response.setBody(getBody(operation));
+    } else {
+      response.setBodyStream(getBodyStream(operation));
+    }
 
     return response;
   }
 
+  private InputStream getBodyStream(final BatchQueryOperation operation) throws BatchException {
+    try {
+      return operation.getBodyBuffer().getInputStream(
+          BatchTransformatorCommon.getContentLength(operation.getHeaders()));
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+  }
+
   private String getBody(final BatchQueryOperation operation) throws BatchException {
     int contentLength = BatchTransformatorCommon.getContentLength(operation.getHeaders());
 
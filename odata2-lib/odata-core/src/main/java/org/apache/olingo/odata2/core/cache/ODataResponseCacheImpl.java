@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.odata2.api.ODataResponseCacheCallback;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+
+/**
+ * In-memory response cache with time-to-live and size-bounded (least recently used) eviction.
+ * <p>By default all read requests except function imports and <code>$value</code> requests are cached;
+ * subclasses can override {@link #isCacheable(ODataContext, UriInfo)} to restrict the cached requests,
+ * e.g., to code lists or to requests without user-specific content.</p>
+ */
+public class ODataResponseCacheImpl implements ODataResponseCacheCallback {
+
+  private final long timeToLive;
+  private final int maxEntries;
+  private final long maxSize;
+
+  private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true);
+  private final Map<String, Set<String>> keysByEntitySet = new HashMap<String, Set<String>>();
+  private final Map<String, Long> invalidationTimes = new HashMap<String, Long>();
+  private long size;
+
+  /**
+   * @param timeToLive time in milliseconds a response is served from the cache
+   * @param maxEntries maximum number of stored responses
+   * @param maxSize maximum sum of the sizes of all stored response bodies in bytes
+   */
+  public ODataResponseCacheImpl(final long timeToLive, final int maxEntries, final long maxSize) {
+    this.timeToLive = timeToLive;
+    this.maxEntries = maxEntries;
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public boolean isCacheable(final ODataContext context, final UriInfo uriInfo) {
+    return uriInfo.getFunctionImport() == null && !uriInfo.isValue();
+  }
+
+  @Override
+  public synchronized ODataResponse get(final String key) {
+    final CacheEntry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    } else if (entry.isExpired(System.nanoTime())) {
+      remove(key);
+      return null;
+    }
+    return entry.response;
+  }
+
+  @Override
+  public synchronized void put(final String key, final Set<String> entitySetNames, final ODataResponse response,
+      final long requestStartTime) {
+    for (final String entitySetName : entitySetNames) {
+      final Long invalidationTime = invalidationTimes.get(entitySetName);
+      if (invalidationTime != null && invalidationTime - requestStartTime >= 0) {
+        // The data may have been modified while the response was produced.
+        return;
+      }
+    }
+    final long entrySize = getSize(response);
+    if (entrySize > maxSize) {
+      return;
+    }
+
+    remove(key);
+    entries.put(key, new CacheEntry(response, entitySetNames, entrySize,
+        System.nanoTime() + timeToLive * 1000000L));
+    size += entrySize;
+    for (final String entitySetName : entitySetNames) {
+      Set<String> keys = keysByEntitySet.get(entitySetName);
+      if (keys == null) {
+        keys = new HashSet<String>();
+        keysByEntitySet.put(entitySetName, keys);
+      }
+      keys.add(key);
+    }
+    evict();
+  }
+
+  @Override
+  public synchronized void invalidate(final Set<String> entitySetNames) {
+    final long now = System.nanoTime();
+    for (final String entitySetName : entitySetNames) {
+      invalidationTimes.put(entitySetName, now);
+      final Set<String> keys = keysByEntitySet.remove(entitySetName);
+      if (keys != null) {
+        for (final String key : keys) {
+          remove(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes all stored responses.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    keysByEntitySet.clear();
+    invalidationTimes.clear();
+    size = 0;
+  }
+
+  /**
+   * @return the number of stored responses
+   */
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  /**
+   * @return the sum of the sizes of all stored response bodies in bytes
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  private void evict() {
+    final Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext() && (entries.size() > maxEntries || size > maxSize)) {
+      final Map.Entry<String, CacheEntry> eldest = iterator.next();
+      iterator.remove();
+      unregister(eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  private void remove(final String key) {
+    final CacheEntry entry = entries.remove(key);
+    if (entry != null) {
+      unregister(key, entry);
+    }
+  }
+
+  private void unregister(final String key, final CacheEntry entry) {
+    size -= entry.size;
+    for (final String entitySetName : entry.entitySetNames) {
+      final Set<String> keys = keysByEntitySet.get(entitySetName);
+      if (keys != null) {
+        keys.remove(key);
+        if (keys.isEmpty()) {
+          keysByEntitySet.remove(entitySetName);
+        }
+      }
+    }
+  }
+
+  private static long getSize(final ODataResponse response) {
+    final Object entity = response.getEntity();
+    return entity instanceof byte[] ? ((byte[]) entity).length : 0;
+  }
+
+  private static class CacheEntry {
+    private final ODataResponse response;
+    private final Set<String> entitySetNames;
+    private final long size;
+    private final long expirationTime;
+
+    private CacheEntry(final ODataResponse response, final Set<String> entitySetNames, final long size,
+        final long expirationTime) {
+      this.response = response;
+      this.entitySetNames = entitySetNames;
+      this.size = size;
+      this.expirationTime = expirationTime;
+    }
+
+    private boolean isExpired(final long now) {
+      return now - expirationTime >= 0;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.exception.ODataRuntimeApplicationException;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
+
+/**
+ * Single-flight execution of identical read requests.
+ * <p>The first request for a key executes; requests with the same key arriving while it is in flight
+ * wait for its result. A result is shared only if its entity has been buffered into a <code>byte[]</code>;
+ * otherwise the waiting requests execute on their own.</p>
+ */
+public class RequestCoalescer {
+
+  private static final ConcurrentMap<FlightKey, Flight> FLIGHTS = new ConcurrentHashMap<FlightKey, Flight>();
+
+  private RequestCoalescer() {}
+
+  /**
+   * An execution of a read request.
+   */
+  public interface Execution {
+    /**
+     * @return the response, with a <code>byte[]</code> entity if it can be shared
+     * @throws ODataException if the request could not be processed
+     */
+    ODataResponse execute() throws ODataException;
+  }
+
+  /**
+   * Executes the request or waits for the identical request currently in flight.
+   * If the identical request fails, each waiting request gets its own exception with the original one as cause;
+   * an {@link ODataRuntimeApplicationException} is copied with its status code and error code.
+   * @param requestKey the key identifying identical requests
+   * @param identity the identity of the requester or <code>null</code> if the response does not depend on it;
+   * only requests with equal identities share a response
+   * @param execution the execution of the request
+   * @return the response; a shared response has a <code>byte[]</code> entity and must not be modified
+   * @throws ODataException if the request (or the identical request in flight) failed
+   * or if the thread has been interrupted while waiting
+   */
+  public static ODataResponse execute(final String requestKey, final String identity, final Execution execution)
+      throws ODataException {
+    final FlightKey key = new FlightKey(requestKey, identity);
+    final Flight flight = new Flight();
+    final Flight inFlight = FLIGHTS.putIfAbsent(key, flight);
+    if (inFlight == null) {
+      try {
+        final ODataResponse response = execution.execute();
+        flight.response = isShareable(response) ? response : null;
+        return response;
+      } catch (final ODataException e) {
+        flight.exception = e;
+        throw e;
+      } catch (final RuntimeException e) {
+        flight.exception = e;
+        throw e;
+      } finally {
+        FLIGHTS.remove(key, flight);
+        flight.done.countDown();
+      }
+    } else {
+      try {
+        inFlight.done.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ODataException("Interrupted while waiting for an identical request.", e);
+      }
+      if (inFlight.exception instanceof ODataException) {
+        throw new ODataException(inFlight.exception.getMessage(), inFlight.exception);
+      } else if (inFlight.exception instanceof ODataRuntimeApplicationException) {
+        // the error response is built from the exception itself, not from its causes
+        final ODataRuntimeApplicationException exception = (ODataRuntimeApplicationException) inFlight.exception;
+        throw new ODataRuntimeApplicationException(exception.getMessage(), exception.getLocale(),
+            exception.getHttpStatus(), exception.getCode(), exception);
+      } else if (inFlight.exception != null) {
+        throw new ODataRuntimeException(inFlight.exception);
+      }
+      return inFlight.response == null ? execution.execute() : inFlight.response;
+    }
+  }
+
+  /**
+   * @return the number of requests currently in flight
+   */
+  public static int getInFlightCount() {
+    return FLIGHTS.size();
+  }
+
+  private static boolean isShareable(final ODataResponse response) {
+    return response != null && response.getEntity() instanceof byte[];
+  }
+
+  private static final class FlightKey {
+    private final String requestKey;
+    private final String identity;
+
+    private FlightKey(final String requestKey, final String identity) {
+      this.requestKey = requestKey;
+      this.identity = identity;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * requestKey.hashCode() + (identity == null ? 0 : identity.hashCode());
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      } else if (!(obj instanceof FlightKey)) {
+        return false;
+      }
+      final FlightKey other = (FlightKey) obj;
+      return requestKey.equals(other.requestKey)
+          && (identity == null ? other.identity == null : identity.equals(other.identity));
+    }
+  }
+
+  private static class Flight {
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile ODataResponse response;
+    private volatile Exception exception;
+  }
+}
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.commons.ODataHttpHeaders;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.uri.NavigationPropertySegment;
+import org.apache.olingo.odata2.api.uri.NavigationSegment;
+import org.apache.olingo.odata2.api.uri.PathInfo;
+import org.apache.olingo.odata2.api.uri.PathSegment;
+import org.apache.olingo.odata2.api.uri.UriInfo;
+
+/**
+ * Helper methods used by the request handler to work with an
+ * {@link org.apache.olingo.odata2.api.ODataResponseCacheCallback}.
+ */
+public class ResponseCacheHelper {
+
+  private static final String MODIFIED_ENTITY_SETS = "~modifiedEntitySets";
+  private static final int BUFFER_SIZE = 8192;
+
+  /** Response headers which describe the content and can therefore be replayed for other requests. */
+  private static final Set<String> CACHEABLE_HEADERS = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+  static {
+    CACHEABLE_HEADERS.addAll(Arrays.asList(
+        HttpHeaders.CONTENT_TYPE,
+        HttpHeaders.CONTENT_LANGUAGE,
+        HttpHeaders.ETAG,
+        HttpHeaders.LAST_MODIFIED,
+        HttpHeaders.LINK,
+        HttpHeaders.VARY,
+        ODataHttpHeaders.DATASERVICEVERSION));
+  }
+
+  private ResponseCacheHelper() {}
+
+  /**
+   * Creates the cache key for a read request.
+   * The query parameters are sorted so that the key does not depend on their order in the request URI.
+   * @param pathInfo the path information of the request
+   * @param queryParameters all query parameters of the request
+   * @param contentType the negotiated content type of the response
+   * @return the cache key
+   */
+  public static String createKey(final PathInfo pathInfo, final Map<String, List<String>> queryParameters,
+      final String contentType) {
+    StringBuilder key = new StringBuilder();
+    key.append(pathInfo.getServiceRoot());
+    for (final PathSegment segment : pathInfo.getODataSegments()) {
+      key.append('/').append(segment.getPath());
+      final Map<String, List<String>> matrixParameters = segment.getMatrixParameters();
+      if (matrixParameters != null && !matrixParameters.isEmpty()) {
+        appendParameters(key.append(';'), matrixParameters, ';');
+      }
+    }
+    if (queryParameters != null && !queryParameters.isEmpty()) {
+      appendParameters(key.append('?'), queryParameters, '&');
+    }
+    return key.append(' ').append(contentType).toString();
+  }
+
+  private static void appendParameters(final StringBuilder key, final Map<String, List<String>> parameters,
+      final char separator) {
+    boolean first = true;
+    for (final Map.Entry<String, List<String>> parameter
+        : new TreeMap<String, List<String>>(parameters).entrySet()) {
+      List<String> values = parameter.getValue() == null ?
+          Collections.<String> emptyList() : new ArrayList<String>(parameter.getValue());
+      Collections.sort(values);
+      for (final String value : values) {
+        if (!first) {
+          key.append(separator);
+        }
+        first = false;
+        key.append(parameter.getKey()).append('=').append(value);
+      }
+    }
+  }
+
+  /**
+   * Gets the qualified names of all entity sets the response of a read request depends on.
+   * @param uriInfo the parsed request URI
+   * @return a set of entity-set names
+   * @throws EdmException if the entity data model could not be accessed
+   */
+  public static Set<String> getDependentEntitySets(final UriInfo uriInfo) throws EdmException {
+    Set<String> entitySets = getModifiedEntitySets(uriInfo);
+    for (final List<NavigationPropertySegment> expandPath : uriInfo.getExpand()) {
+      for (final NavigationPropertySegment segment : expandPath) {
+        addEntitySet(entitySets, segment.getTargetEntitySet());
+      }
+    }
+    return entitySets;
+  }
+
+  /**
+   * Gets the qualified names of all entity sets which are affected by a modifying request.
+   * Changes of links affect both the source and the target entity set.
+   * @param uriInfo the parsed request URI
+   * @return a set of entity-set names
+   * @throws EdmException if the entity data model could not be accessed
+   */
+  public static Set<String> getModifiedEntitySets(final UriInfo uriInfo) throws EdmException {
+    Set<String> entitySets = new HashSet<String>();
+    addEntitySet(entitySets, uriInfo.getStartEntitySet());
+    addEntitySet(entitySets, uriInfo.getTargetEntitySet());
+    for (final NavigationSegment segment : uriInfo.getNavigationSegments()) {
+      addEntitySet(entitySets, segment.getEntitySet());
+    }
+    return entitySets;
+  }
+
+  private static void addEntitySet(final Set<String> entitySets, final EdmEntitySet entitySet) throws EdmException {
+    if (entitySet != null) {
+      entitySets.add(entitySet.getEntityContainer().getName() + "." + entitySet.getName());
+    }
+  }
+
+  /**
+   * Remembers the entity sets modified by a request inside a batch request
+   * so that they can be invalidated again after the complete batch request has been processed.
+   * @param context the context of the request inside the batch request
+   * @param entitySets the modified entity sets
+   */
+  @SuppressWarnings("unchecked")
+  public static void registerModifiedEntitySets(final ODataContext context, final Set<String> entitySets) {
+    // The parent of a request inside a batch request can be the previous request of the same batch request.
+    ODataContext batchContext = context.getBatchParentContext();
+    while (batchContext != null && batchContext.getBatchParentContext() != null) {
+      batchContext = batchContext.getBatchParentContext();
+    }
+    if (batchContext != null) {
+      Set<String> modified = (Set<String>) batchContext.getParameter(MODIFIED_ENTITY_SETS);
+      if (modified == null) {
+        modified = new HashSet<String>();
+        batchContext.setParameter(MODIFIED_ENTITY_SETS, modified);
+      }
+      modified.addAll(entitySets);
+    }
+  }
+
+  /**
+   * Gets the entity sets modified by the requests inside the batch request with the given context.
+   * @param context the context of the batch request
+   * @return a set of entity-set names
+   */
+  @SuppressWarnings("unchecked")
+  public static Set<String> getModifiedEntitySets(final ODataContext context) {
+    final Set<String> modified = (Set<String>) context.getParameter(MODIFIED_ENTITY_SETS);
+    return modified == null ? Collections.<String> emptySet() : modified;
+  }
+
+  /**
+   * Checks whether the response is a successful response that could be stored in the cache.
+   * @param response the response
+   * @return <code>true</code> if the response can be stored
+   */
+  public static boolean isStorable(final ODataResponse response) {
+    return (response.getStatus() == null || response.getStatus() == HttpStatusCodes.OK)
+        && (response.getEntity() == null || response.getEntity() instanceof InputStream
+            || response.getEntity() instanceof String || response.getEntity() instanceof byte[]);
+  }
+
+  /**
+   * Reads the complete entity of the response into a byte array and closes the response.
+   * If the response has no ETag, a weak ETag is calculated from the content.
+   * Only headers describing the content are kept; request-specific headers such as
+   * <code>Set-Cookie</code> must not be replayed to other clients.
+   * @param response the response
+   * @return a new response with a <code>byte[]</code> entity
+   * @throws ODataException if the entity could not be read
+   */
+  public static ODataResponse buffer(final ODataResponse response) throws ODataException {
+    byte[] content = new byte[0];
+    if (response.getEntity() != null) {
+      final InputStream stream = response.getEntityAsStream();
+      try {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = stream.read(buffer)) >= 0) {
+          output.write(buffer, 0, count);
+        }
+        content = output.toByteArray();
+      } catch (final IOException e) {
+        throw new ODataException("Error while buffering the response for the cache.", e);
+      } finally {
+        try {
+          response.close();
+        } catch (final IOException e) {
+          // ignored because the content has already been read completely
+        }
+      }
+    }
+    ODataResponse.ODataResponseBuilder builder = ODataResponse.status(response.getStatus()).entity(content);
+    for (final String name : response.getHeaderNames()) {
+      if (CACHEABLE_HEADERS.contains(name)) {
+        builder = builder.header(name, response.getHeader(name));
+      }
+    }
+    if (response.getETag() == null) {
+      CRC32 checksum = new CRC32();
+      checksum.update(content, 0, content.length);
+      builder = builder.eTag("W/\"" + Long.toHexString(checksum.getValue()) + "-"
+          + Integer.toHexString(content.length) + "\"");
+    }
+    return builder.build();
+  }
+
+  /**
+   * Creates a response for the current request from a stored response.
+   * @param cached the stored response with a <code>byte[]</code> entity
+   * @param ifNoneMatch the value of the If-None-Match request header (or <code>null</code>)
+   * @return the response, with status 304 (Not Modified) if the ETag matches
+   */
+  public static ODataResponse createResponse(final ODataResponse cached, final String ifNoneMatch) {
+    if (matches(ifNoneMatch, cached.getETag())) {
+      return ODataResponse.fromResponse(cached).entity(null).status(HttpStatusCodes.NOT_MODIFIED).build();
+    }
+    return ODataResponse.fromResponse(cached)
+        .entity(new ByteArrayInputStream((byte[]) cached.getEntity()))
+        .build();
+  }
+
+  private static boolean matches(final String ifNoneMatch, final String eTag) {
+    if (ifNoneMatch == null || eTag == null) {
+      return false;
+    }
+    final String opaqueTag = stripWeakIndicator(eTag);
+    for (final String tag : ifNoneMatch.split(",")) {
+      final String trimmed = tag.trim();
+      if ("*".equals(trimmed) || opaqueTag.equals(stripWeakIndicator(trimmed))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String stripWeakIndicator(final String eTag) {
+    return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+  }
+}
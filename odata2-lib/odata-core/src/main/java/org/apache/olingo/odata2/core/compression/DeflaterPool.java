@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.compression;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Pool of {@link Deflater} instances.
+ * <p>A deflater holds a considerable amount of native memory, which is only released by
+ * {@link Deflater#end()} or the finalizer; reusing deflaters avoids allocating it for every response.</p>
+ */
+public class DeflaterPool {
+
+  private static final int MAX_POOLED = 64;
+
+  private static final DeflaterPool RAW = new DeflaterPool(true);
+  private static final DeflaterPool ZLIB = new DeflaterPool(false);
+
+  private final boolean nowrap;
+  private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+  private final AtomicInteger size = new AtomicInteger();
+
+  private DeflaterPool(final boolean nowrap) {
+    this.nowrap = nowrap;
+  }
+
+  /**
+   * Gets a deflater from the pool or creates a new one.
+   * @param nowrap <code>true</code> for raw deflate data as used by gzip,
+   * <code>false</code> for the zlib format as used by the <code>deflate</code> content encoding
+   * @return a deflater, which has to be given back with {@link #release(Deflater, boolean)}
+   */
+  public static Deflater acquire(final boolean nowrap) {
+    return (nowrap ? RAW : ZLIB).acquire();
+  }
+
+  /**
+   * Gives a deflater back to the pool.
+   * @param deflater the deflater acquired before
+   * @param nowrap the format the deflater has been acquired for
+   */
+  public static void release(final Deflater deflater, final boolean nowrap) {
+    (nowrap ? RAW : ZLIB).release(deflater);
+  }
+
+  private Deflater acquire() {
+    final Deflater deflater = deflaters.poll();
+    if (deflater == null) {
+      return new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+    }
+    size.decrementAndGet();
+    return deflater;
+  }
+
+  private void release(final Deflater deflater) {
+    if (size.incrementAndGet() <= MAX_POOLED) {
+      deflater.reset();
+      deflaters.offer(deflater);
+    } else {
+      size.decrementAndGet();
+      deflater.end();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.compression;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.olingo.odata2.api.ODataCompressionCallback;
+import org.apache.olingo.odata2.api.commons.HttpContentType;
+
+/**
+ * Configuration of the response compression with a minimum size per content type.
+ * <p>Content types are given without parameters; a subtype wildcard (e.g., <code>text/*</code>)
+ * applies to all content types of its type which are not configured explicitly.
+ * By default, the XML, Atom, and JSON formats of OData and plain text are compressed
+ * if they are larger than the default minimum size.</p>
+ */
+public class ODataCompressionImpl implements ODataCompressionCallback {
+
+  public static final int DEFAULT_MINIMUM_SIZE = 1024;
+
+  private final Map<String, Integer> minimumSizes = new ConcurrentHashMap<String, Integer>();
+
+  public ODataCompressionImpl() {
+    this(DEFAULT_MINIMUM_SIZE);
+  }
+
+  /**
+   * @param minimumSize minimum size in bytes of the compressed default content types
+   */
+  public ODataCompressionImpl(final int minimumSize) {
+    setMinimumSize(HttpContentType.APPLICATION_ATOM_XML, minimumSize);
+    setMinimumSize(HttpContentType.APPLICATION_ATOM_SVC, minimumSize);
+    setMinimumSize(HttpContentType.APPLICATION_XML, minimumSize);
+    setMinimumSize(HttpContentType.APPLICATION_JSON, minimumSize);
+    setMinimumSize(HttpContentType.TEXT_PLAIN, minimumSize);
+  }
+
+  /**
+   * Sets the minimum size for a content type.
+   * @param contentType the content type without parameters, e.g., <code>application/atom+xml</code>
+   * @param minimumSize the minimum size in bytes or a negative value to switch compression off
+   */
+  public void setMinimumSize(final String contentType, final int minimumSize) {
+    minimumSizes.put(contentType.toLowerCase(Locale.ENGLISH), minimumSize);
+  }
+
+  @Override
+  public int getMinimumSize(final String contentType) {
+    if (contentType == null) {
+      return -1;
+    }
+    final int index = contentType.indexOf(';');
+    final String mediaType = (index < 0 ? contentType : contentType.substring(0, index))
+        .trim().toLowerCase(Locale.ENGLISH);
+    Integer minimumSize = minimumSizes.get(mediaType);
+    if (minimumSize == null && mediaType.indexOf('/') > 0) {
+      minimumSize = minimumSizes.get(mediaType.substring(0, mediaType.indexOf('/')) + "/*");
+    }
+    return minimumSize == null ? -1 : minimumSize;
+  }
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.olingo.odata2.api.ODataCompressionCallback;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
+
+/**
+ * Compresses response bodies according to the Accept-Encoding request header.
+ * <p>The compressed response has an {@link ODataStreamingContent} entity which compresses the original body
+ * while it is written to the client. A strong ETag of the original response is turned into a weak one.</p>
+ */
+public class ResponseCompressor {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+  private ResponseCompressor() {}
+
+  /**
+   * Compresses the body of the response if the client accepts a supported content coding
+   * and the callback allows compression of the content type and size of the body.
+   * @param response the response
+   * @param acceptEncoding the value of the Accept-Encoding request header (or <code>null</code>)
+   * @param callback the compression configuration (or <code>null</code> to switch compression off)
+   * @return the compressed response or the original response if it is not compressed
+   * @throws ODataException if the body could not be read
+   */
+  public static ODataResponse compress(final ODataResponse response, final String acceptEncoding,
+      final ODataCompressionCallback callback) throws ODataException {
+    if (callback == null || response == null
+        || response.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+      return response;
+    }
+    final String encoding = negotiate(acceptEncoding);
+    if (encoding == null) {
+      return response;
+    }
+    if (response.getStatus() == HttpStatusCodes.NOT_MODIFIED) {
+      // must carry the ETag of the (compressed) response the client has validated
+      return isStrong(response.getETag()) ? ODataResponse.fromResponse(response)
+          .eTag(weaken(response.getETag())).build() : response;
+    }
+    if (response.getEntity() == null || response.getStatus() == HttpStatusCodes.NO_CONTENT) {
+      return response;
+    }
+    final int minimumSize = callback.getMinimumSize(response.getContentHeader());
+    if (minimumSize < 0) {
+      return response;
+    }
+
+    Object entity = response.getEntity();
+    if (!(entity instanceof ODataStreamingContent)) {
+      // Read the first bytes to check whether the body reaches the minimum size.
+      final InputStream stream = response.getEntityAsStream();
+      final byte[] start = read(stream, minimumSize);
+      if (start.length < minimumSize) {
+        close(response);
+        return ODataResponse.fromResponse(response).entity(new ByteArrayInputStream(start)).build();
+      }
+      entity = new SequenceInputStream(new ByteArrayInputStream(start), stream);
+    }
+
+    final String vary = response.getHeader(HttpHeaders.VARY);
+    return ODataResponse.fromResponse(response)
+        .entity(new CompressedContent(response, entity, GZIP.equals(encoding)))
+        .header(HttpHeaders.CONTENT_ENCODING, encoding)
+        .header(HttpHeaders.CONTENT_LENGTH, null)
+        .header(HttpHeaders.VARY,
+            vary == null ? HttpHeaders.ACCEPT_ENCODING : vary + ", " + HttpHeaders.ACCEPT_ENCODING)
+        .eTag(weaken(response.getETag()))
+        .build();
+  }
+
+  private static boolean isStrong(final String eTag) {
+    return eTag != null && !eTag.startsWith("W/");
+  }
+
+  /**
+   * The compressed body differs from the original one byte by byte, so a strong ETag no longer
+   * applies to it; the weak ETag still marks it as semantically equivalent, which is what
+   * If-None-Match compares.
+   */
+  private static String weaken(final String eTag) {
+    return isStrong(eTag) ? "W/" + eTag : eTag;
+  }
+
+  /**
+   * Selects the content coding from the Accept-Encoding request header.
+   * <code>gzip</code> is preferred over <code>deflate</code> if both have the same quality.
+   * @param acceptEncoding the value of the Accept-Encoding request header (or <code>null</code>)
+   * @return {@link #GZIP}, {@link #DEFLATE}, or <code>null</code> if the response must not be compressed
+   */
+  public static String negotiate(final String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    double gzip = -1;
+    double deflate = -1;
+    double any = -1;
+    for (final String coding : acceptEncoding.split(",")) {
+      final String[] parts = coding.split(";");
+      final String name = parts[0].trim().toLowerCase(Locale.ENGLISH);
+      double quality = 1;
+      for (int i = 1; i < parts.length; i++) {
+        final String parameter = parts[i].trim();
+        if (parameter.startsWith("q=")) {
+          try {
+            quality = Double.parseDouble(parameter.substring(2).trim());
+          } catch (final NumberFormatException e) {
+            quality = 0;
+          }
+        }
+      }
+      if (GZIP.equals(name) || "x-gzip".equals(name)) {
+        gzip = quality;
+      } else if (DEFLATE.equals(name)) {
+        deflate = quality;
+      } else if ("*".equals(name)) {
+        any = quality;
+      }
+    }
+    gzip = gzip < 0 ? any : gzip;
+    deflate = deflate < 0 ? any : deflate;
+    if (gzip > 0 && gzip >= deflate) {
+      return GZIP;
+    } else if (deflate > 0) {
+      return DEFLATE;
+    }
+    return null;
+  }
+
+  private static byte[] read(final InputStream stream, final int length) throws ODataException {
+    byte[] buffer = new byte[length];
+    int count = 0;
+    try {
+      int read;
+      while (count < length && (read = stream.read(buffer, count, length - count)) >= 0) {
+        count += read;
+      }
+    } catch (final IOException e) {
+      throw new ODataException("Error while reading the response body for compression.", e);
+    }
+    if (count < length) {
+      final byte[] result = new byte[count];
+      System.arraycopy(buffer, 0, result, 0, count);
+      buffer = result;
+    }
+    return buffer;
+  }
+
+  private static void close(final ODataResponse response) {
+    try {
+      response.close();
+    } catch (final IOException e) {
+      // ignored because the content has already been read completely
+    }
+  }
+
+  private static class CompressedContent implements ODataStreamingContent, Closeable {
+
+    private final ODataResponse response;
+    private final Object entity;
+    private final boolean gzip;
+
+    private CompressedContent(final ODataResponse response, final Object entity, final boolean gzip) {
+      this.response = response;
+      this.entity = entity;
+      this.gzip = gzip;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+      final Deflater deflater = DeflaterPool.acquire(gzip);
+      try {
+        if (gzip) {
+          output.write(GZIP_HEADER);
+        }
+        final CRC32 checksum = new CRC32();
+        final DeflaterOutputStream deflaterStream = new DeflaterOutputStream(output, deflater, BUFFER_SIZE);
+        final OutputStream target = gzip ? new CheckedOutputStream(deflaterStream, checksum) : deflaterStream;
+        if (entity instanceof ODataStreamingContent) {
+          ((ODataStreamingContent) entity).write(target);
+        } else {
+          final InputStream stream = (InputStream) entity;
+          final byte[] buffer = new byte[BUFFER_SIZE];
+          int count;
+          while ((count = stream.read(buffer)) >= 0) {
+            target.write(buffer, 0, count);
+          }
+        }
+        deflaterStream.finish();
+        if (gzip) {
+          writeInt(output, (int) checksum.getValue());
+          writeInt(output, (int) deflater.getBytesRead());
+        }
+        output.flush();
+      } finally {
+        DeflaterPool.release(deflater, gzip);
+        close();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (entity instanceof InputStream) {
+          ((InputStream) entity).close();
+        }
+      } finally {
+        response.close();
+      }
+    }
+
+    private static void writeInt(final OutputStream output, final int value) throws IOException {
+      output.write(value & 0xff);
+      output.write((value >> 8) & 0xff);
+      output.write((value >> 16) & 0xff);
+      output.write((value >> 24) & 0xff);
+    }
+  }
+}
@@ -34,8 +34,9 @@ import javax.xml.transform.stream.StreamSource;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.olingo.odata2.api.commons.HttpContentType;
-import org.apache.olingo.odata2.api.ep.EntityProviderException;
+import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
 import org.apache.olingo.odata2.core.commons.XmlHelper;
 import org.apache.olingo.odata2.core.ep.BasicEntityProvider;
 import org.apache.olingo.odata2.core.ep.util.JsonStreamWriter;
@@ -86,13 +87,15 @@ public class DebugInfoBody implements DebugInfo {
   private String getContentString() {
     if (response.getEntity() instanceof String) {
       return (String) response.getEntity();
-    } else if (response.getEntity() instanceof InputStream) {
-      InputStream input = (InputStream) response.getEntity();
+    } else if (response.getEntity() instanceof InputStream
+        || response.getEntity() instanceof ODataStreamingContent) {
       try {
+        InputStream input = response.getEntity() instanceof InputStream ?
+            (InputStream) response.getEntity() : response.getEntityAsStream();
         return isText ?
             new BasicEntityProvider().readText(input) :
             Base64.encodeBase64String(new BasicEntityProvider().readBinary((input)));
-      } catch (final EntityProviderException e) {
+      } catch (final ODataException e) {
         return null;
       }
     } else {
@@ -243,7 +243,22 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer csb = new CircleStreamBuffer();
 
     try {
-      OutputStream outStream = csb.getOutputStream();
+      writeFeed(csb.getOutputStream(), entitySet, data, properties);
+      csb.closeWrite();
+
+      ODataResponse response = ODataResponse.entity(csb.getInputStream()).build();
+      return response;
+    } catch (EntityProviderException e) {
+      csb.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void writeFeed(final OutputStream outStream, final EdmEntitySet entitySet,
+      final List<Map<String, Object>> data, final EntityProviderWriteProperties properties)
+      throws EntityProviderException {
+    try {
       XMLStreamWriter writer = XmlHelper.getXMLOutputFactory().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, XML_VERSION);
 
@@ -252,15 +267,7 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
       atomFeedProvider.append(writer, eia, data, false);
 
       writer.flush();
-      csb.closeWrite();
-
-      ODataResponse response = ODataResponse.entity(csb.getInputStream()).build();
-      return response;
-    } catch (EntityProviderException e) {
-      csb.close();
-      throw e;
     } catch (XMLStreamException e) {
-      csb.close();
       throw new EntityProviderProducerException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
           .getSimpleName()), e);
     }
@@ -19,6 +19,7 @@
 package org.apache.olingo.odata2.core.ep;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -64,6 +65,12 @@ public interface ContentTypeBasedEntityProvider {
   ODataResponse writeFeed(EdmEntitySet entitySet, List<Map<String, Object>> data,
       EntityProviderWriteProperties properties) throws EntityProviderException;
 
+  /**
+   * Writes a feed directly to the given output stream; the stream is flushed but not closed.
+   */
+  void writeFeed(OutputStream outStream, EdmEntitySet entitySet, List<Map<String, Object>> data,
+      EntityProviderWriteProperties properties) throws EntityProviderException;
+
   ODataResponse writeEntry(EdmEntitySet entitySet, Map<String, Object> data, EntityProviderWriteProperties properties)
       throws EntityProviderException;
 
@@ -208,21 +208,32 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
   @Override
   public ODataResponse writeFeed(final EdmEntitySet entitySet, final List<Map<String, Object>> data,
       final EntityProviderWriteProperties properties) throws EntityProviderException {
-    final EntityInfoAggregator entityInfo = EntityInfoAggregator.create(entitySet, properties.getExpandSelectTree());
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
-      new JsonFeedEntityProducer(properties).appendAsObject(writer, entityInfo, data, true);
-      writer.flush();
+      writeFeed(buffer.getOutputStream(), entitySet, data, properties);
       buffer.closeWrite();
 
       return ODataResponse.entity(buffer.getInputStream()).build();
     } catch (EntityProviderException e) {
       buffer.close();
       throw e;
+    }
+  }
+
+  @Override
+  public void writeFeed(final OutputStream outStream, final EdmEntitySet entitySet,
+      final List<Map<String, Object>> data, final EntityProviderWriteProperties properties)
+      throws EntityProviderException {
+    final EntityInfoAggregator entityInfo = EntityInfoAggregator.create(entitySet, properties.getExpandSelectTree());
+
+    try {
+      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outStream, DEFAULT_CHARSET));
+      new JsonFeedEntityProducer(properties).appendAsObject(writer, entityInfo, data, true);
+      writer.flush();
+    } catch (EntityProviderException e) {
+      throw e;
     } catch (Exception e) {
-      buffer.close();
       throw new EntityProviderProducerException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
           .getSimpleName()), e);
     }
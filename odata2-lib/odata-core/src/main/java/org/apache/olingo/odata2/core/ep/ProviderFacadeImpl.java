@@ -18,7 +18,10 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.ep;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +29,7 @@ import org.apache.olingo.odata2.api.batch.BatchException;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
 import org.apache.olingo.odata2.api.client.batch.BatchPart;
+import org.apache.olingo.odata2.api.client.batch.BatchResponseReader;
 import org.apache.olingo.odata2.api.client.batch.BatchSingleResponse;
 import org.apache.olingo.odata2.api.edm.Edm;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
@@ -45,8 +49,10 @@ import org.apache.olingo.odata2.api.ep.feed.ODataFeed;
 import org.apache.olingo.odata2.api.exception.ODataNotAcceptableException;
 import org.apache.olingo.odata2.api.processor.ODataErrorContext;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
 import org.apache.olingo.odata2.api.servicedocument.ServiceDocument;
 import org.apache.olingo.odata2.core.batch.BatchRequestWriter;
+import org.apache.olingo.odata2.core.batch.BatchResponseStreamWriter;
 import org.apache.olingo.odata2.core.batch.BatchResponseWriter;
 import org.apache.olingo.odata2.core.batch.v2.BatchParser;
 import org.apache.olingo.odata2.core.commons.ContentType;
@@ -119,7 +125,21 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
   public ODataResponse writeFeed(final String contentType, final EdmEntitySet entitySet,
       final List<Map<String, Object>> data, final EntityProviderWriteProperties properties)
       throws EntityProviderException {
-    return create(contentType).writeFeed(entitySet, data, properties);
+    final ContentTypeBasedEntityProvider provider = create(contentType);
+    if (properties == null || !properties.isStreaming()) {
+      return provider.writeFeed(entitySet, data, properties);
+    }
+    final ODataStreamingContent content = new ODataStreamingContent() {
+      @Override
+      public void write(final OutputStream output) throws IOException {
+        try {
+          provider.writeFeed(output, entitySet, data, properties);
+        } catch (final EntityProviderException e) {
+          throw new IOException(e.getMessage(), e);
+        }
+      }
+    };
+    return ODataResponse.entity(content).build();
   }
 
   @Override
@@ -251,12 +271,24 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
     return batchWriter.writeResponse(batchResponseParts);
   }
 
+  @Override
+  public ODataResponse writeBatchResponse(final List<BatchResponsePart> batchResponseParts,
+      final EntityProviderBatchProperties properties) throws BatchException {
+    return new BatchResponseStreamWriter(properties.getBodyBufferSize()).writeResponse(batchResponseParts);
+  }
+
   @Override
   public InputStream writeBatchRequest(final List<BatchPart> batchParts, final String boundary) {
     BatchRequestWriter batchWriter = new BatchRequestWriter();
     return batchWriter.writeBatchRequest(batchParts, boundary);
   }
 
+  @Override
+  public void writeBatchRequest(final Iterator<BatchPart> batchParts, final String boundary,
+      final OutputStream output) throws IOException {
+    new BatchRequestWriter().writeBatchRequest(batchParts, boundary, output);
+  }
+
   @Override
   public List<BatchSingleResponse> parseBatchResponse(final String contentType, final InputStream content)
       throws BatchException {
@@ -264,4 +296,10 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
     return responses;
   }
 
+  @Override
+  public BatchResponseReader readBatchResponse(final String contentType, final InputStream content,
+      final EntityProviderBatchProperties properties) throws BatchException {
+    return new BatchParser(contentType, properties, true).readBatchResponse(content);
+  }
+
 }
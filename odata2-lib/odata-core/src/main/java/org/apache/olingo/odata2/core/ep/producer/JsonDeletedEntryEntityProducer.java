@@ -44,29 +44,23 @@ public class JsonDeletedEntryEntityProducer {
       throws EntityProviderException {
     JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(writer);
     try {
-      if (!deletedEntries.isEmpty()) {
-        if(!noPreviousEntries){
+      // the entries are iterated only once, so they can be read while they are written
+      boolean first = true;
+      for (Map<String, Object> deletedEntry : deletedEntries) {
+        if (!first || !noPreviousEntries) {
           jsonStreamWriter.separator();
         }
-        int counter = 0;
-        for (Map<String, Object> deletedEntry : deletedEntries) {
-          jsonStreamWriter.beginObject();
+        first = false;
+        jsonStreamWriter.beginObject();
 
-          String odataContextValue = JsonUtils.createODataContextValueForTombstone(entityInfo.getEntitySetName());
-          String selfLink = AtomEntryEntityProducer.createSelfLink(entityInfo, deletedEntry, null);
-          String idValue = properties.getServiceRoot().toASCIIString() + selfLink;
+        String odataContextValue = JsonUtils.createODataContextValueForTombstone(entityInfo.getEntitySetName());
+        String selfLink = AtomEntryEntityProducer.createSelfLink(entityInfo, deletedEntry, null);
+        String idValue = properties.getServiceRoot().toASCIIString() + selfLink;
 
-          jsonStreamWriter.namedStringValue(FormatJson.ODATA_CONTEXT, odataContextValue);
-          jsonStreamWriter.separator();
-          jsonStreamWriter.namedStringValue(FormatJson.ID, idValue);
-          jsonStreamWriter.endObject();
-
-          if (counter < deletedEntries.size() - 1) {
-            jsonStreamWriter.separator();
-          }
-
-          counter++;
-        }
+        jsonStreamWriter.namedStringValue(FormatJson.ODATA_CONTEXT, odataContextValue);
+        jsonStreamWriter.separator();
+        jsonStreamWriter.namedStringValue(FormatJson.ID, idValue);
+        jsonStreamWriter.endObject();
       }
     } catch (final IOException e) {
       throw new EntityProviderProducerException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass()
@@ -43,6 +43,7 @@ import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.exception.ODataHttpException;
 import org.apache.olingo.odata2.api.exception.ODataMessageException;
 import org.apache.olingo.odata2.api.exception.ODataRuntimeApplicationException;
+import org.apache.olingo.odata2.api.exception.ODataServiceUnavailableException;
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataErrorCallback;
 import org.apache.olingo.odata2.api.processor.ODataErrorContext;
@@ -119,6 +120,14 @@ public class ODataExceptionWrapper {
       if (!oDataResponse.containsHeader(org.apache.olingo.odata2.api.commons.HttpHeaders.CONTENT_TYPE)) {
         oDataResponse = ODataResponse.fromResponse(oDataResponse).contentHeader(contentType).build();
       }
+      if (toHandleException instanceof ODataServiceUnavailableException
+          && ((ODataServiceUnavailableException) toHandleException).getRetryAfter() > 0
+          && !oDataResponse.containsHeader(org.apache.olingo.odata2.api.commons.HttpHeaders.RETRY_AFTER)) {
+        oDataResponse = ODataResponse.fromResponse(oDataResponse)
+            .header(org.apache.olingo.odata2.api.commons.HttpHeaders.RETRY_AFTER,
+                String.valueOf(((ODataServiceUnavailableException) toHandleException).getRetryAfter()))
+            .build();
+      }
       return oDataResponse;
     } catch (Exception e) {
       ODataResponse response = ODataResponse.entity("Exception during error handling occured!")
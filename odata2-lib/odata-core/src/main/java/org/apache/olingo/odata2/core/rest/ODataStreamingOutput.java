@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
+
+/**
+ * Adapts an {@link ODataResponse} with {@link ODataStreamingContent} to a JAX-RS {@link StreamingOutput}
+ * so that the content is written directly to the output stream of the JAX-RS runtime.
+ * The response is closed after the content has been written.
+ */
+public class ODataStreamingOutput implements StreamingOutput {
+
+  private final ODataResponse response;
+
+  public ODataStreamingOutput(final ODataResponse response) {
+    this.response = response;
+  }
+
+  @Override
+  public void write(final OutputStream output) throws IOException, WebApplicationException {
+    try {
+      ((ODataStreamingContent) response.getEntity()).write(output);
+      output.flush();
+    } finally {
+      response.close();
+    }
+  }
+}
@@ -29,8 +29,10 @@ import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.core.Response;
 
+import org.apache.olingo.odata2.api.ODataCompressionCallback;
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
 import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
 import org.apache.olingo.odata2.api.exception.MessageReference;
 import org.apache.olingo.odata2.api.exception.ODataException;
@@ -42,6 +44,7 @@ import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
 import org.apache.olingo.odata2.core.ODataContextImpl;
 import org.apache.olingo.odata2.core.ODataRequestHandler;
+import org.apache.olingo.odata2.core.compression.ResponseCompressor;
 
 /**
  *  
@@ -99,7 +102,7 @@ public final class ODataSubLocator {
       } else if (HttpMethod.POST.equals(xHttpMethod)) {
         response = handle(ODataHttpMethod.POST);
       } else if (HttpMethod.HEAD.equals(xHttpMethod)) {
-        response = handleHead();
+        response = handle(ODataHttpMethod.GET);
       } else if (HttpMethod.OPTIONS.equals(xHttpMethod)) {
         response = handleOptions();
       } else {
@@ -143,10 +146,16 @@ public final class ODataSubLocator {
 
   @HEAD
   public Response handleHead() throws ODataException {
-    return handleGet();
+    // the response body is only dropped for a real HEAD request, not for a HEAD tunneled through POST
+    // with X-HTTP-Method-Override (which the JAX-RS runtime dispatches here), like ODataServlet does
+    return handle(ODataHttpMethod.GET, httpRequest == null || HttpMethod.HEAD.equals(httpRequest.getMethod()));
   }
 
   private Response handle(final ODataHttpMethod method) throws ODataException {
+    return handle(method, false);
+  }
+
+  private Response handle(final ODataHttpMethod method, final boolean omitResponseBody) throws ODataException {
     request = ODataRequest.fromRequest(request).method(method).build();
 
     ODataContextImpl context = new ODataContextImpl(request, serviceFactory);
@@ -161,8 +170,10 @@ public final class ODataSubLocator {
 
     ODataRequestHandler requestHandler = new ODataRequestHandler(serviceFactory, service, context);
 
-    final ODataResponse odataResponse = requestHandler.handle(request);
-    final Response response = RestUtil.convertResponse(odataResponse);
+    final ODataResponse odataResponse = ResponseCompressor.compress(requestHandler.handle(request),
+        request.getRequestHeaderValue(HttpHeaders.ACCEPT_ENCODING),
+        serviceFactory.getCallback(ODataCompressionCallback.class));
+    final Response response = RestUtil.convertResponse(odataResponse, omitResponseBody);
 
     return response;
   }
@@ -45,6 +45,7 @@ import org.apache.olingo.odata2.api.exception.ODataException;
 import org.apache.olingo.odata2.api.exception.ODataNotFoundException;
 import org.apache.olingo.odata2.api.exception.ODataUnsupportedMediaTypeException;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
 import org.apache.olingo.odata2.api.uri.PathSegment;
 import org.apache.olingo.odata2.core.ODataPathSegmentImpl;
 import org.apache.olingo.odata2.core.PathInfoImpl;
@@ -64,13 +65,22 @@ public class RestUtil {
       ResponseBuilder responseBuilder =
           Response.noContent().status(odataResponse.getStatus().getStatusCode());
       if(!omitResponseBody) {
-        responseBuilder.entity(odataResponse.getEntity());
+        if (odataResponse.getEntity() instanceof ODataStreamingContent) {
+          // Without Content-Length header the JAX-RS runtime uses chunked transfer encoding.
+          responseBuilder.entity(new ODataStreamingOutput(odataResponse));
+        } else {
+          responseBuilder.entity(odataResponse.getEntity());
+        }
       }
 
       for (final String name : odataResponse.getHeaderNames()) {
         responseBuilder = responseBuilder.header(name, odataResponse.getHeader(name));
       }
 
+      if (omitResponseBody) {
+        // The entity is not written, but a streamed entity may hold resources until it is closed.
+        closeResponse(odataResponse);
+      }
       return responseBuilder.build();
     } catch (RuntimeException e) {
       if (odataResponse != null) {
@@ -85,6 +95,14 @@ public class RestUtil {
     }
   }
 
+  private static void closeResponse(final ODataResponse odataResponse) {
+    try {
+      odataResponse.close();
+    } catch (IOException e) {
+      // The entity is not needed anymore.
+    }
+  }
+
   /**
    * Return http header value.
    * consider first header value only
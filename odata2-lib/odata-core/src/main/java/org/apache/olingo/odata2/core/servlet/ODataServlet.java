@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.olingo.odata2.core.servlet;
 
+import org.apache.olingo.odata2.api.ODataCompressionCallback;
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.commons.HttpHeaders;
@@ -33,8 +34,10 @@ import org.apache.olingo.odata2.api.exception.ODataNotImplementedException;
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
 import org.apache.olingo.odata2.core.ODataContextImpl;
 import org.apache.olingo.odata2.core.ODataRequestHandler;
+import org.apache.olingo.odata2.core.compression.ResponseCompressor;
 import org.apache.olingo.odata2.core.exception.ODataRuntimeException;
 
 import javax.servlet.ServletOutputStream;
@@ -213,7 +216,8 @@ public class ODataServlet extends HttpServlet {
         service.getProcessor().setContext(context);
 
         ODataRequestHandler requestHandler = new ODataRequestHandler(serviceFactory, service, context);
-        final ODataResponse odataResponse = requestHandler.handle(odataRequest);
+        final ODataResponse odataResponse = ResponseCompressor.compress(requestHandler.handle(odataRequest),
+            req.getHeader(HttpHeaders.ACCEPT_ENCODING), serviceFactory.getCallback(ODataCompressionCallback.class));
         //
         boolean omitResponseBody = HTTP_METHOD_HEAD.equals(req.getMethod());
         createResponse(resp, odataResponse, omitResponseBody);
@@ -274,11 +278,24 @@ public class ODataServlet extends HttpServlet {
     }
 
     if(omitResponseBody) {
+      // The entity is not written, but a streamed entity may hold resources until it is closed.
+      response.close();
       return;
     }
 
     Object entity = response.getEntity();
-    if (entity != null) {
+    if (entity instanceof ODataStreamingContent) {
+      // The length is not known in advance, so the container uses chunked transfer encoding
+      // unless the processor has set the Content-Length header.
+      ServletOutputStream out = resp.getOutputStream();
+      try {
+        ((ODataStreamingContent) entity).write(out);
+      } finally {
+        response.close();
+      }
+      out.flush();
+      out.close();
+    } else if (entity != null) {
       ServletOutputStream out = resp.getOutputStream();
       int contentLength;
 
@@ -20,6 +20,7 @@ package org.apache.olingo.odata2.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
@@ -41,6 +42,7 @@ import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
 import org.apache.olingo.odata2.api.exception.ODataApplicationException;
 import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.exception.ODataServiceUnavailableException;
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataErrorCallback;
 import org.apache.olingo.odata2.api.processor.ODataErrorContext;
@@ -153,6 +155,24 @@ public class ODataExceptionWrapperTest extends BaseTest {
     assertEquals("text/html", contentTypeHeader);
   }
 
+  @Test
+  public void retryAfterHeader() throws Exception {
+    ODataContextImpl context = getMockedContext("http://localhost:80/test", "ODataServiceRoot");
+    when(context.getServiceFactory()).thenReturn(Mockito.mock(ODataServiceFactory.class));
+
+    ODataExceptionWrapper exceptionWrapper = createWrapper(context, Collections.<String, String> emptyMap(),
+        Arrays.asList("application/xml"));
+    ODataResponse response = exceptionWrapper.wrapInExceptionResponse(
+        new ODataServiceUnavailableException(ODataServiceUnavailableException.COMMON, 30));
+    assertEquals(HttpStatusCodes.SERVICE_UNAVAILABLE, response.getStatus());
+    assertEquals("30", response.getHeader(org.apache.olingo.odata2.api.commons.HttpHeaders.RETRY_AFTER));
+
+    response = exceptionWrapper.wrapInExceptionResponse(
+        new ODataServiceUnavailableException(ODataServiceUnavailableException.COMMON));
+    assertEquals(HttpStatusCodes.SERVICE_UNAVAILABLE, response.getStatus());
+    assertNull(response.getHeader(org.apache.olingo.odata2.api.commons.HttpHeaders.RETRY_AFTER));
+  }
+
   private UriInfo getMockedUriInfo() {
     UriInfo uriInfo = Mockito.mock(UriInfo.class);
     when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost:80/test"));
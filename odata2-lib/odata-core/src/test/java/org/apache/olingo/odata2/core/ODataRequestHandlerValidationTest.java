@@ -20,11 +20,17 @@ package org.apache.olingo.odata2.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -33,6 +39,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.olingo.odata2.api.ODataAdmissionControlCallback;
+import org.apache.olingo.odata2.api.ODataResponseCacheCallback;
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.commons.HttpContentType;
@@ -52,6 +60,7 @@ import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataProcessor;
 import org.apache.olingo.odata2.api.processor.ODataRequest;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
 import org.apache.olingo.odata2.api.processor.part.BatchProcessor;
 import org.apache.olingo.odata2.api.processor.part.EntityComplexPropertyProcessor;
 import org.apache.olingo.odata2.api.processor.part.EntityLinkProcessor;
@@ -67,7 +76,10 @@ import org.apache.olingo.odata2.api.processor.part.MetadataProcessor;
 import org.apache.olingo.odata2.api.processor.part.ServiceDocumentProcessor;
 import org.apache.olingo.odata2.api.uri.PathInfo;
 import org.apache.olingo.odata2.api.uri.PathSegment;
+import org.apache.olingo.odata2.api.uri.UriInfo;
 import org.apache.olingo.odata2.api.uri.UriParser;
+import org.apache.olingo.odata2.core.admission.Bulkhead;
+import org.apache.olingo.odata2.core.admission.ODataAdmissionControlImpl;
 import org.apache.olingo.odata2.core.commons.ContentType;
 import org.apache.olingo.odata2.core.commons.ContentType.ODataFormat;
 import org.apache.olingo.odata2.core.uri.UriInfoImpl;
@@ -770,4 +782,65 @@ public class ODataRequestHandlerValidationTest extends BaseTest {
     executeAndValidateHeaderRequest(ODataHttpMethod.PUT, UriType.URI17, null, null,
         HttpStatusCodes.PRECONDITION_REQUIRED);
   }
+
+  @Test
+  public void cachedResponseIsNotAdmitted() throws Exception {
+    ODataAdmissionControlImpl admissionControl = new ODataAdmissionControlImpl(0, 1);
+    admissionControl.setLimit(ODataAdmissionControlImpl.READ, 1, 0);
+    ODataResponseCacheCallback cache = mock(ODataResponseCacheCallback.class);
+    when(cache.isCacheable(any(ODataContext.class), any(UriInfo.class))).thenReturn(true);
+    when(cache.get(anyString())).thenReturn(ODataResponse.entity("cached".getBytes("UTF-8")).build());
+    ODataServiceFactory serviceFactory = mock(ODataServiceFactory.class);
+    when(serviceFactory.getCallback(ODataAdmissionControlCallback.class)).thenReturn(admissionControl);
+    when(serviceFactory.getCallback(ODataResponseCacheCallback.class)).thenReturn(cache);
+    final ODataService service = mockODataService(serviceFactory);
+
+    // The only permit is taken by another request.
+    final ODataRequest request = mockODataRequest(ODataHttpMethod.GET,
+        createPathSegments(UriType.URI1, false, false), null, null, null, null);
+    final ODataContextImpl context = new ODataContextImpl(request, serviceFactory);
+    final Bulkhead bulkhead = admissionControl.getBulkhead(ODataAdmissionControlImpl.READ);
+    assertTrue(bulkhead.acquire(0));
+
+    final ODataResponse response = new ODataRequestHandler(serviceFactory, service, context).handle(request);
+    assertEquals(HttpStatusCodes.OK, response.getStatus());
+    assertEquals(0, bulkhead.getRejectedCount());
+    bulkhead.release();
+  }
+
+  @Test
+  public void streamedResponseHoldsAdmission() throws Exception {
+    ODataAdmissionControlImpl admissionControl = new ODataAdmissionControlImpl(0, 1);
+    admissionControl.setLimit(ODataAdmissionControlImpl.READ, 1, 0);
+    ODataServiceFactory serviceFactory = mock(ODataServiceFactory.class);
+    when(serviceFactory.getCallback(ODataAdmissionControlCallback.class)).thenReturn(admissionControl);
+    final ODataService service = mockODataService(serviceFactory);
+    final ODataStreamingContent content = new ODataStreamingContent() {
+      @Override
+      public void write(final OutputStream output) throws IOException {
+        output.write('1');
+      }
+    };
+    final ODataResponse streamedResponse = ODataResponse.entity(content).build();
+    final EntitySetProcessor processor = service.getEntitySetProcessor();
+    doReturn(streamedResponse).when(processor).readEntitySet(any(UriInfo.class), anyString());
+
+    final ODataRequest request = mockODataRequest(ODataHttpMethod.GET,
+        createPathSegments(UriType.URI1, false, false), null, null, null, null);
+    final ODataContextImpl context = new ODataContextImpl(request, serviceFactory);
+    final ODataResponse response = new ODataRequestHandler(serviceFactory, service, context).handle(request);
+    final Bulkhead bulkhead = admissionControl.getBulkhead(ODataAdmissionControlImpl.READ);
+    assertEquals(1, bulkhead.getActiveCount());
+
+    ((ODataStreamingContent) response.getEntity()).write(new ByteArrayOutputStream());
+    assertEquals(0, bulkhead.getActiveCount());
+    response.close();
+    assertEquals(0, bulkhead.getActiveCount());
+
+    // A response which is closed without being written releases its admission, too.
+    final ODataResponse unwritten = new ODataRequestHandler(serviceFactory, service, context).handle(request);
+    assertEquals(1, bulkhead.getActiveCount());
+    unwritten.close();
+    assertEquals(0, bulkhead.getActiveCount());
+  }
 }
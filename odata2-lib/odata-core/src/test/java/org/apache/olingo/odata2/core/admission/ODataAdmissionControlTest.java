@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.admission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.odata2.api.ODataAdmissionControlCallback.Admission;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+import org.apache.olingo.odata2.api.edm.EdmEntityContainer;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.exception.ODataServiceUnavailableException;
+import org.apache.olingo.odata2.api.processor.ODataContext;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
+import org.apache.olingo.odata2.core.uri.UriInfoImpl;
+import org.apache.olingo.odata2.core.uri.UriType;
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.junit.Test;
+
+public class ODataAdmissionControlTest extends BaseTest {
+
+  private final ODataContext context = mock(ODataContext.class);
+
+  @Test
+  public void rejectionWhenLimitReached() throws Exception {
+    ODataAdmissionControlImpl admissionControl = new ODataAdmissionControlImpl(0, 5);
+    admissionControl.setLimit("Container1.Employees", 1, 0);
+    final UriInfoImpl employees = getUriInfo(UriType.URI1, "Employees");
+
+    Admission admission = admissionControl.admit(context, employees, ODataHttpMethod.GET);
+    final Bulkhead bulkhead = admissionControl.getBulkhead("Container1.Employees");
+    assertEquals(1, bulkhead.getActiveCount());
+    try {
+      admissionControl.admit(context, employees, ODataHttpMethod.GET);
+      fail("Expected ODataServiceUnavailableException");
+    } catch (final ODataServiceUnavailableException e) {
+      assertEquals(5, e.getRetryAfter());
+      assertEquals(ODataServiceUnavailableException.OVERLOADED.getKey(), e.getMessageReference().getKey());
+    }
+    assertEquals(1, bulkhead.getRejectedCount());
+
+    // Other entity sets are not affected.
+    admissionControl.admit(context, getUriInfo(UriType.URI1, "Rooms"), ODataHttpMethod.GET).release();
+
+    admission.release();
+    assertEquals(0, bulkhead.getActiveCount());
+    admissionControl.admit(context, employees, ODataHttpMethod.GET).release();
+  }
+
+  @Test
+  public void requestClasses() throws Exception {
+    ODataAdmissionControlImpl admissionControl = new ODataAdmissionControlImpl(0, 1);
+    admissionControl.setLimit(ODataAdmissionControlImpl.WRITE, 1, 0);
+    admissionControl.setLimit(ODataAdmissionControlImpl.BATCH, 1, 0);
+    admissionControl.setLimit("Container1.Employees", 1, 0);
+
+    Admission write = admissionControl.admit(context, getUriInfo(UriType.URI2, "Employees"), ODataHttpMethod.PUT);
+    assertEquals(1, admissionControl.getBulkhead(ODataAdmissionControlImpl.WRITE).getActiveCount());
+    try {
+      admissionControl.admit(context, getUriInfo(UriType.URI2, "Rooms"), ODataHttpMethod.PUT);
+      fail("Expected ODataServiceUnavailableException");
+    } catch (final ODataServiceUnavailableException e) {
+      assertEquals(1, admissionControl.getBulkhead(ODataAdmissionControlImpl.WRITE).getRejectedCount());
+    }
+    admissionControl.admit(context, getUriInfo(UriType.URI9, null), ODataHttpMethod.POST).release();
+    write.release();
+
+    // A request rejected by its entity set does not keep the permit of its request class.
+    Admission read = admissionControl.admit(context, getUriInfo(UriType.URI1, "Employees"), ODataHttpMethod.GET);
+    try {
+      admissionControl.admit(context, getUriInfo(UriType.URI2, "Employees"), ODataHttpMethod.DELETE);
+      fail("Expected ODataServiceUnavailableException");
+    } catch (final ODataServiceUnavailableException e) {
+      assertEquals(0, admissionControl.getBulkhead(ODataAdmissionControlImpl.WRITE).getActiveCount());
+    }
+    read.release();
+    assertNull(admissionControl.getBulkhead(ODataAdmissionControlImpl.READ));
+    assertEquals(3, admissionControl.getBulkheads().size());
+  }
+
+  @Test
+  public void queuedRequestIsAdmittedAfterRelease() throws Exception {
+    final ODataAdmissionControlImpl admissionControl = new ODataAdmissionControlImpl(10000, 1);
+    admissionControl.setLimit(ODataAdmissionControlImpl.READ, 1, 1);
+    final UriInfoImpl uriInfo = getUriInfo(UriType.URI1, "Employees");
+    final Bulkhead bulkhead = admissionControl.getBulkhead(ODataAdmissionControlImpl.READ);
+
+    final Admission admission = admissionControl.admit(context, uriInfo, ODataHttpMethod.GET);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Admission> queued = executor.submit(new Callable<Admission>() {
+        @Override
+        public Admission call() throws Exception {
+          return admissionControl.admit(context, uriInfo, ODataHttpMethod.GET);
+        }
+      });
+      final long start = System.currentTimeMillis();
+      while (bulkhead.getQueueDepth() == 0 && System.currentTimeMillis() - start < 10000) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, bulkhead.getQueueDepth());
+      // The queue is full.
+      try {
+        admissionControl.admit(context, uriInfo, ODataHttpMethod.GET);
+        fail("Expected ODataServiceUnavailableException");
+      } catch (final ODataServiceUnavailableException e) {
+        assertTrue(e.getRetryAfter() > 0);
+      }
+
+      admission.release();
+      final Admission queuedAdmission = queued.get(10, TimeUnit.SECONDS);
+      assertNotNull(queuedAdmission);
+      assertEquals(0, bulkhead.getQueueDepth());
+      assertEquals(1, bulkhead.getActiveCount());
+      assertEquals(1, bulkhead.getRejectedCount());
+      queuedAdmission.release();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void batchPartsPassEntitySetBulkheadOnly() throws Exception {
+    ODataAdmissionControlImpl admissionControl = new ODataAdmissionControlImpl(0, 1);
+    admissionControl.setLimit(ODataAdmissionControlImpl.READ, 1, 0);
+    admissionControl.setLimit("Container1.Employees", 1, 0);
+    ODataContext batchContext = mock(ODataContext.class);
+    when(batchContext.isInBatchMode()).thenReturn(true);
+    final UriInfoImpl employees = getUriInfo(UriType.URI1, "Employees");
+
+    Admission read = admissionControl.admit(context, getUriInfo(UriType.URI1, "Rooms"), ODataHttpMethod.GET);
+    Admission part = admissionControl.admit(batchContext, employees, ODataHttpMethod.GET);
+    assertEquals(1, admissionControl.getBulkhead(ODataAdmissionControlImpl.READ).getActiveCount());
+    try {
+      admissionControl.admit(batchContext, employees, ODataHttpMethod.GET);
+      fail("Expected ODataServiceUnavailableException");
+    } catch (final ODataServiceUnavailableException e) {
+      assertEquals(1, admissionControl.getBulkhead("Container1.Employees").getRejectedCount());
+    }
+    part.release();
+    read.release();
+    assertEquals(0, admissionControl.getBulkhead("Container1.Employees").getActiveCount());
+  }
+
+  @Test
+  public void streamingContentHoldsAdmission() throws Exception {
+    ODataAdmissionControlImpl admissionControl = new ODataAdmissionControlImpl(0, 1);
+    admissionControl.setLimit(ODataAdmissionControlImpl.READ, 1, 0);
+    final Bulkhead bulkhead = admissionControl.getBulkhead(ODataAdmissionControlImpl.READ);
+    final UriInfoImpl employees = getUriInfo(UriType.URI1, "Employees");
+    ODataStreamingContent content = mock(ODataStreamingContent.class);
+
+    ReleasingStreamingContent written =
+        new ReleasingStreamingContent(content, admissionControl.admit(context, employees, ODataHttpMethod.GET));
+    assertEquals(1, bulkhead.getActiveCount());
+    written.write(new ByteArrayOutputStream());
+    assertEquals(0, bulkhead.getActiveCount());
+    written.close();
+    assertEquals(0, bulkhead.getActiveCount());
+
+    ReleasingStreamingContent closed =
+        new ReleasingStreamingContent(content, admissionControl.admit(context, employees, ODataHttpMethod.GET));
+    assertEquals(1, bulkhead.getActiveCount());
+    closed.close();
+    closed.close();
+    assertEquals(0, bulkhead.getActiveCount());
+    admissionControl.admit(context, employees, ODataHttpMethod.GET).release();
+  }
+
+  private static UriInfoImpl getUriInfo(final UriType uriType, final String entitySetName) throws Exception {
+    UriInfoImpl uriInfo = mock(UriInfoImpl.class);
+    when(uriInfo.getUriType()).thenReturn(uriType);
+    if (entitySetName != null) {
+      EdmEntityContainer container = mock(EdmEntityContainer.class);
+      when(container.getName()).thenReturn("Container1");
+      EdmEntitySet entitySet = mock(EdmEntitySet.class);
+      when(entitySet.getName()).thenReturn(entitySetName);
+      when(entitySet.getEntityContainer()).thenReturn(container);
+      when(uriInfo.getTargetEntitySet()).thenReturn(entitySet);
+    }
+    return uriInfo;
+  }
+}
@@ -19,17 +19,28 @@
 package org.apache.olingo.odata2.core.batch;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.olingo.odata2.api.ODataBatchExecutionCallback;
 import org.apache.olingo.odata2.api.ODataService;
 import org.apache.olingo.odata2.api.ODataServiceFactory;
 import org.apache.olingo.odata2.api.batch.BatchHandler;
@@ -63,6 +74,8 @@ import org.apache.olingo.odata2.testutil.helper.StringHelper;
 import org.apache.olingo.odata2.testutil.mock.MockFacade;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 public class BatchHandlerTest {
 
@@ -168,6 +181,114 @@ public class BatchHandlerTest {
     handler.handleBatchPart(parsedRequest.get(0));
   }
 
+  @Test
+  public void unreadBodiesAreReleased() throws Exception {
+    SERVICE_ROOT = SERVICE_BASE;
+    PathInfoImpl pathInfo = new PathInfoImpl();
+    pathInfo.setServiceRoot(new URI(SERVICE_ROOT));
+    pathInfo.setODataPathSegment(Collections.<PathSegment> singletonList(
+        new ODataPathSegmentImpl("$batch", null)));
+    final Set<String> existingFiles = getTemporaryBatchFiles();
+    // Every request body is larger than the buffer and is written to a temporary file.
+    EntityProviderBatchProperties properties = EntityProviderBatchProperties.init().pathInfo(pathInfo)
+        .bodyBufferSize(10).build();
+    List<BatchRequestPart> parsedRequest = EntityProvider.parseBatchRequest(CONTENT_TYPE,
+        readFile("/batchContentIdReferencing.batch"), properties);
+    Set<String> files = getTemporaryBatchFiles();
+    files.removeAll(existingFiles);
+    assertEquals(2, files.size());
+
+    // The processor does not read the request bodies.
+    handler.handleBatchPart(parsedRequest.get(0));
+
+    files = getTemporaryBatchFiles();
+    files.removeAll(existingFiles);
+    assertTrue(files.isEmpty());
+  }
+
+  private static Set<String> getTemporaryBatchFiles() {
+    final String[] names = new File(System.getProperty("java.io.tmpdir")).list(new FilenameFilter() {
+      @Override
+      public boolean accept(final File dir, final String name) {
+        return name.startsWith("odata-batch");
+      }
+    });
+    return new HashSet<String>(Arrays.asList(names));
+  }
+
+  @Test
+  public void concurrentQueryOperations() throws Exception {
+    final int count = 3;
+    final CountDownLatch allStarted = new CountDownLatch(count);
+    ODataServiceFactory factory = mock(ODataServiceFactory.class);
+    when(factory.createService(any(ODataContext.class))).thenAnswer(new Answer<ODataService>() {
+      @Override
+      public ODataService answer(final InvocationOnMock invocation) throws Throwable {
+        return createQueryService(allStarted);
+      }
+    });
+    final ExecutorService executor = Executors.newFixedThreadPool(count);
+    when(factory.getCallback(ODataBatchExecutionCallback.class)).thenReturn(new ODataBatchExecutionCallback() {
+      @Override
+      public ExecutorService getExecutorService() {
+        return executor;
+      }
+    });
+
+    SERVICE_ROOT = SERVICE_BASE;
+    PathInfoImpl pathInfo = new PathInfoImpl();
+    pathInfo.setServiceRoot(new URI(SERVICE_ROOT));
+    pathInfo.setODataPathSegment(Collections.<PathSegment> singletonList(
+        new ODataPathSegmentImpl("$batch", null)));
+    StringBuilder batch = new StringBuilder();
+    for (int i = 1; i <= count; i++) {
+      batch.append("--batch_123").append(CRLF)
+          .append("Content-Type: application/http").append(CRLF)
+          .append("Content-Transfer-Encoding: binary").append(CRLF).append(CRLF)
+          .append("GET Employees?$top=").append(i).append(" HTTP/1.1").append(CRLF).append(CRLF).append(CRLF);
+    }
+    batch.append("--batch_123--");
+    List<BatchRequestPart> parsedRequest = EntityProvider.parseBatchRequest(CONTENT_TYPE,
+        StringHelper.encapsulate(batch.toString()),
+        EntityProviderBatchProperties.init().pathInfo(pathInfo).build());
+
+    ODataService batchService = mock(ODataService.class);
+    when(batchService.getProcessor()).thenReturn(mock(ODataProcessor.class));
+    try {
+      List<BatchResponsePart> responseParts = new BatchHandlerImpl(factory, batchService)
+          .handleBatchParts(parsedRequest);
+      assertEquals(count, responseParts.size());
+      for (int i = 1; i <= count; i++) {
+        assertEquals(String.valueOf(i), responseParts.get(i - 1).getResponses().get(0).getHeader("top"));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private ODataService createQueryService(final CountDownLatch allStarted) throws ODataException {
+    final EntitySetProcessor processor = mock(EntitySetProcessor.class);
+    when(processor.readEntitySet(any(GetEntitySetUriInfo.class), any(String.class))).thenAnswer(
+        new Answer<ODataResponse>() {
+          @Override
+          public ODataResponse answer(final InvocationOnMock invocation) throws Throwable {
+            allStarted.countDown();
+            // All query operations must be running at the same time.
+            assertTrue(allStarted.await(10, TimeUnit.SECONDS));
+            final GetEntitySetUriInfo uriInfo = (GetEntitySetUriInfo) invocation.getArguments()[0];
+            return ODataResponse.status(HttpStatusCodes.OK).header("top", uriInfo.getTop().toString()).build();
+          }
+        });
+    ODataService service = mock(ODataService.class);
+    when(service.getEntitySetProcessor()).thenReturn(processor);
+    when(service.getProcessor()).thenReturn(processor);
+    Edm mockEdm = MockFacade.getMockEdm();
+    when(service.getEntityDataModel()).thenReturn(mockEdm);
+    when(service.getSupportedContentTypes(EntitySetProcessor.class)).thenReturn(
+        Arrays.asList(HttpContentType.APPLICATION_JSON));
+    return service;
+  }
+
   private void assertFirst(PathInfo pathInfo) {
     assertEquals(SERVICE_ROOT + "Employees", pathInfo.getRequestUri().toString());
     assertEquals(SERVICE_ROOT, pathInfo.getServiceRoot().toString());
@@ -21,10 +21,12 @@ package org.apache.olingo.odata2.core.batch;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -73,6 +75,44 @@ public class BatchRequestWriterTest {
     assertTrue(lines.get(index++).toString().startsWith("--batch"));
   }
 
+  @Test
+  public void partsArePulledWhileWriting() throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final Iterator<BatchPart> parts = new Iterator<BatchPart>() {
+      private int count = 0;
+
+      @Override
+      public boolean hasNext() {
+        return count < 3;
+      }
+
+      @Override
+      public BatchPart next() {
+        // Everything requested before must already have been written.
+        assertEquals(count, countOccurrences(output.toString(), "GET Employees('"));
+        return BatchQueryPart.method(GET).uri("Employees('" + ++count + "')").build();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    new BatchRequestWriter().writeBatchRequest(parts, BOUNDARY, output);
+    final String batch = output.toString("ISO-8859-1");
+    assertEquals(3, countOccurrences(batch, "GET Employees('"));
+    assertTrue(batch.endsWith("--" + BOUNDARY + "--"));
+  }
+
+  private static int countOccurrences(final String text, final String part) {
+    int count = 0;
+    for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + 1)) {
+      count++;
+    }
+    return count;
+  }
+
   @Test
   public void testBatchChangeSet() throws IOException, BatchException {
     List<BatchPart> batch = new ArrayList<BatchPart>();
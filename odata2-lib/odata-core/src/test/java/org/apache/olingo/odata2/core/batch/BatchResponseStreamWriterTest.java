@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.client.batch.BatchSingleResponse;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
+import org.apache.olingo.odata2.core.ep.ProviderFacadeImpl;
+import org.junit.Test;
+
+public class BatchResponseStreamWriterTest {
+
+  @Test
+  public void partsAreWrittenToOutputStream() throws Exception {
+    List<BatchResponsePart> parts = new ArrayList<BatchResponsePart>();
+    parts.add(BatchResponsePart.responses(Arrays.asList(
+        ODataResponse.entity("Walter Winter").status(HttpStatusCodes.OK).contentHeader("text/plain").build()))
+        .changeSet(false).build());
+    parts.add(BatchResponsePart.responses(Arrays.asList(
+        ODataResponse.status(HttpStatusCodes.NO_CONTENT).build(),
+        ODataResponse.entity(new ByteArrayInputStream("abc".getBytes("ISO-8859-1")))
+            .status(HttpStatusCodes.CREATED).contentHeader("text/plain").build()))
+        .changeSet(true).build());
+
+    final ODataResponse batchResponse = new BatchResponseStreamWriter().writeResponse(parts);
+    assertEquals(HttpStatusCodes.ACCEPTED, batchResponse.getStatus());
+    assertTrue(batchResponse.getEntity() instanceof ODataStreamingContent);
+    assertNull(batchResponse.getHeader(HttpHeaders.CONTENT_LENGTH));
+
+    final List<BatchSingleResponse> responses = parse(batchResponse);
+    assertEquals(3, responses.size());
+    assertEquals("200", responses.get(0).getStatusCode());
+    assertEquals("Walter Winter", responses.get(0).getBody());
+    assertEquals("13", responses.get(0).getHeader(HttpHeaders.CONTENT_LENGTH));
+    assertEquals("204", responses.get(1).getStatusCode());
+    assertEquals("201", responses.get(2).getStatusCode());
+    assertEquals("abc", responses.get(2).getBody());
+    assertEquals("3", responses.get(2).getHeader(HttpHeaders.CONTENT_LENGTH));
+  }
+
+  @Test
+  public void largeStreamingContentIsBufferedInFile() throws Exception {
+    final StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      body.append("line ").append(i).append('\n');
+    }
+    final ODataStreamingContent content = new ODataStreamingContent() {
+      @Override
+      public void write(final OutputStream output) throws IOException {
+        output.write(body.toString().getBytes("ISO-8859-1"));
+      }
+    };
+    List<BatchResponsePart> parts = new ArrayList<BatchResponsePart>();
+    parts.add(BatchResponsePart.responses(Arrays.asList(
+        ODataResponse.entity(content).status(HttpStatusCodes.OK).contentHeader("text/plain").build()))
+        .changeSet(false).build());
+
+    final List<BatchSingleResponse> responses = parse(new BatchResponseStreamWriter(100).writeResponse(parts));
+    assertEquals(1, responses.size());
+    assertEquals(body.toString(), responses.get(0).getBody());
+    assertEquals(String.valueOf(body.length()), responses.get(0).getHeader(HttpHeaders.CONTENT_LENGTH));
+  }
+
+  @Test
+  public void stringBodyIsWrittenInCharsetOfContentType() throws Exception {
+    List<BatchResponsePart> parts = new ArrayList<BatchResponsePart>();
+    parts.add(BatchResponsePart.responses(Arrays.asList(
+        ODataResponse.entity("\u00e4\u00f6\u00fc").status(HttpStatusCodes.OK)
+            .contentHeader("text/plain; charset=ISO-8859-1").build(),
+        ODataResponse.entity("\u00e4\u00f6\u00fc").status(HttpStatusCodes.OK)
+            .contentHeader("text/plain").build()))
+        .changeSet(true).build());
+
+    final List<BatchSingleResponse> responses = parse(new BatchResponseStreamWriter().writeResponse(parts));
+    assertEquals("3", responses.get(0).getHeader(HttpHeaders.CONTENT_LENGTH));
+    assertEquals("6", responses.get(1).getHeader(HttpHeaders.CONTENT_LENGTH));
+  }
+
+  @Test
+  public void partResponsesAreClosed() throws Exception {
+    final List<String> closed = new ArrayList<String>();
+    List<BatchResponsePart> parts = new ArrayList<BatchResponsePart>();
+    parts.add(BatchResponsePart.responses(Arrays.asList(
+        ODataResponse.entity(new ClosingStream("first", closed)).status(HttpStatusCodes.OK).build()))
+        .changeSet(false).build());
+    parts.add(BatchResponsePart.responses(Arrays.asList(
+        ODataResponse.entity(new ClosingStream("second", closed)).status(HttpStatusCodes.OK).build()))
+        .changeSet(false).build());
+
+    parse(new BatchResponseStreamWriter().writeResponse(parts));
+    assertTrue(closed.containsAll(Arrays.asList("first", "second")));
+
+    // A batch response which is never written closes its parts, too.
+    closed.clear();
+    new BatchResponseStreamWriter().writeResponse(parts).close();
+    assertTrue(closed.containsAll(Arrays.asList("first", "second")));
+  }
+
+  private static class ClosingStream extends ByteArrayInputStream {
+    private final String name;
+    private final List<String> closed;
+
+    private ClosingStream(final String name, final List<String> closed) {
+      super(new byte[] { 'x' });
+      this.name = name;
+      this.closed = closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed.add(name);
+      super.close();
+    }
+  }
+
+  private static List<BatchSingleResponse> parse(final ODataResponse batchResponse) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ((ODataStreamingContent) batchResponse.getEntity()).write(output);
+    return new ProviderFacadeImpl().parseBatchResponse(batchResponse.getContentHeader(),
+        new ByteArrayInputStream(output.toByteArray()));
+  }
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.batch.v2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+
+import org.apache.olingo.odata2.api.batch.BatchException;
+import org.apache.olingo.odata2.api.batch.BatchRequestPart;
+import org.apache.olingo.odata2.api.ep.EntityProviderBatchProperties;
+import org.apache.olingo.odata2.api.ep.EntityProviderBatchProperties.EntityProviderBatchPropertiesBuilder;
+import org.apache.olingo.odata2.core.PathInfoImpl;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.junit.Test;
+
+public class BatchRequestReaderTest {
+
+  private static final String CRLF = "\r\n";
+  private static final String SERVICE_ROOT = "http://localhost/odata/";
+  private static final String BOUNDARY = "batch_123";
+  private static final String CHANGESET_BOUNDARY = "changeset_456";
+  private static final String MIME_HEADERS = "Content-Type: application/http" + CRLF
+      + "Content-Transfer-Encoding: binary" + CRLF;
+
+  @Test
+  public void partsAreReadOneAtATime() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + MIME_HEADERS + CRLF
+        + "GET Employees HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF
+        + "--" + BOUNDARY + CRLF
+        + "Content-Type: multipart/mixed; boundary=" + CHANGESET_BOUNDARY + CRLF
+        + CRLF
+        + "--" + CHANGESET_BOUNDARY + CRLF
+        + MIME_HEADERS + CRLF
+        + "PUT Employees('1')/EmployeeName HTTP/1.1" + CRLF
+        + "Content-Type: text/plain" + CRLF
+        + CRLF
+        + "Walter Winter" + CRLF
+        + "--" + CHANGESET_BOUNDARY + "--" + CRLF
+        + "--" + BOUNDARY + "--";
+    BatchRequestReader reader = new BatchRequestReader(new ByteArrayInputStream(batch.getBytes("ISO-8859-1")), BOUNDARY,
+        true, 1024);
+
+    BatchBodyPart part = reader.next();
+    assertFalse(part.isChangeSet());
+    assertEquals("GET Employees HTTP/1.1" + CRLF, part.getRequests().get(0).getHttpStatusLine().toString());
+    assertTrue(part.getRequests().get(0).getBodyBuffer().isBlank());
+
+    part = reader.next();
+    assertTrue(part.isChangeSet());
+    assertEquals(1, part.getRequests().size());
+    assertEquals("Walter Winter", StringHelper.inputStreamToString(
+        part.getRequests().get(0).getBodyBuffer().getInputStream(-1)));
+
+    assertNull(reader.next());
+    assertNull(reader.next());
+  }
+
+  @Test
+  public void bodyIsPassedOnUnchanged() throws Exception {
+    final byte[] body = new byte[] { 0, (byte) 0xFF, 'a', '\r', 'b', '\n', (byte) 0xC3, (byte) 0xA4, '\r' };
+    final InputStream in = createBatch("application/octet-stream", body);
+
+    final List<BatchRequestPart> parts = createParser(EntityProviderBatchProperties.init()).parseBatchRequest(in);
+    assertArrayEquals(body, read(parts.get(0).getRequests().get(0).getBody()));
+  }
+
+  @Test
+  public void contentLengthCountsBytes() throws Exception {
+    final byte[] body = "\u00e4\u00f6\u00fc-abc".getBytes("UTF-8");
+    final String head = getHead("text/plain;charset=UTF-8")
+        + "Content-Length: 6" + CRLF
+        + CRLF;
+    final InputStream in = concat(head.getBytes("ISO-8859-1"), body, (CRLF
+        + "--" + CHANGESET_BOUNDARY + "--" + CRLF
+        + "--" + BOUNDARY + "--").getBytes("ISO-8859-1"));
+
+    final List<BatchRequestPart> parts = createParser(EntityProviderBatchProperties.init()).parseBatchRequest(in);
+    assertEquals("\u00e4\u00f6\u00fc", new String(read(parts.get(0).getRequests().get(0).getBody()), "UTF-8"));
+  }
+
+  @Test
+  public void largeBodyIsBufferedInFile() throws Exception {
+    final byte[] body = new byte[100000];
+    for (int i = 0; i < body.length; i++) {
+      body[i] = (byte) (i % 64 == 63 ? '\n' : 'a' + i % 26);
+    }
+    BatchRequestReader reader = new BatchRequestReader(createBatch("text/plain", body), BOUNDARY, true, 1000);
+
+    final BatchBodyBuffer buffer = reader.next().getRequests().get(0).getBodyBuffer();
+    assertTrue(buffer.isSpilled());
+    assertEquals(body.length, buffer.getSize());
+    assertArrayEquals(body, read(buffer.getInputStream(-1)));
+    assertNull(reader.next());
+  }
+
+  @Test
+  public void bodyBufferSizeFromProperties() throws Exception {
+    final byte[] body = new byte[5000];
+    final List<BatchRequestPart> parts = createParser(EntityProviderBatchProperties.init().bodyBufferSize(100))
+        .parseBatchRequest(createBatch("application/octet-stream", body));
+    assertArrayEquals(body, read(parts.get(0).getRequests().get(0).getBody()));
+  }
+
+  @Test(expected = BatchException.class)
+  public void missingCloseDelimiter() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + MIME_HEADERS + CRLF
+        + "GET Employees HTTP/1.1" + CRLF
+        + CRLF
+        + CRLF;
+    BatchRequestReader reader = new BatchRequestReader(new ByteArrayInputStream(batch.getBytes("ISO-8859-1")),
+        BOUNDARY, true, 1000);
+    reader.next();
+    reader.next();
+  }
+
+  @Test
+  public void disposeDeletesBuffers() throws Exception {
+    BatchRequestReader reader = new BatchRequestReader(createBatch("text/plain", new byte[5000]), BOUNDARY, true, 100);
+    final BatchBodyBuffer buffer = reader.next().getRequests().get(0).getBodyBuffer();
+    assertTrue(buffer.isSpilled());
+    reader.dispose();
+    try {
+      buffer.getInputStream(-1);
+      fail("Expected the temporary file to be deleted.");
+    } catch (final IOException e) {
+      // expected
+    }
+  }
+
+  private static BatchParser createParser(final EntityProviderBatchPropertiesBuilder builder)
+      throws URISyntaxException {
+    PathInfoImpl pathInfo = new PathInfoImpl();
+    pathInfo.setServiceRoot(new URI(SERVICE_ROOT));
+    return new BatchParser("multipart/mixed; boundary=" + BOUNDARY, builder.pathInfo(pathInfo).build(), true);
+  }
+
+  private static InputStream createBatch(final String contentType, final byte[] body) throws IOException {
+    return concat((getHead(contentType) + CRLF).getBytes("ISO-8859-1"), body, (CRLF
+        + "--" + CHANGESET_BOUNDARY + "--" + CRLF
+        + "--" + BOUNDARY + "--").getBytes("ISO-8859-1"));
+  }
+
+  private static String getHead(final String contentType) {
+    return "--" + BOUNDARY + CRLF
+        + "Content-Type: multipart/mixed; boundary=" + CHANGESET_BOUNDARY + CRLF
+        + CRLF
+        + "--" + CHANGESET_BOUNDARY + CRLF
+        + MIME_HEADERS + CRLF
+        + "POST Employees HTTP/1.1" + CRLF
+        + "Content-Type: " + contentType + CRLF;
+  }
+
+  private static InputStream concat(final byte[]... parts) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (final byte[] part : parts) {
+      output.write(part);
+    }
+    return new ByteArrayInputStream(output.toByteArray());
+  }
+
+  private static byte[] read(final InputStream in) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int count;
+    while ((count = in.read(buffer)) >= 0) {
+      output.write(buffer, 0, count);
+    }
+    in.close();
+    return output.toByteArray();
+  }
+}
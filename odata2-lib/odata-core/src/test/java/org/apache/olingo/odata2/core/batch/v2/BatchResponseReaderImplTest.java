@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.batch.v2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.olingo.odata2.api.client.batch.BatchResponseReader;
+import org.apache.olingo.odata2.api.client.batch.StreamingBatchSingleResponse;
+import org.apache.olingo.odata2.api.ep.EntityProviderBatchProperties;
+import org.junit.Test;
+
+public class BatchResponseReaderImplTest {
+
+  private static final String CRLF = "\r\n";
+  private static final String BOUNDARY = "batch_123";
+  private static final String CHANGESET_BOUNDARY = "changeset_456";
+  private static final String CONTENT_TYPE = "multipart/mixed; boundary=" + BOUNDARY;
+  private static final String MIME_HEADERS = "Content-Type: application/http" + CRLF
+      + "Content-Transfer-Encoding: binary" + CRLF;
+
+  @Test
+  public void responsesAreReadOneAfterAnother() throws Exception {
+    final String batch = "--" + BOUNDARY + CRLF
+        + MIME_HEADERS + CRLF
+        + "HTTP/1.1 200 OK" + CRLF
+        + "Content-Type: text/plain;charset=UTF-8" + CRLF
+        + "Content-Length: 6" + CRLF
+        + CRLF
+        + "\u00e4\u00f6\u00fc" + CRLF
+        + "--" + BOUNDARY + CRLF
+        + "Content-Type: multipart/mixed; boundary=" + CHANGESET_BOUNDARY + CRLF
+        + CRLF
+        + "--" + CHANGESET_BOUNDARY + CRLF
+        + MIME_HEADERS
+        + "Content-Id: 1" + CRLF
+        + CRLF
+        + "HTTP/1.1 201 Created" + CRLF
+        + "Content-Type: text/plain" + CRLF
+        + CRLF
+        + "abc" + CRLF
+        + "--" + CHANGESET_BOUNDARY + CRLF
+        + MIME_HEADERS + CRLF
+        + "HTTP/1.1 204 No Content" + CRLF
+        + CRLF
+        + CRLF
+        + "--" + CHANGESET_BOUNDARY + "--" + CRLF
+        + "--" + BOUNDARY + "--";
+    BatchResponseReader reader = new BatchParser(CONTENT_TYPE, true)
+        .readBatchResponse(new ByteArrayInputStream(batch.getBytes("UTF-8")));
+
+    StreamingBatchSingleResponse response = reader.next();
+    assertEquals("200", response.getStatusCode());
+    assertEquals("\u00e4\u00f6\u00fc", response.getBody());
+
+    response = reader.next();
+    assertEquals("201", response.getStatusCode());
+    assertEquals("1", response.getContentId());
+    assertArrayEquals("abc".getBytes("ISO-8859-1"), read(response.getBodyAsStream()));
+
+    response = reader.next();
+    assertEquals("204", response.getStatusCode());
+    assertEquals("", response.getBody());
+
+    assertNull(reader.next());
+    reader.close();
+  }
+
+  @Test
+  public void largeBodyIsReleasedWithNextPart() throws Exception {
+    final StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      body.append("line ").append(i).append(CRLF);
+    }
+    final String part = "--" + BOUNDARY + CRLF
+        + MIME_HEADERS + CRLF
+        + "HTTP/1.1 200 OK" + CRLF
+        + "Content-Type: text/plain" + CRLF
+        + CRLF
+        + body + CRLF;
+    final String batch = part + part + "--" + BOUNDARY + "--";
+    BatchResponseReader reader = new BatchParser(CONTENT_TYPE, EntityProviderBatchProperties.init()
+        .bodyBufferSize(100).build(), true).readBatchResponse(new ByteArrayInputStream(batch.getBytes("ISO-8859-1")));
+
+    final StreamingBatchSingleResponse first = reader.next();
+    final InputStream firstBody = first.getBodyAsStream();
+    final StreamingBatchSingleResponse second = reader.next();
+    try {
+      read(firstBody);
+      fail("Expected the body of the first response to be released.");
+    } catch (final IOException e) {
+      // expected
+    }
+    assertEquals(body.toString(), second.getBody());
+    assertNull(reader.next());
+    reader.close();
+  }
+
+  private static byte[] read(final InputStream in) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int count;
+    while ((count = in.read(buffer)) >= 0) {
+      output.write(buffer, 0, count);
+    }
+    in.close();
+    return output.toByteArray();
+  }
+}
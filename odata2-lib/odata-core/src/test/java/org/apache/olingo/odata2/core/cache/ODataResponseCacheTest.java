@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.uri.PathSegment;
+import org.apache.olingo.odata2.core.ODataPathSegmentImpl;
+import org.apache.olingo.odata2.core.PathInfoImpl;
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.junit.Test;
+
+public class ODataResponseCacheTest extends BaseTest {
+
+  private static final Set<String> EMPLOYEES = Collections.singleton("Container1.Employees");
+  private static final Set<String> ROOMS = Collections.singleton("Container1.Rooms");
+
+  @Test
+  public void putAndGet() throws Exception {
+    ODataResponseCacheImpl cache = new ODataResponseCacheImpl(60000, 10, 1000);
+    cache.put("a", EMPLOYEES, buffered("abc"), System.nanoTime());
+
+    ODataResponse cached = cache.get("a");
+    assertNotNull(cached);
+    assertNotNull(cached.getETag());
+    assertEquals(1, cache.getEntryCount());
+    assertEquals(3, cache.getSize());
+    assertNull(cache.get("b"));
+  }
+
+  @Test
+  public void expiration() throws Exception {
+    ODataResponseCacheImpl cache = new ODataResponseCacheImpl(0, 10, 1000);
+    cache.put("a", EMPLOYEES, buffered("abc"), System.nanoTime());
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.getEntryCount());
+  }
+
+  @Test
+  public void evictionByEntryCount() throws Exception {
+    ODataResponseCacheImpl cache = new ODataResponseCacheImpl(60000, 2, 1000);
+    cache.put("a", EMPLOYEES, buffered("a"), System.nanoTime());
+    cache.put("b", EMPLOYEES, buffered("b"), System.nanoTime());
+    cache.get("a");
+    cache.put("c", EMPLOYEES, buffered("c"), System.nanoTime());
+
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+  }
+
+  @Test
+  public void evictionBySize() throws Exception {
+    ODataResponseCacheImpl cache = new ODataResponseCacheImpl(60000, 10, 5);
+    cache.put("a", EMPLOYEES, buffered("abc"), System.nanoTime());
+    cache.put("b", EMPLOYEES, buffered("def"), System.nanoTime());
+    assertNull(cache.get("a"));
+    assertNotNull(cache.get("b"));
+    assertEquals(3, cache.getSize());
+
+    cache.put("c", EMPLOYEES, buffered("too large"), System.nanoTime());
+    assertNull(cache.get("c"));
+  }
+
+  @Test
+  public void invalidation() throws Exception {
+    ODataResponseCacheImpl cache = new ODataResponseCacheImpl(60000, 10, 1000);
+    Set<String> both = new HashSet<String>(EMPLOYEES);
+    both.addAll(ROOMS);
+    cache.put("a", EMPLOYEES, buffered("a"), System.nanoTime());
+    cache.put("b", both, buffered("b"), System.nanoTime());
+    cache.put("c", ROOMS, buffered("c"), System.nanoTime());
+
+    cache.invalidate(EMPLOYEES);
+    assertNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+    assertEquals(1, cache.getEntryCount());
+  }
+
+  @Test
+  public void noStoreAfterConcurrentInvalidation() throws Exception {
+    ODataResponseCacheImpl cache = new ODataResponseCacheImpl(60000, 10, 1000);
+    final long requestStartTime = System.nanoTime();
+    cache.invalidate(EMPLOYEES);
+    cache.put("a", EMPLOYEES, buffered("a"), requestStartTime);
+    assertNull(cache.get("a"));
+
+    cache.put("a", EMPLOYEES, buffered("a"), System.nanoTime());
+    assertNotNull(cache.get("a"));
+  }
+
+  @Test
+  public void clearResetsInvalidations() throws Exception {
+    ODataResponseCacheImpl cache = new ODataResponseCacheImpl(60000, 10, 1000);
+    final long requestStartTime = System.nanoTime();
+    cache.invalidate(EMPLOYEES);
+    cache.clear();
+    cache.put("a", EMPLOYEES, buffered("a"), requestStartTime);
+    assertNotNull(cache.get("a"));
+  }
+
+  @Test
+  public void onlyContentHeadersAreStored() throws Exception {
+    ODataResponse cached = ResponseCacheHelper.buffer(ODataResponse.entity("abc").status(HttpStatusCodes.OK)
+        .contentHeader("application/json")
+        .header("dataserviceversion", "2.0")
+        .header(HttpHeaders.SET_COOKIE, "session=4711")
+        .header("X-Request-Id", "42")
+        .build());
+
+    assertEquals("application/json", cached.getContentHeader());
+    assertEquals("2.0", cached.getHeader("dataserviceversion"));
+    assertNotNull(cached.getETag());
+    assertNull(cached.getHeader(HttpHeaders.SET_COOKIE));
+    assertNull(cached.getHeader("X-Request-Id"));
+  }
+
+  @Test
+  public void notModified() throws Exception {
+    ODataResponse cached = buffered("abc");
+    ODataResponse response = ResponseCacheHelper.createResponse(cached, cached.getETag());
+    assertEquals(HttpStatusCodes.NOT_MODIFIED, response.getStatus());
+    assertNull(response.getEntity());
+
+    response = ResponseCacheHelper.createResponse(cached, "W/\"other\", " + cached.getETag().substring(2));
+    assertEquals(HttpStatusCodes.NOT_MODIFIED, response.getStatus());
+
+    response = ResponseCacheHelper.createResponse(cached, "\"other\"");
+    assertEquals(HttpStatusCodes.OK, response.getStatus());
+    assertEquals("abc", StringHelper.inputStreamToString(response.getEntityAsStream()));
+    // The stored entity can be used more than once.
+    response = ResponseCacheHelper.createResponse(cached, null);
+    assertEquals("abc", StringHelper.inputStreamToString(response.getEntityAsStream()));
+  }
+
+  @Test
+  public void keyIndependentOfParameterOrder() throws Exception {
+    PathInfoImpl pathInfo = new PathInfoImpl();
+    pathInfo.setServiceRoot(new URI("http://localhost/odata/"));
+    pathInfo.setODataPathSegment(Collections.<PathSegment> singletonList(
+        new ODataPathSegmentImpl("Employees", null)));
+
+    Map<String, List<String>> parameters = new HashMap<String, List<String>>();
+    parameters.put("$top", Arrays.asList("2"));
+    parameters.put("$filter", Arrays.asList("Age gt 30"));
+    final String key = ResponseCacheHelper.createKey(pathInfo, parameters, "application/json");
+
+    Map<String, List<String>> otherOrder = new HashMap<String, List<String>>();
+    otherOrder.put("$filter", Arrays.asList("Age gt 30"));
+    otherOrder.put("$top", Arrays.asList("2"));
+    assertEquals(key, ResponseCacheHelper.createKey(pathInfo, otherOrder, "application/json"));
+    assertTrue(key.contains("$filter=Age gt 30&$top=2"));
+
+    assertTrue(!key.equals(ResponseCacheHelper.createKey(pathInfo, otherOrder, "application/atom+xml")));
+  }
+
+  private static ODataResponse buffered(final String content) throws Exception {
+    return ResponseCacheHelper.buffer(ODataResponse.entity(content).status(HttpStatusCodes.OK).build());
+  }
+}
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.exception.ODataException;
+import org.apache.olingo.odata2.api.exception.ODataNotFoundException;
+import org.apache.olingo.odata2.api.exception.ODataRuntimeApplicationException;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.junit.Test;
+
+public class RequestCoalescerTest extends BaseTest {
+
+  private static final int REQUESTS = 5;
+
+  private final List<Throwable> failures = new ArrayList<Throwable>();
+
+  @Test
+  public void identicalRequestsShareOneExecution() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger executions = new AtomicInteger();
+    final RequestCoalescer.Execution execution = new RequestCoalescer.Execution() {
+      @Override
+      public ODataResponse execute() throws ODataException {
+        executions.incrementAndGet();
+        await(release);
+        return ODataResponse.entity("abc".getBytes()).status(HttpStatusCodes.OK).build();
+      }
+    };
+
+    final List<ODataResponse> responses = executeConcurrently("key", execution, release);
+    assertEquals(1, executions.get());
+    for (final ODataResponse response : responses) {
+      assertSame(responses.get(0), response);
+    }
+    assertEquals(0, RequestCoalescer.getInFlightCount());
+  }
+
+  @Test
+  public void unshareableResponseIsExecutedByEachRequest() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger executions = new AtomicInteger();
+    final RequestCoalescer.Execution execution = new RequestCoalescer.Execution() {
+      @Override
+      public ODataResponse execute() throws ODataException {
+        executions.incrementAndGet();
+        await(release);
+        return ODataResponse.status(HttpStatusCodes.NO_CONTENT).build();
+      }
+    };
+
+    executeConcurrently("unshareable", execution, release);
+    assertEquals(REQUESTS, executions.get());
+  }
+
+  @Test
+  public void exceptionReleasesFlight() throws Exception {
+    final RequestCoalescer.Execution execution = new RequestCoalescer.Execution() {
+      @Override
+      public ODataResponse execute() throws ODataException {
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      }
+    };
+    try {
+      RequestCoalescer.execute("failing", null, execution);
+      fail("Expected ODataNotFoundException");
+    } catch (final ODataNotFoundException e) {
+      assertEquals(0, RequestCoalescer.getInFlightCount());
+    }
+  }
+
+  @Test
+  public void differentIdentitiesDoNotShare() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final RequestCoalescer.Execution blocking = new RequestCoalescer.Execution() {
+      @Override
+      public ODataResponse execute() throws ODataException {
+        started.countDown();
+        await(release);
+        return ODataResponse.entity("anonymous".getBytes()).status(HttpStatusCodes.OK).build();
+      }
+    };
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<ODataResponse> anonymous = executor.submit(new Callable<ODataResponse>() {
+        @Override
+        public ODataResponse call() throws Exception {
+          return RequestCoalescer.execute("identity", null, blocking);
+        }
+      });
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+
+      final ODataResponse own = ODataResponse.entity("null".getBytes()).status(HttpStatusCodes.OK).build();
+      ODataResponse response = RequestCoalescer.execute("identity", "null", new RequestCoalescer.Execution() {
+        @Override
+        public ODataResponse execute() throws ODataException {
+          return own;
+        }
+      });
+      assertSame(own, response);
+
+      release.countDown();
+      assertNotSame(own, anonymous.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void eachWaiterGetsOwnException() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final RequestCoalescer.Execution execution = new RequestCoalescer.Execution() {
+      @Override
+      public ODataResponse execute() throws ODataException {
+        await(release);
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      }
+    };
+
+    executeConcurrently("failingConcurrently", execution, release);
+    assertEquals(REQUESTS, failures.size());
+    Throwable original = null;
+    for (final Throwable failure : failures) {
+      if (failure instanceof ODataNotFoundException) {
+        assertNull(original);
+        original = failure;
+      }
+    }
+    assertNotNull(original);
+    Set<Throwable> distinct = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+    for (final Throwable failure : failures) {
+      assertTrue(distinct.add(failure));
+      if (failure != original) {
+        assertSame(original, failure.getCause());
+        assertTrue(((ODataException) failure).isCausedByHttpException());
+      }
+    }
+  }
+
+  @Test
+  public void waitersKeepStatusOfRuntimeApplicationException() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final RequestCoalescer.Execution execution = new RequestCoalescer.Execution() {
+      @Override
+      public ODataResponse execute() throws ODataException {
+        await(release);
+        throw new ODataRuntimeApplicationException("conflict", Locale.ENGLISH, HttpStatusCodes.CONFLICT, "C1");
+      }
+    };
+
+    executeConcurrently("failingAtRuntime", execution, release);
+    assertEquals(REQUESTS, failures.size());
+    Set<Throwable> distinct = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+    for (final Throwable failure : failures) {
+      assertTrue(distinct.add(failure));
+      final ODataRuntimeApplicationException exception = (ODataRuntimeApplicationException) failure;
+      assertEquals("conflict", exception.getMessage());
+      assertEquals(Locale.ENGLISH, exception.getLocale());
+      assertEquals(HttpStatusCodes.CONFLICT, exception.getHttpStatus());
+      assertEquals("C1", exception.getCode());
+    }
+  }
+
+  @Test
+  public void interruptedWaiterFails() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger executions = new AtomicInteger();
+    final RequestCoalescer.Execution execution = new RequestCoalescer.Execution() {
+      @Override
+      public ODataResponse execute() throws ODataException {
+        executions.incrementAndGet();
+        started.countDown();
+        await(release);
+        return ODataResponse.entity("abc".getBytes()).status(HttpStatusCodes.OK).build();
+      }
+    };
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<ODataResponse> first = executor.submit(new Callable<ODataResponse>() {
+        @Override
+        public ODataResponse call() throws Exception {
+          return RequestCoalescer.execute("interrupted", null, execution);
+        }
+      });
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+
+      Thread.currentThread().interrupt();
+      try {
+        RequestCoalescer.execute("interrupted", null, execution);
+        fail("Expected ODataException");
+      } catch (final ODataException e) {
+        assertTrue(e.getCause() instanceof InterruptedException);
+        assertTrue(Thread.interrupted());
+      }
+      assertEquals(1, executions.get());
+
+      release.countDown();
+      first.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<ODataResponse> executeConcurrently(final String key, final RequestCoalescer.Execution execution,
+      final CountDownLatch release) throws Exception {
+    return executeConcurrently(key, null, execution, release);
+  }
+
+  private List<ODataResponse> executeConcurrently(final String key, final String identity,
+      final RequestCoalescer.Execution execution, final CountDownLatch release) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+    try {
+      List<Future<ODataResponse>> futures = new ArrayList<Future<ODataResponse>>();
+      for (int i = 0; i < REQUESTS; i++) {
+        futures.add(executor.submit(new Callable<ODataResponse>() {
+          @Override
+          public ODataResponse call() throws Exception {
+            return RequestCoalescer.execute(key, identity, execution);
+          }
+        }));
+      }
+      // Give all requests the chance to join the first one before it completes.
+      Thread.sleep(200);
+      release.countDown();
+      List<ODataResponse> responses = new ArrayList<ODataResponse>();
+      for (final Future<ODataResponse> future : futures) {
+        try {
+          responses.add(future.get(10, TimeUnit.SECONDS));
+        } catch (final ExecutionException e) {
+          responses.add(null);
+          failures.add(e.getCause());
+        }
+      }
+      return responses;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.compression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.olingo.odata2.api.commons.HttpContentType;
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.junit.Test;
+
+public class ResponseCompressorTest extends BaseTest {
+
+  private static final String CONTENT = StringHelper.generateData(5000);
+
+  @Test
+  public void negotiate() {
+    assertNull(ResponseCompressor.negotiate(null));
+    assertNull(ResponseCompressor.negotiate("identity"));
+    assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("gzip, deflate"));
+    assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("deflate, gzip"));
+    assertEquals(ResponseCompressor.DEFLATE, ResponseCompressor.negotiate("gzip;q=0.5, deflate"));
+    assertEquals(ResponseCompressor.GZIP, ResponseCompressor.negotiate("*"));
+    assertEquals(ResponseCompressor.DEFLATE, ResponseCompressor.negotiate("deflate, *;q=0"));
+    assertNull(ResponseCompressor.negotiate("gzip;q=0"));
+  }
+
+  @Test
+  public void gzip() throws Exception {
+    final ODataResponse response = ResponseCompressor.compress(
+        createResponse(HttpContentType.APPLICATION_ATOM_XML_UTF8), "gzip", new ODataCompressionImpl());
+    assertEquals(ResponseCompressor.GZIP, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+    assertNull(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+
+    final byte[] compressed = write(response);
+    assertTrue(compressed.length < CONTENT.length());
+    assertEquals(CONTENT, StringHelper.inputStreamToString(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+  }
+
+  @Test
+  public void deflate() throws Exception {
+    final ODataResponse response = ResponseCompressor.compress(
+        ODataResponse.fromResponse(createResponse(HttpContentType.APPLICATION_JSON)).header(HttpHeaders.VARY, "Accept")
+            .build(),
+        "deflate", new ODataCompressionImpl());
+    assertEquals(ResponseCompressor.DEFLATE, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("Accept, " + HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+    assertEquals(CONTENT, StringHelper.inputStreamToString(
+        new InflaterInputStream(new ByteArrayInputStream(write(response)))));
+  }
+
+  @Test
+  public void eTag() throws Exception {
+    final ODataCompressionImpl compression = new ODataCompressionImpl();
+    final ODataResponse strong = ODataResponse.fromResponse(createResponse(HttpContentType.APPLICATION_JSON))
+        .eTag("\"1\"").build();
+    assertEquals("W/\"1\"", ResponseCompressor.compress(strong, "gzip", compression).getETag());
+    final ODataResponse weak = ODataResponse.fromResponse(createResponse(HttpContentType.APPLICATION_JSON))
+        .eTag("W/\"2\"").build();
+    assertEquals("W/\"2\"", ResponseCompressor.compress(weak, "gzip", compression).getETag());
+    assertNull(ResponseCompressor.compress(createResponse(HttpContentType.APPLICATION_JSON), "gzip", compression)
+        .getETag());
+
+    final ODataResponse notModified = ODataResponse.status(HttpStatusCodes.NOT_MODIFIED).eTag("\"1\"").build();
+    assertEquals("W/\"1\"", ResponseCompressor.compress(notModified, "gzip", compression).getETag());
+    assertSame(notModified, ResponseCompressor.compress(notModified, null, compression));
+    final ODataResponse uncompressed = ResponseCompressor.compress(strong, "gzip",
+        new ODataCompressionImpl(CONTENT.length() + 1));
+    assertEquals("\"1\"", uncompressed.getETag());
+  }
+
+  @Test
+  public void streamingContent() throws Exception {
+    final ODataResponse response = ResponseCompressor.compress(
+        ODataResponse.status(HttpStatusCodes.OK).contentHeader(HttpContentType.APPLICATION_JSON)
+            .entity(new ODataStreamingContent() {
+              @Override
+              public void write(final OutputStream output) throws IOException {
+                output.write(CONTENT.getBytes("UTF-8"));
+              }
+            }).build(),
+        "gzip", new ODataCompressionImpl());
+    // The pooled deflater is reused for the second write.
+    for (int i = 0; i < 2; i++) {
+      assertEquals(CONTENT,
+          StringHelper.inputStreamToString(new GZIPInputStream(new ByteArrayInputStream(write(response)))));
+    }
+  }
+
+  @Test
+  public void closeWithoutWrite() throws Exception {
+    final boolean[] closed = new boolean[1];
+    final ODataResponse original = ODataResponse.status(HttpStatusCodes.OK)
+        .contentHeader(HttpContentType.APPLICATION_JSON)
+        .entity(new ByteArrayInputStream(CONTENT.getBytes("UTF-8")) {
+          @Override
+          public void close() throws IOException {
+            closed[0] = true;
+            super.close();
+          }
+        }).build();
+    final ODataResponse response = ResponseCompressor.compress(original, "gzip", new ODataCompressionImpl());
+    assertEquals(ResponseCompressor.GZIP, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    response.close();
+    assertTrue(closed[0]);
+  }
+
+  @Test
+  public void belowMinimumSize() throws Exception {
+    final ODataResponse original = createResponse(HttpContentType.APPLICATION_XML);
+    final ODataResponse response = ResponseCompressor.compress(original, "gzip",
+        new ODataCompressionImpl(CONTENT.length() + 1));
+    assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(CONTENT, StringHelper.inputStreamToString((InputStream) response.getEntity()));
+  }
+
+  @Test
+  public void contentTypeNotConfigured() throws Exception {
+    final ODataCompressionImpl compression = new ODataCompressionImpl(0);
+    final ODataResponse image = createResponse("image/jpeg");
+    assertSame(image, ResponseCompressor.compress(image, "gzip", compression));
+    assertSame(image, ResponseCompressor.compress(image, "gzip", null));
+
+    compression.setMinimumSize("text/*", 0);
+    compression.setMinimumSize(HttpContentType.APPLICATION_JSON, -1);
+    assertEquals(0, compression.getMinimumSize("text/html; charset=utf-8"));
+    assertEquals(-1, compression.getMinimumSize(HttpContentType.APPLICATION_JSON));
+    assertEquals(0, compression.getMinimumSize(HttpContentType.APPLICATION_ATOM_XML_UTF8));
+  }
+
+  private static ODataResponse createResponse(final String contentType) throws Exception {
+    return ODataResponse.status(HttpStatusCodes.OK).contentHeader(contentType)
+        .entity(new ByteArrayInputStream(CONTENT.getBytes("UTF-8"))).build();
+  }
+
+  private static byte[] write(final ODataResponse response) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ((ODataStreamingContent) response.getEntity()).write(output);
+    return output.toByteArray();
+  }
+}
@@ -25,6 +25,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
@@ -51,6 +52,7 @@ import org.apache.olingo.odata2.api.ep.feed.ODataDeltaFeed;
 import org.apache.olingo.odata2.api.ep.feed.ODataFeed;
 import org.apache.olingo.odata2.api.processor.ODataErrorContext;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
 import org.apache.olingo.odata2.core.commons.ContentType;
 import org.apache.olingo.odata2.core.edm.EdmDateTimeOffset;
 import org.apache.olingo.odata2.core.ep.consumer.AbstractConsumerTest;
@@ -348,6 +350,28 @@ public class ProviderFacadeImplTest extends AbstractConsumerTest {
     assertEquals("{\"d\":{\"results\":[]}}", StringHelper.inputStreamToString((InputStream) result.getEntity()));
   }
 
+  @Test
+  public void writeFeedStreaming() throws Exception {
+    final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    final List<Map<String, Object>> data = new ArrayList<Map<String, Object>>();
+    final ODataResponse result =
+        new ProviderFacadeImpl().writeFeed(HttpContentType.APPLICATION_JSON, entitySet, data,
+            EntityProviderWriteProperties.serviceRoot(URI.create("http://root/")).streaming(true).build());
+    assertTrue(result.getEntity() instanceof ODataStreamingContent);
+
+    // the data are read only when the response is sent
+    Map<String, Object> properties = new HashMap<String, Object>();
+    properties.put("Id", "42");
+    data.add(properties);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ((ODataStreamingContent) result.getEntity()).write(output);
+    assertEquals("{\"d\":{\"results\":[{\"__metadata\":{\"id\":\"http://root/Teams('42')\","
+        + "\"uri\":\"http://root/Teams('42')\",\"type\":\"RefScenario.Team\"},"
+        + "\"Id\":\"42\",\"Name\":null,\"isScrumTeam\":null,"
+        + "\"nt_Employees\":{\"__deferred\":{\"uri\":\"http://root/Teams('42')/nt_Employees\"}}}]}}",
+        output.toString("UTF-8"));
+  }
+
   @Test
   public void writeEntry() throws Exception {
     final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
@@ -162,6 +162,30 @@ public class JsonFeedWithDeltaLinkProducerTest extends BaseTest {
 
   }
 
+  @Test
+  public void deletedEntriesAreOnlyIterated() throws Exception {
+    final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Rooms");
+
+    // e.g., deleted entries read from the database while they are written
+    ArrayList<Map<String, Object>> iteratedData = new ArrayList<Map<String, Object>>(deletedRoomData) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public int size() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean isEmpty() {
+        throw new UnsupportedOperationException();
+      }
+    };
+    final String json = writeRoomData(entitySet, new TombstoneCallbackImpl(iteratedData, null));
+
+    assertDeletedEntries(json);
+    assertTrue("Somthing wrong with closing brakets after deleted entries!", json.endsWith("}]}}"));
+  }
+
   private void assertDeletedEntries(final String json) {
     assertTrue("Somthing wrong with @odata.context!", json
         .contains("{\"@odata.context\":\"$metadata#Rooms/$deletedEntity\",\""));
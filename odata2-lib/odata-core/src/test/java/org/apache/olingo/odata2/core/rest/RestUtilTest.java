@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.olingo.odata2.core.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.olingo.odata2.api.commons.HttpHeaders;
+import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
+import org.apache.olingo.odata2.testutil.fit.BaseTest;
+import org.apache.olingo.odata2.testutil.helper.StringHelper;
+import org.junit.Test;
+
+public class RestUtilTest extends BaseTest {
+
+  @Test
+  public void streamingContent() throws Exception {
+    final ODataResponse odataResponse = ODataResponse.status(HttpStatusCodes.OK)
+        .contentHeader("text/plain")
+        .entity(new ODataStreamingContent() {
+          @Override
+          public void write(final OutputStream output) throws IOException {
+            output.write("streamed".getBytes("UTF-8"));
+          }
+        }).build();
+
+    final Response response = RestUtil.convertResponse(odataResponse);
+    assertEquals(HttpStatusCodes.OK.getStatusCode(), response.getStatus());
+    assertTrue(response.getEntity() instanceof StreamingOutput);
+    assertNull(response.getMetadata().getFirst(HttpHeaders.CONTENT_LENGTH));
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(output);
+    assertEquals("streamed", output.toString("UTF-8"));
+  }
+
+  @Test
+  public void streamingContentAsStream() throws Exception {
+    final ODataResponse odataResponse = ODataResponse.entity(new ODataStreamingContent() {
+      @Override
+      public void write(final OutputStream output) throws IOException {
+        output.write("buffered".getBytes("UTF-8"));
+      }
+    }).build();
+    assertEquals("buffered",
+        StringHelper.inputStreamToString(odataResponse.getEntityAsStream()));
+  }
+
+  @Test
+  public void omittedStreamingContentIsClosed() throws Exception {
+    final ClosableContent content = new ClosableContent();
+    final Response response = RestUtil.convertResponse(
+        ODataResponse.status(HttpStatusCodes.OK).entity(content).build(), true);
+    assertNull(response.getEntity());
+    assertTrue(content.closed);
+  }
+
+  static class ClosableContent implements ODataStreamingContent, Closeable {
+    boolean closed;
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+      output.write("streamed".getBytes("UTF-8"));
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -20,8 +20,10 @@ package org.apache.olingo.odata2.core.servlet;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.charset.Charset;
@@ -43,6 +45,7 @@ import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
 import org.apache.olingo.odata2.api.processor.ODataContext;
 import org.apache.olingo.odata2.api.processor.ODataProcessor;
 import org.apache.olingo.odata2.api.processor.ODataResponse;
+import org.apache.olingo.odata2.api.processor.ODataStreamingContent;
 import org.apache.olingo.odata2.core.ODataResponseImpl;
 import org.apache.olingo.odata2.core.rest.ODataServiceFactoryImpl;
 import org.junit.Test;
@@ -142,6 +145,59 @@ public class ODataServletTest {
     Mockito.verify(respMock).setContentLength(content.getBytes("utf-8").length);
   }
 
+  @Test
+  public void streamingContentResponse() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareServlet(servlet);
+
+    final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    Mockito.when(respMock.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(int i) throws IOException {
+        bout.write(i);
+      }
+    });
+
+    final ODataResponse response = ODataResponseImpl.status(HttpStatusCodes.OK).entity(new ODataStreamingContent() {
+      @Override
+      public void write(final OutputStream output) throws IOException {
+        output.write("SomeData".getBytes("utf-8"));
+      }
+    }).build();
+    servlet.createResponse(respMock, response);
+
+    Assert.assertEquals("SomeData", new String(bout.toByteArray(), "utf-8"));
+    // The length is unknown in advance, so the container has to use chunked transfer encoding.
+    Mockito.verify(respMock, Mockito.never()).setContentLength(Mockito.anyInt());
+  }
+
+  @Test
+  public void headRequestClosesStreamingContent() throws Exception {
+    ODataServlet servlet = new ODataServlet();
+    prepareServlet(servlet);
+
+    final ServletOutputStream out = Mockito.mock(ServletOutputStream.class);
+    Mockito.when(respMock.getOutputStream()).thenReturn(out);
+    final boolean[] closed = new boolean[1];
+    final ODataResponse response = ODataResponseImpl.status(HttpStatusCodes.OK).entity(new ClosableContent() {
+      @Override
+      public void write(final OutputStream output) throws IOException {
+        output.write("SomeData".getBytes("utf-8"));
+      }
+
+      @Override
+      public void close() {
+        closed[0] = true;
+      }
+    }).build();
+    servlet.createResponse(respMock, response, true);
+
+    Assert.assertTrue(closed[0]);
+    Mockito.verifyZeroInteractions(out);
+  }
+
+  private interface ClosableContent extends ODataStreamingContent, Closeable {}
+
   @Test
   public void testInputStreamResponse() throws Exception {
     ODataServlet servlet = new ODataServlet();
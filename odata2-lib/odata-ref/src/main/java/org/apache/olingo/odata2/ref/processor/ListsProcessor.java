@@ -33,6 +33,7 @@ import org.apache.olingo.odata2.api.ODataCallback;
 import org.apache.olingo.odata2.api.batch.BatchHandler;
 import org.apache.olingo.odata2.api.batch.BatchRequestPart;
 import org.apache.olingo.odata2.api.batch.BatchResponsePart;
+import org.apache.olingo.odata2.api.batch.ConcurrentBatchHandler;
 import org.apache.olingo.odata2.api.commons.HttpContentType;
 import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
 import org.apache.olingo.odata2.api.commons.InlineCount;
@@ -1635,12 +1636,18 @@ public class ListsProcessor extends ODataSingleProcessor {
   public ODataResponse executeBatch(final BatchHandler handler, final String contentType, final InputStream content)
       throws ODataException {
     ODataResponse batchResponse;
-    List<BatchResponsePart> batchResponseParts = new ArrayList<BatchResponsePart>();
     PathInfo pathInfo = getContext().getPathInfo();
     EntityProviderBatchProperties batchProperties = EntityProviderBatchProperties.init().pathInfo(pathInfo).build();
     List<BatchRequestPart> batchParts = EntityProvider.parseBatchRequest(contentType, content, batchProperties);
-    for (BatchRequestPart batchPart : batchParts) {
-      batchResponseParts.add(handler.handleBatchPart(batchPart));
+    List<BatchResponsePart> batchResponseParts;
+    if (handler instanceof ConcurrentBatchHandler) {
+      // The processor does not keep state between the query operations, so they may run concurrently.
+      batchResponseParts = ((ConcurrentBatchHandler) handler).handleBatchParts(batchParts);
+    } else {
+      batchResponseParts = new ArrayList<BatchResponsePart>();
+      for (BatchRequestPart batchPart : batchParts) {
+        batchResponseParts.add(handler.handleBatchPart(batchPart));
+      }
     }
     batchResponse = EntityProvider.writeBatchResponse(batchResponseParts);
     return batchResponse;